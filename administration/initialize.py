@@ -37,11 +37,14 @@ AUTH_URL = 'auth-service-url'
 SETTINGS = 'settings'
 SHOCKURL = 'shock_location'
 SHOCKUSER = 'shock_user'
+FILELOC = 'file_location'
+COLDLOC = 'cold_location'
 BACKEND = 'backend'
 TYPE_DB = 'type_db'
 BACKENDTOKEN = 'backend-token'
 SHOCK = 'shock'
 GFS = 'gridFS'
+FILE = 'file'
 
 REQPARAMS = [MOHOST, MODB]
 AUTHPARAMS = [MOUSER, MOPWD]
@@ -98,7 +101,7 @@ def getparams(params, cfg, dropall):
 
 
 def printDBsettings(settings):
-    for s in [TYPE_DB, BACKEND, SHOCKURL, SHOCKUSER]:
+    for s in [TYPE_DB, BACKEND, SHOCKURL, SHOCKUSER, FILELOC, COLDLOC]:
         print(s + '=' + str(settings.get(s, None)))
 
 
@@ -121,8 +124,19 @@ def _get_user(token, authurl):
     return ret.json()['user_id']
 
 
+def _get_abs_path(prompt):
+    path = None
+    while not path:
+        path = input(prompt)
+        if not os.path.isabs(path):
+            print('The path must be absolute: ' + path)
+            path = None
+    return path
+
+
 def configDB(wscfg, db):
-    settings = {SHOCKURL: None, SHOCKUSER: None, BACKEND: None}
+    settings = {SHOCKURL: None, SHOCKUSER: None, BACKEND: None,
+                FILELOC: None, COLDLOC: None}
     typedb = None
     while not typedb:
         typedb = input('Please enter the name of the mongodb type database: ')
@@ -131,7 +145,8 @@ def configDB(wscfg, db):
                   'workspace database name: ' + wscfg[MODB])
             typedb = None
     settings[TYPE_DB] = typedb
-    backend = getinput('Choose a backend: ', ('s', SHOCK), {'g': GFS})
+    backend = getinput('Choose a backend: ', ('s', SHOCK),
+                       {'g': GFS, 'f': FILE})
     if backend == 's':
         settings[BACKEND] = SHOCK
         shockurl = input('Please enter the url of the shock server: ')
@@ -154,8 +169,18 @@ def configDB(wscfg, db):
             printerr(shockurl + ' is not a shock server root url')
         settings[SHOCKURL] = j['url']
         settings[SHOCKUSER] = shockuser
+    elif backend == 'f':
+        settings[BACKEND] = FILE
+        settings[FILELOC] = _get_abs_path(
+            'Please enter the absolute path of the directory in which to ' +
+            'store files: ')
     else:
         settings[BACKEND] = GFS
+    cold = getinput('Move rarely read files to a compressed cold storage ' +
+                    'directory?', ('n', 'no'), {'y': 'yes'})
+    if cold == 'y':
+        settings[COLDLOC] = _get_abs_path(
+            'Please enter the absolute path of the cold storage directory: ')
 
     db[SETTINGS].update({}, settings, upsert=True)
     settings = db[SETTINGS].find_one()
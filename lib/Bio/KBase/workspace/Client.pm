@@ -3223,6 +3223,162 @@ ignored.
  
 
 
+=head2 get_object_history2
+
+  $history = $obj->get_object_history2($params)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$params is a Workspace.GetObjectHistory2Params
+$history is a reference to a list where each element is a Workspace.object_info
+GetObjectHistory2Params is a reference to a hash where the following keys are defined:
+	obj has a value which is a Workspace.ObjectIdentity
+	min_ver has a value which is a Workspace.obj_ver
+	max_ver has a value which is a Workspace.obj_ver
+	newest_first has a value which is a Workspace.boolean
+	limit has a value which is an int
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+boolean is an int
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+type_string is a string
+timestamp is a string
+username is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$params is a Workspace.GetObjectHistory2Params
+$history is a reference to a list where each element is a Workspace.object_info
+GetObjectHistory2Params is a reference to a hash where the following keys are defined:
+	obj has a value which is a Workspace.ObjectIdentity
+	min_ver has a value which is a Workspace.obj_ver
+	max_ver has a value which is a Workspace.obj_ver
+	newest_first has a value which is a Workspace.boolean
+	limit has a value which is an int
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+boolean is an int
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+type_string is a string
+timestamp is a string
+username is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+
+
+=end text
+
+=item Description
+
+Get a page of an object's history. To get the next page, set min_ver
+to one more than the last version returned, or, if newest_first is
+true, set max_ver to one less than the last version returned.
+
+=back
+
+=cut
+
+ sub get_object_history2
+{
+    my($self, @args) = @_;
+
+# Authentication: optional
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function get_object_history2 (received $n, expecting 1)");
+    }
+    {
+	my($params) = @args;
+
+	my @_bad_arguments;
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to get_object_history2:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'get_object_history2');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.get_object_history2",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'get_object_history2',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_object_history2",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'get_object_history2',
+				       );
+    }
+}
+ 
+
+
 =head2 list_referencing_objects
 
   $referrers = $obj->list_referencing_objects($object_ids)
@@ -3891,12 +4047,15 @@ ListWorkspaceInfoParams is a reference to a hash where the following keys are de
 	excludeGlobal has a value which is a Workspace.boolean
 	showDeleted has a value which is a Workspace.boolean
 	showOnlyDeleted has a value which is a Workspace.boolean
+	minWorkspaceID has a value which is a Workspace.ws_id
+	limit has a value which is an int
 permission is a string
 username is a string
 usermeta is a reference to a hash where the key is a string and the value is a string
 timestamp is a string
 epoch is an int
 boolean is an int
+ws_id is an int
 workspace_info is a reference to a list containing 9 items:
 	0: (id) a Workspace.ws_id
 	1: (workspace) a Workspace.ws_name
@@ -3907,7 +4066,6 @@ workspace_info is a reference to a list containing 9 items:
 	6: (globalread) a Workspace.permission
 	7: (lockstat) a Workspace.lock_status
 	8: (metadata) a Workspace.usermeta
-ws_id is an int
 ws_name is a string
 lock_status is a string
 
@@ -3930,12 +4088,15 @@ ListWorkspaceInfoParams is a reference to a hash where the following keys are de
 	excludeGlobal has a value which is a Workspace.boolean
 	showDeleted has a value which is a Workspace.boolean
 	showOnlyDeleted has a value which is a Workspace.boolean
+	minWorkspaceID has a value which is a Workspace.ws_id
+	limit has a value which is an int
 permission is a string
 username is a string
 usermeta is a reference to a hash where the key is a string and the value is a string
 timestamp is a string
 epoch is an int
 boolean is an int
+ws_id is an int
 workspace_info is a reference to a list containing 9 items:
 	0: (id) a Workspace.ws_id
 	1: (workspace) a Workspace.ws_name
@@ -3946,7 +4107,6 @@ workspace_info is a reference to a list containing 9 items:
 	6: (globalread) a Workspace.permission
 	7: (lockstat) a Workspace.lock_status
 	8: (metadata) a Workspace.usermeta
-ws_id is an int
 ws_name is a string
 lock_status is a string
 
@@ -5257,9 +5417,9 @@ Rename an object. User meta data is always returned as null.
  
 
 
-=head2 copy_object
+=head2 rename_objects
 
-  $copied = $obj->copy_object($params)
+  $renamed = $obj->rename_objects($objects)
 
 =over 4
 
@@ -5268,11 +5428,11 @@ Rename an object. User meta data is always returned as null.
 =begin html
 
 <pre>
-$params is a Workspace.CopyObjectParams
-$copied is a Workspace.object_info
-CopyObjectParams is a reference to a hash where the following keys are defined:
-	from has a value which is a Workspace.ObjectIdentity
-	to has a value which is a Workspace.ObjectIdentity
+$objects is a reference to a list where each element is a Workspace.RenameObjectParams
+$renamed is a reference to a list where each element is a Workspace.object_info
+RenameObjectParams is a reference to a hash where the following keys are defined:
+	obj has a value which is a Workspace.ObjectIdentity
+	new_name has a value which is a Workspace.obj_name
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -5309,11 +5469,11 @@ usermeta is a reference to a hash where the key is a string and the value is a s
 
 =begin text
 
-$params is a Workspace.CopyObjectParams
-$copied is a Workspace.object_info
-CopyObjectParams is a reference to a hash where the following keys are defined:
-	from has a value which is a Workspace.ObjectIdentity
-	to has a value which is a Workspace.ObjectIdentity
+$objects is a reference to a list where each element is a Workspace.RenameObjectParams
+$renamed is a reference to a list where each element is a Workspace.object_info
+RenameObjectParams is a reference to a hash where the following keys are defined:
+	obj has a value which is a Workspace.ObjectIdentity
+	new_name has a value which is a Workspace.obj_name
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -5349,13 +5509,18 @@ usermeta is a reference to a hash where the key is a string and the value is a s
 
 =item Description
 
-Copy an object. Returns the object_info for the newest version.
+Rename multiple objects. Each RenameObjectParams is interpreted in
+the same way as for rename_object. The objects are renamed in bulk and
+the renames are not atomic; if an error occurs some of the objects may
+have been renamed. Returns the object_info for each renamed object, in
+the same order as the input. At most 10000 objects may be renamed per
+call. User meta data is always returned as null.
 
 =back
 
 =cut
 
- sub copy_object
+ sub rename_objects
 {
     my($self, @args) = @_;
 
@@ -5364,48 +5529,48 @@ Copy an object. Returns the object_info for the newest version.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function copy_object (received $n, expecting 1)");
+							       "Invalid argument count for function rename_objects (received $n, expecting 1)");
     }
     {
-	my($params) = @args;
+	my($objects) = @args;
 
 	my @_bad_arguments;
-        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        (ref($objects) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$objects\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to copy_object:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to rename_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'copy_object');
+								   method_name => 'rename_objects');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.copy_object",
+	    method => "Workspace.rename_objects",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'copy_object',
+					       method_name => 'rename_objects',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
 	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method copy_object",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method rename_objects",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'copy_object',
+					    method_name => 'rename_objects',
 				       );
     }
 }
  
 
 
-=head2 revert_object
+=head2 copy_object
 
-  $reverted = $obj->revert_object($object)
+  $copied = $obj->copy_object($params)
 
 =over 4
 
@@ -5414,8 +5579,11 @@ Copy an object. Returns the object_info for the newest version.
 =begin html
 
 <pre>
-$object is a Workspace.ObjectIdentity
-$reverted is a Workspace.object_info
+$params is a Workspace.CopyObjectParams
+$copied is a Workspace.object_info
+CopyObjectParams is a reference to a hash where the following keys are defined:
+	from has a value which is a Workspace.ObjectIdentity
+	to has a value which is a Workspace.ObjectIdentity
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -5452,8 +5620,11 @@ usermeta is a reference to a hash where the key is a string and the value is a s
 
 =begin text
 
-$object is a Workspace.ObjectIdentity
-$reverted is a Workspace.object_info
+$params is a Workspace.CopyObjectParams
+$copied is a Workspace.object_info
+CopyObjectParams is a reference to a hash where the following keys are defined:
+	from has a value which is a Workspace.ObjectIdentity
+	to has a value which is a Workspace.ObjectIdentity
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -5489,16 +5660,13 @@ usermeta is a reference to a hash where the key is a string and the value is a s
 
 =item Description
 
-Revert an object.
-
-        The object specified in the ObjectIdentity is reverted to the version
-        specified in the ObjectIdentity.
+Copy an object. Returns the object_info for the newest version.
 
 =back
 
 =cut
 
- sub revert_object
+ sub copy_object
 {
     my($self, @args) = @_;
 
@@ -5507,48 +5675,48 @@ Revert an object.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function revert_object (received $n, expecting 1)");
+							       "Invalid argument count for function copy_object (received $n, expecting 1)");
     }
     {
-	my($object) = @args;
+	my($params) = @args;
 
 	my @_bad_arguments;
-        (ref($object) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"object\" (value was \"$object\")");
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to revert_object:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to copy_object:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'revert_object');
+								   method_name => 'copy_object');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.revert_object",
+	    method => "Workspace.copy_object",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'revert_object',
+					       method_name => 'copy_object',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
 	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method revert_object",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method copy_object",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'revert_object',
+					    method_name => 'copy_object',
 				       );
     }
 }
  
 
 
-=head2 get_names_by_prefix
+=head2 copy_objects
 
-  $res = $obj->get_names_by_prefix($params)
+  $copied = $obj->copy_objects($objects)
 
 =over 4
 
@@ -5557,21 +5725,40 @@ Revert an object.
 =begin html
 
 <pre>
-$params is a Workspace.GetNamesByPrefixParams
-$res is a Workspace.GetNamesByPrefixResults
-GetNamesByPrefixParams is a reference to a hash where the following keys are defined:
-	workspaces has a value which is a reference to a list where each element is a Workspace.WorkspaceIdentity
-	prefix has a value which is a string
-	includeHidden has a value which is a Workspace.boolean
-WorkspaceIdentity is a reference to a hash where the following keys are defined:
+$objects is a reference to a list where each element is a Workspace.CopyObjectParams
+$copied is a reference to a list where each element is a Workspace.object_info
+CopyObjectParams is a reference to a hash where the following keys are defined:
+	from has a value which is a Workspace.ObjectIdentity
+	to has a value which is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
-	id has a value which is a Workspace.ws_id
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
 ws_name is a string
 ws_id is an int
-boolean is an int
-GetNamesByPrefixResults is a reference to a hash where the following keys are defined:
-	names has a value which is a reference to a list where each element is a reference to a list where each element is a Workspace.obj_name
 obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+type_string is a string
+timestamp is a string
+username is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
 
 </pre>
 
@@ -5579,10 +5766,262 @@ obj_name is a string
 
 =begin text
 
-$params is a Workspace.GetNamesByPrefixParams
-$res is a Workspace.GetNamesByPrefixResults
-GetNamesByPrefixParams is a reference to a hash where the following keys are defined:
-	workspaces has a value which is a reference to a list where each element is a Workspace.WorkspaceIdentity
+$objects is a reference to a list where each element is a Workspace.CopyObjectParams
+$copied is a reference to a list where each element is a Workspace.object_info
+CopyObjectParams is a reference to a hash where the following keys are defined:
+	from has a value which is a Workspace.ObjectIdentity
+	to has a value which is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+type_string is a string
+timestamp is a string
+username is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+
+
+=end text
+
+=item Description
+
+Copy multiple objects. Each CopyObjectParams is interpreted in the
+same way as for copy_object, and each copy must have a distinct
+destination. Returns the object_info for the newest version of each
+copy, in the same order as the input. At most 10000 objects may be
+copied per call.
+
+=back
+
+=cut
+
+ sub copy_objects
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function copy_objects (received $n, expecting 1)");
+    }
+    {
+	my($objects) = @args;
+
+	my @_bad_arguments;
+        (ref($objects) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$objects\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to copy_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'copy_objects');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.copy_objects",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'copy_objects',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method copy_objects",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'copy_objects',
+				       );
+    }
+}
+ 
+
+
+=head2 revert_object
+
+  $reverted = $obj->revert_object($object)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$object is a Workspace.ObjectIdentity
+$reverted is a Workspace.object_info
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+type_string is a string
+timestamp is a string
+username is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$object is a Workspace.ObjectIdentity
+$reverted is a Workspace.object_info
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+type_string is a string
+timestamp is a string
+username is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+
+
+=end text
+
+=item Description
+
+Revert an object.
+
+        The object specified in the ObjectIdentity is reverted to the version
+        specified in the ObjectIdentity.
+
+=back
+
+=cut
+
+ sub revert_object
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function revert_object (received $n, expecting 1)");
+    }
+    {
+	my($object) = @args;
+
+	my @_bad_arguments;
+        (ref($object) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"object\" (value was \"$object\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to revert_object:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'revert_object');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.revert_object",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'revert_object',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method revert_object",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'revert_object',
+				       );
+    }
+}
+ 
+
+
+=head2 get_names_by_prefix
+
+  $res = $obj->get_names_by_prefix($params)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$params is a Workspace.GetNamesByPrefixParams
+$res is a Workspace.GetNamesByPrefixResults
+GetNamesByPrefixParams is a reference to a hash where the following keys are defined:
+	workspaces has a value which is a reference to a list where each element is a Workspace.WorkspaceIdentity
 	prefix has a value which is a string
 	includeHidden has a value which is a Workspace.boolean
 WorkspaceIdentity is a reference to a hash where the following keys are defined:
@@ -5590,77 +6029,421 @@ WorkspaceIdentity is a reference to a hash where the following keys are defined:
 	id has a value which is a Workspace.ws_id
 ws_name is a string
 ws_id is an int
-boolean is an int
-GetNamesByPrefixResults is a reference to a hash where the following keys are defined:
-	names has a value which is a reference to a list where each element is a reference to a list where each element is a Workspace.obj_name
+boolean is an int
+GetNamesByPrefixResults is a reference to a hash where the following keys are defined:
+	names has a value which is a reference to a list where each element is a reference to a list where each element is a Workspace.obj_name
+obj_name is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$params is a Workspace.GetNamesByPrefixParams
+$res is a Workspace.GetNamesByPrefixResults
+GetNamesByPrefixParams is a reference to a hash where the following keys are defined:
+	workspaces has a value which is a reference to a list where each element is a Workspace.WorkspaceIdentity
+	prefix has a value which is a string
+	includeHidden has a value which is a Workspace.boolean
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	id has a value which is a Workspace.ws_id
+ws_name is a string
+ws_id is an int
+boolean is an int
+GetNamesByPrefixResults is a reference to a hash where the following keys are defined:
+	names has a value which is a reference to a list where each element is a reference to a list where each element is a Workspace.obj_name
+obj_name is a string
+
+
+=end text
+
+=item Description
+
+Get object names matching a prefix. At most 1000 names are returned.
+No particular ordering is guaranteed, nor is which names will be
+returned if more than 1000 are found.
+
+This function is intended for use as an autocomplete helper function.
+
+=back
+
+=cut
+
+ sub get_names_by_prefix
+{
+    my($self, @args) = @_;
+
+# Authentication: optional
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function get_names_by_prefix (received $n, expecting 1)");
+    }
+    {
+	my($params) = @args;
+
+	my @_bad_arguments;
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to get_names_by_prefix:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'get_names_by_prefix');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.get_names_by_prefix",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'get_names_by_prefix',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_names_by_prefix",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'get_names_by_prefix',
+				       );
+    }
+}
+ 
+
+
+=head2 hide_objects
+
+  $obj->hide_objects($object_ids)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+
+
+=end text
+
+=item Description
+
+Hide objects. All versions of an object are hidden, regardless of
+the version specified in the ObjectIdentity. Hidden objects do not
+appear in the list_objects method.
+
+=back
+
+=cut
+
+ sub hide_objects
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function hide_objects (received $n, expecting 1)");
+    }
+    {
+	my($object_ids) = @args;
+
+	my @_bad_arguments;
+        (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to hide_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'hide_objects');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.hide_objects",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'hide_objects',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return;
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method hide_objects",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'hide_objects',
+				       );
+    }
+}
+ 
+
+
+=head2 unhide_objects
+
+  $obj->unhide_objects($object_ids)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
 obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
 
 
 =end text
 
 =item Description
 
-Get object names matching a prefix. At most 1000 names are returned.
-No particular ordering is guaranteed, nor is which names will be
-returned if more than 1000 are found.
+Unhide objects. All versions of an object are unhidden, regardless
+of the version specified in the ObjectIdentity.
 
-This function is intended for use as an autocomplete helper function.
+=back
+
+=cut
+
+ sub unhide_objects
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function unhide_objects (received $n, expecting 1)");
+    }
+    {
+	my($object_ids) = @args;
+
+	my @_bad_arguments;
+        (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to unhide_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'unhide_objects');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.unhide_objects",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'unhide_objects',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return;
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method unhide_objects",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'unhide_objects',
+				       );
+    }
+}
+ 
+
+
+=head2 delete_objects
+
+  $obj->delete_objects($object_ids)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+ObjectIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	wsid has a value which is a Workspace.ws_id
+	name has a value which is a Workspace.obj_name
+	objid has a value which is a Workspace.obj_id
+	ver has a value which is a Workspace.obj_ver
+	ref has a value which is a Workspace.obj_ref
+ws_name is a string
+ws_id is an int
+obj_name is a string
+obj_id is an int
+obj_ver is an int
+obj_ref is a string
+
+
+=end text
+
+=item Description
+
+Delete objects. All versions of an object are deleted, regardless of
+the version specified in the ObjectIdentity.
 
 =back
 
 =cut
 
- sub get_names_by_prefix
+ sub delete_objects
 {
     my($self, @args) = @_;
 
-# Authentication: optional
+# Authentication: required
 
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function get_names_by_prefix (received $n, expecting 1)");
+							       "Invalid argument count for function delete_objects (received $n, expecting 1)");
     }
     {
-	my($params) = @args;
+	my($object_ids) = @args;
 
 	my @_bad_arguments;
-        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to get_names_by_prefix:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to delete_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'get_names_by_prefix');
+								   method_name => 'delete_objects');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.get_names_by_prefix",
+	    method => "Workspace.delete_objects",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'get_names_by_prefix',
+					       method_name => 'delete_objects',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
-	    return wantarray ? @{$result->result} : $result->result->[0];
+	    return;
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_names_by_prefix",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method delete_objects",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'get_names_by_prefix',
+					    method_name => 'delete_objects',
 				       );
     }
 }
  
 
 
-=head2 hide_objects
+=head2 undelete_objects
 
-  $obj->hide_objects($object_ids)
+  $obj->undelete_objects($object_ids)
 
 =over 4
 
@@ -5710,15 +6493,15 @@ obj_ref is a string
 
 =item Description
 
-Hide objects. All versions of an object are hidden, regardless of
-the version specified in the ObjectIdentity. Hidden objects do not
-appear in the list_objects method.
+Undelete objects. All versions of an object are undeleted, regardless
+of the version specified in the ObjectIdentity. If an object is not
+deleted, no error is thrown.
 
 =back
 
 =cut
 
- sub hide_objects
+ sub undelete_objects
 {
     my($self, @args) = @_;
 
@@ -5727,7 +6510,7 @@ appear in the list_objects method.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function hide_objects (received $n, expecting 1)");
+							       "Invalid argument count for function undelete_objects (received $n, expecting 1)");
     }
     {
 	my($object_ids) = @args;
@@ -5735,40 +6518,130 @@ appear in the list_objects method.
 	my @_bad_arguments;
         (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to hide_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to undelete_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'hide_objects');
+								   method_name => 'undelete_objects');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.hide_objects",
+	    method => "Workspace.undelete_objects",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'hide_objects',
+					       method_name => 'undelete_objects',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return;
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method undelete_objects",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'undelete_objects',
+				       );
+    }
+}
+ 
+
+
+=head2 delete_workspace
+
+  $obj->delete_workspace($wsi)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$wsi is a Workspace.WorkspaceIdentity
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	id has a value which is a Workspace.ws_id
+ws_name is a string
+ws_id is an int
+
+</pre>
+
+=end html
+
+=begin text
+
+$wsi is a Workspace.WorkspaceIdentity
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	id has a value which is a Workspace.ws_id
+ws_name is a string
+ws_id is an int
+
+
+=end text
+
+=item Description
+
+Delete a workspace. All objects contained in the workspace are deleted.
+
+=back
+
+=cut
+
+ sub delete_workspace
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function delete_workspace (received $n, expecting 1)");
+    }
+    {
+	my($wsi) = @args;
+
+	my @_bad_arguments;
+        (ref($wsi) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"wsi\" (value was \"$wsi\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to delete_workspace:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'delete_workspace');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.delete_workspace",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'delete_workspace',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
 	    return;
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method hide_objects",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method delete_workspace",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'hide_objects',
+					    method_name => 'delete_workspace',
 				       );
     }
 }
  
 
 
-=head2 unhide_objects
+=head2 undelete_workspace
 
-  $obj->unhide_objects($object_ids)
+  $obj->undelete_workspace($wsi)
 
 =over 4
 
@@ -5777,20 +6650,12 @@ appear in the list_objects method.
 =begin html
 
 <pre>
-$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
-ObjectIdentity is a reference to a hash where the following keys are defined:
+$wsi is a Workspace.WorkspaceIdentity
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
-	wsid has a value which is a Workspace.ws_id
-	name has a value which is a Workspace.obj_name
-	objid has a value which is a Workspace.obj_id
-	ver has a value which is a Workspace.obj_ver
-	ref has a value which is a Workspace.obj_ref
+	id has a value which is a Workspace.ws_id
 ws_name is a string
 ws_id is an int
-obj_name is a string
-obj_id is an int
-obj_ver is an int
-obj_ref is a string
 
 </pre>
 
@@ -5798,34 +6663,27 @@ obj_ref is a string
 
 =begin text
 
-$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
-ObjectIdentity is a reference to a hash where the following keys are defined:
+$wsi is a Workspace.WorkspaceIdentity
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
-	wsid has a value which is a Workspace.ws_id
-	name has a value which is a Workspace.obj_name
-	objid has a value which is a Workspace.obj_id
-	ver has a value which is a Workspace.obj_ver
-	ref has a value which is a Workspace.obj_ref
+	id has a value which is a Workspace.ws_id
 ws_name is a string
 ws_id is an int
-obj_name is a string
-obj_id is an int
-obj_ver is an int
-obj_ref is a string
 
 
 =end text
 
 =item Description
 
-Unhide objects. All versions of an object are unhidden, regardless
-of the version specified in the ObjectIdentity.
+Undelete a workspace. All objects contained in the workspace are
+undeleted, regardless of their state at the time the workspace was
+deleted.
 
 =back
 
 =cut
 
- sub unhide_objects
+ sub undelete_workspace
 {
     my($self, @args) = @_;
 
@@ -5834,48 +6692,48 @@ of the version specified in the ObjectIdentity.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function unhide_objects (received $n, expecting 1)");
+							       "Invalid argument count for function undelete_workspace (received $n, expecting 1)");
     }
     {
-	my($object_ids) = @args;
+	my($wsi) = @args;
 
 	my @_bad_arguments;
-        (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
+        (ref($wsi) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"wsi\" (value was \"$wsi\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to unhide_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to undelete_workspace:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'unhide_objects');
+								   method_name => 'undelete_workspace');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.unhide_objects",
+	    method => "Workspace.undelete_workspace",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'unhide_objects',
+					       method_name => 'undelete_workspace',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
 	    return;
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method unhide_objects",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method undelete_workspace",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'unhide_objects',
+					    method_name => 'undelete_workspace',
 				       );
     }
 }
  
 
 
-=head2 delete_objects
+=head2 clone_workspace_async
 
-  $obj->delete_objects($object_ids)
+  $job = $obj->clone_workspace_async($params)
 
 =over 4
 
@@ -5884,7 +6742,22 @@ of the version specified in the ObjectIdentity.
 =begin html
 
 <pre>
-$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+$params is a Workspace.CloneWorkspaceParams
+$job is a Workspace.JobInfo
+CloneWorkspaceParams is a reference to a hash where the following keys are defined:
+	wsi has a value which is a Workspace.WorkspaceIdentity
+	workspace has a value which is a Workspace.ws_name
+	globalread has a value which is a Workspace.permission
+	description has a value which is a string
+	meta has a value which is a Workspace.usermeta
+	exclude has a value which is a reference to a list where each element is a Workspace.ObjectIdentity
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	id has a value which is a Workspace.ws_id
+ws_name is a string
+ws_id is an int
+permission is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -5892,12 +6765,23 @@ ObjectIdentity is a reference to a hash where the following keys are defined:
 	objid has a value which is a Workspace.obj_id
 	ver has a value which is a Workspace.obj_ver
 	ref has a value which is a Workspace.obj_ref
-ws_name is a string
-ws_id is an int
 obj_name is a string
 obj_id is an int
 obj_ver is an int
 obj_ref is a string
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+job_id is a string
+username is a string
+timestamp is a string
 
 </pre>
 
@@ -5905,7 +6789,22 @@ obj_ref is a string
 
 =begin text
 
-$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+$params is a Workspace.CloneWorkspaceParams
+$job is a Workspace.JobInfo
+CloneWorkspaceParams is a reference to a hash where the following keys are defined:
+	wsi has a value which is a Workspace.WorkspaceIdentity
+	workspace has a value which is a Workspace.ws_name
+	globalread has a value which is a Workspace.permission
+	description has a value which is a string
+	meta has a value which is a Workspace.usermeta
+	exclude has a value which is a reference to a list where each element is a Workspace.ObjectIdentity
+WorkspaceIdentity is a reference to a hash where the following keys are defined:
+	workspace has a value which is a Workspace.ws_name
+	id has a value which is a Workspace.ws_id
+ws_name is a string
+ws_id is an int
+permission is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -5913,26 +6812,38 @@ ObjectIdentity is a reference to a hash where the following keys are defined:
 	objid has a value which is a Workspace.obj_id
 	ver has a value which is a Workspace.obj_ver
 	ref has a value which is a Workspace.obj_ref
-ws_name is a string
-ws_id is an int
 obj_name is a string
 obj_id is an int
 obj_ver is an int
 obj_ref is a string
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+job_id is a string
+username is a string
+timestamp is a string
 
 
 =end text
 
 =item Description
 
-Delete objects. All versions of an object are deleted, regardless of
-the version specified in the ObjectIdentity.
+Clone a workspace in the background. The parameters are checked and
+the job is queued immediately; poll get_job_info until the job
+finishes to get the workspace_info of the new workspace.
 
 =back
 
 =cut
 
- sub delete_objects
+ sub clone_workspace_async
 {
     my($self, @args) = @_;
 
@@ -5941,48 +6852,48 @@ the version specified in the ObjectIdentity.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function delete_objects (received $n, expecting 1)");
+							       "Invalid argument count for function clone_workspace_async (received $n, expecting 1)");
     }
     {
-	my($object_ids) = @args;
+	my($params) = @args;
 
 	my @_bad_arguments;
-        (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to delete_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to clone_workspace_async:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'delete_objects');
+								   method_name => 'clone_workspace_async');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.delete_objects",
+	    method => "Workspace.clone_workspace_async",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'delete_objects',
+					       method_name => 'clone_workspace_async',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
-	    return;
+	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method delete_objects",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method clone_workspace_async",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'delete_objects',
+					    method_name => 'clone_workspace_async',
 				       );
     }
 }
  
 
 
-=head2 undelete_objects
+=head2 copy_objects_async
 
-  $obj->undelete_objects($object_ids)
+  $job = $obj->copy_objects_async($objects)
 
 =over 4
 
@@ -5991,7 +6902,11 @@ the version specified in the ObjectIdentity.
 =begin html
 
 <pre>
-$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+$objects is a reference to a list where each element is a Workspace.CopyObjectParams
+$job is a Workspace.JobInfo
+CopyObjectParams is a reference to a hash where the following keys are defined:
+	from has a value which is a Workspace.ObjectIdentity
+	to has a value which is a Workspace.ObjectIdentity
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -6005,14 +6920,30 @@ obj_name is a string
 obj_id is an int
 obj_ver is an int
 obj_ref is a string
-
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+job_id is a string
+username is a string
+timestamp is a string
 </pre>
 
 =end html
 
 =begin text
 
-$object_ids is a reference to a list where each element is a Workspace.ObjectIdentity
+$objects is a reference to a list where each element is a Workspace.CopyObjectParams
+$job is a Workspace.JobInfo
+CopyObjectParams is a reference to a hash where the following keys are defined:
+	from has a value which is a Workspace.ObjectIdentity
+	to has a value which is a Workspace.ObjectIdentity
 ObjectIdentity is a reference to a hash where the following keys are defined:
 	workspace has a value which is a Workspace.ws_name
 	wsid has a value which is a Workspace.ws_id
@@ -6026,21 +6957,34 @@ obj_name is a string
 obj_id is an int
 obj_ver is an int
 obj_ref is a string
-
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+job_id is a string
+username is a string
+timestamp is a string
 
 =end text
 
 =item Description
 
-Undelete objects. All versions of an object are undeleted, regardless
-of the version specified in the ObjectIdentity. If an object is not
-deleted, no error is thrown.
+Copy multiple objects in the background. The objects are interpreted
+in the same way as for copy_objects. The parameters are checked and
+the job is queued immediately; poll get_job_info until the job
+finishes to get the object_info for the copies.
 
 =back
 
 =cut
 
- sub undelete_objects
+ sub copy_objects_async
 {
     my($self, @args) = @_;
 
@@ -6049,48 +6993,48 @@ deleted, no error is thrown.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function undelete_objects (received $n, expecting 1)");
+							       "Invalid argument count for function copy_objects_async (received $n, expecting 1)");
     }
     {
-	my($object_ids) = @args;
+	my($objects) = @args;
 
 	my @_bad_arguments;
-        (ref($object_ids) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"object_ids\" (value was \"$object_ids\")");
+        (ref($objects) eq 'ARRAY') or push(@_bad_arguments, "Invalid type for argument 1 \"objects\" (value was \"$objects\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to undelete_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to copy_objects_async:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'undelete_objects');
+								   method_name => 'copy_objects_async');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.undelete_objects",
+	    method => "Workspace.copy_objects_async",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'undelete_objects',
+					       method_name => 'copy_objects_async',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
-	    return;
+	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method undelete_objects",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method copy_objects_async",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'undelete_objects',
+					    method_name => 'copy_objects_async',
 				       );
     }
 }
  
 
 
-=head2 delete_workspace
+=head2 get_job_info
 
-  $obj->delete_workspace($wsi)
+  $job = $obj->get_job_info($id)
 
 =over 4
 
@@ -6099,12 +7043,21 @@ deleted, no error is thrown.
 =begin html
 
 <pre>
-$wsi is a Workspace.WorkspaceIdentity
-WorkspaceIdentity is a reference to a hash where the following keys are defined:
-	workspace has a value which is a Workspace.ws_name
-	id has a value which is a Workspace.ws_id
-ws_name is a string
-ws_id is an int
+$id is a Workspace.job_id
+$job is a Workspace.JobInfo
+job_id is a string
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+username is a string
+timestamp is a string
 
 </pre>
 
@@ -6112,25 +7065,34 @@ ws_id is an int
 
 =begin text
 
-$wsi is a Workspace.WorkspaceIdentity
-WorkspaceIdentity is a reference to a hash where the following keys are defined:
-	workspace has a value which is a Workspace.ws_name
-	id has a value which is a Workspace.ws_id
-ws_name is a string
-ws_id is an int
+$id is a Workspace.job_id
+$job is a Workspace.JobInfo
+job_id is a string
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+username is a string
+timestamp is a string
 
 
 =end text
 
 =item Description
 
-Delete a workspace. All objects contained in the workspace are deleted.
+Get information about a background job submitted by the user.
 
 =back
 
 =cut
 
- sub delete_workspace
+ sub get_job_info
 {
     my($self, @args) = @_;
 
@@ -6139,48 +7101,48 @@ Delete a workspace. All objects contained in the workspace are deleted.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function delete_workspace (received $n, expecting 1)");
+							       "Invalid argument count for function get_job_info (received $n, expecting 1)");
     }
     {
-	my($wsi) = @args;
+	my($id) = @args;
 
 	my @_bad_arguments;
-        (ref($wsi) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"wsi\" (value was \"$wsi\")");
+        (!ref($id)) or push(@_bad_arguments, "Invalid type for argument 1 \"id\" (value was \"$id\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to delete_workspace:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to get_job_info:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'delete_workspace');
+								   method_name => 'get_job_info');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.delete_workspace",
+	    method => "Workspace.get_job_info",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'delete_workspace',
+					       method_name => 'get_job_info',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
-	    return;
+	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method delete_workspace",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_job_info",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'delete_workspace',
+					    method_name => 'get_job_info',
 				       );
     }
 }
  
 
 
-=head2 undelete_workspace
+=head2 cancel_job
 
-  $obj->undelete_workspace($wsi)
+  $job = $obj->cancel_job($id)
 
 =over 4
 
@@ -6189,12 +7151,21 @@ Delete a workspace. All objects contained in the workspace are deleted.
 =begin html
 
 <pre>
-$wsi is a Workspace.WorkspaceIdentity
-WorkspaceIdentity is a reference to a hash where the following keys are defined:
-	workspace has a value which is a Workspace.ws_name
-	id has a value which is a Workspace.ws_id
-ws_name is a string
-ws_id is an int
+$id is a Workspace.job_id
+$job is a Workspace.JobInfo
+job_id is a string
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+username is a string
+timestamp is a string
 
 </pre>
 
@@ -6202,27 +7173,35 @@ ws_id is an int
 
 =begin text
 
-$wsi is a Workspace.WorkspaceIdentity
-WorkspaceIdentity is a reference to a hash where the following keys are defined:
-	workspace has a value which is a Workspace.ws_name
-	id has a value which is a Workspace.ws_id
-ws_name is a string
-ws_id is an int
+$id is a Workspace.job_id
+$job is a Workspace.JobInfo
+job_id is a string
+JobInfo is a reference to a hash where the following keys are defined:
+	id has a value which is a Workspace.job_id
+	type has a value which is a string
+	user has a value which is a Workspace.username
+	state has a value which is a string
+	submitted has a value which is a Workspace.timestamp
+	started has a value which is a Workspace.timestamp
+	finished has a value which is a Workspace.timestamp
+	result has a value which is an UnspecifiedObject, which can hold any non-null object
+	error has a value which is a string
+username is a string
+timestamp is a string
 
 
 =end text
 
 =item Description
 
-Undelete a workspace. All objects contained in the workspace are
-undeleted, regardless of their state at the time the workspace was
-deleted.
+Cancel a queued background job submitted by the user. Jobs that are
+running cannot be canceled. Canceling a finished job has no effect.
 
 =back
 
 =cut
 
- sub undelete_workspace
+ sub cancel_job
 {
     my($self, @args) = @_;
 
@@ -6231,39 +7210,39 @@ deleted.
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function undelete_workspace (received $n, expecting 1)");
+							       "Invalid argument count for function cancel_job (received $n, expecting 1)");
     }
     {
-	my($wsi) = @args;
+	my($id) = @args;
 
 	my @_bad_arguments;
-        (ref($wsi) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"wsi\" (value was \"$wsi\")");
+        (!ref($id)) or push(@_bad_arguments, "Invalid type for argument 1 \"id\" (value was \"$id\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to undelete_workspace:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to cancel_job:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'undelete_workspace');
+								   method_name => 'cancel_job');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "Workspace.undelete_workspace",
+	    method => "Workspace.cancel_job",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'undelete_workspace',
+					       method_name => 'cancel_job',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
-	    return;
+	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method undelete_workspace",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method cancel_job",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'undelete_workspace',
+					    method_name => 'cancel_job',
 				       );
     }
 }
@@ -10617,6 +11596,61 @@ data has a value which is a reference to a list where each element is a Workspac
 
 
 
+=head2 GetObjectHistory2Params
+
+=over 4
+
+
+
+=item Description
+
+Input parameters for the get_object_history2 function.
+
+        Required parameters:
+        ObjectIdentity obj - the object for which to return the version
+                history. The version, if any, is ignored.
+                
+        Optional parameters:
+        obj_ver min_ver - the earliest version to return, inclusive.
+        obj_ver max_ver - the latest version to return, inclusive.
+        boolean newest_first - return versions from the newest to the
+                oldest rather than from the oldest to the newest. Default false.
+        int limit - the maximum number of versions to return. If the limit
+                is less than 1 or greater than 10000, it is set to 10000.
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+obj has a value which is a Workspace.ObjectIdentity
+min_ver has a value which is a Workspace.obj_ver
+max_ver has a value which is a Workspace.obj_ver
+newest_first has a value which is a Workspace.boolean
+limit has a value which is an int
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+obj has a value which is a Workspace.ObjectIdentity
+min_ver has a value which is a Workspace.obj_ver
+max_ver has a value which is a Workspace.obj_ver
+newest_first has a value which is a Workspace.boolean
+limit has a value which is an int
+
+
+=end text
+
+=back
+
+
+
 =head2 list_workspaces_params
 
 =over 4
@@ -10698,6 +11732,15 @@ boolean showDeleted - show deleted workspaces that are owned by the
         user.
 boolean showOnlyDeleted - only show deleted workspaces that are owned
         by the user.
+ws_id minWorkspaceID - only return workspaces with an id greater or
+        equal to this value.
+int limit - limit the output to X workspaces. Limit values < 1 are
+        treated as no limit.
+
+If either minWorkspaceID or limit is supplied, the workspaces are
+returned in ascending order of their ids. To retrieve the next page of
+results, set minWorkspaceID to one more than the id of the last
+workspace returned.
 
 
 =item Definition
@@ -10716,6 +11759,8 @@ before_epoch has a value which is a Workspace.epoch
 excludeGlobal has a value which is a Workspace.boolean
 showDeleted has a value which is a Workspace.boolean
 showOnlyDeleted has a value which is a Workspace.boolean
+minWorkspaceID has a value which is a Workspace.ws_id
+limit has a value which is an int
 
 </pre>
 
@@ -10734,6 +11779,8 @@ before_epoch has a value which is a Workspace.epoch
 excludeGlobal has a value which is a Workspace.boolean
 showDeleted has a value which is a Workspace.boolean
 showOnlyDeleted has a value which is a Workspace.boolean
+minWorkspaceID has a value which is a Workspace.ws_id
+limit has a value which is an int
 
 
 =end text
@@ -2364,6 +2364,105 @@ class Workspace(object):
             'Workspace.get_object_history',
             [object], self._service_ver, context)
 
+    def get_object_history2(self, params, context=None):
+        """
+        Get a page of an object's history. To get the next page, set min_ver
+        to one more than the last version returned, or, if newest_first is
+        true, set max_ver to one less than the last version returned.
+        :param params: instance of type "GetObjectHistory2Params" (Input
+           parameters for the get_object_history2 function. Required
+           parameters: ObjectIdentity obj - the object for which to return the
+           version history. The version, if any, is ignored. Optional
+           parameters: obj_ver min_ver - the earliest version to return,
+           inclusive. obj_ver max_ver - the latest version to return,
+           inclusive. boolean newest_first - return versions from the newest
+           to the oldest rather than from the oldest to the newest. Default
+           false. int limit - the maximum number of versions to return. If the
+           limit is less than 1 or greater than 10000, it is set to 10000.) ->
+           structure: parameter "obj" of type "ObjectIdentity" (An object
+           identifier. Select an object by either: One, and only one, of the
+           numerical id or name of the workspace. ws_id wsid - the numerical
+           ID of the workspace. ws_name workspace - the name of the workspace.
+           AND One, and only one, of the numerical id or name of the object.
+           obj_id objid- the numerical ID of the object. obj_name name - name
+           of the object. OPTIONALLY obj_ver ver - the version of the object.
+           OR an object reference string: obj_ref ref - an object reference
+           string.) -> structure: parameter "workspace" of type "ws_name" (A
+           string used as a name for a workspace. Any string consisting of
+           alphanumeric characters and "_", ".", or "-" that is not an integer
+           is acceptable. The name may optionally be prefixed with the
+           workspace owner's user name and a colon, e.g.
+           kbasetest:my_workspace.), parameter "wsid" of type "ws_id" (The
+           unique, permanent numerical ID of a workspace.), parameter "name"
+           of type "obj_name" (A string used as a name for an object. Any
+           string consisting of alphanumeric characters and the characters
+           |._- that is not an integer is acceptable.), parameter "objid" of
+           type "obj_id" (The unique, permanent numerical ID of an object.),
+           parameter "ver" of type "obj_ver" (An object version. The version
+           of the object, starting at 1.), parameter "ref" of type "obj_ref"
+           (A string that uniquely identifies an object in the workspace
+           service. The format is [ws_name or id]/[obj_name or id]/[obj_ver].
+           For example, MyFirstWorkspace/MyFirstObject/3 would identify the
+           third version of an object called MyFirstObject in the workspace
+           called MyFirstWorkspace. 42/Panic/1 would identify the first
+           version of the object name Panic in workspace with id 42. Towel/1/6
+           would identify the 6th version of the object with id 1 in the Towel
+           workspace.If the version number is omitted, the latest version of
+           the object is assumed.), parameter "min_ver" of type "obj_ver" (An
+           object version. The version of the object, starting at 1.),
+           parameter "max_ver" of type "obj_ver" (An object version. The
+           version of the object, starting at 1.), parameter "newest_first" of
+           type "boolean" (A boolean. 0 = false, other = true.), parameter
+           "limit" of Long
+        :returns: instance of list of type "object_info" (Information about an
+           object, including user provided metadata. obj_id objid - the
+           numerical id of the object. obj_name name - the name of the object.
+           type_string type - the type of the object. timestamp save_date -
+           the save date of the object. obj_ver ver - the version of the
+           object. username saved_by - the user that saved or copied the
+           object. ws_id wsid - the workspace containing the object. ws_name
+           workspace - the workspace containing the object. string chsum - the
+           md5 checksum of the object. int size - the size of the object in
+           bytes. usermeta meta - arbitrary user-supplied metadata about the
+           object.) -> tuple of size 11: parameter "objid" of type "obj_id"
+           (The unique, permanent numerical ID of an object.), parameter
+           "name" of type "obj_name" (A string used as a name for an object.
+           Any string consisting of alphanumeric characters and the characters
+           |._- that is not an integer is acceptable.), parameter "type" of
+           type "type_string" (A type string. Specifies the type and its
+           version in a single string in the format
+           [module].[typename]-[major].[minor]: module - a string. The module
+           name of the typespec containing the type. typename - a string. The
+           name of the type as assigned by the typedef statement. major - an
+           integer. The major version of the type. A change in the major
+           version implies the type has changed in a non-backwards compatible
+           way. minor - an integer. The minor version of the type. A change in
+           the minor version implies that the type has changed in a way that
+           is backwards compatible with previous type definitions. In many
+           cases, the major and minor versions are optional, and if not
+           provided the most recent version will be used. Example:
+           MyModule.MyType-3.1), parameter "save_date" of type "timestamp" (A
+           time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the
+           character Z (representing the UTC timezone) or the difference in
+           time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500
+           (EST time) 2013-04-03T08:56:32+0000 (UTC time) 2013-04-03T08:56:32Z
+           (UTC time)), parameter "version" of Long, parameter "saved_by" of
+           type "username" (Login name of a KBase user account.), parameter
+           "wsid" of type "ws_id" (The unique, permanent numerical ID of a
+           workspace.), parameter "workspace" of type "ws_name" (A string used
+           as a name for a workspace. Any string consisting of alphanumeric
+           characters and "_", ".", or "-" that is not an integer is
+           acceptable. The name may optionally be prefixed with the workspace
+           owner's user name and a colon, e.g. kbasetest:my_workspace.),
+           parameter "chsum" of String, parameter "size" of Long, parameter
+           "meta" of type "usermeta" (User provided metadata about an object.
+           Arbitrary key-value pairs provided by the user.) -> mapping from
+           String to String
+        """
+        return self._client.call_method(
+            'Workspace.get_object_history2',
+            [params], self._service_ver, context)
+
     def list_referencing_objects(self, object_ids, context=None):
         """
         List objects that reference one or more specified objects. References
@@ -2858,7 +2957,13 @@ class Workspace(object):
            exclude world readable workspaces. Defaults to false. boolean
            showDeleted - show deleted workspaces that are owned by the user.
            boolean showOnlyDeleted - only show deleted workspaces that are
-           owned by the user.) -> structure: parameter "perm" of type
+           owned by the user. ws_id minWorkspaceID - only return workspaces
+           with an id greater or equal to this value. int limit - limit the
+           output to X workspaces. Limit values < 1 are treated as no limit.
+           If either minWorkspaceID or limit is supplied, the workspaces are
+           returned in ascending order of their ids. To retrieve the next
+           page of results, set minWorkspaceID to one more than the id of the
+           last workspace returned.) -> structure: parameter "perm" of type
            "permission" (Represents the permissions a user or users have to a
            workspace: 'a' - administrator. All operations allowed. 'w' -
            read/write. 'r' - read. 'n' - no permissions.), parameter "owners"
@@ -2883,7 +2988,8 @@ class Workspace(object):
            boolean. 0 = false, other = true.), parameter "showDeleted" of
            type "boolean" (A boolean. 0 = false, other = true.), parameter
            "showOnlyDeleted" of type "boolean" (A boolean. 0 = false, other =
-           true.)
+           true.), parameter "minWorkspaceID" of type "ws_id" (The unique,
+           permanent numerical ID of a workspace.), parameter "limit" of Long
         :returns: instance of list of type "workspace_info" (Information
            about a workspace. ws_id id - the numerical ID of the workspace.
            ws_name workspace - name of the workspace. username owner - name
@@ -3991,6 +4097,99 @@ class Workspace(object):
             'Workspace.rename_object',
             [params], self._service_ver, context)
 
+    def rename_objects(self, objects, context=None):
+        """
+        Rename multiple objects. Each RenameObjectParams is interpreted in
+        the same way as for rename_object. The objects are renamed in bulk and
+        the renames are not atomic; if an error occurs some of the objects may
+        have been renamed. Returns the object_info for each renamed object, in
+        the same order as the input. At most 10000 objects may be renamed per
+        call. User meta data is always returned as null.
+        :param objects: instance of list of type "RenameObjectParams" (Input
+           parameters for the 'rename_object' function. Required arguments:
+           ObjectIdentity obj - the object to rename. obj_name new_name - the
+           new name for the object.) -> structure: parameter "obj" of type
+           "ObjectIdentity" (An object identifier. Select an object by either:
+           One, and only one, of the numerical id or name of the workspace.
+           ws_id wsid - the numerical ID of the workspace. ws_name workspace -
+           the name of the workspace. AND One, and only one, of the numerical
+           id or name of the object. obj_id objid- the numerical ID of the
+           object. obj_name name - name of the object. OPTIONALLY obj_ver ver
+           - the version of the object. OR an object reference string: obj_ref
+           ref - an object reference string.) -> structure: parameter
+           "workspace" of type "ws_name" (A string used as a name for a
+           workspace. Any string consisting of alphanumeric characters and
+           "_", ".", or "-" that is not an integer is acceptable. The name may
+           optionally be prefixed with the workspace owner's user name and a
+           colon, e.g. kbasetest:my_workspace.), parameter "wsid" of type
+           "ws_id" (The unique, permanent numerical ID of a workspace.),
+           parameter "name" of type "obj_name" (A string used as a name for an
+           object. Any string consisting of alphanumeric characters and the
+           characters |._- that is not an integer is acceptable.), parameter
+           "objid" of type "obj_id" (The unique, permanent numerical ID of an
+           object.), parameter "ver" of type "obj_ver" (An object version. The
+           version of the object, starting at 1.), parameter "ref" of type
+           "obj_ref" (A string that uniquely identifies an object in the
+           workspace service. The format is [ws_name or id]/[obj_name or
+           id]/[obj_ver]. For example, MyFirstWorkspace/MyFirstObject/3 would
+           identify the third version of an object called MyFirstObject in the
+           workspace called MyFirstWorkspace. 42/Panic/1 would identify the
+           first version of the object name Panic in workspace with id 42.
+           Towel/1/6 would identify the 6th version of the object with id 1 in
+           the Towel workspace.If the version number is omitted, the latest
+           version of the object is assumed.), parameter "new_name" of type
+           "obj_name" (A string used as a name for an object. Any string
+           consisting of alphanumeric characters and the characters |._- that
+           is not an integer is acceptable.)
+        :returns: instance of list of type "object_info" (Information about an
+           object, including user provided metadata. obj_id objid - the
+           numerical id of the object. obj_name name - the name of the object.
+           type_string type - the type of the object. timestamp save_date -
+           the save date of the object. obj_ver ver - the version of the
+           object. username saved_by - the user that saved or copied the
+           object. ws_id wsid - the workspace containing the object. ws_name
+           workspace - the workspace containing the object. string chsum - the
+           md5 checksum of the object. int size - the size of the object in
+           bytes. usermeta meta - arbitrary user-supplied metadata about the
+           object.) -> tuple of size 11: parameter "objid" of type "obj_id"
+           (The unique, permanent numerical ID of an object.), parameter
+           "name" of type "obj_name" (A string used as a name for an object.
+           Any string consisting of alphanumeric characters and the characters
+           |._- that is not an integer is acceptable.), parameter "type" of
+           type "type_string" (A type string. Specifies the type and its
+           version in a single string in the format
+           [module].[typename]-[major].[minor]: module - a string. The module
+           name of the typespec containing the type. typename - a string. The
+           name of the type as assigned by the typedef statement. major - an
+           integer. The major version of the type. A change in the major
+           version implies the type has changed in a non-backwards compatible
+           way. minor - an integer. The minor version of the type. A change in
+           the minor version implies that the type has changed in a way that
+           is backwards compatible with previous type definitions. In many
+           cases, the major and minor versions are optional, and if not
+           provided the most recent version will be used. Example:
+           MyModule.MyType-3.1), parameter "save_date" of type "timestamp" (A
+           time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the
+           character Z (representing the UTC timezone) or the difference in
+           time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500
+           (EST time) 2013-04-03T08:56:32+0000 (UTC time) 2013-04-03T08:56:32Z
+           (UTC time)), parameter "version" of Long, parameter "saved_by" of
+           type "username" (Login name of a KBase user account.), parameter
+           "wsid" of type "ws_id" (The unique, permanent numerical ID of a
+           workspace.), parameter "workspace" of type "ws_name" (A string used
+           as a name for a workspace. Any string consisting of alphanumeric
+           characters and "_", ".", or "-" that is not an integer is
+           acceptable. The name may optionally be prefixed with the workspace
+           owner's user name and a colon, e.g. kbasetest:my_workspace.),
+           parameter "chsum" of String, parameter "size" of Long, parameter
+           "meta" of type "usermeta" (User provided metadata about an object.
+           Arbitrary key-value pairs provided by the user.) -> mapping from
+           String to String
+        """
+        return self._client.call_method(
+            'Workspace.rename_objects',
+            [objects], self._service_ver, context)
+
     def copy_object(self, params, context=None):
         """
         Copy an object. Returns the object_info for the newest version.
@@ -4111,6 +4310,129 @@ class Workspace(object):
             'Workspace.copy_object',
             [params], self._service_ver, context)
 
+    def copy_objects(self, objects, context=None):
+        """
+        Copy multiple objects. Each CopyObjectParams is interpreted in the
+        same way as for copy_object, and each copy must have a distinct
+        destination. Returns the object_info for the newest version of each
+        copy, in the same order as the input. At most 10000 objects may be
+        copied per call.
+        :param objects: instance of list of type "CopyObjectParams" (Input
+           parameters for the 'copy_object' function. If the 'from'
+           ObjectIdentity includes no version and the object is copied to a
+           new name, the entire version history of the object is copied. In
+           all other cases only the version specified, or the latest version
+           if no version is specified, is copied. The version from the 'to'
+           ObjectIdentity is always ignored. Required arguments:
+           ObjectIdentity from - the object to copy. ObjectIdentity to - where
+           to copy the object.) -> structure: parameter "from" of type
+           "ObjectIdentity" (An object identifier. Select an object by either:
+           One, and only one, of the numerical id or name of the workspace.
+           ws_id wsid - the numerical ID of the workspace. ws_name workspace -
+           the name of the workspace. AND One, and only one, of the numerical
+           id or name of the object. obj_id objid- the numerical ID of the
+           object. obj_name name - name of the object. OPTIONALLY obj_ver ver
+           - the version of the object. OR an object reference string: obj_ref
+           ref - an object reference string.) -> structure: parameter
+           "workspace" of type "ws_name" (A string used as a name for a
+           workspace. Any string consisting of alphanumeric characters and
+           "_", ".", or "-" that is not an integer is acceptable. The name may
+           optionally be prefixed with the workspace owner's user name and a
+           colon, e.g. kbasetest:my_workspace.), parameter "wsid" of type
+           "ws_id" (The unique, permanent numerical ID of a workspace.),
+           parameter "name" of type "obj_name" (A string used as a name for an
+           object. Any string consisting of alphanumeric characters and the
+           characters |._- that is not an integer is acceptable.), parameter
+           "objid" of type "obj_id" (The unique, permanent numerical ID of an
+           object.), parameter "ver" of type "obj_ver" (An object version. The
+           version of the object, starting at 1.), parameter "ref" of type
+           "obj_ref" (A string that uniquely identifies an object in the
+           workspace service. The format is [ws_name or id]/[obj_name or
+           id]/[obj_ver]. For example, MyFirstWorkspace/MyFirstObject/3 would
+           identify the third version of an object called MyFirstObject in the
+           workspace called MyFirstWorkspace. 42/Panic/1 would identify the
+           first version of the object name Panic in workspace with id 42.
+           Towel/1/6 would identify the 6th version of the object with id 1 in
+           the Towel workspace.If the version number is omitted, the latest
+           version of the object is assumed.), parameter "to" of type
+           "ObjectIdentity" (An object identifier. Select an object by either:
+           One, and only one, of the numerical id or name of the workspace.
+           ws_id wsid - the numerical ID of the workspace. ws_name workspace -
+           the name of the workspace. AND One, and only one, of the numerical
+           id or name of the object. obj_id objid- the numerical ID of the
+           object. obj_name name - name of the object. OPTIONALLY obj_ver ver
+           - the version of the object. OR an object reference string: obj_ref
+           ref - an object reference string.) -> structure: parameter
+           "workspace" of type "ws_name" (A string used as a name for a
+           workspace. Any string consisting of alphanumeric characters and
+           "_", ".", or "-" that is not an integer is acceptable. The name may
+           optionally be prefixed with the workspace owner's user name and a
+           colon, e.g. kbasetest:my_workspace.), parameter "wsid" of type
+           "ws_id" (The unique, permanent numerical ID of a workspace.),
+           parameter "name" of type "obj_name" (A string used as a name for an
+           object. Any string consisting of alphanumeric characters and the
+           characters |._- that is not an integer is acceptable.), parameter
+           "objid" of type "obj_id" (The unique, permanent numerical ID of an
+           object.), parameter "ver" of type "obj_ver" (An object version. The
+           version of the object, starting at 1.), parameter "ref" of type
+           "obj_ref" (A string that uniquely identifies an object in the
+           workspace service. The format is [ws_name or id]/[obj_name or
+           id]/[obj_ver]. For example, MyFirstWorkspace/MyFirstObject/3 would
+           identify the third version of an object called MyFirstObject in the
+           workspace called MyFirstWorkspace. 42/Panic/1 would identify the
+           first version of the object name Panic in workspace with id 42.
+           Towel/1/6 would identify the 6th version of the object with id 1 in
+           the Towel workspace.If the version number is omitted, the latest
+           version of the object is assumed.)
+        :returns: instance of list of type "object_info" (Information about an
+           object, including user provided metadata. obj_id objid - the
+           numerical id of the object. obj_name name - the name of the object.
+           type_string type - the type of the object. timestamp save_date -
+           the save date of the object. obj_ver ver - the version of the
+           object. username saved_by - the user that saved or copied the
+           object. ws_id wsid - the workspace containing the object. ws_name
+           workspace - the workspace containing the object. string chsum - the
+           md5 checksum of the object. int size - the size of the object in
+           bytes. usermeta meta - arbitrary user-supplied metadata about the
+           object.) -> tuple of size 11: parameter "objid" of type "obj_id"
+           (The unique, permanent numerical ID of an object.), parameter
+           "name" of type "obj_name" (A string used as a name for an object.
+           Any string consisting of alphanumeric characters and the characters
+           |._- that is not an integer is acceptable.), parameter "type" of
+           type "type_string" (A type string. Specifies the type and its
+           version in a single string in the format
+           [module].[typename]-[major].[minor]: module - a string. The module
+           name of the typespec containing the type. typename - a string. The
+           name of the type as assigned by the typedef statement. major - an
+           integer. The major version of the type. A change in the major
+           version implies the type has changed in a non-backwards compatible
+           way. minor - an integer. The minor version of the type. A change in
+           the minor version implies that the type has changed in a way that
+           is backwards compatible with previous type definitions. In many
+           cases, the major and minor versions are optional, and if not
+           provided the most recent version will be used. Example:
+           MyModule.MyType-3.1), parameter "save_date" of type "timestamp" (A
+           time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the
+           character Z (representing the UTC timezone) or the difference in
+           time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500
+           (EST time) 2013-04-03T08:56:32+0000 (UTC time) 2013-04-03T08:56:32Z
+           (UTC time)), parameter "version" of Long, parameter "saved_by" of
+           type "username" (Login name of a KBase user account.), parameter
+           "wsid" of type "ws_id" (The unique, permanent numerical ID of a
+           workspace.), parameter "workspace" of type "ws_name" (A string used
+           as a name for a workspace. Any string consisting of alphanumeric
+           characters and "_", ".", or "-" that is not an integer is
+           acceptable. The name may optionally be prefixed with the workspace
+           owner's user name and a colon, e.g. kbasetest:my_workspace.),
+           parameter "chsum" of String, parameter "size" of Long, parameter
+           "meta" of type "usermeta" (User provided metadata about an object.
+           Arbitrary key-value pairs provided by the user.) -> mapping from
+           String to String
+        """
+        return self._client.call_method(
+            'Workspace.copy_objects',
+            [objects], self._service_ver, context)
+
     def revert_object(self, object, context=None):
         """
         Revert an object.
@@ -4430,6 +4752,258 @@ class Workspace(object):
             'Workspace.undelete_workspace',
             [wsi], self._service_ver, context)
 
+    def clone_workspace_async(self, params, context=None):
+        """
+        Clone a workspace in the background. The parameters are checked and
+        the job is queued immediately; poll get_job_info until the job
+        finishes to get the workspace_info of the new workspace.
+        :param params: instance of type "CloneWorkspaceParams" (Input
+           parameters for the "clone_workspace" function. Note that deleted
+           objects are not cloned, although hidden objects are and remain
+           hidden in the new workspace. Required arguments: WorkspaceIdentity
+           wsi - the workspace to be cloned. ws_name workspace - name of the
+           workspace to be cloned into. This must be a non-existant workspace
+           name. Optional arguments: permission globalread - 'r' to set the
+           new workspace globally readable, default 'n'. string description -
+           A free-text description of the new workspace, 1000 characters max.
+           Longer strings will be mercilessly and brutally truncated.
+           usermeta meta - arbitrary user-supplied metadata for the
+           workspace. list<ObjectIdentity> exclude - exclude the specified
+           objects from the cloned workspace. Either an object ID or a object
+           name must be specified in each ObjectIdentity - any supplied
+           reference strings, workspace names or IDs, and versions are
+           ignored.) -> structure: parameter "wsi" of type
+           "WorkspaceIdentity" (A workspace identifier. Select a workspace by
+           one, and only one, of the numerical id or name. ws_id id - the
+           numerical ID of the workspace. ws_name workspace - the name of the
+           workspace.) -> structure: parameter "workspace" of type "ws_name"
+           (A string used as a name for a workspace. Any string consisting of
+           alphanumeric characters and "_", ".", or "-" that is not an
+           integer is acceptable. The name may optionally be prefixed with
+           the workspace owner's user name and a colon, e.g.
+           kbasetest:my_workspace.), parameter "id" of type "ws_id" (The
+           unique, permanent numerical ID of a workspace.), parameter
+           "workspace" of type "ws_name" (A string used as a name for a
+           workspace. Any string consisting of alphanumeric characters and
+           "_", ".", or "-" that is not an integer is acceptable. The name
+           may optionally be prefixed with the workspace owner's user name
+           and a colon, e.g. kbasetest:my_workspace.), parameter "globalread"
+           of type "permission" (Represents the permissions a user or users
+           have to a workspace: 'a' - administrator. All operations allowed.
+           'w' - read/write. 'r' - read. 'n' - no permissions.), parameter
+           "description" of String, parameter "meta" of type "usermeta" (User
+           provided metadata about an object. Arbitrary key-value pairs
+           provided by the user.) -> mapping from String to String, parameter
+           "exclude" of list of type "ObjectIdentity" (An object identifier.
+           Select an object by either: One, and only one, of the numerical id
+           or name of the workspace. ws_id wsid - the numerical ID of the
+           workspace. ws_name workspace - the name of the workspace. AND One,
+           and only one, of the numerical id or name of the object. obj_id
+           objid- the numerical ID of the object. obj_name name - name of the
+           object. OPTIONALLY obj_ver ver - the version of the object. OR an
+           object reference string: obj_ref ref - an object reference
+           string.) -> structure: parameter "workspace" of type "ws_name" (A
+           string used as a name for a workspace. Any string consisting of
+           alphanumeric characters and "_", ".", or "-" that is not an
+           integer is acceptable. The name may optionally be prefixed with
+           the workspace owner's user name and a colon, e.g.
+           kbasetest:my_workspace.), parameter "wsid" of type "ws_id" (The
+           unique, permanent numerical ID of a workspace.), parameter "name"
+           of type "obj_name" (A string used as a name for an object. Any
+           string consisting of alphanumeric characters and the characters
+           |._- that is not an integer is acceptable.), parameter "objid" of
+           type "obj_id" (The unique, permanent numerical ID of an object.),
+           parameter "ver" of type "obj_ver" (An object version. The version
+           of the object, starting at 1.), parameter "ref" of type "obj_ref"
+           (A string that uniquely identifies an object in the workspace
+           service. The format is [ws_name or id]/[obj_name or id]/[obj_ver].
+           For example, MyFirstWorkspace/MyFirstObject/3 would identify the
+           third version of an object called MyFirstObject in the workspace
+           called MyFirstWorkspace. 42/Panic/1 would identify the first
+           version of the object name Panic in workspace with id 42.
+           Towel/1/6 would identify the 6th version of the object with id 1
+           in the Towel workspace.If the version number is omitted, the
+           latest version of the object is assumed.)
+        :returns: instance of type "JobInfo" (Information about a background
+           job. job_id id - the ID of the job. string type - the type of the
+           job, e.g. clone_workspace. username user - the user that submitted
+           the job. string state - the state of the job. One of 'queued',
+           'running', 'complete', 'failed', or 'canceled'. timestamp submitted
+           - the time the job was submitted. timestamp started - the time the
+           job last started running, if any. timestamp finished - the time the
+           job completed, failed or was canceled, if any. UnspecifiedObject
+           result - the result of a completed job. The result is the same as
+           the return value of the equivalent synchronous method, e.g. the
+           workspace_info for a clone_workspace job. string error - the
+           reason the job failed, if it failed. Information about finished
+           jobs is retained for 30 days.) -> structure: parameter "id" of type
+           "job_id" (The unique ID of a background job.), parameter "type" of
+           String, parameter "user" of type "username" (Login name of a KBase
+           user account.), parameter "state" of String, parameter "submitted"
+           of type "timestamp", parameter "started" of type "timestamp",
+           parameter "finished" of type "timestamp", parameter "result" of
+           unspecified object, parameter "error" of String
+        """
+        return self._client.call_method(
+            'Workspace.clone_workspace_async',
+            [params], self._service_ver, context)
+
+    def copy_objects_async(self, objects, context=None):
+        """
+        Copy multiple objects in the background. The objects are interpreted
+        in the same way as for copy_objects. The parameters are checked and
+        the job is queued immediately; poll get_job_info until the job
+        finishes to get the object_info for the copies.
+        :param objects: instance of list of type "CopyObjectParams" (Input
+           parameters for the 'copy_object' function. If the 'from'
+           ObjectIdentity includes no version and the object is copied to a
+           new name, the entire version history of the object is copied. In
+           all other cases only the version specified, or the latest version
+           if no version is specified, is copied. The version from the 'to'
+           ObjectIdentity is always ignored. Required arguments:
+           ObjectIdentity from - the object to copy. ObjectIdentity to - where
+           to copy the object.) -> structure: parameter "from" of type
+           "ObjectIdentity" (An object identifier. Select an object by either:
+           One, and only one, of the numerical id or name of the workspace.
+           ws_id wsid - the numerical ID of the workspace. ws_name workspace -
+           the name of the workspace. AND One, and only one, of the numerical
+           id or name of the object. obj_id objid- the numerical ID of the
+           object. obj_name name - name of the object. OPTIONALLY obj_ver ver
+           - the version of the object. OR an object reference string: obj_ref
+           ref - an object reference string.) -> structure: parameter
+           "workspace" of type "ws_name" (A string used as a name for a
+           workspace. Any string consisting of alphanumeric characters and
+           "_", ".", or "-" that is not an integer is acceptable. The name may
+           optionally be prefixed with the workspace owner's user name and a
+           colon, e.g. kbasetest:my_workspace.), parameter "wsid" of type
+           "ws_id" (The unique, permanent numerical ID of a workspace.),
+           parameter "name" of type "obj_name" (A string used as a name for an
+           object. Any string consisting of alphanumeric characters and the
+           characters |._- that is not an integer is acceptable.), parameter
+           "objid" of type "obj_id" (The unique, permanent numerical ID of an
+           object.), parameter "ver" of type "obj_ver" (An object version. The
+           version of the object, starting at 1.), parameter "ref" of type
+           "obj_ref" (A string that uniquely identifies an object in the
+           workspace service. The format is [ws_name or id]/[obj_name or
+           id]/[obj_ver]. For example, MyFirstWorkspace/MyFirstObject/3 would
+           identify the third version of an object called MyFirstObject in the
+           workspace called MyFirstWorkspace. 42/Panic/1 would identify the
+           first version of the object name Panic in workspace with id 42.
+           Towel/1/6 would identify the 6th version of the object with id 1 in
+           the Towel workspace.If the version number is omitted, the latest
+           version of the object is assumed.), parameter "to" of type
+           "ObjectIdentity" (An object identifier. Select an object by either:
+           One, and only one, of the numerical id or name of the workspace.
+           ws_id wsid - the numerical ID of the workspace. ws_name workspace -
+           the name of the workspace. AND One, and only one, of the numerical
+           id or name of the object. obj_id objid- the numerical ID of the
+           object. obj_name name - name of the object. OPTIONALLY obj_ver ver
+           - the version of the object. OR an object reference string: obj_ref
+           ref - an object reference string.) -> structure: parameter
+           "workspace" of type "ws_name" (A string used as a name for a
+           workspace. Any string consisting of alphanumeric characters and
+           "_", ".", or "-" that is not an integer is acceptable. The name may
+           optionally be prefixed with the workspace owner's user name and a
+           colon, e.g. kbasetest:my_workspace.), parameter "wsid" of type
+           "ws_id" (The unique, permanent numerical ID of a workspace.),
+           parameter "name" of type "obj_name" (A string used as a name for an
+           object. Any string consisting of alphanumeric characters and the
+           characters |._- that is not an integer is acceptable.), parameter
+           "objid" of type "obj_id" (The unique, permanent numerical ID of an
+           object.), parameter "ver" of type "obj_ver" (An object version. The
+           version of the object, starting at 1.), parameter "ref" of type
+           "obj_ref" (A string that uniquely identifies an object in the
+           workspace service. The format is [ws_name or id]/[obj_name or
+           id]/[obj_ver]. For example, MyFirstWorkspace/MyFirstObject/3 would
+           identify the third version of an object called MyFirstObject in the
+           workspace called MyFirstWorkspace. 42/Panic/1 would identify the
+           first version of the object name Panic in workspace with id 42.
+           Towel/1/6 would identify the 6th version of the object with id 1 in
+           the Towel workspace.If the version number is omitted, the latest
+           version of the object is assumed.)
+        :returns: instance of type "JobInfo" (Information about a background
+           job. job_id id - the ID of the job. string type - the type of the
+           job, e.g. clone_workspace. username user - the user that submitted
+           the job. string state - the state of the job. One of 'queued',
+           'running', 'complete', 'failed', or 'canceled'. timestamp submitted
+           - the time the job was submitted. timestamp started - the time the
+           job last started running, if any. timestamp finished - the time the
+           job completed, failed or was canceled, if any. UnspecifiedObject
+           result - the result of a completed job. The result is the same as
+           the return value of the equivalent synchronous method, e.g. the
+           workspace_info for a clone_workspace job. string error - the reason
+           the job failed, if it failed. Information about finished jobs is
+           retained for 30 days.) -> structure: parameter "id" of type
+           "job_id" (The unique ID of a background job.), parameter "type" of
+           String, parameter "user" of type "username" (Login name of a KBase
+           user account.), parameter "state" of String, parameter "submitted"
+           of type "timestamp", parameter "started" of type "timestamp",
+           parameter "finished" of type "timestamp", parameter "result" of
+           unspecified object, parameter "error" of String
+        """
+        return self._client.call_method(
+            'Workspace.copy_objects_async',
+            [objects], self._service_ver, context)
+
+    def get_job_info(self, id, context=None):
+        """
+        Get information about a background job submitted by the user.
+        :param id: instance of type "job_id" (The unique ID of a background
+           job.)
+        :returns: instance of type "JobInfo" (Information about a background
+           job. job_id id - the ID of the job. string type - the type of the
+           job, e.g. clone_workspace. username user - the user that submitted
+           the job. string state - the state of the job. One of 'queued',
+           'running', 'complete', 'failed', or 'canceled'. timestamp submitted
+           - the time the job was submitted. timestamp started - the time the
+           job last started running, if any. timestamp finished - the time the
+           job completed, failed or was canceled, if any. UnspecifiedObject
+           result - the result of a completed job. The result is the same as
+           the return value of the equivalent synchronous method, e.g. the
+           workspace_info for a clone_workspace job. string error - the
+           reason the job failed, if it failed. Information about finished
+           jobs is retained for 30 days.) -> structure: parameter "id" of type
+           "job_id" (The unique ID of a background job.), parameter "type" of
+           String, parameter "user" of type "username" (Login name of a KBase
+           user account.), parameter "state" of String, parameter "submitted"
+           of type "timestamp", parameter "started" of type "timestamp",
+           parameter "finished" of type "timestamp", parameter "result" of
+           unspecified object, parameter "error" of String
+        """
+        return self._client.call_method(
+            'Workspace.get_job_info',
+            [id], self._service_ver, context)
+
+    def cancel_job(self, id, context=None):
+        """
+        Cancel a queued background job submitted by the user. Jobs that are
+        running cannot be canceled. Canceling a finished job has no effect.
+        :param id: instance of type "job_id" (The unique ID of a background
+           job.)
+        :returns: instance of type "JobInfo" (Information about a background
+           job. job_id id - the ID of the job. string type - the type of the
+           job, e.g. clone_workspace. username user - the user that submitted
+           the job. string state - the state of the job. One of 'queued',
+           'running', 'complete', 'failed', or 'canceled'. timestamp submitted
+           - the time the job was submitted. timestamp started - the time the
+           job last started running, if any. timestamp finished - the time the
+           job completed, failed or was canceled, if any. UnspecifiedObject
+           result - the result of a completed job. The result is the same as
+           the return value of the equivalent synchronous method, e.g. the
+           workspace_info for a clone_workspace job. string error - the
+           reason the job failed, if it failed. Information about finished
+           jobs is retained for 30 days.) -> structure: parameter "id" of type
+           "job_id" (The unique ID of a background job.), parameter "type" of
+           String, parameter "user" of type "username" (Login name of a KBase
+           user account.), parameter "state" of String, parameter "submitted"
+           of type "timestamp", parameter "started" of type "timestamp",
+           parameter "finished" of type "timestamp", parameter "result" of
+           unspecified object, parameter "error" of String
+        """
+        return self._client.call_method(
+            'Workspace.cancel_job',
+            [id], self._service_ver, context)
+
     def request_module_ownership(self, mod, context=None):
         """
         Request ownership of a module name. A Workspace administrator
@@ -293,6 +293,19 @@ function Workspace(url, auth, auth_cb, timeout, async_job_check_time_ms, service
             [object], 1, _callback, _errorCallback);
     };
  
+     this.get_object_history2 = function (params, _callback, _errorCallback) {
+        if (typeof params === 'function')
+            throw 'Argument params can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.get_object_history2",
+            [params], 1, _callback, _errorCallback);
+    };
+ 
      this.list_referencing_objects = function (object_ids, _callback, _errorCallback) {
         if (typeof object_ids === 'function')
             throw 'Argument object_ids can not be a function';
@@ -464,6 +477,19 @@ function Workspace(url, auth, auth_cb, timeout, async_job_check_time_ms, service
             [params], 1, _callback, _errorCallback);
     };
  
+     this.rename_objects = function (objects, _callback, _errorCallback) {
+        if (typeof objects === 'function')
+            throw 'Argument objects can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.rename_objects",
+            [objects], 1, _callback, _errorCallback);
+    };
+ 
      this.copy_object = function (params, _callback, _errorCallback) {
         if (typeof params === 'function')
             throw 'Argument params can not be a function';
@@ -477,6 +503,19 @@ function Workspace(url, auth, auth_cb, timeout, async_job_check_time_ms, service
             [params], 1, _callback, _errorCallback);
     };
  
+     this.copy_objects = function (objects, _callback, _errorCallback) {
+        if (typeof objects === 'function')
+            throw 'Argument objects can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.copy_objects",
+            [objects], 1, _callback, _errorCallback);
+    };
+ 
      this.revert_object = function (object, _callback, _errorCallback) {
         if (typeof object === 'function')
             throw 'Argument object can not be a function';
@@ -581,6 +620,58 @@ function Workspace(url, auth, auth_cb, timeout, async_job_check_time_ms, service
             [wsi], 0, _callback, _errorCallback);
     };
  
+     this.clone_workspace_async = function (params, _callback, _errorCallback) {
+        if (typeof params === 'function')
+            throw 'Argument params can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.clone_workspace_async",
+            [params], 1, _callback, _errorCallback);
+    };
+ 
+     this.copy_objects_async = function (objects, _callback, _errorCallback) {
+        if (typeof objects === 'function')
+            throw 'Argument objects can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.copy_objects_async",
+            [objects], 1, _callback, _errorCallback);
+    };
+ 
+     this.get_job_info = function (id, _callback, _errorCallback) {
+        if (typeof id === 'function')
+            throw 'Argument id can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.get_job_info",
+            [id], 1, _callback, _errorCallback);
+    };
+ 
+     this.cancel_job = function (id, _callback, _errorCallback) {
+        if (typeof id === 'function')
+            throw 'Argument id can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "Workspace.cancel_job",
+            [id], 1, _callback, _errorCallback);
+    };
+ 
      this.request_module_ownership = function (mod, _callback, _errorCallback) {
         if (typeof mod === 'function')
             throw 'Argument mod can not be a function';
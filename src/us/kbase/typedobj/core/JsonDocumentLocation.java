@@ -1,7 +1,9 @@
 package us.kbase.typedobj.core;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /** Provides the current location in a JSON document.
  * @author gaprice@lbl.gov
@@ -19,6 +21,11 @@ public class JsonDocumentLocation {
 	
 	private final List<JsonLocation> loc = new ArrayList<JsonLocation>();
 	
+	// locations reused by the replaceLastCached() methods, created on demand
+	private static final int MAX_CACHED_ARRAY_LOCATIONS = 10000;
+	private Map<String, JsonMapLocation> mapLocCache = null;
+	private List<JsonArrayLocation> arrayLocCache = null;
+	
 	public JsonDocumentLocation() {
 		this(DEFAULT_PATHSEP);
 	}
@@ -88,6 +95,44 @@ public class JsonDocumentLocation {
 		return l;
 	}
 	
+	/** Replaces the last location with a map location, reusing the location
+	 * object created by an earlier call with the same key instance. Every
+	 * distinct key instance is kept for the life of this object, so this
+	 * method is meant for keys from a small fixed set of canonical strings,
+	 * like the field names of a schema.
+	 * @param loc the key of the new location.
+	 * @return the replaced location.
+	 */
+	public JsonLocation replaceLastCached(final String loc) {
+		if (mapLocCache == null) {
+			mapLocCache = new IdentityHashMap<String, JsonMapLocation>();
+		}
+		JsonMapLocation ml = mapLocCache.get(loc);
+		if (ml == null) {
+			ml = new JsonMapLocation(loc);
+			mapLocCache.put(loc, ml);
+		}
+		return replaceLast(ml);
+	}
+	
+	/** Replaces the last location with an array location, reusing the
+	 * location object created by an earlier call with the same index.
+	 * @param loc the index of the new location.
+	 * @return the replaced location.
+	 */
+	public JsonLocation replaceLastCached(final int loc) {
+		if (loc < 0 || loc >= MAX_CACHED_ARRAY_LOCATIONS) {
+			return replaceLast(loc);
+		}
+		if (arrayLocCache == null) {
+			arrayLocCache = new ArrayList<JsonArrayLocation>();
+		}
+		while (arrayLocCache.size() <= loc) {
+			arrayLocCache.add(new JsonArrayLocation(arrayLocCache.size()));
+		}
+		return replaceLast(arrayLocCache.get(loc));
+	}
+	
 	public JsonArrayLocation incrementArrayLocation() {
 		final JsonLocation l = getLast();
 		if (!l.isArrayLocation()) {
@@ -49,4 +49,21 @@ public interface JsonTokenValidationListener {
 	 * @param selection
 	 */
 	public void addMetadataWsMessage(JsonNode selection);
+	
+	/**
+	 * Method for registering a metadata value extracted from the data while
+	 * it is validated. Values are registered in the order they are found in
+	 * the data. The same name may be registered more than once.
+	 * @param name the name of the metadata item.
+	 * @param value the value of the metadata item.
+	 */
+	public void addMetadataWsValue(String name, String value);
+	
+	/**
+	 * Method for signaling that the metadata selection could not be fully
+	 * extracted while the data was validated (for example, because a selected
+	 * value is an id that will be relabeled) and so the metadata must be
+	 * extracted from the data in a separate pass.
+	 */
+	public void addMetadataWsIncomplete();
 }
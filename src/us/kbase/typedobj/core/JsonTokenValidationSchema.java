@@ -5,10 +5,14 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import us.kbase.common.service.UObject;
 import us.kbase.typedobj.exceptions.TypedObjectSchemaException;
@@ -38,10 +42,12 @@ public class JsonTokenValidationSchema {
 	private String originalType;						// For all: original-type
 	private IdRefDescr idReference;						// For scalars and mappings: id-reference
 	private JsonNode metadataWs;						// For structures: metadata-ws
+	private MetadataNode metadataTree;					// For structures: metadata-ws parsed into extraction tree
 	private Map<String, JsonTokenValidationSchema> objectProperties;	// For structures: properties
 	private JsonTokenValidationSchema objectAdditionalPropertiesType;	// For mapping value type: additionalProperties
 	private boolean objectAdditionalPropertiesBoolean;	// For structures: additionalProperties
 	private Map<String, Integer> objectRequired;		// For structures: required
+	private FieldTable objectFields;					// For structures: properties and required combined by compile()
 	private JsonTokenValidationSchema arrayItems;						// For list: items (one type for all items)
 	private List<JsonTokenValidationSchema> arrayItemList;				// For tuple: items (list of types)
 	private Integer arrayMinItems;						// For tuple: minItems
@@ -55,6 +61,53 @@ public class JsonTokenValidationSchema {
 	
 	private JsonTokenValidationSchema() {}
 	
+	/**
+	 * Method precomputes lookup tables for this schema and all nested schemas so
+	 * that validation of structures needs only one field name lookup per field.
+	 * Field names of compiled structures are matched directly in the parser's
+	 * char buffer when the parser provides one, and path locations for known
+	 * fields are reused, so valid fields don't allocate strings.
+	 * Validation results and error messages are the same for compiled and not
+	 * compiled schemas. Compilation is worth the cost only for schemas used to
+	 * validate many objects. Calling this method more than once has no effect.
+	 * @return this schema.
+	 */
+	public JsonTokenValidationSchema compile() {
+		if (type == Type.object) {
+			if (objectFields != null) {
+				return this;
+			}
+			final Map<String, FieldDescr> fields = new HashMap<String, FieldDescr>();
+			for (final Map.Entry<String, JsonTokenValidationSchema> e:
+					objectProperties.entrySet()) {
+				final Integer reqPos = objectRequired.get(e.getKey());
+				fields.put(e.getKey(), new FieldDescr(e.getKey(),
+						e.getValue().compile(), reqPos == null ? -1 : reqPos));
+			}
+			for (final Map.Entry<String, Integer> e: objectRequired.entrySet()) {
+				if (!fields.containsKey(e.getKey())) {
+					// required but not described in properties
+					fields.put(e.getKey(), new FieldDescr(e.getKey(), null,
+							e.getValue()));
+				}
+			}
+			if (objectAdditionalPropertiesType != null) {
+				objectAdditionalPropertiesType.compile();
+			}
+			objectFields = new FieldTable(fields.values());
+		} else if (type == Type.array) {
+			if (arrayItems != null) {
+				arrayItems.compile();
+			}
+			if (arrayItemList != null) {
+				for (final JsonTokenValidationSchema item: arrayItemList) {
+					item.compile();
+				}
+			}
+		}
+		return this;
+	}
+	
 	@SuppressWarnings("unchecked")
 	public static JsonTokenValidationSchema parseJsonSchema(
 			final String document) 
@@ -117,8 +170,10 @@ public class JsonTokenValidationSchema {
 					attributes);
 		}
 		if (ret.type == Type.object) {
-			if (data.containsKey("metadata-ws"))
+			if (data.containsKey("metadata-ws")) {
 				ret.metadataWs = UObject.transformObjectToJackson(data.get("metadata-ws"));
+				ret.metadataTree = MetadataExtractor.prepareMetadataSelectionTree(ret.metadataWs);
+			}
 			
 			ret.objectProperties = new LinkedHashMap<String, JsonTokenValidationSchema>();
 			Map<String, Object> props = (Map<String, Object>)data.get("properties");
@@ -168,7 +223,9 @@ public class JsonTokenValidationSchema {
 
 	/**
 	 * Method validates object described by tokens provided by json parser against 
-	 * selected type this schema object was created for.
+	 * selected type this schema object was created for. If this schema defines
+	 * metadata-ws selection the selected metadata is extracted from the tokens
+	 * as they are validated and registered in the listener.
 	 * @param jp json parser providing tokens of validated object
 	 * @param stat statistics of token types observed for testing
 	 * @param lst callback used for resulting features registration
@@ -183,22 +240,28 @@ public class JsonTokenValidationSchema {
 			final JsonTokenValidationListener lst) 
 			throws JsonParseException, IOException,
 			JsonTokenValidationException, TooManyIdsException {
-		checkJsonData(jp, lst, new JsonDocumentLocation());
+		checkJsonData(jp, lst, new JsonDocumentLocation(), metadataTree);
 		jp.close();
 	}
 	
 	private void checkJsonData(final JsonParser jp,
 			final JsonTokenValidationListener lst, 
-			final JsonDocumentLocation path) 
+			final JsonDocumentLocation path,
+			final MetadataNode meta) 
 			throws JsonParseException, IOException,
 			JsonTokenValidationException, TooManyIdsException {
 		jp.nextToken();
-		checkJsonDataWithoutFirst(jp, lst, path);
+		checkJsonDataWithoutFirst(jp, lst, path, meta);
 	}
 	
+	/*
+	 * meta is the node of the metadata selection tree corresponding to the
+	 * current place in the data, or null if no metadata is needed here.
+	 */
 	private void checkJsonDataWithoutFirst(final JsonParser jp,
 			final JsonTokenValidationListener lst, 
-			final JsonDocumentLocation path) 
+			final JsonDocumentLocation path,
+			final MetadataNode meta) 
 			throws JsonParseException, IOException,
 			JsonTokenValidationException, TooManyIdsException {
 		// This is main recursive validation procedure. The idea is we enter here every time we observe
@@ -227,6 +290,17 @@ public class JsonTokenValidationSchema {
 				boolean[] reqPropUsage = new boolean[objectRequired.size()];
 				// count of true values in reqPropUsage
 				int reqPropUsageCount = 0;
+				// fields selected for metadata that have not been visited yet
+				Set<String> metaFields = null;
+				if (meta != null && meta.hasChildren()) {
+					if (idReference != null) {
+						// keys will be relabeled, so they can't be matched now
+						lst.addMetadataWsIncomplete();
+					} else {
+						metaFields = new HashSet<String>(meta.getChildren().keySet());
+					}
+				}
+				long fieldCount = 0;
 				// in following loop we process all fields of opened object
 				while (true) {
 					t = jp.nextToken();
@@ -240,17 +314,47 @@ public class JsonTokenValidationSchema {
 								"Object field name is expected but found, "
 								+ t + " at " + path.getFullLocationAsString());
 					}
+					fieldCount++;
+					// compiled schema, one lookup gives both type and required
+					// position. The name is matched in the parser's buffer if
+					// possible so known fields never need a new string.
+					final FieldDescr field;
+					if (objectFields == null) {
+						field = null;
+					} else if (jp.hasTextCharacters()) {
+						field = objectFields.get(jp.getTextCharacters(),
+								jp.getTextOffset(), jp.getTextLength());
+					} else {
+						field = objectFields.get(jp.getCurrentName());
+					}
 					// name of object field (key of mapping)
-					String fieldName = jp.getCurrentName();
-					// set current path pointing to this field
-					path.replaceLast(fieldName);
-					// if this field is required we mark it as visited
-					if (objectRequired.containsKey(fieldName)) {
-						reqPropUsageCount++;
-						reqPropUsage[objectRequired.get(fieldName)] = true;
+					final String fieldName;
+					if (field != null) {
+						fieldName = field.name;
+						// set current path pointing to this field, reusing
+						// the location object for the schema's field name
+						path.replaceLastCached(fieldName);
+					} else {
+						fieldName = jp.getCurrentName();
+						// set current path pointing to this field
+						path.replaceLast(fieldName);
 					}
 					// we need to find json-schema node describing value of this field
-					JsonTokenValidationSchema childType = objectProperties.get(fieldName);
+					JsonTokenValidationSchema childType;
+					if (objectFields != null) {
+						childType = field == null ? null : field.type;
+						if (field != null && field.requiredPos >= 0) {
+							reqPropUsageCount++;
+							reqPropUsage[field.requiredPos] = true;
+						}
+					} else {
+						// if this field is required we mark it as visited
+						if (objectRequired.containsKey(fieldName)) {
+							reqPropUsageCount++;
+							reqPropUsage[objectRequired.get(fieldName)] = true;
+						}
+						childType = objectProperties.get(fieldName);
+					}
 					if (childType == null) {
 						if (!objectAdditionalPropertiesBoolean) {
 							if (objectProperties.size() > 0)
@@ -262,12 +366,19 @@ public class JsonTokenValidationSchema {
 						}
 						childType = objectAdditionalPropertiesType;
 					}
+					MetadataNode childMeta = null;
+					if (metaFields != null && metaFields.remove(fieldName)) {
+						childMeta = meta.getChild(fieldName);
+					}
 					if (childType == null) {
 						// if we don't have such schema it means we don't need to validate it, just skip it
+						if (childMeta != null) {
+							lst.addMetadataWsIncomplete();
+						}
 						skipValue(jp);
 					} else {
 						// otherwise we execute validation recursively for child json-schema node
-						childType.checkJsonData(jp, lst, path);
+						childType.checkJsonData(jp, lst, path, childMeta);
 					}
 					// and finally we can add this key (field) as requiring id-reference relabeling in 
 					// case there was defined idReference property in json-schema node describing this 
@@ -289,6 +400,12 @@ public class JsonTokenValidationSchema {
 							absentProperties + ", at " +
 							path.getLocationOfContainerAsString());
 				}
+				if (meta != null) {
+					// MetadataExtractor counts the end of an object as an
+					// element if it descends into the object
+					addLengthMetadata(lst, meta, meta.hasChildren() ?
+							fieldCount + 1 : fieldCount);
+				}
 			} finally {
 				// shift depth of path by 1 level up (closer to root)
 				path.removeLast();
@@ -301,6 +418,10 @@ public class JsonTokenValidationSchema {
 				throw new JsonTokenValidationException(
 						generateError(type, t, path, false));
 			}
+			if (meta != null && meta.hasChildren()) {
+				// metadata can't be extracted from arrays
+				lst.addMetadataWsIncomplete();
+			}
 			try {
 				path.addArrayStart();
 				int itemPos = 0;
@@ -322,7 +443,7 @@ public class JsonTokenValidationSchema {
 						break;
 					// if we are here then we see in real data next item of this array (list)
 					// let's increment last path element according to position of this item in array
-					path.replaceLast(itemPos);
+					path.replaceLastCached(itemPos);
 					JsonTokenValidationSchema childType = arrayItems;
 					if ((!skipAll) && childType == null && arrayItemList != null
 							&& itemPos < arrayItemList.size()) {
@@ -334,10 +455,13 @@ public class JsonTokenValidationSchema {
 						skipValueWithoutFirst(jp);
 					} else {
 						// otherwise we execute recursive validation for current item
-						childType.checkJsonDataWithoutFirst(jp, lst, path);
+						childType.checkJsonDataWithoutFirst(jp, lst, path, null);
 					}
 					itemPos++;
 				}
+				if (meta != null) {
+					addLengthMetadata(lst, meta, itemPos);
+				}
 				// check if we have too less items than we define in schema limitations (if any)
 				if (arrayMinItems != null && itemPos < arrayMinItems)
 					lst.addError("Array contains less than " + arrayMinItems +
@@ -357,8 +481,11 @@ public class JsonTokenValidationSchema {
 				if (t == JsonToken.START_ARRAY
 						|| t == JsonToken.START_OBJECT) {
 					skipValueWithoutFirst(jp);
+				} else {
+					addScalarMetadata(jp, lst, meta);
 				}
 			} else {
+				addScalarMetadata(jp, lst, meta);
 				if (idReference != null) {
 					// we can add this string value as requiring id-reference relabeling in case 
 					// there was defined idReference property in json-schema node describing this 
@@ -382,12 +509,15 @@ public class JsonTokenValidationSchema {
 				if (t == JsonToken.START_ARRAY
 						|| t == JsonToken.START_OBJECT) {
 					skipValueWithoutFirst(jp);
+				} else {
+					addScalarMetadata(jp, lst, meta);
 				}
 			} else {
 				//range check
 				if (intRange != null) {
 					intRange.checkValue(jp, lst, path);
 				}
+				addScalarMetadata(jp, lst, meta);
 //				if (idReference != null) {
 //					// we can add this int value as requiring id-reference relabeling in case 
 //					// there was defined idReference property in json-schema node describing this 
@@ -408,12 +538,15 @@ public class JsonTokenValidationSchema {
 				if (t == JsonToken.START_ARRAY
 						|| t == JsonToken.START_OBJECT) {
 					skipValueWithoutFirst(jp);
-				}	
+				} else {
+					addScalarMetadata(jp, lst, meta);
+				}
 			} else {
 				//range check
 				if (numberRange != null) {
 					numberRange.checkValue(jp, lst, path);
 				}
+				addScalarMetadata(jp, lst, meta);
 			}
 		} else {
 			lst.addError("Unsupported node type: " + type + " at " +
@@ -421,6 +554,77 @@ public class JsonTokenValidationSchema {
 		}
 	}
 	
+	/*
+	 * Registers the length of an object or array in the listener for every
+	 * metadata item that needs it.
+	 */
+	private static void addLengthMetadata(
+			final JsonTokenValidationListener lst,
+			final MetadataNode meta,
+			final long length) {
+		for (final String name: meta.getNeedLengthForMetadata()) {
+			lst.addMetadataWsValue(name, Long.toString(length));
+		}
+	}
+	
+	/*
+	 * Registers the value and length of the current scalar token in the
+	 * listener for every metadata item that needs them, the same way
+	 * MetadataExtractor does. Anything MetadataExtractor would reject or
+	 * that will change after id relabeling is left for MetadataExtractor.
+	 */
+	private void addScalarMetadata(
+			final JsonParser jp,
+			final JsonTokenValidationListener lst,
+			final MetadataNode meta)
+			throws IOException {
+		if (meta == null) {
+			return;
+		}
+		final JsonToken t = jp.getCurrentToken();
+		if (meta.hasChildren() || idReference != null) {
+			lst.addMetadataWsIncomplete();
+			return;
+		}
+		final String length;
+		if (t == JsonToken.VALUE_STRING) {
+			length = Integer.toString(jp.getText().length());
+		} else if (t == JsonToken.VALUE_NULL) {
+			length = "NaN";
+		} else if (!meta.getNeedLengthForMetadata().isEmpty()) {
+			lst.addMetadataWsIncomplete();
+			return;
+		} else {
+			length = null;
+		}
+		for (final String name: meta.getNeedLengthForMetadata()) {
+			lst.addMetadataWsValue(name, length);
+		}
+		if (meta.getNeedValueForMetadata().isEmpty()) {
+			return;
+		}
+		final String value;
+		if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+			// metadata is normally extracted from the data as rewritten by
+			// JsonTokenStreamWriter, so format numbers the same way
+			final Number n = jp.getNumberValue();
+			if (n instanceof Short || n instanceof Integer || n instanceof Long ||
+					n instanceof BigInteger || n instanceof Float ||
+					n instanceof Double || n instanceof BigDecimal) {
+				value = n.toString();
+			} else if (t == JsonToken.VALUE_NUMBER_INT) {
+				value = Long.toString(n.longValue());
+			} else {
+				value = Double.toString(n.doubleValue());
+			}
+		} else {
+			value = jp.getText();
+		}
+		for (final String name: meta.getNeedValueForMetadata()) {
+			lst.addMetadataWsValue(name, value);
+		}
+	}
+	
 	private static String generateError(
 			final Type expectedType,
 			final JsonToken actualToken,
@@ -505,6 +709,10 @@ public class JsonTokenValidationSchema {
 		return originalType;
 	}
 	
+	public JsonNode getMetadataWs() {
+		return metadataWs;
+	}
+	
 	public boolean hasIdReference() {
 		return idReference != null;
 	}
@@ -615,6 +823,90 @@ public class JsonTokenValidationSchema {
 
 
 
+	private static class FieldDescr {
+		final String name;
+		// null if the field is required but has no schema
+		final JsonTokenValidationSchema type;
+		// position in the required fields, or -1 if not required
+		final int requiredPos;
+		public FieldDescr(String name, JsonTokenValidationSchema type,
+				int requiredPos) {
+			this.name = name;
+			this.type = type;
+			this.requiredPos = requiredPos;
+		}
+		
+		boolean matches(char[] buf, int offset, int len) {
+			if (name.length() != len) {
+				return false;
+			}
+			for (int i = 0; i < len; i++) {
+				if (name.charAt(i) != buf[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	/* Open addressing symbol table for the fields of a compiled structure.
+	 * Hashes are the same as String.hashCode() so a name can be looked up
+	 * either as a string or as a region of the parser's char buffer.
+	 */
+	private static class FieldTable {
+		private final FieldDescr[] slots;
+		private final int mask;
+		
+		public FieldTable(Collection<FieldDescr> fields) {
+			int capacity = 2;
+			while (capacity < fields.size() * 2) {
+				capacity <<= 1;
+			}
+			slots = new FieldDescr[capacity];
+			mask = capacity - 1;
+			for (FieldDescr field : fields) {
+				int pos = spread(field.name.hashCode()) & mask;
+				while (slots[pos] != null) {
+					pos = (pos + 1) & mask;
+				}
+				slots[pos] = field;
+			}
+		}
+		
+		private static int spread(int hash) {
+			return hash ^ (hash >>> 16);
+		}
+		
+		public FieldDescr get(String name) {
+			int pos = spread(name.hashCode()) & mask;
+			FieldDescr field;
+			while ((field = slots[pos]) != null) {
+				if (field.name == name || field.name.equals(name)) {
+					return field;
+				}
+				pos = (pos + 1) & mask;
+			}
+			return null;
+		}
+		
+		public FieldDescr get(char[] buf, int offset, int len) {
+			int hash = 0;
+			for (int i = 0; i < len; i++) {
+				hash = 31 * hash + buf[offset + i];
+			}
+			int pos = spread(hash) & mask;
+			FieldDescr field;
+			while ((field = slots[pos]) != null) {
+				if (field.name.hashCode() == hash &&
+						field.matches(buf, offset, len)) {
+					return field;
+				}
+				pos = (pos + 1) & mask;
+			}
+			return null;
+		}
+	}
+	
 	private static class IdRefDescr {
 		IdReferenceType idType;
 		List<String> attributes;
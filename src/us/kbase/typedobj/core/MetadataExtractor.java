@@ -45,8 +45,8 @@ public class MetadataExtractor {
 		if (metadataExtractionHandler == null) {
 			throw new NullPointerException("metadata handler cannot be null");
 		}
-		final MetadataNode root = new MetadataNode();
-		prepareMetadataSelectionTree(metadataExtractionHandler, root);
+		final MetadataNode root = prepareMetadataSelectionTree(
+				metadataExtractionHandler.getMetadataSelection());
 
 		//		root.printTree("  ");
 		if(!root.hasChildren()) {
@@ -69,21 +69,26 @@ public class MetadataExtractor {
 	}
 
 	/**
-	 * Add the metadata selection to the parsing tree.  The metadata selection 
+	 * Build the parsing tree from the metadata selection.  The metadata selection 
 	 * can ONLY be used to extract the field value (if a scalar) as a string,
 	 * or extract the length of a map (i.e. object) or
 	 * array or string. 
 	 * 
 	 */
-	private static void prepareMetadataSelectionTree(
-			final MetadataExtractionHandler metadataExtractionHandler,
-			final MetadataNode parent) {
+	static MetadataNode prepareMetadataSelectionTree(
+			final JsonNode selection) {
+		final MetadataNode parent = new MetadataNode();
+		if (selection == null) {
+			return parent;
+		}
 		// currently, we can only extract fields from the top level
-		final JsonNode selection =
-				metadataExtractionHandler.getMetadataSelection();
 		final Iterator<Map.Entry<String, JsonNode>> it = selection.fields();
 		while (it.hasNext()) {
 			final Map.Entry<String, JsonNode> entry = it.next();
+			if (!entry.getValue().isTextual()) {
+				// same as MetadataExtractionHandler, non-text selections are ignored
+				continue;
+			}
 			final String metadataName = entry.getKey();
 			String expression = entry.getValue().asText().trim();
 
@@ -113,6 +118,7 @@ public class MetadataExtractor {
 				currentNode.addNeedValueForMetadata(metadataName);
 			}
 		}
+		return parent;
 	}
 
 	/**
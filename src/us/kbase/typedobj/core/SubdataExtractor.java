@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -59,21 +60,97 @@ public class SubdataExtractor {
 		extractFields(objpaths, createTokenSequenceProvider(jp), output);
 	}
 	
+	/**
+	 * This method should be used only in tests because it processes json data 
+	 * stored in memory as a tree rather than as token stream that could be processed
+	 * directly from a file.
+	 */
+	public static List<JsonNode> extract(List<SubsetSelection> objpaths, JsonNode input) 
+			throws IOException, TypedObjectExtractionException {
+		TokenSequenceProvider tsp = createTokenSequenceProvider(new TreeTraversingParser(input));
+		List<JsonTreeGenerator> jgens = new ArrayList<JsonTreeGenerator>();
+		for (int i = 0; i < objpaths.size(); i++)
+			jgens.add(new JsonTreeGenerator(mapper));
+		extractFields(objpaths, tsp, new ArrayList<JsonGenerator>(jgens));
+		tsp.close();
+		List<JsonNode> ret = new ArrayList<JsonNode>();
+		for (JsonTreeGenerator jgen : jgens) {
+			jgen.close();
+			ret.add(jgen.getTree());
+		}
+		return ret;
+	}
+	
+	/**
+	 * Extract several selections from the same data in a single pass over the token stream.
+	 * The subset defined by the i-th selection is written into the i-th output generator.
+	 * The results are the same as calling
+	 * {@link #extract(SubsetSelection, JsonParser, JsonGenerator)} once per selection, but
+	 * the data is only read once.
+	 * 
+	 * If any of the selections is invalid with respect to the data the extraction of all
+	 * the selections fails.
+	 * @throws TypedObjectExtractionException 
+	 */
+	public static void extract(List<SubsetSelection> objpaths, JsonParser jp,
+			List<JsonGenerator> outputs) 
+			throws IOException, TypedObjectExtractionException {
+		extractFields(objpaths, createTokenSequenceProvider(jp), outputs);
+	}
+	
 	private static void extractFields(SubsetSelection objpaths, TokenSequenceProvider jts, JsonGenerator output) 
 	        throws IOException, TypedObjectExtractionException {
-		//if the selection is empty, we return without adding anything
-		SubdataExtractionNode root = new SubdataExtractionNode();
+		extractFields(Arrays.asList(objpaths), jts, Arrays.asList(output));
+	}
+	
+	private static void extractFields(List<SubsetSelection> objpaths, TokenSequenceProvider jts,
+			List<JsonGenerator> outputs) throws IOException, TypedObjectExtractionException {
+		if (objpaths.size() != outputs.size())
+			throw new IllegalArgumentException("The number of selections (" + objpaths.size() + 
+					") must match the number of outputs (" + outputs.size() + ")");
+		if (objpaths.isEmpty())
+			return;
+		List<ExtractionTarget> targets = new ArrayList<ExtractionTarget>();
 		for (int i = 0; i < objpaths.size(); i++) {
-		    try {
-		        String[] path = trimPath(objpaths.getPath(i));
-		        root.addPath(path);
-		    } catch (JsonPointerParseException ex) {
-		        throw new TypedObjectExtractionException(ex.getMessage(), ex);
-		    }
+			SubsetSelection sel = objpaths.get(i);
+			//if the selection is empty, we return without adding anything
+			SubdataExtractionNode root = new SubdataExtractionNode();
+			for (int j = 0; j < sel.size(); j++) {
+				try {
+					String[] path = trimPath(sel.getPath(j));
+					root.addPath(path);
+				} catch (JsonPointerParseException ex) {
+					throw new TypedObjectExtractionException(ex.getMessage(), ex);
+				}
+			}
+			targets.add(new ExtractionTarget(root, outputs.get(i), sel.isStrictMaps(),
+					sel.isStrictArrays()));
 		}
 		JsonToken t = jts.nextToken();
-		extractFieldsWithOpenToken(jts, t, root, output, new ArrayList<String>(), 
-		        objpaths.isStrictMaps(), objpaths.isStrictArrays());
+		extractFieldsWithOpenToken(jts, t, targets, new ArrayList<String>());
+	}
+	
+	/*
+	 * Position in subset schema tree of one of several selections processed in the
+	 * same pass together with output for this selection.
+	 */
+	private static class ExtractionTarget {
+		private final SubdataExtractionNode selection;
+		private final JsonGenerator jgen;
+		private final boolean strictMaps;
+		private final boolean strictArrays;
+		
+		private ExtractionTarget(SubdataExtractionNode selection, JsonGenerator jgen, 
+				boolean strictMaps, boolean strictArrays) {
+			this.selection = selection;
+			this.jgen = jgen;
+			this.strictMaps = strictMaps;
+			this.strictArrays = strictArrays;
+		}
+		
+		private ExtractionTarget child(SubdataExtractionNode childSelection) {
+			return new ExtractionTarget(childSelection, jgen, strictMaps, strictArrays);
+		}
 	}
 	
 	/*
@@ -377,6 +454,217 @@ public class SubdataExtractor {
 		}
 	}
 
+	/*
+	 * The same as writeTokensFromCurrent but writes all the tokens into several outputs.
+	 */
+	private static void writeTokensFromCurrent(
+			final TokenSequenceProvider jts,
+			final JsonToken current, 
+			final List<ExtractionTarget> targets)
+			throws IOException, TypedObjectExtractionException {
+		JsonToken t = current;
+		writeCurrentToken(jts, t, targets);
+		if (t == JsonToken.START_OBJECT) {
+			while (true) {
+				t = jts.nextToken();
+				writeCurrentToken(jts, t, targets);
+				if (t == JsonToken.END_OBJECT) {
+					break;
+				}
+				if (t != JsonToken.FIELD_NAME) {
+					throw new TypedObjectExtractionException(
+							"Error parsing json format: " + t.asString());
+				}
+				t = jts.nextToken();
+				writeTokensFromCurrent(jts, t, targets);
+			}
+		} else if (t == JsonToken.START_ARRAY) {
+			while (true) {
+				t = jts.nextToken();
+				if (t == JsonToken.END_ARRAY) {
+					writeCurrentToken(jts, t, targets);
+					break;
+				}
+				writeTokensFromCurrent(jts, t, targets);
+			}
+		}
+	}
+
+	private static void writeCurrentToken(TokenSequenceProvider jts, JsonToken current, 
+			List<ExtractionTarget> targets) throws IOException {
+		for (ExtractionTarget target : targets)
+			writeCurrentToken(jts, current, target.jgen);
+	}
+
+	/*
+	 * Multiple selection version of extractFieldsWithOpenToken. Each target tracks its own
+	 * place in its own subset schema tree and the block of tokens is skipped only if none
+	 * of the targets needs it. Error checks are the same as for single selection and are
+	 * applied for each target in order.
+	 */
+	private static void extractFieldsWithOpenToken(TokenSequenceProvider jts, JsonToken current, 
+			List<ExtractionTarget> targets, List<String> path)
+			throws IOException, TypedObjectExtractionException {
+		if (targets.size() == 1) {
+			ExtractionTarget target = targets.get(0);
+			extractFieldsWithOpenToken(jts, current, target.selection, target.jgen, path,
+					target.strictMaps, target.strictArrays);
+			return;
+		}
+		boolean needAllEverywhere = true;
+		for (ExtractionTarget target : targets) {
+			if (target.selection.hasChildren()) {
+				needAllEverywhere = false;
+				break;
+			}
+		}
+		JsonToken t = current;
+		if (needAllEverywhere && (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY)) {
+			writeTokensFromCurrent(jts, t, targets);
+		} else if (t == JsonToken.START_OBJECT) {
+			int size = targets.size();
+			// for each target: null if all fields are needed
+			List<Set<String>> selectedFields = new ArrayList<Set<String>>(size);
+			List<SubdataExtractionNode> allChildren = new ArrayList<SubdataExtractionNode>(size);
+			for (ExtractionTarget target : targets) {
+				SubdataExtractionNode selection = target.selection;
+				Set<String> selected = null;
+				SubdataExtractionNode allChild = null;
+				if (selection.hasChildren()) {
+					selected = new LinkedHashSet<String>(selection.getChildren().keySet());
+					if (selected.contains("*")) {
+						selected.remove("*");
+						allChild = selection.getChildren().get("*");
+						if (selected.size() > 0)
+							throw new TypedObjectExtractionException("Invalid selection: the selection path contains both '*'" +
+									"to select all fields and selction of specific fields (" + selected + "), at: " + getPathText(path));
+					}
+				}
+				selectedFields.add(selected);
+				allChildren.add(allChild);
+			}
+			writeCurrentToken(jts, t, targets);
+			while (true) {
+				t = jts.nextToken();
+				if (t == JsonToken.END_OBJECT) {
+					writeCurrentToken(jts, t, targets);
+					break;
+				}
+				if (t != JsonToken.FIELD_NAME)
+					throw new TypedObjectExtractionException("Error parsing json format " + 
+							t.asString() + ", at: " + getPathText(path));
+				String fieldName = jts.getText();
+				List<ExtractionTarget> childTargets = new ArrayList<ExtractionTarget>(size);
+				for (int i = 0; i < size; i++) {
+					ExtractionTarget target = targets.get(i);
+					Set<String> selected = selectedFields.get(i);
+					ExtractionTarget child;
+					if (selected == null) {
+						// selection node without children means whole block is needed
+						child = target;
+					} else if (allChildren.get(i) != null) {
+						child = target.child(allChildren.get(i));
+					} else if (selected.remove(fieldName)) {
+						child = target.child(target.selection.getChildren().get(fieldName));
+					} else {
+						continue;
+					}
+					writeCurrentToken(jts, t, target.jgen);
+					childTargets.add(child);
+				}
+				t = jts.nextToken();
+				if (childTargets.isEmpty()) {
+					skipChildren(jts, t);
+				} else {
+					path.add(fieldName);
+					extractFieldsWithOpenToken(jts, t, childTargets, path);
+					path.remove(path.size() - 1);
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				Set<String> selected = selectedFields.get(i);
+				if (targets.get(i).strictMaps && selected != null && !selected.isEmpty()) {
+					String notFound = selected.iterator().next();
+					throw new TypedObjectExtractionException("Invalid selection: data does not contain a field or key named " +
+							"'" + notFound + "', at: " + getPathText(path, notFound));
+				}
+			}
+		} else if (t == JsonToken.START_ARRAY) {
+			int size = targets.size();
+			List<Set<String>> selectedFields = new ArrayList<Set<String>>(size);
+			List<SubdataExtractionNode> allChildren = new ArrayList<SubdataExtractionNode>(size);
+			for (ExtractionTarget target : targets) {
+				SubdataExtractionNode selection = target.selection;
+				Set<String> selected = null;
+				SubdataExtractionNode allChild = null;
+				if (selection.hasChildren()) {
+					selected = new LinkedHashSet<String>(selection.getChildren().keySet());
+					if (!selected.contains("[*]")) {
+						for (String item : selected) {
+							try {
+								Integer.parseInt(item);
+							} catch (NumberFormatException ex) {
+								throw new TypedObjectExtractionException("Invalid selection: data at '"+getPathText(path)+"' is an array, so " +
+										"element selection must be an integer.  You requested element '" + item + "', at: " + getPathText(path));
+							}
+						}
+					} else {
+						selected.remove("[*]");
+						allChild = selection.getChildren().get("[*]");
+						if (selected.size() > 0)
+							throw new TypedObjectExtractionException("Invalid selection: the selection path contains both '[*]'" +
+									"to select all elements and selction of specific elements (" + selected + "), at: " + getPathText(path));
+					}
+				}
+				selectedFields.add(selected);
+				allChildren.add(allChild);
+			}
+			writeCurrentToken(jts, t, targets);
+			for (int pos = 0; ; pos++) {
+				t = jts.nextToken();
+				if (t == JsonToken.END_ARRAY) {
+					writeCurrentToken(jts, t, targets);
+					break;
+				}
+				String key = "" + pos;
+				List<ExtractionTarget> childTargets = new ArrayList<ExtractionTarget>(size);
+				for (int i = 0; i < size; i++) {
+					ExtractionTarget target = targets.get(i);
+					Set<String> selected = selectedFields.get(i);
+					if (selected == null) {
+						childTargets.add(target);
+					} else if (allChildren.get(i) != null) {
+						childTargets.add(target.child(allChildren.get(i)));
+					} else if (selected.remove(key)) {
+						childTargets.add(target.child(target.selection.getChildren().get(key)));
+					}
+				}
+				if (childTargets.isEmpty()) {
+					skipChildren(jts, t);
+				} else {
+					path.add(key);
+					extractFieldsWithOpenToken(jts, t, childTargets, path);
+					path.remove(path.size() - 1);
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				Set<String> selected = selectedFields.get(i);
+				if (targets.get(i).strictArrays && selected != null && !selected.isEmpty()) {
+					String notFound = selected.iterator().next();
+					throw new TypedObjectExtractionException("Invalid selection: no array element exists at position " +
+							"'" + notFound + "', at: " + getPathText(path, notFound));
+				}
+			}
+		} else {
+			for (ExtractionTarget target : targets) {
+				if (target.selection.hasChildren())
+					throw new TypedObjectExtractionException("Invalid selection: the path given specifies fields or elements that do not exist because data " +
+							"at this location is a scalar value (i.e. string, integer, float), at: " + getPathText(path));
+			}
+			writeCurrentToken(jts, t, targets);
+		}
+	}
+
 	public static String getPathText(List<String> path, String add) {
 		path.add(add);
 		String ret = getPathText(path);
@@ -4,22 +4,58 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manager of temporary files for the workspace. All temporary files are
  * prefixed with "ws.".
+ *
+ * Files may be spread over several directories, for example on different
+ * devices, in which case new files are assigned to the directories in turn.
+ *
+ * Every file created by the manager is tracked. Files created by a thread
+ * while a {@link Request} is attached to it are owned by the request. When
+ * the request is ended with {@link Request#end()}, any of its files that
+ * still exist are marked as orphaned. A reaper started with
+ * {@link #startReaper(long, long)} deletes orphaned files once they've been
+ * orphaned for longer than a time to live. Files created outside of a request
+ * are never orphaned and must be deleted by the code that created them.
+ *
+ * An optional quota limits the total size of the tracked files. The quota is
+ * checked whenever a file is created, so code that spills data to disk
+ * should pass the expected size of the file to
+ * {@link #generateTempFile(String, String, long)}.
  * @author rsutormin
  */
 public class TempFilesManager {
 	
 	
 	private static final String WS_PREFIX = "ws.";
-	private File tempDir;
+	// number of created files between purges of deleted files from the registry
+	private static final int PURGE_INTERVAL = 100;
+	private final List<File> tempDirs;
+	private final AtomicInteger nextDir = new AtomicInteger();
 	private final Set<TempFileListener> listeners =
 			new HashSet<TempFileListener>();
+	private final Map<File, TrackedFile> tracked =
+			new ConcurrentHashMap<File, TrackedFile>();
+	private volatile long diskQuota = 0;
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong reapedCount = new AtomicLong();
+	private ScheduledExecutorService reaper = null;
 	
 	private static final FileFilter ff = new FileFilter() {
 		
@@ -32,40 +68,180 @@ public class TempFilesManager {
 		}
 	};
 	
+	private final ThreadLocal<Request> current = new ThreadLocal<Request>();
+	
+	private static class TrackedFile {
+		private final File file;
+		// time the file was orphaned, or -1 if it is still in use
+		private volatile long orphaned = -1;
+		
+		private TrackedFile(final File file) {
+			this.file = file;
+		}
+	}
+	
+	/** A unit of work, such as an RPC request or a background job, that owns
+	 * the temporary files created by the threads it is attached to.
+	 */
+	public class Request {
+		
+		private final Set<TrackedFile> files = Collections.newSetFromMap(
+				new ConcurrentHashMap<TrackedFile, Boolean>());
+		private volatile boolean ended = false;
+		
+		private Request() {}
+		
+		/** Attach this request to the current thread, so that files the
+		 * thread creates are owned by the request. Use this to hand a request
+		 * to a helper thread.
+		 */
+		public void attach() {
+			current.set(this);
+		}
+		
+		/** Detach this request from the current thread, if attached. */
+		public void detach() {
+			if (current.get() == this) {
+				current.remove();
+			}
+		}
+		
+		/** End the request. Any files owned by the request that still exist
+		 * are marked as orphaned, and the request is detached from the
+		 * current thread. Files created by threads the request is still
+		 * attached to after it has ended are orphaned immediately.
+		 */
+		public void end() {
+			ended = true;
+			detach();
+			final long now = System.currentTimeMillis();
+			for (final TrackedFile tf: files) {
+				orphan(tf, now);
+			}
+			files.clear();
+		}
+		
+		private void add(final TrackedFile tf) {
+			if (ended) {
+				orphan(tf, System.currentTimeMillis());
+			} else {
+				files.add(tf);
+			}
+		}
+	}
+	
+	/** Thrown when creating a temporary file would exceed the disk quota for
+	 * temporary files.
+	 */
+	@SuppressWarnings("serial")
+	public static class DiskQuotaExceededException extends RuntimeException {
+		
+		public DiskQuotaExceededException(String message) {
+			super(message);
+		}
+	}
+	
 	/** Create a new temporary file manager.
 	 * @param tempDir the directory in which to store temporary files.
 	 */
 	public TempFilesManager(final File tempDir) {
-		if (tempDir == null) {
+		this(Arrays.asList(tempDir));
+	}
+	
+	/** Create a new temporary file manager that spreads temporary files over
+	 * several directories.
+	 * @param tempDirs the directories in which to store temporary files.
+	 */
+	public TempFilesManager(final List<File> tempDirs) {
+		if (tempDirs == null || tempDirs.isEmpty()) {
 			throw new IllegalArgumentException("tempDir cannot be null");
 		}
-		this.tempDir = tempDir;
-		if (tempDir.exists()) {
-			if (!tempDir.isDirectory())
-				throw new IllegalArgumentException(
-						"Temporary file storage location must be a directory: "
-						+ tempDir);
-		} else {
-			tempDir.mkdir();
+		for (final File tempDir: tempDirs) {
+			if (tempDir == null) {
+				throw new IllegalArgumentException("tempDir cannot be null");
+			}
+			if (tempDir.exists()) {
+				if (!tempDir.isDirectory())
+					throw new IllegalArgumentException(
+							"Temporary file storage location must be a directory: "
+							+ tempDir);
+			} else {
+				tempDir.mkdir();
+			}
 		}
+		this.tempDirs = Collections.unmodifiableList(
+				new ArrayList<File>(tempDirs));
 	}
 	
-	/** Get the temporary file directory.
+	/** Get the temporary file directory. If the manager uses several
+	 * directories, the first directory is returned.
 	 * @return
 	 */
 	public File getTempDir() {
-		return tempDir;
+		return tempDirs.get(0);
+	}
+	
+	/** Get all the temporary file directories.
+	 * @return the temporary file directories.
+	 */
+	public List<File> getTempDirs() {
+		return tempDirs;
+	}
+	
+	/** Set the maximum total size of the temporary files that currently
+	 * exist.
+	 * @param quota the quota in bytes. Values less than 1 mean no quota.
+	 */
+	public void setDiskQuota(final long quota) {
+		diskQuota = quota < 1 ? 0 : quota;
+	}
+	
+	/** Get the maximum total size of the temporary files that currently
+	 * exist.
+	 * @return the quota in bytes, or 0 if there is no quota.
+	 */
+	public long getDiskQuota() {
+		return diskQuota;
 	}
 	
 	/** Create a temporary file.
 	 * @param prefix the prefix of the temporary file.
 	 * @param extension the extension of the temporary file.
 	 * @return a temporary file.
+	 * @throws DiskQuotaExceededException if the temporary files already
+	 * exceed the disk quota.
 	 */
 	public File generateTempFile(String prefix, String extension) {
+		return generateTempFile(prefix, extension, 0);
+	}
+	
+	/** Create a temporary file that is expected to grow to a known size.
+	 * @param prefix the prefix of the temporary file.
+	 * @param extension the extension of the temporary file.
+	 * @param expectedSize the number of bytes that will be written to the
+	 * file, if known.
+	 * @return a temporary file.
+	 * @throws DiskQuotaExceededException if writing the expected number of
+	 * bytes would exceed the disk quota.
+	 */
+	public File generateTempFile(String prefix, String extension,
+			long expectedSize) {
+		checkQuota(expectedSize);
+		final File tempDir = tempDirs.get(
+				(nextDir.getAndIncrement() & Integer.MAX_VALUE) %
+				tempDirs.size());
 		try {
 			final File t = File.createTempFile(
 					WS_PREFIX + prefix, "." + extension, tempDir);
+			final TrackedFile tf = new TrackedFile(t);
+			tracked.put(t, tf);
+			final Request r = current.get();
+			if (r != null) {
+				r.add(tf);
+			}
+			if (createdCount.incrementAndGet() % PURGE_INTERVAL == 0) {
+				purgeDeletedFiles();
+			}
 			for (TempFileListener l: listeners) {
 				l.createdTempFile(t);
 			}
@@ -75,6 +251,160 @@ public class TempFilesManager {
 		}
 	}
 	
+	/** Check that the given number of bytes can be written to temporary
+	 * files without exceeding the disk quota.
+	 * @param additionalBytes the number of bytes to be written.
+	 * @throws DiskQuotaExceededException if the quota would be exceeded.
+	 */
+	public void checkQuota(final long additionalBytes) {
+		final long quota = diskQuota;
+		if (quota < 1) {
+			return;
+		}
+		final long live = getLiveBytes();
+		if (live + additionalBytes > quota) {
+			throw new DiskQuotaExceededException(String.format(
+					"Disk quota for temporary files exceeded: %s bytes in use, %s bytes requested, quota is %s bytes",
+					live, additionalBytes, quota));
+		}
+	}
+	
+	/** Start a request and attach it to the current thread. Files the thread
+	 * creates until the request is ended or detached are owned by the
+	 * request.
+	 * @return the request.
+	 */
+	public Request startRequest() {
+		final Request r = new Request();
+		r.attach();
+		return r;
+	}
+	
+	private void orphan(final TrackedFile tf, final long now) {
+		if (tf.orphaned < 0) {
+			if (tf.file.exists()) {
+				tf.orphaned = now;
+			} else {
+				tracked.remove(tf.file);
+			}
+		}
+	}
+	
+	/** Start a daemon thread that periodically deletes orphaned files.
+	 * Calling this method while a reaper is running replaces the reaper.
+	 * @param ttlMillis the time in milliseconds since a file was orphaned
+	 * after which it is deleted.
+	 * @param intervalMillis the time between reaper runs in milliseconds.
+	 */
+	public synchronized void startReaper(
+			final long ttlMillis,
+			final long intervalMillis) {
+		if (ttlMillis < 0) {
+			throw new IllegalArgumentException("ttl must be at least 0");
+		}
+		if (intervalMillis < 1) {
+			throw new IllegalArgumentException("interval must be at least 1");
+		}
+		stopReaper();
+		reaper = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "ws-tempfile-reaper");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		reaper.scheduleWithFixedDelay(new Runnable() {
+			
+			@Override
+			public void run() {
+				try {
+					reap(ttlMillis);
+				} catch (RuntimeException e) {
+					// keep reaping, the next run may succeed
+				}
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/** Stop the reaper, if running.
+	 */
+	public synchronized void stopReaper() {
+		if (reaper != null) {
+			reaper.shutdownNow();
+			reaper = null;
+		}
+	}
+	
+	/** Delete files that have been orphaned for longer than a time to live.
+	 * @param ttlMillis the time to live in milliseconds.
+	 * @return the number of files deleted.
+	 */
+	public int reap(final long ttlMillis) {
+		final long now = System.currentTimeMillis();
+		int count = 0;
+		for (final TrackedFile tf: tracked.values()) {
+			if (!tf.file.exists()) {
+				tracked.remove(tf.file);
+				continue;
+			}
+			final long orphaned = tf.orphaned;
+			if (orphaned >= 0 && now - orphaned >= ttlMillis) {
+				tf.file.delete();
+				tracked.remove(tf.file);
+				count++;
+			}
+		}
+		reapedCount.addAndGet(count);
+		return count;
+	}
+	
+	private void purgeDeletedFiles() {
+		final Iterator<TrackedFile> i = tracked.values().iterator();
+		while (i.hasNext()) {
+			if (!i.next().file.exists()) {
+				i.remove();
+			}
+		}
+	}
+	
+	/** Get the total size of the tracked temporary files that currently
+	 * exist.
+	 * @return the size in bytes.
+	 */
+	public long getLiveBytes() {
+		long size = 0;
+		for (final TrackedFile tf: tracked.values()) {
+			// length() is 0 for deleted files
+			size += tf.file.length();
+		}
+		return size;
+	}
+	
+	/** Get the number of tracked temporary files that currently exist.
+	 * @return the number of files.
+	 */
+	public int getLiveFileCount() {
+		purgeDeletedFiles();
+		return tracked.size();
+	}
+	
+	/** Get the number of temporary files created by this manager.
+	 * @return the number of files.
+	 */
+	public long getCreatedFileCount() {
+		return createdCount.get();
+	}
+	
+	/** Get the number of temporary files deleted by the reaper.
+	 * @return the number of files.
+	 */
+	public long getReapedFileCount() {
+		return reapedCount.get();
+	}
+	
 	/** Add a listener that is notifed whenever a temp file is created.
 	 * @param listener the listener.
 	 */
@@ -92,17 +422,22 @@ public class TempFilesManager {
 	/** Delete all the temporary files.
 	 */
 	public synchronized void cleanup() {
-		for (File f : tempDir.listFiles(ff)) {
-			f.delete();
+		for (final File tempDir: tempDirs) {
+			for (File f : tempDir.listFiles(ff)) {
+				f.delete();
+			}
 		}
+		tracked.clear();
 	}
 
 	/** Check if any temporary files exist.
 	 * @return true if any temporary files exist.
 	 */
 	public boolean isEmpty() {
-		if(tempDir.listFiles(ff).length > 0) {
-			return false;
+		for (final File tempDir: tempDirs) {
+			if(tempDir.listFiles(ff).length > 0) {
+				return false;
+			}
 		}
 		return true;
 	}
@@ -112,8 +447,10 @@ public class TempFilesManager {
 	 */
 	public List<String> getTempFileList() {
 		List<String> ret = new ArrayList<String>();
-		for (File f : tempDir.listFiles(ff))
-			ret.add(f.getName());
+		for (final File tempDir: tempDirs) {
+			for (File f : tempDir.listFiles(ff))
+				ret.add(f.getName());
+		}
 		return ret;
 	}
 }
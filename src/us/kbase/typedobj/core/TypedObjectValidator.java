@@ -1,10 +1,14 @@
 package us.kbase.typedobj.core;
 
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonParseException;
@@ -70,12 +74,37 @@ public final class TypedObjectValidator {
 	
 	private static final int maxErrorCount = 10;
 	
+	/**
+	 * The default number of validations of a type after which the type's schema
+	 * is compiled and kept for later validations.
+	 */
+	public static final int DEFAULT_COMPILE_THRESHOLD = 10;
+	
+	private static final int MAX_COMPILED_SCHEMAS = 200;
+	
 	/**
 	 * This object is used to fetch the typed object Json Schema documents and
 	 * JsonSchema objects which are used for validation
 	 */
 	protected TypeProvider typeProvider;
 	
+	private final int compileThreshold;
+	
+	// absolute type definitions never change, so schemas can be kept forever
+	private final Map<AbsoluteTypeDefId, Integer> typeUsage =
+			new HashMap<AbsoluteTypeDefId, Integer>();
+	private final Map<AbsoluteTypeDefId, JsonTokenValidationSchema> compiledSchemas =
+			new LinkedHashMap<AbsoluteTypeDefId, JsonTokenValidationSchema>(
+					16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected boolean removeEldestEntry(
+						final Map.Entry<AbsoluteTypeDefId,
+								JsonTokenValidationSchema> eldest) {
+					return size() > MAX_COMPILED_SCHEMAS;
+				}
+			};
+	
 	
 	/**
 	 * Get the type provider the validator validates typed object instances against.
@@ -90,7 +119,50 @@ public final class TypedObjectValidator {
 	 * Construct a TypedObjectValidator set to the specified Typed Provider
 	 */
 	public TypedObjectValidator(TypeProvider typeProvider) {
+		this(typeProvider, DEFAULT_COMPILE_THRESHOLD);
+	}
+	
+	/**
+	 * Construct a TypedObjectValidator set to the specified Typed Provider.
+	 * @param typeProvider the type provider.
+	 * @param compileThreshold the number of validations of a type after which
+	 * the type's schema is compiled and kept for later validations. 0 means
+	 * schemas are always compiled, a negative number means never.
+	 */
+	public TypedObjectValidator(
+			final TypeProvider typeProvider,
+			final int compileThreshold) {
 		this.typeProvider = typeProvider;
+		this.compileThreshold = compileThreshold;
+	}
+	
+	private JsonTokenValidationSchema getSchema(
+			final AbsoluteTypeDefId type)
+			throws NoSuchTypeException, NoSuchModuleException,
+			TypeStorageException, TypedObjectSchemaException {
+		synchronized (compiledSchemas) {
+			final JsonTokenValidationSchema schema = compiledSchemas.get(type);
+			if (schema != null) {
+				return schema;
+			}
+		}
+		final JsonTokenValidationSchema schema =
+				JsonTokenValidationSchema.parseJsonSchema(
+						typeProvider.getTypeJsonSchema(type));
+		if (compileThreshold < 0) {
+			return schema;
+		}
+		synchronized (compiledSchemas) {
+			final Integer count = typeUsage.get(type);
+			final int usage = count == null ? 1 : count + 1;
+			if (usage <= compileThreshold) {
+				typeUsage.put(type, usage);
+			} else {
+				typeUsage.remove(type);
+				compiledSchemas.put(type, schema.compile());
+			}
+		}
+		return schema;
 	}
 	
 	
@@ -177,12 +249,14 @@ public final class TypedObjectValidator {
 		
 		// Actually perform the validation and return the report
 		final List<String> errors = new ArrayList<String>();
-		String schemaText = typeProvider.getTypeJsonSchema(absoluteTypeDefId);
-		final JsonTokenValidationSchema schema =
-				JsonTokenValidationSchema.parseJsonSchema(schemaText);
+		final JsonTokenValidationSchema schema = getSchema(absoluteTypeDefId);
 		
 		// these must be arrays to get the inner class def override to work
 		final JsonNode [] metadataSelection = new JsonNode[] {null};
+		// metadata extracted during validation, in the order it was found
+		final List<Entry<String, String>> metadata =
+				new LinkedList<Entry<String, String>>();
+		final boolean [] metadataIncomplete = new boolean[] {false};
 		try {
 			if (!schema.getOriginalType().equals("kidl-structure"))
 				throw new JsonTokenValidationException(
@@ -247,6 +321,19 @@ public final class TypedObjectValidator {
 					public void addMetadataWsMessage(JsonNode selection) {
 						metadataSelection[0] = selection;
 					}
+
+					@Override
+					public void addMetadataWsValue(
+							final String name,
+							final String value) {
+						metadata.add(new SimpleImmutableEntry<String, String>(
+								name, value));
+					}
+
+					@Override
+					public void addMetadataWsIncomplete() {
+						metadataIncomplete[0] = true;
+					}
 				});
 			} finally {
 				try { jts.close(); } catch (Exception ignore) {}
@@ -268,13 +355,22 @@ public final class TypedObjectValidator {
 			}
 		}
 
+		/* the metadata is extracted during validation using the root
+		 * selection. If a nested structure replaced the selection it has to be
+		 * extracted again later.
+		 */
+		final boolean rootSelection = metadataSelection[0] == null ?
+				schema.getMetadataWs() == null :
+				metadataSelection[0].equals(schema.getMetadataWs());
 		return new ValidatedTypedObject(
 									obj,
 									absoluteTypeDefId,
 									errors, 
 									metadataSelection[0],
 									schema,
-									handlers);
+									handlers,
+									metadataIncomplete[0] || !rootSelection ?
+											null : metadata);
 	}
 	
 	private void mapErrors(final List<String> errors, final String err) {
@@ -10,12 +10,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map.Entry;
 
 import us.kbase.common.service.JsonTokenStream;
 import us.kbase.common.service.UObject;
@@ -23,6 +26,7 @@ import us.kbase.common.utils.CountingOutputStream;
 import us.kbase.common.utils.sortjson.KeyDuplicationException;
 import us.kbase.common.utils.sortjson.TooManyKeysException;
 import us.kbase.common.utils.sortjson.UTF8JsonSorterFactory;
+import us.kbase.typedobj.core.TempFilesManager.DiskQuotaExceededException;
 import us.kbase.typedobj.exceptions.ExceededMaxMetadataSizeException;
 import us.kbase.typedobj.idref.IdReference;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet;
@@ -80,13 +84,28 @@ public class ValidatedTypedObject {
 	// whether the object is naturally sorted after relabeling.
 	// Only set to true after relabeling.
 	private boolean naturallySorted = false;
+	// the MD5 of the object after relabeling, calculated along with the size.
+	// Only valid as the final MD5 if the object is naturally sorted.
+	private MD5 relabeledMD5 = null;
 	
 	private byte[] byteCache = null;
 	
 	private File fileCache = null;
 	
+	// if true the relabeled object is streamed from the original data
+	// rather than cached
+	private boolean streamRelabeled = false;
+	
+	private static final int PIPE_SIZE = 64 * 1024;
+	
 	private final JsonTokenValidationSchema schema;
 	
+	/**
+	 * The metadata extracted from the object during validation, in the order
+	 * it was found, or null if the metadata must be extracted from the object.
+	 */
+	private final List<Entry<String, String>> validationMetadata;
+	
 	/**
 	 * Create a validated object. The object contains
 	 * information on validation errors (if any), the IDs found in the object,
@@ -99,6 +118,24 @@ public class ValidatedTypedObject {
 			final JsonNode wsMetadataSelection,
 			final JsonTokenValidationSchema schema,
 			final IdReferenceHandlerSet<?> idHandler) {
+		this(tokenStreamProvider, validationTypeDefId, errors,
+				wsMetadataSelection, schema, idHandler, null);
+	}
+	
+	/**
+	 * Create a validated object. The object contains
+	 * information on validation errors (if any), the IDs found in the object,
+	 * information about the metadata extraction selection, and the metadata
+	 * extracted while the object was validated, if any.
+	 */
+	protected ValidatedTypedObject(
+			final UObject tokenStreamProvider,
+			final AbsoluteTypeDefId validationTypeDefId, 
+			final List<String> errors,
+			final JsonNode wsMetadataSelection,
+			final JsonTokenValidationSchema schema,
+			final IdReferenceHandlerSet<?> idHandler,
+			final List<Entry<String, String>> validationMetadata) {
 		if (errors == null) {
 			throw new NullPointerException("errors");
 		}
@@ -121,6 +158,9 @@ public class ValidatedTypedObject {
 		this.idHandler = idHandler;
 		this.tokenStreamProvider = tokenStreamProvider;
 		this.schema = schema;
+		//null is ok, metadata is extracted from the object in that case
+		this.validationMetadata = validationMetadata == null ? null :
+			Collections.unmodifiableList(new LinkedList<>(validationMetadata));
 	}
 	
 	/**
@@ -150,14 +190,21 @@ public class ValidatedTypedObject {
 	 * must be called before calling this method. The stream is buffered
 	 * when appropriate.
 	 * 
+	 * If the object was sorted with a temporary file manager and is
+	 * naturally sorted, the object is relabeled by a separate thread as the
+	 * stream is read rather than being stored in a temporary file.
+	 * 
 	 * The caller of this method is responsible for closing the stream.
 	 * @return an object input stream.
 	 */
 	public InputStream getInputStream() {
-		if (byteCache == null && fileCache == null) {
+		if (byteCache == null && fileCache == null && !streamRelabeled) {
 			throw new IllegalStateException(
 					"You must call sort() prior to accessing the object data.");
 		}
+		if (streamRelabeled) {
+			return new RelabelingInputStream(md5);
+		}
 		if (byteCache != null) {
 			return new ByteArrayInputStream(byteCache);
 		} else {
@@ -184,10 +231,13 @@ public class ValidatedTypedObject {
 			return size;
 		}
 		final CountingOutputStream cos = new CountingOutputStream();
-		final JsonGenerator jgen = new JsonFactory().createGenerator(cos);
+		final MessageDigest digest = getMD5Digest();
+		final JsonGenerator jgen = new JsonFactory().createGenerator(
+				new DigestOutputStream(cos, digest));
 		naturallySorted =
 				relabelWsIdReferencesIntoGeneratorAndCheckOrder(jgen);
 		jgen.close();
+		relabeledMD5 = getMD5fromDigest(digest);
 		this.size = cos.getSize();
 		return this.size;
 	}
@@ -254,10 +304,14 @@ public class ValidatedTypedObject {
 	
 	/** Relabel ids, sort the object if necessary and keep a copy.
 	 * You must call this method prior to calling getInputStream().
+	 * 
+	 * If tfm is provided and the object is naturally sorted, no copy is kept
+	 * and the object is relabeled again when getInputStream() is read.
 	 * @param fac the sorter factory to use when generating a sorter.
 	 * @param tfm the temporary file manager to use for managing temporary
 	 * files. All data is kept in memory if tfm is null.
-	 * @throws IOException if an IO exception occurs.
+	 * @throws IOException if an IO exception occurs or the temporary files
+	 * needed to sort the object would exceed the temporary file disk quota.
 	 * @throws TooManyKeysException if the memory required to sort the map is
 	 * too high.
 	 * @throws KeyDuplicationException if there are duplicate keys present
@@ -273,56 +327,59 @@ public class ValidatedTypedObject {
 			calculateRelabeledSize();
 		}
 		destroyCachedResources();
-		final MessageDigest digest = getMD5Digest();
-		if (tfm == null) {
-			if (naturallySorted) {
+		if (naturallySorted) {
+			// the relabeled object is the sorted object, so no need to
+			// recalculate the MD5
+			if (tfm == null) {
 				final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				relabelWsIdReferencesIntoWriter(new DigestOutputStream(
-						baos, digest));
-				byteCache = baos.toByteArray();
-			} else {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
 				relabelWsIdReferencesIntoWriter(baos);
 				byteCache = baos.toByteArray();
-				baos = new ByteArrayOutputStream();
-				fac.getSorter(byteCache).writeIntoStream(
-						new DigestOutputStream(baos, digest));
-				byteCache = baos.toByteArray();
+			} else {
+				// writing the object to disk only to read it back again is
+				// a waste, just relabel again when the data is needed
+				streamRelabeled = true;
 			}
+			md5 = relabeledMD5;
+			return;
+		}
+		final MessageDigest digest = getMD5Digest();
+		if (tfm == null) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			relabelWsIdReferencesIntoWriter(baos);
+			byteCache = baos.toByteArray();
+			baos = new ByteArrayOutputStream();
+			fac.getSorter(byteCache).writeIntoStream(
+					new DigestOutputStream(baos, digest));
+			byteCache = baos.toByteArray();
 		} else {
 			/* note that Jackson, JsonTokenStream (the data source) and the
 			 * sorters do their own buffering, so wrapping streams in a buffer
 			 * isn't necessary
 			 */
-			if (naturallySorted) {
-				fileCache = tfm.generateTempFile("natsortout", "json");
-				try (final OutputStream os = new FileOutputStream(fileCache)) {
-					relabelWsIdReferencesIntoWriter(new DigestOutputStream(
-							os, digest));
-				} catch (IOException | RuntimeException | Error e) {
+			try {
+				// sorting needs both the input and output files on disk
+				tfm.checkQuota(2 * size);
+			} catch (DiskQuotaExceededException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			final File f1 = tfm.generateTempFile("sortinp", "json");
+			try {
+				try (final OutputStream os = new FileOutputStream(f1)) {
+					relabelWsIdReferencesIntoWriter(os);
+				}
+				fileCache = tfm.generateTempFile("sortout", "json");
+				try (final OutputStream os =
+						new FileOutputStream(fileCache)) {
+					fac.getSorter(f1).writeIntoStream(
+							new DigestOutputStream(os, digest));
+				} catch (IOException | KeyDuplicationException |
+						TooManyKeysException | RuntimeException |
+						Error e) {
 					destroyCachedResources();
 					throw e;
 				}
-			} else {
-				final File f1 = tfm.generateTempFile("sortinp", "json");
-				try {
-					try (final OutputStream os = new FileOutputStream(f1)) {
-						relabelWsIdReferencesIntoWriter(os);
-					}
-					fileCache = tfm.generateTempFile("sortout", "json");
-					try (final OutputStream os =
-							new FileOutputStream(fileCache)) {
-						fac.getSorter(f1).writeIntoStream(
-								new DigestOutputStream(os, digest));
-					} catch (IOException | KeyDuplicationException |
-							TooManyKeysException | RuntimeException |
-							Error e) {
-						destroyCachedResources();
-						throw e;
-					}
-				} finally {
-					f1.delete();
-				}
+			} finally {
+				f1.delete();
 			}
 		}
 		md5 = getMD5fromDigest(digest);
@@ -335,6 +392,7 @@ public class ValidatedTypedObject {
 	 */
 	public void destroyCachedResources() {
 		this.byteCache = null;
+		this.streamRelabeled = false;
 		if (this.fileCache != null) {
 			this.fileCache.delete();
 			this.fileCache = null;
@@ -454,7 +512,8 @@ public class ValidatedTypedObject {
 	
 	/**
 	 * If metadata ws was defined in the Json Schema, then you can use this
-	 * method to extract out the contents.
+	 * method to extract out the contents. If the metadata was extracted while
+	 * the object was validated the object is not read again.
 	 * @param maxMetadataSize the maximum allowable size for the metadata.
 	 * @throws ExceededMaxMetadataSizeException if the metadata exceeds the
 	 * maximum allowed size.
@@ -470,6 +529,12 @@ public class ValidatedTypedObject {
 		final MetadataExtractionHandler handler =
 				new MetadataExtractionHandler(wsMetadataSelection,
 						maxMetadataSize);
+		if (validationMetadata != null) {
+			for (final Entry<String, String> e: validationMetadata) {
+				handler.saveMetadata(e.getKey(), e.getValue());
+			}
+			return new ExtractedMetadata(handler.getSavedMetadata());
+		}
 		// Identify what we need to extract
 		TokenSequenceProvider tsp = null;
 		try {
@@ -504,4 +569,103 @@ public class ValidatedTypedObject {
 		builder.append("]");
 		return builder.toString();
 	}
+	
+	/* Relabels the object into a pipe in a separate thread. The thread is
+	 * started on the first read so that the data is never relabeled if the
+	 * stream is discarded unread, e.g. if the object already exists in the
+	 * blob store.
+	 */
+	private class RelabelingInputStream extends InputStream {
+		
+		private final MD5 expectedMD5;
+		private final PipedInputStream pipe;
+		private final PipedOutputStream sink;
+		private Thread writer = null;
+		private volatile Throwable error = null;
+		
+		private RelabelingInputStream(final MD5 expectedMD5) {
+			this.expectedMD5 = expectedMD5;
+			pipe = new PipedInputStream(PIPE_SIZE);
+			try {
+				sink = new PipedOutputStream(pipe);
+			} catch (IOException e) {
+				throw new RuntimeException(
+						"Unable to connect a new pipe, this should be impossible",
+						e);
+			}
+		}
+		
+		private synchronized void startWriter() {
+			if (writer != null) {
+				return;
+			}
+			writer = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						final MessageDigest digest = getMD5Digest();
+						relabelWsIdReferencesIntoWriter(
+								new DigestOutputStream(sink, digest));
+						final MD5 actual = getMD5fromDigest(digest);
+						if (!actual.equals(expectedMD5)) {
+							throw new IllegalStateException(String.format(
+									"The MD5 of the relabeled object, %s, does not match the expected MD5, %s",
+									actual.getMD5(), expectedMD5.getMD5()));
+						}
+					} catch (Throwable t) {
+						error = t;
+					} finally {
+						try {
+							sink.close();
+						} catch (IOException e) {
+							// nothing to be done
+						}
+					}
+				}
+			}, "ws-relabel-stream");
+			writer.setDaemon(true);
+			writer.start();
+		}
+		
+		private void checkError() throws IOException {
+			final Throwable t = error;
+			if (t != null) {
+				throw new IOException("Error relabeling object: " +
+						t.getMessage(), t);
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			startWriter();
+			final int b = pipe.read();
+			if (b < 0) {
+				checkError();
+			}
+			return b;
+		}
+		
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+				throws IOException {
+			startWriter();
+			final int read = pipe.read(b, off, len);
+			if (read < 0) {
+				checkError();
+			}
+			return read;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return pipe.available();
+		}
+		
+		@Override
+		public void close() throws IOException {
+			// causes the writer, if running, to fail and exit
+			pipe.close();
+		}
+	}
 }
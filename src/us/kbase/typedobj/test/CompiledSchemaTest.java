@@ -0,0 +1,281 @@
+package us.kbase.typedobj.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import us.kbase.typedobj.core.AbsoluteTypeDefId;
+import us.kbase.typedobj.core.JsonDocumentLocation;
+import us.kbase.typedobj.core.JsonTokenValidationException;
+import us.kbase.typedobj.core.JsonTokenValidationListener;
+import us.kbase.typedobj.core.JsonTokenValidationSchema;
+import us.kbase.typedobj.core.TypeDefId;
+import us.kbase.typedobj.core.TypeDefName;
+import us.kbase.typedobj.core.TypeProvider;
+import us.kbase.typedobj.core.TypedObjectValidator;
+import us.kbase.typedobj.core.ValidatedTypedObject;
+import us.kbase.typedobj.idref.IdReference;
+import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
+
+/** Tests that compiled validation schemas give the same results as schemas
+ * that are not compiled, and that the validator compiles and keeps schemas
+ * as expected.
+ */
+public class CompiledSchemaTest {
+	
+	private static final String SCHEMA =
+			"{\"id\": \"S\", \"type\": \"object\", \"original-type\": \"kidl-structure\"," +
+			" \"properties\": {" +
+			"  \"a\": {\"type\": \"string\"}," +
+			"  \"b\": {\"type\": \"integer\"}," +
+			"  \"c\": {\"type\": \"array\", \"items\": {\"type\": \"object\"," +
+			"          \"original-type\": \"kidl-structure\"," +
+			"          \"properties\": {\"x\": {\"type\": \"number\"}}," +
+			"          \"additionalProperties\": false, \"required\": [\"x\"]}}," +
+			"  \"d\": {\"type\": \"object\", \"original-type\": \"kidl-mapping\"," +
+			"         \"additionalProperties\": {\"type\": \"integer\"}}" +
+			" }," +
+			" \"additionalProperties\": false," +
+			" \"required\": [\"a\", \"b\"]" +
+			"}";
+	
+	/* Presents field names as a region of a char buffer, as parsers that
+	 * don't keep names as strings do.
+	 */
+	private static class CharBufferNamesParser extends JsonParserDelegate {
+		
+		private char[] buf = new char[0];
+		
+		public CharBufferNamesParser(final JsonParser jp) {
+			super(jp);
+		}
+		
+		@Override
+		public boolean hasTextCharacters() {
+			return getCurrentToken() == JsonToken.FIELD_NAME ||
+					super.hasTextCharacters();
+		}
+		
+		@Override
+		public char[] getTextCharacters() throws java.io.IOException {
+			if (getCurrentToken() != JsonToken.FIELD_NAME) {
+				return super.getTextCharacters();
+			}
+			final String name = getCurrentName();
+			buf = ("xyz" + name + "xyz").toCharArray();
+			return buf;
+		}
+		
+		@Override
+		public int getTextOffset() throws java.io.IOException {
+			return getCurrentToken() == JsonToken.FIELD_NAME ? 3 :
+				super.getTextOffset();
+		}
+		
+		@Override
+		public int getTextLength() throws java.io.IOException {
+			return getCurrentToken() == JsonToken.FIELD_NAME ?
+					getCurrentName().length() : super.getTextLength();
+		}
+	}
+	
+	private static List<String> validate(
+			final JsonTokenValidationSchema schema,
+			final String data)
+			throws Exception {
+		return validate(schema, new JsonFactory().createParser(data));
+	}
+	
+	private static List<String> validate(
+			final JsonTokenValidationSchema schema,
+			final JsonParser jp)
+			throws Exception {
+		final List<String> errors = new ArrayList<String>();
+		try {
+			schema.checkJsonData(jp,
+					new JsonTokenValidationListener() {
+				
+				@Override
+				public void addError(String message) {
+					errors.add(message);
+				}
+				
+				@Override
+				public void addStringIdRefMessage(
+						IdReference<String> ref,
+						JsonDocumentLocation loc) {}
+				
+				@Override
+				public void addMetadataWsMessage(JsonNode selection) {}
+				
+				@Override
+				public void addMetadataWsValue(String name, String value) {}
+				
+				@Override
+				public void addMetadataWsIncomplete() {}
+			});
+		} catch (JsonTokenValidationException e) {
+			errors.add(e.getMessage());
+		}
+		return errors;
+	}
+	
+	private static void checkSameResults(final String data) throws Exception {
+		final JsonTokenValidationSchema schema =
+				JsonTokenValidationSchema.parseJsonSchema(SCHEMA);
+		final JsonTokenValidationSchema compiled =
+				JsonTokenValidationSchema.parseJsonSchema(SCHEMA).compile();
+		final List<String> expected = validate(schema, data);
+		assertThat("incorrect errors", validate(compiled, data),
+				is(expected));
+		assertThat("incorrect errors", validate(compiled,
+				new CharBufferNamesParser(new JsonFactory().createParser(data))),
+				is(expected));
+	}
+	
+	@Test
+	public void validObject() throws Exception {
+		checkSameResults("{\"a\": \"s\", \"b\": 1," +
+				" \"c\": [{\"x\": 1.5}, {\"x\": 2}], \"d\": {\"k\": 1}}");
+	}
+	
+	@Test
+	public void missingRequiredFields() throws Exception {
+		checkSameResults("{\"b\": 1, \"c\": [{}]}");
+		checkSameResults("{\"b\": 1, \"b\": 1}");
+	}
+	
+	@Test
+	public void extraFields() throws Exception {
+		checkSameResults("{\"a\": \"s\", \"b\": 1, \"f\": 1," +
+				" \"c\": [{\"x\": 1, \"y\": 2}]}");
+	}
+	
+	@Test
+	public void wrongTypes() throws Exception {
+		checkSameResults("{\"a\": 1, \"b\": \"s\", \"e\": 3," +
+				" \"c\": [{\"x\": \"s\"}], \"d\": {\"k\": \"s\"}}");
+		checkSameResults("[]");
+	}
+	
+	@Test
+	public void errorsInLongArray() throws Exception {
+		final StringBuilder sb = new StringBuilder("{\"a\": \"s\", \"b\": 1, \"c\": [");
+		for (int i = 0; i < 10003; i++) {
+			sb.append(i == 0 ? "" : ", ").append(
+					i == 2 || i == 10001 ? "{\"x\": \"s\"}" : "{\"x\": 1}");
+		}
+		final String data = sb.append("]}").toString();
+		checkSameResults(data);
+		final JsonTokenValidationSchema compiled =
+				JsonTokenValidationSchema.parseJsonSchema(SCHEMA).compile();
+		assertThat("incorrect errors", validate(compiled, data).size(), is(2));
+	}
+	
+	/* Counts the schema fetches for each type. */
+	private static class CountingTypeProvider implements TypeProvider {
+		
+		private final Map<AbsoluteTypeDefId, Integer> fetches =
+				new HashMap<AbsoluteTypeDefId, Integer>();
+		
+		@Override
+		public AbsoluteTypeDefId resolveTypeDef(final TypeDefId typeDefId) {
+			return new AbsoluteTypeDefId(typeDefId.getType(), 1, 0);
+		}
+		
+		@Override
+		public String getTypeJsonSchema(final AbsoluteTypeDefId typeDefId) {
+			fetches.put(typeDefId, getFetches(typeDefId.getType()) + 1);
+			return SCHEMA;
+		}
+		
+		public int getFetches(final TypeDefName type) {
+			final Integer count = fetches.get(
+					new AbsoluteTypeDefId(type, 1, 0));
+			return count == null ? 0 : count;
+		}
+	}
+	
+	private static void validate(
+			final TypedObjectValidator val,
+			final TypeDefName type)
+			throws Exception {
+		final ValidatedTypedObject vto = val.validate(
+				"{\"a\": \"s\", \"b\": 1}", new TypeDefId(type),
+				new IdReferenceHandlerSetFactory(6).createHandlers(String.class)
+						.associateObject("foo"));
+		assertThat("object valid", vto.isInstanceValid(), is(true));
+	}
+	
+	@Test
+	public void compileThreshold() throws Exception {
+		final CountingTypeProvider tp = new CountingTypeProvider();
+		final TypedObjectValidator val = new TypedObjectValidator(tp, 2);
+		final TypeDefName type = new TypeDefName("T", "S");
+		for (int i = 1; i <= 3; i++) {
+			validate(val, type);
+			assertThat("incorrect schema fetches", tp.getFetches(type), is(i));
+		}
+		// the schema was compiled and kept on the third validation
+		validate(val, type);
+		validate(val, type);
+		assertThat("incorrect schema fetches", tp.getFetches(type), is(3));
+		
+		final TypeDefName never = new TypeDefName("T", "Never");
+		final TypedObjectValidator noCompile =
+				new TypedObjectValidator(tp, -1);
+		for (int i = 1; i <= 20; i++) {
+			validate(noCompile, never);
+		}
+		assertThat("incorrect schema fetches", tp.getFetches(never), is(20));
+	}
+	
+	@Test
+	public void compiledSchemaLimit() throws Exception {
+		final Field f = TypedObjectValidator.class.getDeclaredField(
+				"MAX_COMPILED_SCHEMAS");
+		f.setAccessible(true);
+		final int max = f.getInt(null);
+		final CountingTypeProvider tp = new CountingTypeProvider();
+		final TypedObjectValidator val = new TypedObjectValidator(tp, 0);
+		final List<TypeDefName> types = new ArrayList<TypeDefName>();
+		for (int i = 0; i <= max; i++) {
+			types.add(new TypeDefName("T", "S" + i));
+		}
+		for (final TypeDefName t: types.subList(0, max)) {
+			validate(val, t);
+		}
+		// using the eldest schema keeps it in the cache
+		validate(val, types.get(0));
+		assertThat("incorrect schema fetches", tp.getFetches(types.get(0)),
+				is(1));
+		validate(val, types.get(max));
+		// the other schemas are still kept
+		validate(val, types.get(0));
+		validate(val, types.get(max));
+		for (final TypeDefName t: types.subList(2, max)) {
+			validate(val, t);
+		}
+		for (final TypeDefName t: types) {
+			assertThat("incorrect schema fetches for " + t, tp.getFetches(t),
+					is(1));
+		}
+		// the least recently used schema was dropped
+		validate(val, types.get(1));
+		assertThat("incorrect schema fetches", tp.getFetches(types.get(1)),
+				is(2));
+	}
+}
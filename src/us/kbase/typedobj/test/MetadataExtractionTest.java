@@ -9,6 +9,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
@@ -41,6 +43,9 @@ import us.kbase.common.test.TestCommon;
 import us.kbase.common.test.TestException;
 import us.kbase.typedobj.core.ExtractedMetadata;
 import us.kbase.typedobj.core.LocalTypeProvider;
+import us.kbase.typedobj.core.MetadataExtractionHandler;
+import us.kbase.typedobj.core.MetadataExtractor;
+import us.kbase.typedobj.core.TokenSequenceProvider;
 import us.kbase.typedobj.core.TypeDefId;
 import us.kbase.typedobj.core.TypeDefName;
 import us.kbase.typedobj.core.ValidatedTypedObject;
@@ -57,13 +62,17 @@ import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
  *   [ModuleName].[TypeName].instance.[label] 
  *        - json encoding of a valid type instance
  *
+ * The metadata captured during validation is always checked against the
+ * metadata extracted from the object afterwards. Set "fastpath" in the file to
+ * also check whether the metadata was captured during validation.
+ *
  * @author msneddon
  * @author gaprice
  */
 @RunWith(value = Parameterized.class)
 public class MetadataExtractionTest {
 	
-	public static final int TEST_COUNT = 18;
+	public static final int TEST_COUNT = 20;
 
 	/**
 	 * location to stash the temporary database for testing
@@ -208,6 +217,7 @@ public class MetadataExtractionTest {
 		JsonNode expectedMetadata = testdataJson.get("metadata");
 		JsonNode exception = testdataJson.get("exception");
 		JsonNode maxMetadataSize = testdataJson.get("maxMetadataSize");
+		JsonNode fastPath = testdataJson.get("fastpath");
 		
 		long maxMetadataSizeLong = 16000;
 		if(maxMetadataSize!=null)
@@ -227,6 +237,10 @@ public class MetadataExtractionTest {
 		}
 		assertTrue("  -("+instance.resourceName+") does not validate, but should",
 				report.isInstanceValid());
+		if (fastPath != null) {
+			assertEquals("  -("+instance.resourceName+") metadata captured during validation",
+					fastPath.asBoolean(), isMetadataCaptured(report));
+		}
 		try {
 			ExtractedMetadata extraction = report.extractMetadata(maxMetadataSizeLong);
 			Map<String, String> actualMetadata = extraction.getMetadata();
@@ -234,6 +248,9 @@ public class MetadataExtractionTest {
 				fail("  -("+instance.resourceName+") should throw an exception when getting subdata, but does not");
 			}
 			compare(expectedMetadata, actualMetadata, instance.resourceName+" -- metadata");
+			assertEquals("  -("+instance.resourceName+") metadata captured during validation does not match extracted metadata",
+					extractMetadataFromObject(report, maxMetadataSizeLong).getMetadata(),
+					actualMetadata);
 		} catch (Exception e) {
 			String exceptionName = e.getClass().getSimpleName();
 			if(exception==null) {
@@ -242,11 +259,47 @@ public class MetadataExtractionTest {
 			} else {
 				assertEquals("  -("+instance.resourceName+") exception thrown ("+exceptionName+") matches expected exception "+exception.asText(),
 						exceptionName, exception.asText());
+				try {
+					extractMetadataFromObject(report, maxMetadataSizeLong);
+					fail("  -("+instance.resourceName+") metadata extracted from the object should throw an exception, but does not");
+				} catch (Exception e2) {
+					assertEquals("  -("+instance.resourceName+") exception thrown when extracting metadata from the object",
+							exception.asText(), e2.getClass().getSimpleName());
+				}
 			}
 		}
 		System.out.println("       PASS");
 	}
 
+	private static boolean isMetadataCaptured(ValidatedTypedObject report)
+			throws Exception {
+		Field f = ValidatedTypedObject.class.getDeclaredField("validationMetadata");
+		f.setAccessible(true);
+		return f.get(report) != null;
+	}
+	
+	/**
+	 * extracts the metadata from the object the way extractMetadata() does
+	 * when the metadata was not captured during validation.
+	 */
+	private static ExtractedMetadata extractMetadataFromObject(
+			ValidatedTypedObject report, long maxMetadataSize)
+			throws Exception {
+		Field sel = ValidatedTypedObject.class.getDeclaredField("wsMetadataSelection");
+		sel.setAccessible(true);
+		Method m = ValidatedTypedObject.class.getDeclaredMethod(
+				"createTokenSequenceForMetaDataExtraction");
+		m.setAccessible(true);
+		TokenSequenceProvider tsp = (TokenSequenceProvider) m.invoke(report);
+		try {
+			return MetadataExtractor.extractFields(tsp,
+					new MetadataExtractionHandler((JsonNode) sel.get(report),
+							maxMetadataSize));
+		} finally {
+			tsp.close();
+		}
+	}
+
 	public void compare(JsonNode expectedSubset, Map<String, String> actualMetadata, String resourceName) throws IOException {
 		assertEquals("  -("+resourceName+") extracted subset/metadata does not match expected extracted subset/metadata",
 				sortJson(expectedSubset), sortJson(
@@ -1,5 +1,6 @@
 package us.kbase.typedobj.test;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 
 import java.io.BufferedReader;
@@ -149,6 +150,49 @@ public class ObjectExtractionByPathTest {
 		if(VERBOSE) System.out.println("      PASS.");
 	}
 	
+	@Test
+	public void testInstanceMultipleSelections() throws Exception {
+		
+		TestInstanceInfo instance = instanceResources.get(this.instanceNumber);
+		String instanceJson = loadResourceFile(TEST_RESOURCE_LOCATION+instance.resourceName);
+		if(VERBOSE) System.out.println("  -MULTIPLE EXTRACTION TEST ("+instance.resourceName+")");
+		
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode instanceData = mapper.readTree(instanceJson);
+		JsonNode paths = instanceData.get("paths");
+		JsonNode data = instanceData.get("data");
+		JsonNode strict = instanceData.get("strict");
+		JsonNode expectedExtract = instanceData.get("extract");
+		
+		List<String>pathStrings = new ArrayList <String> (paths.size());
+		for(int k=0; k<paths.size(); k++) {
+			pathStrings.add(paths.get(k).asText());
+		}
+		SubsetSelection op;
+		if (strict != null) {
+			op = new SubsetSelection(pathStrings, strict.asBoolean(), SubsetSelection.STRICT_ARRAYS_DEFAULT);
+		} else {
+			op = new SubsetSelection(pathStrings);
+		}
+		// an empty selection selects the whole object
+		SubsetSelection all = new SubsetSelection(new ArrayList<String>());
+		try {
+			List<JsonNode> extracts = SubdataExtractor.extract(Arrays.asList(all, op, op), data);
+			
+			assertFalse("  -("+instance.resourceName+") extracted something when error was expected; extract="+extracts,
+					expectedExtract.isTextual());
+			
+			assertThat("incorrect extract count", extracts.size(), is(3));
+			compare(extracts.get(0), data, instance.resourceName);
+			compare(extracts.get(1), expectedExtract, instance.resourceName);
+			compare(extracts.get(2), expectedExtract, instance.resourceName);
+		} catch(TypedObjectExtractionException e) {
+			assertTrue("  -("+instance.resourceName+") error message should be '"+expectedExtract.asText()+"', but was: '"+e.getMessage()+"'",
+					expectedExtract.asText().equals(e.getMessage()));
+		}
+		if(VERBOSE) System.out.println("      PASS.");
+	}
+	
 	public void compare(JsonNode expectedSubset, JsonNode actualSubset, String resourceName) throws IOException {
 		assertEquals("  -(" + resourceName + ") extracted object does not match expected extract",
 				sortJson(expectedSubset), sortJson(actualSubset));
@@ -0,0 +1,168 @@
+package us.kbase.typedobj.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.typedobj.core.TempFilesManager.DiskQuotaExceededException;
+
+public class TempFilesManagerTest {
+
+	private TempFilesManager tfm;
+	private File dir1;
+	private File dir2;
+
+	@Before
+	public void setUp() throws Exception {
+		final Path temp = Paths.get(TestCommon.getTempDir())
+				.resolve("TempFilesManagerTest");
+		dir1 = temp.resolve("shard1").toFile();
+		dir2 = temp.resolve("shard2").toFile();
+		Files.createDirectories(dir1.toPath());
+		Files.createDirectories(dir2.toPath());
+		tfm = new TempFilesManager(Arrays.asList(dir1, dir2));
+		tfm.cleanup();
+	}
+
+	@After
+	public void tearDown() {
+		tfm.stopReaper();
+		tfm.cleanup();
+	}
+
+	private static void write(final File f, final int bytes)
+			throws Exception {
+		try (final OutputStream os = new FileOutputStream(f)) {
+			os.write(new byte[bytes]);
+		}
+	}
+
+	@Test
+	public void sharding() throws Exception {
+		final File f1 = tfm.generateTempFile("foo", "json");
+		final File f2 = tfm.generateTempFile("foo", "json");
+		final File f3 = tfm.generateTempFile("foo", "json");
+		assertThat("incorrect dir", f1.getParentFile(), is(dir1));
+		assertThat("incorrect dir", f2.getParentFile(), is(dir2));
+		assertThat("incorrect dir", f3.getParentFile(), is(dir1));
+		assertThat("incorrect first dir", tfm.getTempDir(), is(dir1));
+		assertThat("incorrect file count", tfm.getTempFileList().size(),
+				is(3));
+		tfm.cleanup();
+		assertThat("not empty", tfm.isEmpty(), is(true));
+	}
+
+	@Test
+	public void metrics() throws Exception {
+		final File f1 = tfm.generateTempFile("foo", "json");
+		final File f2 = tfm.generateTempFile("foo", "json");
+		write(f1, 100);
+		write(f2, 50);
+		assertThat("incorrect live bytes", tfm.getLiveBytes(), is(150L));
+		assertThat("incorrect live files", tfm.getLiveFileCount(), is(2));
+		f1.delete();
+		assertThat("incorrect live bytes", tfm.getLiveBytes(), is(50L));
+		assertThat("incorrect live files", tfm.getLiveFileCount(), is(1));
+		assertThat("incorrect created files", tfm.getCreatedFileCount(),
+				is(2L));
+	}
+
+	@Test
+	public void quota() throws Exception {
+		tfm.setDiskQuota(100);
+		final File f1 = tfm.generateTempFile("foo", "json", 60);
+		write(f1, 60);
+		tfm.checkQuota(40);
+		try {
+			tfm.generateTempFile("foo", "json", 41);
+			fail("created file over quota");
+		} catch (DiskQuotaExceededException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Disk quota for temporary files exceeded: 60 bytes in use, 41 bytes requested, quota is 100 bytes"));
+		}
+		f1.delete();
+		tfm.generateTempFile("foo", "json", 100);
+		tfm.setDiskQuota(0);
+		tfm.checkQuota(Long.MAX_VALUE);
+	}
+
+	@Test
+	public void reapOrphanedFiles() throws Exception {
+		final TempFilesManager.Request r = tfm.startRequest();
+		final File f1 = tfm.generateTempFile("foo", "json");
+		assertThat("reaped owned file", tfm.reap(0), is(0));
+		r.end();
+		final File f2 = tfm.generateTempFile("foo", "json");
+		assertThat("reaped file before ttl", tfm.reap(1000000), is(0));
+		assertThat("incorrect reaped count", tfm.reap(0), is(1));
+		assertThat("orphaned file exists", f1.exists(), is(false));
+		assertThat("unowned file deleted", f2.exists(), is(true));
+		assertThat("incorrect reaped count", tfm.getReapedFileCount(), is(1L));
+	}
+
+	@Test
+	public void filesOfFinishedThreadsNotReaped() throws Exception {
+		final File[] f = new File[1];
+		final Thread t = new Thread() {
+			@Override
+			public void run() {
+				f[0] = tfm.generateTempFile("foo", "json");
+			}
+		};
+		t.start();
+		t.join();
+		assertThat("incorrect reaped count", tfm.reap(0), is(0));
+		assertThat("file deleted", f[0].exists(), is(true));
+	}
+
+	@Test
+	public void reapFilesOfAttachedThreads() throws Exception {
+		final TempFilesManager.Request r = tfm.startRequest();
+		r.detach();
+		final File unowned = tfm.generateTempFile("foo", "json");
+		final File[] f = new File[2];
+		final Thread t = new Thread() {
+			@Override
+			public void run() {
+				r.attach();
+				f[0] = tfm.generateTempFile("foo", "json");
+				r.detach();
+				f[1] = tfm.generateTempFile("foo", "json");
+			}
+		};
+		t.start();
+		t.join();
+		assertThat("reaped owned file", tfm.reap(0), is(0));
+		r.end();
+		assertThat("incorrect reaped count", tfm.reap(0), is(1));
+		assertThat("orphaned file exists", f[0].exists(), is(false));
+		assertThat("detached file deleted", f[1].exists(), is(true));
+		assertThat("unowned file deleted", unowned.exists(), is(true));
+	}
+
+	@Test
+	public void reaper() throws Exception {
+		final TempFilesManager.Request r = tfm.startRequest();
+		final File f1 = tfm.generateTempFile("foo", "json");
+		r.end();
+		tfm.startReaper(0, 10);
+		for (int i = 0; i < 100 && f1.exists(); i++) {
+			Thread.sleep(10);
+		}
+		assertThat("orphaned file exists", f1.exists(), is(false));
+	}
+}
@@ -276,14 +276,21 @@ public class TypedObjectValidationReportTest {
 		tovr = validator.validate(json,
 				new TypeDefId("TestIDMap.IDMap"), handlers);
 		handlers.processIDs();
-		// uses the naturally sorted path
+		// uses the naturally sorted path, which streams rather than caching
 		tovr.sort(SORT_FAC, tfm);
+		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
 		assertThat("incorrect size", tovr.getRelabeledSize(), is(27L));
 		assertThat("incorrect md5", tovr.getMD5(),
 				is(new MD5("b5a128ad62a50790c65d66831eec6e66")));
 		gotjson = IOUtils.toString(tovr.getInputStream(), "UTF-8");
 		assertThat("Relabel correctly without sort", gotjson,
 				is(expectedJson));
+		// the stream can be read more than once
+		gotjson = IOUtils.toString(tovr.getInputStream(), "UTF-8");
+		assertThat("Relabel correctly without sort", gotjson,
+				is(expectedJson));
+		// and discarded unread
+		tovr.getInputStream().close();
 		tovr.destroyCachedResources();
 		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
 	}
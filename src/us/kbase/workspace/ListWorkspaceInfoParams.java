@@ -39,6 +39,14 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *         user.
  * boolean showOnlyDeleted - only show deleted workspaces that are owned
  *         by the user.
+ * ws_id minWorkspaceID - only return workspaces with an id greater or
+ *         equal to this value.
+ * int limit - limit the output to X workspaces. Limit values < 1 are
+ *         treated as no limit.
+ * If either minWorkspaceID or limit is supplied, the workspaces are
+ * returned in ascending order of their ids. To retrieve the next page of
+ * results, set minWorkspaceID to one more than the id of the last
+ * workspace returned.
  * </pre>
  * 
  */
@@ -54,7 +62,9 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "before_epoch",
     "excludeGlobal",
     "showDeleted",
-    "showOnlyDeleted"
+    "showOnlyDeleted",
+    "minWorkspaceID",
+    "limit"
 })
 public class ListWorkspaceInfoParams {
 
@@ -78,6 +88,10 @@ public class ListWorkspaceInfoParams {
     private Long showDeleted;
     @JsonProperty("showOnlyDeleted")
     private Long showOnlyDeleted;
+    @JsonProperty("minWorkspaceID")
+    private Long minWorkspaceID;
+    @JsonProperty("limit")
+    private Long limit;
     private Map<java.lang.String, Object> additionalProperties = new HashMap<java.lang.String, Object>();
 
     @JsonProperty("perm")
@@ -230,6 +244,36 @@ public class ListWorkspaceInfoParams {
         return this;
     }
 
+    @JsonProperty("minWorkspaceID")
+    public Long getMinWorkspaceID() {
+        return minWorkspaceID;
+    }
+
+    @JsonProperty("minWorkspaceID")
+    public void setMinWorkspaceID(Long minWorkspaceID) {
+        this.minWorkspaceID = minWorkspaceID;
+    }
+
+    public ListWorkspaceInfoParams withMinWorkspaceID(Long minWorkspaceID) {
+        this.minWorkspaceID = minWorkspaceID;
+        return this;
+    }
+
+    @JsonProperty("limit")
+    public Long getLimit() {
+        return limit;
+    }
+
+    @JsonProperty("limit")
+    public void setLimit(Long limit) {
+        this.limit = limit;
+    }
+
+    public ListWorkspaceInfoParams withLimit(Long limit) {
+        this.limit = limit;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<java.lang.String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -242,7 +286,7 @@ public class ListWorkspaceInfoParams {
 
     @Override
     public java.lang.String toString() {
-        return ((((((((((((((((((((((("ListWorkspaceInfoParams"+" [perm=")+ perm)+", owners=")+ owners)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", excludeGlobal=")+ excludeGlobal)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((((((((((("ListWorkspaceInfoParams"+" [perm=")+ perm)+", owners=")+ owners)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", excludeGlobal=")+ excludeGlobal)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", minWorkspaceID=")+ minWorkspaceID)+", limit=")+ limit)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
@@ -20,7 +20,6 @@ import us.kbase.common.service.ServiceChecker;
 import us.kbase.common.service.ServiceChecker.ServiceException;
 import static us.kbase.common.utils.ServiceUtils.checkAddlArgs;
 import static us.kbase.workspace.kbase.ArgUtils.checkLong;
-import static us.kbase.workspace.kbase.ArgUtils.getGlobalWSPerm;
 import static us.kbase.workspace.kbase.ArgUtils.wsInfoToTuple;
 import static us.kbase.workspace.kbase.ArgUtils.wsInfoToMetaTuple;
 import static us.kbase.workspace.kbase.ArgUtils.objInfoToMetaTuple;
@@ -32,6 +31,7 @@ import static us.kbase.workspace.kbase.ArgUtils.translateObjectInfoList;
 import static us.kbase.workspace.kbase.ArgUtils.longToBoolean;
 import static us.kbase.workspace.kbase.ArgUtils.longToInt;
 import static us.kbase.workspace.kbase.ArgUtils.chooseDate;
+import static us.kbase.workspace.kbase.ArgUtils.jobToJobInfo;
 import static us.kbase.workspace.kbase.IdentifierUtils.processObjectIdentifier;
 import static us.kbase.workspace.kbase.IdentifierUtils.processObjectIdentifiers;
 import static us.kbase.workspace.kbase.IdentifierUtils.processObjectSpecifications;
@@ -48,6 +48,12 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Set;
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.LoggerFactory;
 
@@ -66,7 +72,6 @@ import us.kbase.typedobj.db.TypeChange;
 import us.kbase.typedobj.db.TypeDetailedInfo;
 import us.kbase.workspace.database.DependencyStatus;
 import us.kbase.workspace.database.ListObjectsParameters;
-import us.kbase.workspace.database.ObjectIDNoWSNoVer;
 import us.kbase.workspace.database.ResourceUsageConfigurationBuilder.ResourceUsageConfiguration;
 import us.kbase.workspace.database.ObjectIDWithRefPath;
 import us.kbase.workspace.database.Types;
@@ -85,7 +90,14 @@ import us.kbase.workspace.kbase.InitWorkspaceServer.WorkspaceInitResults;
 import us.kbase.workspace.kbase.KBaseWorkspaceConfig;
 import us.kbase.workspace.kbase.TokenProvider;
 import us.kbase.workspace.kbase.WorkspaceAdministration;
+import us.kbase.workspace.kbase.WorkspaceJobs;
 import us.kbase.workspace.kbase.WorkspaceServerMethods;
+import us.kbase.workspace.metrics.ByteCountingResponse;
+import us.kbase.workspace.scheduler.MethodClass;
+import us.kbase.workspace.scheduler.MethodPeekingRequest;
+import us.kbase.workspace.scheduler.MethodScheduler;
+import us.kbase.workspace.scheduler.OverloadedException;
+import us.kbase.workspace.metrics.WorkspaceMetrics;
 //END_HEADER
 
 /**
@@ -128,6 +140,7 @@ public class WorkspaceServer extends JsonServerServlet {
 	private final WorkspaceServerMethods wsmeth;
 	private final Types types;
 	private final WorkspaceAdministration wsadmin;
+	private final WorkspaceJobs jobs;
 	
 	private final URL handleManagerUrl;
 	private final TokenProvider handleMgrToken;
@@ -135,9 +148,121 @@ public class WorkspaceServer extends JsonServerServlet {
 	private ThreadLocal<List<WorkspaceObjectData>> resourcesToDelete =
 			new ThreadLocal<List<WorkspaceObjectData>>();
 	
+	private static final String UNKNOWN_RPC_METHOD = "unknown";
+	private static final Set<String> RPC_METHODS = getRpcMethods();
+	
+	private final ThreadLocal<String> rpcMethod = new ThreadLocal<String>();
+	
+	//like the config, one scheduler per jvm so the limits apply to all
+	//servlet instances
+	private static MethodScheduler scheduler = null;
+	
+	/* metrics are labeled with the method name, so only the names of real
+	 * methods are used to keep the number of labels bounded
+	 */
+	private static Set<String> getRpcMethods() {
+		final Set<String> ret = new HashSet<String>();
+		for (final Method m: WorkspaceServer.class.getMethods()) {
+			final JsonServerMethod jsm =
+					m.getAnnotation(JsonServerMethod.class);
+			if (jsm != null) {
+				ret.add(jsm.rpc());
+			}
+		}
+		return ret;
+	}
+	
+	private static String getRpcMethodName() {
+		final String method = JsonServerSyslog.getCurrentRpcInfo().getMethod();
+		if (method == null) {
+			return UNKNOWN_RPC_METHOD;
+		}
+		if (RPC_METHODS.contains(method)) {
+			return method;
+		}
+		// the logger may store the method without the module name
+		final String fullName = "Workspace." + method;
+		if (RPC_METHODS.contains(fullName)) {
+			return fullName;
+		}
+		return UNKNOWN_RPC_METHOD;
+	}
+	
+	@Override
+	protected void doPost(
+			final HttpServletRequest request,
+			final HttpServletResponse response)
+			throws ServletException, IOException {
+		final long start = System.nanoTime();
+		final MethodPeekingRequest peekedRequest =
+				new MethodPeekingRequest(request);
+		final MethodClass methodClass = classify(peekedRequest);
+		try {
+			scheduler.acquire(methodClass);
+		} catch (OverloadedException e) {
+			logInfo(e.getMessage());
+			response.setHeader("Retry-After",
+					"" + Math.max(1, scheduler.getQueueTimeoutMillis() / 1000));
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+					e.getMessage());
+			return;
+		}
+		final ByteCountingResponse countingResponse =
+				new ByteCountingResponse(response);
+		rpcMethod.set(null);
+		// any temp files this request doesn't delete are orphans once it ends
+		final TempFilesManager.Request tempFiles = ws == null ? null :
+				ws.getTempFilesManager().startRequest();
+		boolean error = true;
+		try {
+			super.doPost(peekedRequest, countingResponse);
+			error = countingResponse.getResponseStatus() >= 400;
+		} finally {
+			if (tempFiles != null) {
+				tempFiles.end();
+			}
+			scheduler.release(methodClass);
+			final String method = rpcMethod.get();
+			rpcMethod.set(null);
+			WorkspaceMetrics.rpcDone(
+					method == null ? UNKNOWN_RPC_METHOD : method,
+					System.nanoTime() - start,
+					request.getContentLength(),
+					countingResponse.getByteCount(),
+					error);
+		}
+	}
+	
+	private static MethodClass classify(final MethodPeekingRequest request) {
+		if (request.getMethod() == null && request.bodyExceedsPeek()) {
+			/* clients that send the params before the method name and have
+			 * more params than fit in the peek buffer are almost always
+			 * saving data
+			 */
+			return MethodClass.BULK_WRITE;
+		}
+		return MethodClass.forMethod(request.getMethod());
+	}
+	
+	
+	@Override
+	public void destroy() {
+		// stop the background threads this instance started
+		if (jobs != null) {
+			jobs.stop();
+		}
+		if (wsadmin != null) {
+			wsadmin.stop();
+		}
+		if (ws != null) {
+			ws.getTempFilesManager().stopReaper();
+		}
+		super.destroy();
+	}
 	
 	public static void clearConfigForTests() {
 		wsConfig = null;
+		scheduler = null;
 	}
 	
 	@Override
@@ -151,6 +276,7 @@ public class WorkspaceServer extends JsonServerServlet {
 
 	@Override
 	protected void onRpcMethodDone() {
+		rpcMethod.set(getRpcMethodName());
 		if (resourcesToDelete.get() != null &&
 				!resourcesToDelete.get().isEmpty()) {
 			for (final WorkspaceObjectData o : resourcesToDelete.get())
@@ -223,6 +349,11 @@ public class WorkspaceServer extends JsonServerServlet {
 		}
 		
 		final KBaseWorkspaceConfig cfg = new KBaseWorkspaceConfig(wsConfig);
+		if (scheduler == null) {
+			scheduler = new MethodScheduler(cfg.getSchedulerLimits(),
+					cfg.getSchedulerQueueTimeoutSec() * 1000L);
+			WorkspaceMetrics.registerMethodScheduler(scheduler);
+		}
 		for (final String info: cfg.getInfoMessages()) {
 			logInfo(info);
 			System.out.println(info);
@@ -236,6 +367,7 @@ public class WorkspaceServer extends JsonServerServlet {
 		WorkspaceServerMethods wsmeth = null;
 		Types types = null;
 		WorkspaceAdministration wsadmin = null;
+		WorkspaceJobs jobs = null;
 		URL handleManagerUrl = null;
 		TokenProvider handleMgrToken = null;
 		//TODO TEST add server startup tests
@@ -255,15 +387,19 @@ public class WorkspaceServer extends JsonServerServlet {
 				wsmeth = res.getWsmeth();
 				types = res.getTypes();
 				wsadmin = res.getWsAdmin();
+				jobs = res.getJobs();
 				handleManagerUrl = res.getHandleManagerUrl();
 				handleMgrToken = res.getHandleMgrToken();
 				setRpcDiskCacheTempDir(ws.getTempFilesManager().getTempDir());
+				WorkspaceMetrics.registerTempFilesManager(
+						ws.getTempFilesManager());
 			}
 		}
 		this.ws = ws;
 		this.wsmeth = wsmeth;
 		this.types = types;
 		this.wsadmin = wsadmin;
+		this.jobs = jobs;
 		this.handleManagerUrl = handleManagerUrl;
 		this.handleMgrToken = handleMgrToken;
         //END_CONSTRUCTOR
@@ -348,35 +484,7 @@ public class WorkspaceServer extends JsonServerServlet {
     public Tuple9<Long, String, String, String, Long, String, String, String, Map<String,String>> cloneWorkspace(CloneWorkspaceParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         Tuple9<Long, String, String, String, Long, String, String, String, Map<String,String>> returnVal = null;
         //BEGIN clone_workspace
-		checkAddlArgs(params.getAdditionalProperties(), params.getClass());
-		Set<ObjectIDNoWSNoVer> exclude = null;
-		if (params.getExclude() != null && !params.getExclude().isEmpty()) {
-			exclude = new HashSet<ObjectIDNoWSNoVer>();
-			int count = 1;
-			for (final ObjectIdentity o: params.getExclude()) {
-				try {
-					exclude.add(ObjectIDNoWSNoVer.create(
-							o.getName(), o.getObjid()));
-				} catch (IllegalArgumentException e) {
-					throw new IllegalArgumentException(String.format(
-							"Error with excluded object #%s: %s",
-							count, e.getLocalizedMessage()), e);
-				}
-				count++;
-			}
-		}
-		final Permission p = getGlobalWSPerm(params.getGlobalread());
-		final WorkspaceIdentifier wsi =
-				processWorkspaceIdentifier(params.getWsi());
-		final WorkspaceInformation meta = ws.cloneWorkspace(
-				wsmeth.getUser(authPart),
-				wsi,
-				params.getWorkspace(),
-				p.equals(Permission.READ),
-				params.getDescription(),
-				new WorkspaceUserMetadata(params.getMeta()),
-				exclude);
-		returnVal = wsInfoToTuple(meta);
+		returnVal = wsmeth.cloneWorkspace(params, wsmeth.getUser(authPart));
         //END clone_workspace
         return returnVal;
     }
@@ -774,6 +882,42 @@ public class WorkspaceServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: get_object_history2</p>
+     * <pre>
+     * Get a page of an object's history. To get the next page, set min_ver
+     * to one more than the last version returned, or, if newest_first is
+     * true, set max_ver to one less than the last version returned.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.workspace.GetObjectHistory2Params GetObjectHistory2Params}
+     * @return   parameter "history" of list of original type "object_info" (Information about an object, including user provided metadata. obj_id objid - the numerical id of the object. obj_name name - the name of the object. type_string type - the type of the object. timestamp save_date - the save date of the object. obj_ver ver - the version of the object. username saved_by - the user that saved or copied the object. ws_id wsid - the workspace containing the object. ws_name workspace - the workspace containing the object. string chsum - the md5 checksum of the object. int size - the size of the object in bytes. usermeta meta - arbitrary user-supplied metadata about the object.) &rarr; tuple of size 11: parameter "objid" of original type "obj_id" (The unique, permanent numerical ID of an object.), parameter "name" of original type "obj_name" (A string used as a name for an object. Any string consisting of alphanumeric characters and the characters |._- that is not an integer is acceptable.), parameter "type" of original type "type_string" (A type string. Specifies the type and its version in a single string in the format [module].[typename]-[major].[minor]: module - a string. The module name of the typespec containing the type. typename - a string. The name of the type as assigned by the typedef statement. major - an integer. The major version of the type. A change in the major version implies the type has changed in a non-backwards compatible way. minor - an integer. The minor version of the type. A change in the minor version implies that the type has changed in a way that is backwards compatible with previous type definitions. In many cases, the major and minor versions are optional, and if not provided the most recent version will be used. Example: MyModule.MyType-3.1), parameter "save_date" of original type "timestamp" (A time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the character Z (representing the UTC timezone) or the difference in time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500 (EST time) 2013-04-03T08:56:32+0000 (UTC time) 2013-04-03T08:56:32Z (UTC time)), parameter "version" of Long, parameter "saved_by" of original type "username" (Login name of a KBase user account.), parameter "wsid" of original type "ws_id" (The unique, permanent numerical ID of a workspace.), parameter "workspace" of original type "ws_name" (A string used as a name for a workspace. Any string consisting of alphanumeric characters and "_", ".", or "-" that is not an integer is acceptable. The name may optionally be prefixed with the workspace owner's user name and a colon, e.g. kbasetest:my_workspace.), parameter "chsum" of String, parameter "size" of Long, parameter "meta" of original type "usermeta" (User provided metadata about an object. Arbitrary key-value pairs provided by the user.) &rarr; mapping from String to String
+     */
+    @JsonServerMethod(rpc = "Workspace.get_object_history2", authOptional=true, async=true)
+    public List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> getObjectHistory2(GetObjectHistory2Params params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> returnVal = null;
+        //BEGIN get_object_history2
+		checkAddlArgs(params.getAdditionalProperties(), params.getClass());
+		final ObjectIdentifier oi = processObjectIdentifier(params.getObj());
+		if (params.getMinVer() != null && params.getMinVer() < 1) {
+			throw new IllegalArgumentException(
+					"Minimum version must be greater than 0");
+		}
+		if (params.getMaxVer() != null && params.getMaxVer() < 1) {
+			throw new IllegalArgumentException(
+					"Maximum version must be greater than 0");
+		}
+		final Integer minVer = params.getMinVer() == null ? null :
+			longToInt(params.getMinVer(), "min_ver", -1);
+		final Integer maxVer = params.getMaxVer() == null ? null :
+			longToInt(params.getMaxVer(), "max_ver", -1);
+		returnVal = objInfoToTuple(ws.getObjectHistory(
+				wsmeth.getUser(authPart), oi, minVer, maxVer,
+				longToBoolean(params.getNewestFirst()),
+				longToInt(params.getLimit(), "limit", -1)), true);
+        //END get_object_history2
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: list_referencing_objects</p>
      * <pre>
@@ -1161,6 +1305,58 @@ public class WorkspaceServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: rename_objects</p>
+     * <pre>
+     * Rename multiple objects. Each RenameObjectParams is interpreted in
+     * the same way as for rename_object. The objects are renamed in bulk and
+     * the renames are not atomic; if an error occurs some of the objects may
+     * have been renamed. Returns the object_info for each renamed object, in
+     * the same order as the input. At most 10000 objects may be renamed per
+     * call. User meta data is always returned as null.
+     * </pre>
+     * @param   objects   instance of list of type {@link us.kbase.workspace.RenameObjectParams RenameObjectParams}
+     * @return   parameter "renamed" of list of original type "object_info" (Information about an object, including user provided metadata. obj_id objid - the numerical id of the object. obj_name name - the name of the object. type_string type - the type of the object. timestamp save_date - the save date of the object. obj_ver ver - the version of the object. username saved_by - the user that saved or copied the object. ws_id wsid - the workspace containing the object. ws_name workspace - the workspace containing the object. string chsum - the md5 checksum of the object. int size - the size of the object in bytes. usermeta meta - arbitrary user-supplied metadata about the object.) &rarr; tuple of size 11: parameter "objid" of original type "obj_id" (The unique, permanent numerical ID of an object.), parameter "name" of original type "obj_name" (A string used as a name for an object. Any string consisting of alphanumeric characters and the characters |._- that is not an integer is acceptable.), parameter "type" of original type "type_string" (A type string. Specifies the type and its version in a single string in the format [module].[typename]-[major].[minor]: module - a string. The module name of the typespec containing the type. typename - a string. The name of the type as assigned by the typedef statement. major - an integer. The major version of the type. A change in the major version implies the type has changed in a non-backwards compatible way. minor - an integer. The minor version of the type. A change in the minor version implies that the type has changed in a way that is backwards compatible with previous type definitions. In many cases, the major and minor versions are optional, and if not provided the most recent version will be used. Example: MyModule.MyType-3.1), parameter "save_date" of original type "timestamp" (A time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the character Z (representing the UTC timezone) or the difference in time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500 (EST time) 2013-04-03T08:56:32+0000 (UTC time) 2013-04-03T08:56:32Z (UTC time)), parameter "version" of Long, parameter "saved_by" of original type "username" (Login name of a KBase user account.), parameter "wsid" of original type "ws_id" (The unique, permanent numerical ID of a workspace.), parameter "workspace" of original type "ws_name" (A string used as a name for a workspace. Any string consisting of alphanumeric characters and "_", ".", or "-" that is not an integer is acceptable. The name may optionally be prefixed with the workspace owner's user name and a colon, e.g. kbasetest:my_workspace.), parameter "chsum" of String, parameter "size" of Long, parameter "meta" of original type "usermeta" (User provided metadata about an object. Arbitrary key-value pairs provided by the user.) &rarr; mapping from String to String
+     */
+    @JsonServerMethod(rpc = "Workspace.rename_objects", async=true)
+    public List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> renameObjects(List<RenameObjectParams> objects, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> returnVal = null;
+        //BEGIN rename_objects
+		if (objects == null) {
+			throw new NullPointerException("The rename list cannot be null");
+		}
+		if (objects.isEmpty()) {
+			throw new IllegalArgumentException(
+					"No objects to rename provided");
+		}
+		final List<ObjectIdentifier> loi = new ArrayList<ObjectIdentifier>();
+		final List<String> names = new ArrayList<String>();
+		int count = 1;
+		for (final RenameObjectParams p: objects) {
+			try {
+				if (p == null) {
+					throw new NullPointerException(
+							"The rename parameters cannot be null");
+				}
+				checkAddlArgs(p.getAdditionalProperties(), p.getClass());
+				loi.add(processObjectIdentifier(p.getObj()));
+				if (p.getNewName() == null) {
+					throw new NullPointerException(
+							"The new name cannot be null");
+				}
+				names.add(p.getNewName());
+			} catch (IllegalArgumentException | NullPointerException e) {
+				throw new IllegalArgumentException("Error on rename #" +
+						count + ": " + e.getLocalizedMessage(), e);
+			}
+			count++;
+		}
+		returnVal = objInfoToTuple(ws.renameObjects(
+				wsmeth.getUser(authPart), loi, names), true);
+        //END rename_objects
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: copy_object</p>
      * <pre>
@@ -1182,6 +1378,27 @@ public class WorkspaceServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: copy_objects</p>
+     * <pre>
+     * Copy multiple objects. Each CopyObjectParams is interpreted in the
+     * same way as for copy_object, and each copy must have a distinct
+     * destination. Returns the object_info for the newest version of each
+     * copy, in the same order as the input. At most 10000 objects may be
+     * copied per call.
+     * </pre>
+     * @param   objects   instance of list of type {@link us.kbase.workspace.CopyObjectParams CopyObjectParams}
+     * @return   parameter "copied" of list of original type "object_info" (Information about an object, including user provided metadata. obj_id objid - the numerical id of the object. obj_name name - the name of the object. type_string type - the type of the object. timestamp save_date - the save date of the object. obj_ver ver - the version of the object. username saved_by - the user that saved or copied the object. ws_id wsid - the workspace containing the object. ws_name workspace - the workspace containing the object. string chsum - the md5 checksum of the object. int size - the size of the object in bytes. usermeta meta - arbitrary user-supplied metadata about the object.) &rarr; tuple of size 11: parameter "objid" of original type "obj_id" (The unique, permanent numerical ID of an object.), parameter "name" of original type "obj_name" (A string used as a name for an object. Any string consisting of alphanumeric characters and the characters |._- that is not an integer is acceptable.), parameter "type" of original type "type_string" (A type string. Specifies the type and its version in a single string in the format [module].[typename]-[major].[minor]: module - a string. The module name of the typespec containing the type. typename - a string. The name of the type as assigned by the typedef statement. major - an integer. The major version of the type. A change in the major version implies the type has changed in a non-backwards compatible way. minor - an integer. The minor version of the type. A change in the minor version implies that the type has changed in a way that is backwards compatible with previous type definitions. In many cases, the major and minor versions are optional, and if not provided the most recent version will be used. Example: MyModule.MyType-3.1), parameter "save_date" of original type "timestamp" (A time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the character Z (representing the UTC timezone) or the difference in time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500 (EST time) 2013-04-03T08:56:32+0000 (UTC time) 2013-04-03T08:56:32Z (UTC time)), parameter "version" of Long, parameter "saved_by" of original type "username" (Login name of a KBase user account.), parameter "wsid" of original type "ws_id" (The unique, permanent numerical ID of a workspace.), parameter "workspace" of original type "ws_name" (A string used as a name for a workspace. Any string consisting of alphanumeric characters and "_", ".", or "-" that is not an integer is acceptable. The name may optionally be prefixed with the workspace owner's user name and a colon, e.g. kbasetest:my_workspace.), parameter "chsum" of String, parameter "size" of Long, parameter "meta" of original type "usermeta" (User provided metadata about an object. Arbitrary key-value pairs provided by the user.) &rarr; mapping from String to String
+     */
+    @JsonServerMethod(rpc = "Workspace.copy_objects", async=true)
+    public List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> copyObjects(List<CopyObjectParams> objects, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> returnVal = null;
+        //BEGIN copy_objects
+		returnVal = wsmeth.copyObjects(objects, wsmeth.getUser(authPart));
+        //END copy_objects
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: revert_object</p>
      * <pre>
@@ -1335,6 +1552,86 @@ public class WorkspaceServer extends JsonServerServlet {
         //END undelete_workspace
     }
 
+    /**
+     * <p>Original spec-file function name: clone_workspace_async</p>
+     * <pre>
+     * Clone a workspace in the background. The parameters are checked and
+     * the job is queued immediately; poll get_job_info until the job
+     * finishes to get the workspace_info of the new workspace.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.workspace.CloneWorkspaceParams CloneWorkspaceParams}
+     * @return   parameter "job" of type {@link us.kbase.workspace.JobInfo JobInfo}
+     */
+    @JsonServerMethod(rpc = "Workspace.clone_workspace_async", async=true)
+    public JobInfo cloneWorkspaceAsync(CloneWorkspaceParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        JobInfo returnVal = null;
+        //BEGIN clone_workspace_async
+		final WorkspaceUser user = wsmeth.getUser(authPart);
+		wsmeth.checkCloneWorkspace(params, user);
+		returnVal = jobToJobInfo(jobs.submit(user,
+				InitWorkspaceServer.JOB_CLONE_WORKSPACE, params));
+        //END clone_workspace_async
+        return returnVal;
+    }
+
+    /**
+     * <p>Original spec-file function name: copy_objects_async</p>
+     * <pre>
+     * Copy multiple objects in the background. The objects are interpreted
+     * in the same way as for copy_objects. The parameters are checked and
+     * the job is queued immediately; poll get_job_info until the job
+     * finishes to get the object_info for the copies.
+     * </pre>
+     * @param   objects   instance of list of type {@link us.kbase.workspace.CopyObjectParams CopyObjectParams}
+     * @return   parameter "job" of type {@link us.kbase.workspace.JobInfo JobInfo}
+     */
+    @JsonServerMethod(rpc = "Workspace.copy_objects_async", async=true)
+    public JobInfo copyObjectsAsync(List<CopyObjectParams> objects, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        JobInfo returnVal = null;
+        //BEGIN copy_objects_async
+		final WorkspaceUser user = wsmeth.getUser(authPart);
+		wsmeth.checkCopyObjects(objects);
+		returnVal = jobToJobInfo(jobs.submit(user,
+				InitWorkspaceServer.JOB_COPY_OBJECTS, objects));
+        //END copy_objects_async
+        return returnVal;
+    }
+
+    /**
+     * <p>Original spec-file function name: get_job_info</p>
+     * <pre>
+     * Get information about a background job submitted by the user.
+     * </pre>
+     * @param   id   instance of original type "job_id" (The unique ID of a background job.)
+     * @return   parameter "job" of type {@link us.kbase.workspace.JobInfo JobInfo}
+     */
+    @JsonServerMethod(rpc = "Workspace.get_job_info", async=true)
+    public JobInfo getJobInfo(String id, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        JobInfo returnVal = null;
+        //BEGIN get_job_info
+		returnVal = jobToJobInfo(jobs.getJob(wsmeth.getUser(authPart), id));
+        //END get_job_info
+        return returnVal;
+    }
+
+    /**
+     * <p>Original spec-file function name: cancel_job</p>
+     * <pre>
+     * Cancel a queued background job submitted by the user. Jobs that are
+     * running cannot be canceled. Canceling a finished job has no effect.
+     * </pre>
+     * @param   id   instance of original type "job_id" (The unique ID of a background job.)
+     * @return   parameter "job" of type {@link us.kbase.workspace.JobInfo JobInfo}
+     */
+    @JsonServerMethod(rpc = "Workspace.cancel_job", async=true)
+    public JobInfo cancelJob(String id, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        JobInfo returnVal = null;
+        //BEGIN cancel_job
+		returnVal = jobToJobInfo(jobs.cancel(wsmeth.getUser(authPart), id));
+        //END cancel_job
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: request_module_ownership</p>
      * <pre>
@@ -0,0 +1,146 @@
+package us.kbase.workspace.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import us.kbase.common.service.Tuple11;
+
+/** An object retrieved by the {@link StreamingWorkspaceClient}. The object
+ * data is kept as JSON, either in memory or in a temporary file. It is
+ * streamed there token by token without building an object tree.
+ *
+ * Call {@link #destroy()} when finished with the object to delete any
+ * temporary file.
+ */
+public class StreamedObject {
+
+	private final Tuple11<Long, String, String, String, Long, String, Long,
+			String, String, Long, Map<String, String>> info;
+	private final Map<String, Object> fields;
+	private final byte[] data;
+	private File dataFile;
+	private final long size;
+
+	StreamedObject(
+			final Tuple11<Long, String, String, String, Long, String, Long,
+					String, String, Long, Map<String, String>> info,
+			final Map<String, Object> fields,
+			final byte[] data,
+			final File dataFile,
+			final long size) {
+		this.info = info;
+		this.fields = Collections.unmodifiableMap(fields);
+		this.data = data;
+		this.dataFile = dataFile;
+		this.size = size;
+	}
+
+	/** Get the object information.
+	 * @return the object_info tuple for the object.
+	 */
+	public Tuple11<Long, String, String, String, Long, String, Long, String,
+			String, Long, Map<String, String>> getInfo() {
+		return info;
+	}
+
+	/** Get the fields of the ObjectData structure other than the data and
+	 * info fields, e.g. provenance, creator and refs, as plain maps and
+	 * lists.
+	 * @return the fields.
+	 */
+	public Map<String, Object> getFields() {
+		return fields;
+	}
+
+	/** Get the size of the object data.
+	 * @return the size in bytes.
+	 */
+	public long getDataSize() {
+		return size;
+	}
+
+	/** Check whether the data is stored in a temporary file.
+	 * @return true if the data is in a temporary file.
+	 */
+	public boolean isDataInFile() {
+		return dataFile != null;
+	}
+
+	/** Get the object data as a stream of JSON. The caller is responsible for
+	 * closing the stream.
+	 * @return the data.
+	 * @throws IOException if the data file couldn't be opened.
+	 */
+	public InputStream getDataInputStream() throws IOException {
+		checkDestroyed();
+		if (data != null) {
+			return new ByteArrayInputStream(data);
+		}
+		return new FileInputStream(dataFile);
+	}
+
+	/** Write the object data, as JSON, to a file. If the data is in a
+	 * temporary file, the file is moved if possible rather than copied,
+	 * after which the data is no longer accessible from this object.
+	 * @param target the file to write.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public void writeDataTo(final File target) throws IOException {
+		checkDestroyed();
+		if (dataFile != null) {
+			if (target.exists() && !target.delete()) {
+				throw new IOException("Could not overwrite " + target);
+			}
+			if (dataFile.renameTo(target)) {
+				dataFile = null;
+				return;
+			}
+		}
+		final OutputStream os = new FileOutputStream(target);
+		try {
+			writeDataTo(os);
+		} finally {
+			os.close();
+		}
+	}
+
+	/** Write the object data, as JSON, to a stream. The stream is not
+	 * closed.
+	 * @param os the stream to write.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public void writeDataTo(final OutputStream os) throws IOException {
+		final InputStream is = getDataInputStream();
+		try {
+			final byte[] buf = new byte[100000];
+			int read;
+			while ((read = is.read(buf)) > -1) {
+				os.write(buf, 0, read);
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	private void checkDestroyed() {
+		if (data == null && dataFile == null) {
+			throw new IllegalStateException(
+					"The object data has been destroyed or moved");
+		}
+	}
+
+	/** Delete the temporary file holding the data, if any. */
+	public void destroy() {
+		if (dataFile != null) {
+			dataFile.delete();
+			dataFile = null;
+		}
+	}
+}
@@ -0,0 +1,699 @@
+package us.kbase.workspace.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.auth.AuthToken;
+import us.kbase.common.service.JsonClientException;
+import us.kbase.common.service.ServerException;
+import us.kbase.common.service.Tuple11;
+import us.kbase.common.service.UObject;
+import us.kbase.workspace.ListObjectsParams;
+import us.kbase.workspace.ObjectSpecification;
+
+/** A client for bulk retrieval of objects and object information from the
+ * workspace service.
+ *
+ * Unlike {@link us.kbase.workspace.WorkspaceClient}, responses are parsed
+ * incrementally as they arrive and object data is streamed token by token,
+ * without building an object tree, as JSON into memory or, once the in
+ * memory budget of a request is used, into temporary files. Object retrievals are split into batches and several
+ * batches are requested concurrently, while results are returned in order.
+ *
+ * Connections are reused between requests via the standard HTTP keep-alive
+ * support of {@link HttpURLConnection}. Note that by default the JVM keeps at
+ * most 5 idle connections per host (the http.maxConnections system property),
+ * so set the property to at least the request window if the window is
+ * larger than 5.
+ *
+ * This class is not thread safe, but the streams it returns may be used
+ * concurrently.
+ */
+public class StreamingWorkspaceClient {
+
+	private static final String GET_OBJECTS = "Workspace.get_objects2";
+	private static final String LIST_OBJECTS = "Workspace.list_objects";
+
+	private static final JsonFactory JSON = new JsonFactory();
+	private static final TypeReference<Tuple11<Long, String, String, String,
+			Long, String, Long, String, String, Long, Map<String, String>>>
+			INFO_TYPE = new TypeReference<Tuple11<Long, String, String, String,
+					Long, String, Long, String, String, Long,
+					Map<String, String>>>() {};
+	private static final Random RANDOM = new Random();
+
+	private final URL url;
+	private final AuthToken token;
+	private int window = 4;
+	private int batchSize = 100;
+	private long memoryPerBatch = 16 * 1024 * 1024;
+	private File tempDir = null;
+	private int connectTimeout = 30 * 1000;
+	private int readTimeout = 30 * 60 * 1000;
+	private boolean authAllowedForHttp = false;
+
+	/** Create a client.
+	 * @param url the url of the workspace service.
+	 * @param token the user's token, or null for anonymous access.
+	 */
+	public StreamingWorkspaceClient(final URL url, final AuthToken token) {
+		if (url == null) {
+			throw new NullPointerException("url");
+		}
+		this.url = url;
+		this.token = token;
+	}
+
+	public URL getURL() {
+		return url;
+	}
+
+	public AuthToken getToken() {
+		return token;
+	}
+
+	/** Set the maximum number of requests in flight at once when retrieving
+	 * objects. Defaults to 4.
+	 * @param window the number of requests.
+	 */
+	public void setWindow(final int window) {
+		if (window < 1) {
+			throw new IllegalArgumentException("window must be at least 1");
+		}
+		this.window = window;
+	}
+
+	public int getWindow() {
+		return window;
+	}
+
+	/** Set the number of objects to retrieve per request. Defaults to 100.
+	 * @param batchSize the number of objects.
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be at least 1");
+		}
+		this.batchSize = batchSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/** Set the number of bytes of object data per request that may be kept
+	 * in memory. Further data is written to temporary files. Defaults to
+	 * 16MB.
+	 * @param bytes the number of bytes.
+	 */
+	public void setMemoryPerBatch(final long bytes) {
+		if (bytes < 0) {
+			throw new IllegalArgumentException("bytes must be at least 0");
+		}
+		memoryPerBatch = bytes;
+	}
+
+	public long getMemoryPerBatch() {
+		return memoryPerBatch;
+	}
+
+	/** Set the directory for temporary files. Defaults to the system
+	 * temporary directory.
+	 * @param tempDir the directory.
+	 */
+	public void setTempDir(final File tempDir) {
+		this.tempDir = tempDir;
+	}
+
+	public File getTempDir() {
+		return tempDir;
+	}
+
+	/** Set the connection and read timeouts.
+	 * @param connectMillis the connection timeout in milliseconds.
+	 * @param readMillis the read timeout in milliseconds.
+	 */
+	public void setTimeouts(final int connectMillis, final int readMillis) {
+		connectTimeout = connectMillis;
+		readTimeout = readMillis;
+	}
+
+	/** Allow sending the token over insecure http connections.
+	 * @param allowed true to allow sending the token.
+	 */
+	public void setAuthAllowedForHttp(final boolean allowed) {
+		authAllowedForHttp = allowed;
+	}
+
+	public boolean isAuthAllowedForHttp() {
+		return authAllowedForHttp;
+	}
+
+	/** Retrieve objects. No requests are made until the first object is
+	 * requested from the stream.
+	 * @param objects the objects to retrieve.
+	 * @param ignoreErrors if true, objects that can't be retrieved are
+	 * returned as nulls rather than failing the retrieval.
+	 * @return a stream of the objects, in the same order as the
+	 * specifications.
+	 */
+	public ObjectStream getObjects(
+			final List<ObjectSpecification> objects,
+			final boolean ignoreErrors) {
+		if (objects == null) {
+			throw new NullPointerException("objects");
+		}
+		final List<List<ObjectSpecification>> batches =
+				new LinkedList<List<ObjectSpecification>>();
+		for (int i = 0; i < objects.size(); i += batchSize) {
+			batches.add(new ArrayList<ObjectSpecification>(objects.subList(
+					i, Math.min(i + batchSize, objects.size()))));
+		}
+		return new ObjectStream(batches, ignoreErrors);
+	}
+
+	/** List objects. The response is parsed as the results are read from
+	 * the stream rather than all at once.
+	 * @param params the list_objects parameters.
+	 * @return a stream of object information.
+	 * @throws IOException if an IO error occurs.
+	 * @throws JsonClientException if the server returns an error.
+	 */
+	public ObjectInfoStream listObjects(final ListObjectsParams params)
+			throws IOException, JsonClientException {
+		final HttpURLConnection conn = post(LIST_OBJECTS, params);
+		final InputStream is = getResponseStream(conn);
+		try {
+			final JsonParser p = JSON.createParser(is);
+			if (!moveToResultArray(p) || p.nextToken() != JsonToken.START_ARRAY) {
+				throw new JsonClientException(
+						"Unexpected list_objects response from server");
+			}
+			return new ObjectInfoStream(p, is);
+		} catch (IOException e) {
+			is.close();
+			throw e;
+		} catch (JsonClientException e) {
+			is.close();
+			throw e;
+		} catch (RuntimeException e) {
+			is.close();
+			throw e;
+		}
+	}
+
+	/** A stream of objects retrieved from the workspace. Close the stream
+	 * when done to release connections and delete the temporary files of
+	 * objects that weren't retrieved from the stream. Closing the stream
+	 * waits for any requests in progress to finish.
+	 */
+	public class ObjectStream implements Closeable {
+
+		private final LinkedList<List<ObjectSpecification>> batches;
+		private final boolean ignoreErrors;
+		private final LinkedList<Future<List<StreamedObject>>> inFlight =
+				new LinkedList<Future<List<StreamedObject>>>();
+		private LinkedList<StreamedObject> current =
+				new LinkedList<StreamedObject>();
+		private ExecutorService executor = null;
+		private volatile boolean closed = false;
+
+		private ObjectStream(
+				final List<List<ObjectSpecification>> batches,
+				final boolean ignoreErrors) {
+			this.batches =
+					new LinkedList<List<ObjectSpecification>>(batches);
+			this.ignoreErrors = ignoreErrors;
+		}
+
+		/** Check whether there are more objects in the stream.
+		 * @return true if there are more objects.
+		 */
+		public boolean hasNext() {
+			return !current.isEmpty() || !inFlight.isEmpty() ||
+					!batches.isEmpty();
+		}
+
+		/** Get the next object in the stream. The caller is responsible for
+		 * calling {@link StreamedObject#destroy()} on the object.
+		 * @return the next object, or null if the object couldn't be
+		 * retrieved and ignoreErrors was set.
+		 * @throws IOException if an IO error occurs.
+		 * @throws JsonClientException if the server returns an error.
+		 */
+		public StreamedObject next() throws IOException, JsonClientException {
+			if (closed) {
+				throw new IllegalStateException("Stream is closed");
+			}
+			if (!hasNext()) {
+				throw new IllegalStateException("No more objects");
+			}
+			if (current.isEmpty()) {
+				fillWindow();
+				final Future<List<StreamedObject>> f = inFlight.removeFirst();
+				fillWindow();
+				try {
+					current = new LinkedList<StreamedObject>(f.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted waiting for objects", e);
+				} catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					}
+					if (cause instanceof JsonClientException) {
+						throw (JsonClientException) cause;
+					}
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new IOException(cause.getMessage(), cause);
+				}
+			}
+			return current.removeFirst();
+		}
+
+		private void fillWindow() {
+			if (batches.isEmpty()) {
+				return;
+			}
+			if (executor == null) {
+				executor = Executors.newFixedThreadPool(
+						Math.min(window, batches.size()),
+						new ThreadFactory() {
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "ws-streaming-client");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			}
+			while (inFlight.size() < window && !batches.isEmpty()) {
+				final List<ObjectSpecification> batch = batches.removeFirst();
+				inFlight.add(executor.submit(
+						new Callable<List<StreamedObject>>() {
+
+					@Override
+					public List<StreamedObject> call() throws Exception {
+						final List<StreamedObject> objs =
+								fetchBatch(batch, ignoreErrors);
+						if (closed) {
+							// no one will ever retrieve these objects
+							destroy(objs);
+						}
+						return objs;
+					}
+				}));
+			}
+			if (batches.isEmpty()) {
+				// the threads exit once the last batches are fetched
+				executor.shutdown();
+			}
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			batches.clear();
+			destroy(current);
+			current.clear();
+			if (executor != null) {
+				executor.shutdown();
+			}
+			// wait for running batches so their temp files can be deleted
+			try {
+				for (final Future<List<StreamedObject>> f: inFlight) {
+					try {
+						destroy(f.get());
+					} catch (ExecutionException e) {
+						// failed batches clean up after themselves
+					}
+				}
+			} catch (InterruptedException e) {
+				// batches still running destroy their own objects
+				Thread.currentThread().interrupt();
+			}
+			inFlight.clear();
+		}
+	}
+
+	/** A stream of object information from a list_objects call. Close the
+	 * stream if it is not read to the end.
+	 */
+	public class ObjectInfoStream implements Closeable {
+
+		private final JsonParser parser;
+		private final InputStream stream;
+		private JsonToken next;
+
+		private ObjectInfoStream(
+				final JsonParser parser,
+				final InputStream stream)
+				throws IOException {
+			this.parser = parser;
+			this.stream = stream;
+			next = parser.nextToken();
+		}
+
+		/** Check whether there are more objects in the stream.
+		 * @return true if there are more objects.
+		 */
+		public boolean hasNext() {
+			return next == JsonToken.START_ARRAY;
+		}
+
+		/** Get the next object information tuple.
+		 * @return the object information.
+		 * @throws IOException if an IO error occurs.
+		 */
+		public Tuple11<Long, String, String, String, Long, String, Long,
+				String, String, Long, Map<String, String>> next()
+				throws IOException {
+			if (!hasNext()) {
+				throw new IllegalStateException("No more objects");
+			}
+			final Tuple11<Long, String, String, String, Long, String, Long,
+					String, String, Long, Map<String, String>> ret =
+					getMapper().readValue(parser, INFO_TYPE);
+			next = parser.nextToken();
+			if (!hasNext()) {
+				close();
+			}
+			return ret;
+		}
+
+		@Override
+		public void close() throws IOException {
+			next = null;
+			// reading to the end allows the connection to be reused
+			final byte[] buf = new byte[10000];
+			try {
+				while (stream.read(buf) > -1) {
+					// discard
+				}
+			} finally {
+				stream.close();
+			}
+		}
+	}
+
+	private static void destroy(final List<StreamedObject> objects) {
+		for (final StreamedObject o: objects) {
+			if (o != null) {
+				o.destroy();
+			}
+		}
+	}
+
+	private static ObjectMapper getMapper() {
+		return UObject.getMapper();
+	}
+
+	private List<StreamedObject> fetchBatch(
+			final List<ObjectSpecification> batch,
+			final boolean ignoreErrors)
+			throws IOException, JsonClientException {
+		final Map<String, Object> params = new LinkedHashMap<String, Object>();
+		params.put("objects", batch);
+		params.put("ignoreErrors", ignoreErrors ? 1L : 0L);
+		final HttpURLConnection conn = post(GET_OBJECTS, params);
+		final InputStream is = getResponseStream(conn);
+		final List<StreamedObject> ret = new ArrayList<StreamedObject>();
+		boolean success = false;
+		try {
+			final JsonParser p = JSON.createParser(is);
+			if (!moveToResultArray(p) || p.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonClientException(
+						"Unexpected get_objects2 response from server");
+			}
+			boolean foundData = false;
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = p.getCurrentName();
+				final JsonToken t = p.nextToken();
+				if ("data".equals(field) && t == JsonToken.START_ARRAY) {
+					foundData = true;
+					long memory = memoryPerBatch;
+					JsonToken o;
+					while ((o = p.nextToken()) != JsonToken.END_ARRAY) {
+						if (o == JsonToken.VALUE_NULL) {
+							ret.add(null);
+						} else {
+							final StreamedObject so = readObject(p, memory);
+							if (!so.isDataInFile()) {
+								memory -= so.getDataSize();
+							}
+							ret.add(so);
+						}
+					}
+				} else {
+					p.skipChildren();
+				}
+			}
+			if (!foundData) {
+				throw new JsonClientException(
+						"Unexpected get_objects2 response from server");
+			}
+			success = true;
+			return ret;
+		} finally {
+			if (!success) {
+				destroy(ret);
+			}
+			is.close();
+		}
+	}
+
+	private StreamedObject readObject(final JsonParser p, final long memory)
+			throws IOException, JsonClientException {
+		if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+			throw new JsonClientException(
+					"Unexpected object data structure from server");
+		}
+		Tuple11<Long, String, String, String, Long, String, Long, String,
+				String, Long, Map<String, String>> info = null;
+		final Map<String, Object> fields = new HashMap<String, Object>();
+		SpillOutputStream data = null;
+		try {
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = p.getCurrentName();
+				p.nextToken();
+				if ("data".equals(field)) {
+					data = new SpillOutputStream(memory, tempDir);
+					final JsonGenerator g = JSON.createGenerator(data);
+					g.copyCurrentStructure(p);
+					g.close();
+				} else if ("info".equals(field)) {
+					info = getMapper().readValue(p, INFO_TYPE);
+				} else {
+					fields.put(field, getMapper().readValue(p, Object.class));
+				}
+			}
+		} catch (IOException e) {
+			if (data != null) {
+				data.destroy();
+			}
+			throw e;
+		}
+		if (data == null) {
+			data = new SpillOutputStream(0, tempDir);
+			data.write("null".getBytes("UTF-8"));
+			data.close();
+		}
+		return new StreamedObject(info, fields, data.getBytes(),
+				data.getFile(), data.getSize());
+	}
+
+	/* Keeps data in memory until a limit is reached, then moves it to a
+	 * temporary file.
+	 */
+	private static class SpillOutputStream extends OutputStream {
+
+		private final long memoryLimit;
+		private final File tempDir;
+		private ByteArrayOutputStream mem = new ByteArrayOutputStream();
+		private File file = null;
+		private OutputStream fileOut = null;
+		private long size = 0;
+
+		private SpillOutputStream(final long memoryLimit, final File tempDir) {
+			this.memoryLimit = memoryLimit;
+			this.tempDir = tempDir;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+				throws IOException {
+			if (fileOut == null && size + len > memoryLimit) {
+				file = File.createTempFile("ws.stream.", ".json", tempDir);
+				fileOut = new FileOutputStream(file);
+				mem.writeTo(fileOut);
+				mem = null;
+			}
+			if (fileOut != null) {
+				fileOut.write(b, off, len);
+			} else {
+				mem.write(b, off, len);
+			}
+			size += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (fileOut != null) {
+				fileOut.close();
+			}
+		}
+
+		private byte[] getBytes() {
+			return mem == null ? null : mem.toByteArray();
+		}
+
+		private File getFile() {
+			return file;
+		}
+
+		private long getSize() {
+			return size;
+		}
+
+		private void destroy() {
+			try {
+				close();
+			} catch (IOException e) {
+				// ignore
+			}
+			if (file != null) {
+				file.delete();
+			}
+		}
+	}
+
+	private HttpURLConnection post(final String method, final Object params)
+			throws IOException {
+		final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+		conn.setConnectTimeout(connectTimeout);
+		conn.setReadTimeout(readTimeout);
+		conn.setDoOutput(true);
+		conn.setRequestMethod("POST");
+		conn.setRequestProperty("Content-Type", "application/json");
+		if (token != null) {
+			if (!authAllowedForHttp && "http".equals(url.getProtocol())) {
+				throw new IllegalStateException(
+						"Sending the token over insecure http is not allowed");
+			}
+			conn.setRequestProperty("Authorization", token.getToken());
+		}
+		final Map<String, Object> req = new LinkedHashMap<String, Object>();
+		// the method goes first so the server can schedule the request
+		// without reading the parameters
+		req.put("method", method);
+		req.put("version", "1.1");
+		req.put("id", String.valueOf(RANDOM.nextLong()));
+		final List<Object> args = new ArrayList<Object>();
+		args.add(params);
+		req.put("params", args);
+		final OutputStream os = conn.getOutputStream();
+		try {
+			getMapper().writeValue(os, req);
+		} finally {
+			os.close();
+		}
+		return conn;
+	}
+
+	/* Returns the response stream if the call succeeded, otherwise throws
+	 * the server's error.
+	 */
+	private static InputStream getResponseStream(final HttpURLConnection conn)
+			throws IOException, JsonClientException {
+		final int code = conn.getResponseCode();
+		if (code == HttpURLConnection.HTTP_OK) {
+			return conn.getInputStream();
+		}
+		final InputStream err = conn.getErrorStream();
+		if (err == null) {
+			throw new JsonClientException(String.format(
+					"Server returned HTTP code %s: %s", code,
+					conn.getResponseMessage()));
+		}
+		final Map<String, Object> resp;
+		try {
+			resp = getMapper().readValue(err,
+					new TypeReference<Map<String, Object>>() {});
+		} catch (IOException e) {
+			throw new JsonClientException(String.format(
+					"Server returned HTTP code %s: %s", code,
+					conn.getResponseMessage()));
+		} finally {
+			err.close();
+		}
+		@SuppressWarnings("unchecked")
+		final Map<String, Object> error = (Map<String, Object>) resp.get("error");
+		if (error == null) {
+			throw new JsonClientException(String.format(
+					"Server returned HTTP code %s: %s", code,
+					conn.getResponseMessage()));
+		}
+		final Object errcode = error.get("code");
+		throw new ServerException((String) error.get("message"),
+				errcode instanceof Number ? ((Number) errcode).intValue() : 0,
+				(String) error.get("name"), (String) error.get("error"));
+	}
+
+	/* Moves the parser to the value of the top level result field. Returns
+	 * false if the response doesn't have a result field.
+	 */
+	private static boolean moveToResultArray(final JsonParser p)
+			throws IOException {
+		if (p.nextToken() != JsonToken.START_OBJECT) {
+			return false;
+		}
+		while (p.nextToken() == JsonToken.FIELD_NAME) {
+			final String field = p.getCurrentName();
+			p.nextToken();
+			if ("result".equals(field)) {
+				return p.getCurrentToken() == JsonToken.START_ARRAY;
+			}
+			p.skipChildren();
+		}
+		return false;
+	}
+}
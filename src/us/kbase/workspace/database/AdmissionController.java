@@ -0,0 +1,270 @@
+package us.kbase.workspace.database;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import us.kbase.workspace.database.exceptions.AdmissionLimitExceededException;
+
+/** Limits the load a single user may place on the workspace.
+ *
+ * For each class of operation a user may run a maximum number of operations
+ * at once and may have a maximum number of bytes of object data in flight.
+ * There is also a limit on the bytes in flight for all users combined.
+ * Bytes are only counted when the operation reserves them, which is only
+ * possible when the size of the data is known before the expensive work
+ * starts, e.g. when saving objects.
+ * Operations over a limit are rejected immediately rather than queued so
+ * that rejected requests don't hold server threads.
+ *
+ * Anonymous users share a single set of limits.
+ *
+ * The limits may be changed at any time. Changes apply to operations started
+ * after the change.
+ */
+public class AdmissionController {
+
+	/** Classes of operations with separate limits. */
+	public static enum Operation {
+		/** Retrieving object data. */
+		READ,
+		/** Saving or copying objects. */
+		WRITE;
+	}
+
+	/** The limits for a class of operation. */
+	public static class Limits {
+
+		private final int maxConcurrentPerUser;
+		private final long maxBytesPerUser;
+		private final long maxBytes;
+
+		/** Create limits for a class of operation.
+		 * @param maxConcurrentPerUser the maximum number of operations a user
+		 * may run at once, or 0 for no limit.
+		 * @param maxBytesPerUser the maximum bytes of object data a user may
+		 * have in flight, or 0 for no limit.
+		 * @param maxBytes the maximum bytes of object data all users may have
+		 * in flight, or 0 for no limit.
+		 */
+		public Limits(
+				final int maxConcurrentPerUser,
+				final long maxBytesPerUser,
+				final long maxBytes) {
+			if (maxConcurrentPerUser < 0 || maxBytesPerUser < 0 ||
+					maxBytes < 0) {
+				throw new IllegalArgumentException("Limits must be at least 0");
+			}
+			this.maxConcurrentPerUser = maxConcurrentPerUser;
+			this.maxBytesPerUser = maxBytesPerUser;
+			this.maxBytes = maxBytes;
+		}
+
+		public int getMaxConcurrentPerUser() {
+			return maxConcurrentPerUser;
+		}
+
+		public long getMaxBytesPerUser() {
+			return maxBytesPerUser;
+		}
+
+		public long getMaxBytes() {
+			return maxBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "Limits [maxConcurrentPerUser=" + maxConcurrentPerUser
+					+ ", maxBytesPerUser=" + maxBytesPerUser + ", maxBytes="
+					+ maxBytes + "]";
+		}
+	}
+
+	private static class Usage {
+		private int running = 0;
+		private long bytes = 0;
+	}
+
+	/** A running operation. Close the ticket when the operation is complete
+	 * to release the capacity it holds.
+	 */
+	public class Ticket implements AutoCloseable {
+
+		private final String user;
+		private final Operation op;
+		private long bytes = 0;
+		private boolean closed = false;
+
+		private Ticket(final String user, final Operation op) {
+			this.user = user;
+			this.op = op;
+		}
+
+		/** Reserve capacity for object data processed by this operation.
+		 * @param bytes the number of bytes to reserve.
+		 * @throws AdmissionLimitExceededException if reserving the bytes
+		 * would exceed the user's or the server's in flight limit.
+		 */
+		public void addBytes(final long bytes) {
+			if (bytes < 0) {
+				throw new IllegalArgumentException("bytes must be at least 0");
+			}
+			reserveBytes(this, bytes);
+		}
+
+		/** Get the bytes reserved by this operation.
+		 * @return the bytes.
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		@Override
+		public void close() {
+			release(this);
+		}
+	}
+
+	// an anonymous user can't have this name
+	private static final String ANONYMOUS = "*anonymous*";
+
+	private final Map<Operation, Limits> limits =
+			new EnumMap<Operation, Limits>(Operation.class);
+	private final Map<Operation, Map<String, Usage>> usage =
+			new EnumMap<Operation, Map<String, Usage>>(Operation.class);
+	private final Map<Operation, Long> totalBytes =
+			new EnumMap<Operation, Long>(Operation.class);
+
+	/** Create an admission controller with no limits. */
+	public AdmissionController() {
+		for (final Operation op: Operation.values()) {
+			limits.put(op, new Limits(0, 0, 0));
+			usage.put(op, new HashMap<String, Usage>());
+			totalBytes.put(op, 0L);
+		}
+	}
+
+	/** Set the limits for a class of operation.
+	 * @param op the class of operation.
+	 * @param limits the limits.
+	 */
+	public synchronized void setLimits(final Operation op, final Limits limits) {
+		if (op == null || limits == null) {
+			throw new NullPointerException("op and limits cannot be null");
+		}
+		this.limits.put(op, limits);
+	}
+
+	/** Get the limits for a class of operation.
+	 * @param op the class of operation.
+	 * @return the limits.
+	 */
+	public synchronized Limits getLimits(final Operation op) {
+		return limits.get(op);
+	}
+
+	/** Start an operation.
+	 * @param user the user running the operation, or null for an anonymous
+	 * user.
+	 * @param op the class of the operation.
+	 * @return a ticket that must be closed when the operation is complete.
+	 * @throws AdmissionLimitExceededException if the user is already running
+	 * the maximum number of operations of the class.
+	 */
+	public synchronized Ticket admit(
+			final WorkspaceUser user,
+			final Operation op) {
+		if (op == null) {
+			throw new NullPointerException("op cannot be null");
+		}
+		final String name = user == null ? ANONYMOUS : user.getUser();
+		Usage u = usage.get(op).get(name);
+		final int max = limits.get(op).getMaxConcurrentPerUser();
+		if (u != null && max > 0 && u.running >= max) {
+			throw new AdmissionLimitExceededException(String.format(
+					"User %s already has %s %s operations running, the maximum allowed. Please try again later",
+					user == null ? "anonymous" : name, u.running,
+					op.name().toLowerCase()));
+		}
+		if (u == null) {
+			u = new Usage();
+			usage.get(op).put(name, u);
+		}
+		u.running++;
+		return new Ticket(name, op);
+	}
+
+	private synchronized void reserveBytes(final Ticket t, final long bytes) {
+		if (t.closed) {
+			throw new IllegalStateException("Ticket is closed");
+		}
+		final Limits l = limits.get(t.op);
+		final Usage u = usage.get(t.op).get(t.user);
+		final long total = totalBytes.get(t.op);
+		final String user = ANONYMOUS.equals(t.user) ? "anonymous" : t.user;
+		// allow a single operation to exceed the limits, otherwise
+		// operations larger than the limits could never run
+		if (l.getMaxBytesPerUser() > 0 && u.bytes > 0 &&
+				u.bytes + bytes > l.getMaxBytesPerUser()) {
+			throw new AdmissionLimitExceededException(String.format(
+					"User %s already has %s bytes of %s operations in progress; adding %s bytes would exceed the limit of %s. Please try again later",
+					user, u.bytes, t.op.name().toLowerCase(), bytes,
+					l.getMaxBytesPerUser()));
+		}
+		if (l.getMaxBytes() > 0 && total > 0 &&
+				total + bytes > l.getMaxBytes()) {
+			throw new AdmissionLimitExceededException(String.format(
+					"The server already has %s bytes of %s operations in progress; adding %s bytes would exceed the limit of %s. Please try again later",
+					total, t.op.name().toLowerCase(), bytes, l.getMaxBytes()));
+		}
+		u.bytes += bytes;
+		t.bytes += bytes;
+		totalBytes.put(t.op, total + bytes);
+	}
+
+	private synchronized void release(final Ticket t) {
+		if (t.closed) {
+			return;
+		}
+		t.closed = true;
+		final Map<String, Usage> users = usage.get(t.op);
+		final Usage u = users.get(t.user);
+		u.running--;
+		u.bytes -= t.bytes;
+		totalBytes.put(t.op, totalBytes.get(t.op) - t.bytes);
+		if (u.running < 1) {
+			users.remove(t.user);
+		}
+	}
+
+	/** Get the current limits and usage of the controller, suitable for
+	 * serializing to JSON.
+	 * @return a map of operation class to limits and usage.
+	 */
+	public synchronized Map<String, Object> getStatus() {
+		final Map<String, Object> ret = new LinkedHashMap<String, Object>();
+		for (final Operation op: Operation.values()) {
+			final Limits l = limits.get(op);
+			final Map<String, Object> opstat =
+					new LinkedHashMap<String, Object>();
+			opstat.put("max_concurrent_per_user", l.getMaxConcurrentPerUser());
+			opstat.put("max_bytes_per_user", l.getMaxBytesPerUser());
+			opstat.put("max_bytes", l.getMaxBytes());
+			opstat.put("bytes", totalBytes.get(op));
+			final Map<String, Object> users = new TreeMap<String, Object>();
+			for (final String user: usage.get(op).keySet()) {
+				final Usage u = usage.get(op).get(user);
+				final Map<String, Object> ustat =
+						new LinkedHashMap<String, Object>();
+				ustat.put("running", u.running);
+				ustat.put("bytes", u.bytes);
+				users.put(ANONYMOUS.equals(user) ? "anonymous" : user, ustat);
+			}
+			opstat.put("users", users);
+			ret.put(op.name().toLowerCase(), opstat);
+		}
+		return ret;
+	}
+}
@@ -3,11 +3,17 @@ package us.kbase.workspace.database;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.apache.commons.lang.NotImplementedException;
 
@@ -20,9 +26,11 @@ import us.kbase.common.service.UObject;
 import us.kbase.typedobj.core.SubsetSelection;
 import us.kbase.typedobj.core.SubdataExtractor;
 import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.typedobj.core.TempFilesManager.DiskQuotaExceededException;
 import us.kbase.typedobj.exceptions.TypedObjectExtractionException;
 import us.kbase.workspace.database.exceptions.FileCacheIOException;
 import us.kbase.workspace.database.exceptions.FileCacheLimitExceededException;
+import us.kbase.workspace.metrics.WorkspaceMetrics;
 
 public class ByteArrayFileCacheManager {
 	
@@ -34,6 +42,9 @@ public class ByteArrayFileCacheManager {
 	private final long maxSizeOnDisk;
 	private final TempFilesManager tfm;
 	
+	// bytes written to a temp file between checks of the temp file quota
+	private static final long QUOTA_CHECK_INTERVAL = 16 * 1024 * 1024;
+	
 	public ByteArrayFileCacheManager(
 			final int maxSizeInMem,
 			final long maxSizeOnDisk,
@@ -91,15 +102,17 @@ public class ByteArrayFileCacheManager {
 			throw new FileCacheIOException(ioe.getLocalizedMessage(), ioe);
 		}
 		if (size > maxInMemorySize) {
+			checkTempFileQuota(size);
 			File tempFile = null;
 			OutputStream os = null;
 			try {
-				tempFile = tfm.generateTempFile("resp", "json");
+				tempFile = tfm.generateTempFile("resp", "json", size);
 				os = new BufferedOutputStream(
 						new FileOutputStream(tempFile));
 				try {
 					os.write(bufOs.toByteArray());
 					bufOs = null;
+					long nextQuotaCheck = size + QUOTA_CHECK_INTERVAL;
 					while (true) {
 						if (sizeOnDisk + size > maxSizeOnDisk) {
 							cleanUp(tempFile, os);
@@ -107,6 +120,15 @@ public class ByteArrayFileCacheManager {
 									"Disk limit exceeded for file cache: " +
 											maxSizeOnDisk);
 						}
+						if (size > nextQuotaCheck) {
+							nextQuotaCheck = size + QUOTA_CHECK_INTERVAL;
+							try {
+								checkTempFileQuota(0);
+							} catch (FileCacheLimitExceededException e) {
+								cleanUp(tempFile, os);
+								throw e;
+							}
+						}
 						int count = input.read(buf, 0, buf.length);
 						if (count < 0)
 							break;
@@ -140,6 +162,83 @@ public class ByteArrayFileCacheManager {
 		}
 	}
 
+	/** Create a cache from a file. Since the size of the file is known in
+	 * advance, small files are read directly into memory and larger files are
+	 * copied to a temporary file with FileChannel.transferTo(), which lets
+	 * the operating system copy the data without passing it through the JVM.
+	 * The source file is not modified.
+	 * @param source the file containing the data.
+	 * @param trustedJson true if the data is known to be valid JSON.
+	 * @param sorted true if the data is known to be sorted.
+	 * @return the new cache.
+	 * @throws FileCacheIOException if an IO error occurs.
+	 * @throws FileCacheLimitExceededException if the data would exceed the
+	 * disk limit for the cache or the temporary file quota.
+	 */
+	public ByteArrayFileCache createBAFC(final File source,
+			final boolean trustedJson, final boolean sorted)
+			throws FileCacheIOException, FileCacheLimitExceededException {
+		try (final FileInputStream fis = new FileInputStream(source)) {
+			final FileChannel in = fis.getChannel();
+			final long size = in.size();
+			if (size <= maxSizeInMem - sizeInMem) {
+				final ByteBuffer buf = ByteBuffer.allocate((int) size);
+				while (buf.hasRemaining() && in.read(buf) >= 0) {}
+				if (buf.hasRemaining()) {
+					throw new IOException("File " + source +
+							" was truncated while reading");
+				}
+				sizeInMem += (int) size;
+				return new ByteArrayFileCache(null, null,
+						new JsonTokenStream(buf.array())
+							.setTrustedWholeJson(trustedJson), sorted, size);
+			}
+			if (sizeOnDisk + size > maxSizeOnDisk) {
+				throw new FileCacheLimitExceededException(
+						"Disk limit exceeded for file cache: " + maxSizeOnDisk);
+			}
+			checkTempFileQuota(size);
+			final File tempFile = tfm.generateTempFile("resp", "json", size);
+			final JsonTokenStream jts;
+			try {
+				try (final FileOutputStream fos =
+						new FileOutputStream(tempFile)) {
+					final FileChannel out = fos.getChannel();
+					long pos = 0;
+					while (pos < size) {
+						final long count = in.transferTo(pos, size - pos, out);
+						if (count <= 0) {
+							throw new IOException("File " + source +
+									" was truncated while reading");
+						}
+						pos += count;
+					}
+				}
+				jts = new JsonTokenStream(tempFile)
+						.setTrustedWholeJson(trustedJson);
+			} catch (IOException | RuntimeException e) {
+				tempFile.delete();
+				throw e;
+			}
+			sizeOnDisk += size;
+			return new ByteArrayFileCache(null, tempFile, jts, sorted, size);
+		} catch (IOException ioe) {
+			throw new FileCacheIOException(ioe.getLocalizedMessage(), ioe);
+		}
+	}
+
+	/* checks the global quota for temporary files, which is shared with
+	 * other caches and requests, as opposed to the limit for this cache
+	 */
+	private void checkTempFileQuota(final long additionalBytes)
+			throws FileCacheLimitExceededException {
+		try {
+			tfm.checkQuota(additionalBytes);
+		} catch (DiskQuotaExceededException e) {
+			throw new FileCacheLimitExceededException(e.getMessage(), e);
+		}
+	}
+
 	private void cleanUp(File tempFile, OutputStream os) {
 		if (os != null)
 			try {
@@ -149,68 +248,54 @@ public class ByteArrayFileCacheManager {
 			tempFile.delete();
 	}
 
-	@SuppressWarnings("resource")
 	public ByteArrayFileCache getSubdataExtraction(
 			final ByteArrayFileCache parent, final SubsetSelection paths)
 			throws TypedObjectExtractionException,
 			FileCacheLimitExceededException, FileCacheIOException {
-		final OutputStream[] origin = {new ByteArrayOutputStream()};
-		final File[] tempFile = {null};
-		final long[] size = {0L};
-		OutputStream os = new OutputStream() {
-			@Override
-			public void write(int b) throws IOException {
-				throw new NotImplementedException(
-						"Single byte writing is not supported");
+		return getSubdataExtractions(parent, Arrays.asList(paths)).get(0);
+	}
+	
+	/** Extracts several subsets from the same parent in a single pass over
+	 * the parent's data.
+	 * @param parent the data from which subsets will be extracted.
+	 * @param paths the subsets to extract.
+	 * @return the extracted subsets, in the same order as paths.
+	 * @throws TypedObjectExtractionException if any of the subsets could not
+	 * be extracted.
+	 * @throws FileCacheLimitExceededException if the subsets, taken together,
+	 * exceed the disk limit for the cache.
+	 * @throws FileCacheIOException if an IO error occurs.
+	 */
+	public List<ByteArrayFileCache> getSubdataExtractions(
+			final ByteArrayFileCache parent, final List<SubsetSelection> paths)
+			throws TypedObjectExtractionException,
+			FileCacheLimitExceededException, FileCacheIOException {
+		// memory and disk used by all the subsets while extraction is in progress
+		final long[] pending = {0L, 0L};
+		final List<SubdataOutputStream> streams =
+				new LinkedList<SubdataOutputStream>();
+		for (int i = 0; i < paths.size(); i++) {
+			streams.add(new SubdataOutputStream(pending));
+		}
+		try {
+			parent.getSubdataExtractionAsStream(paths,
+					new LinkedList<OutputStream>(streams));
+			final List<ByteArrayFileCache> ret =
+					new LinkedList<ByteArrayFileCache>();
+			for (final SubdataOutputStream os: streams) {
+				ret.add(os.toFileCache(parent));
 			}
-			@Override
-			public void write(byte[] b, int off, int len) throws IOException {
-				origin[0].write(b, off, len);
-				size[0] += len;
-				if (tempFile[0] == null) {
-					if (sizeInMem + size[0] > maxSizeInMem) {
-						origin[0].close();
-						byte[] arr = ((ByteArrayOutputStream)origin[0]).toByteArray();
-						tempFile[0] = tfm.generateTempFile("resp", "json");
-						origin[0] = new BufferedOutputStream(new FileOutputStream(tempFile[0]));
-						origin[0].write(arr);
-					}
+			for (final SubdataOutputStream os: streams) {
+				if (os.tempFile != null) {
+					sizeOnDisk += os.size;
 				} else {
-					if (sizeOnDisk + size[0] > maxSizeOnDisk) {
-						final String err = "Disk limit exceeded for file cache: " +
-								maxSizeOnDisk;
-						throw new IOException(err,
-								new FileCacheLimitExceededException(err));
-					}
+					sizeInMem += (int) os.size;
 				}
 			}
-			@Override
-			public void close() throws IOException {
-				origin[0].close();
-			}
-		};
-		try {
-			parent.getSubdataExtractionAsStream(paths, os);
-			if (tempFile[0] != null) {
-				sizeOnDisk += size[0];
-				return new ByteArrayFileCache(parent, tempFile[0],
-						new JsonTokenStream(tempFile[0])
-						.setTrustedWholeJson(parent.containsTrustedJson()),
-						parent.isSorted(), size[0]); 
-			} else {
-				sizeInMem += (int)size[0];
-				byte[] arr = ((ByteArrayOutputStream)origin[0]).toByteArray();
-				return new ByteArrayFileCache(parent, null,
-						new JsonTokenStream(arr)
-						.setTrustedWholeJson(parent.containsTrustedJson()),
-						parent.isSorted(), size[0]);
-			}
+			return ret;
 		} catch (Throwable e) {
-			try {
-				os.close();
-			} catch (Exception ignore) {}
-			if (tempFile[0] != null) {
-				tempFile[0].delete();
+			for (final SubdataOutputStream os: streams) {
+				os.cleanUp();
 			}
 			if (e instanceof TypedObjectExtractionException) {
 				throw (TypedObjectExtractionException)e;
@@ -229,6 +314,100 @@ public class ByteArrayFileCacheManager {
 		}
 	}
 	
+	/* Stores extracted data in memory until the memory limit is reached,
+	 * and then spills the data to a temp file. The limits are checked against
+	 * the total size of all the streams sharing the same pending array.
+	 */
+	private class SubdataOutputStream extends OutputStream {
+		
+		private final long[] pending;
+		private OutputStream origin = new ByteArrayOutputStream();
+		private File tempFile = null;
+		private long size = 0;
+		private long nextQuotaCheck = 0;
+		
+		private SubdataOutputStream(final long[] pending) {
+			this.pending = pending;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			throw new NotImplementedException(
+					"Single byte writing is not supported");
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			origin.write(b, off, len);
+			size += len;
+			if (tempFile == null) {
+				pending[0] += len;
+				if (sizeInMem + pending[0] > maxSizeInMem) {
+					origin.close();
+					byte[] arr = ((ByteArrayOutputStream)origin).toByteArray();
+					checkQuota(size);
+					tempFile = tfm.generateTempFile("resp", "json", size);
+					origin = new BufferedOutputStream(new FileOutputStream(tempFile));
+					origin.write(arr);
+					pending[0] -= size;
+					pending[1] += size;
+					nextQuotaCheck = size + QUOTA_CHECK_INTERVAL;
+				}
+			} else {
+				pending[1] += len;
+				if (sizeOnDisk + pending[1] > maxSizeOnDisk) {
+					final String err = "Disk limit exceeded for file cache: " +
+							maxSizeOnDisk;
+					throw new IOException(err,
+							new FileCacheLimitExceededException(err));
+				}
+				if (size > nextQuotaCheck) {
+					nextQuotaCheck = size + QUOTA_CHECK_INTERVAL;
+					checkQuota(0);
+				}
+			}
+		}
+		
+		private void checkQuota(final long additionalBytes)
+				throws IOException {
+			try {
+				checkTempFileQuota(additionalBytes);
+			} catch (FileCacheLimitExceededException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			origin.close();
+		}
+		
+		private ByteArrayFileCache toFileCache(final ByteArrayFileCache parent)
+				throws IOException {
+			if (tempFile != null) {
+				return new ByteArrayFileCache(parent, tempFile,
+						new JsonTokenStream(tempFile)
+						.setTrustedWholeJson(parent.containsTrustedJson()),
+						parent.isSorted(), size); 
+			} else {
+				byte[] arr = ((ByteArrayOutputStream)origin).toByteArray();
+				return new ByteArrayFileCache(parent, null,
+						new JsonTokenStream(arr)
+						.setTrustedWholeJson(parent.containsTrustedJson()),
+						parent.isSorted(), size);
+			}
+		}
+		
+		private void cleanUp() {
+			try {
+				close();
+			} catch (Exception ignore) {}
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return "ByteArrayFileCacheManager [sizeInMem=" + sizeInMem
@@ -260,6 +439,7 @@ public class ByteArrayFileCacheManager {
 				this.sorted = sorted;
 			}
 			this.size = size;
+			WorkspaceMetrics.fileCacheChanged(tempFile != null, size);
 		}
 		
 		public boolean isSorted() {
@@ -303,18 +483,25 @@ public class ByteArrayFileCacheManager {
 			}
 		}
 		
-		private void getSubdataExtractionAsStream(final SubsetSelection paths, 
-				final OutputStream os)
+		private void getSubdataExtractionAsStream(
+				final List<SubsetSelection> paths,
+				final List<OutputStream> os)
 				throws TypedObjectExtractionException {
 			checkIfDestroyed();
 			try {
-				JsonGenerator jgen = UObject.getMapper().getFactory()
-						.createGenerator(os);
+				final List<JsonGenerator> jgens =
+						new LinkedList<JsonGenerator>();
 				try {
-					SubdataExtractor.extract(paths, jts.setRoot(null), jgen);
+					for (final OutputStream o: os) {
+						jgens.add(UObject.getMapper().getFactory()
+								.createGenerator(o));
+					}
+					SubdataExtractor.extract(paths, jts.setRoot(null), jgens);
 				} finally {
 					jts.close();
-					jgen.close();
+					for (final JsonGenerator jgen: jgens) {
+						jgen.close();
+					}
 				}
 				// jts.setRoot throws IllegalStateException in a bunch of
 				// places, ugh
@@ -339,6 +526,7 @@ public class ByteArrayFileCacheManager {
 			if (tempFile != null && tempFile.exists()) {
 				tempFile.delete();
 			}
+			WorkspaceMetrics.fileCacheChanged(tempFile != null, -size);
 			if (parent != null) {
 				parent.destroy();
 			}
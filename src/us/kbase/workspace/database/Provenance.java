@@ -35,6 +35,13 @@ public class Provenance {
 	
 	protected Provenance() {} //for subclasses using mongo
 	
+	protected Provenance(final Provenance p) { //for subclasses using mongo
+		this.user = p.user;
+		this.date = p.date;
+		this.wsid = p.wsid;
+		this.actions = new ArrayList<ProvenanceAction>(p.actions);
+	}
+	
 	public Provenance addAction(ProvenanceAction action) {
 		if (action == null) {
 			throw new IllegalArgumentException("action cannot be null");
@@ -51,6 +58,10 @@ public class Provenance {
 		return date;
 	}
 	
+	protected void setDate(final Date date) {
+		this.date = date;
+	}
+	
 	protected void setWorkspaceID(final Long wsid) {
 		if (wsid < 1) {
 			throw new IllegalArgumentException("wsid must be > 0");
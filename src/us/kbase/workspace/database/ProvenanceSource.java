@@ -0,0 +1,20 @@
+package us.kbase.workspace.database;
+
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** A source of a workspace object's provenance. Implementations may defer
+ * loading the provenance from the backend until it is first requested.
+ */
+public interface ProvenanceSource {
+
+	/** Get the provenance.
+	 * @return the provenance.
+	 * @throws WorkspaceCommunicationException if a communication error occurs
+	 * while loading the provenance.
+	 * @throws CorruptWorkspaceDBException if the provenance is missing from
+	 * the workspace database.
+	 */
+	public Provenance getProvenance() throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException;
+}
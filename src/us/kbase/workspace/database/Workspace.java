@@ -1,8 +1,17 @@
 package us.kbase.workspace.database;
 
+import static us.kbase.workspace.metrics.WorkspaceMetrics.SAVE_DB;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.SAVE_ID_PROCESSING;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.SAVE_PERMISSIONS;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.SAVE_SORT;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.SAVE_VALIDATION;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.phaseDone;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,6 +52,8 @@ import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory.IdReferenceHandlerFactory;
 import us.kbase.typedobj.idref.IdReferenceType;
 import us.kbase.typedobj.idref.RemappedId;
+import us.kbase.workspace.database.AdmissionController.Operation;
+import us.kbase.workspace.database.AdmissionController.Ticket;
 import us.kbase.workspace.database.ResourceUsageConfigurationBuilder.ResourceUsageConfiguration;
 import us.kbase.workspace.database.refsearch.ReferenceGraphSearch;
 import us.kbase.workspace.database.refsearch.ReferenceGraphTopologyProvider;
@@ -76,17 +87,22 @@ public class Workspace {
 	
 	private final static int MAX_WS_DESCRIPTION = 1000;
 	private final static int MAX_WS_COUNT = 1000;
+	private final static int MAX_BULK_OBJECT_COUNT = 10000;
 	private final static int NAME_LIMIT = 1000;
+	private final static int MAX_HISTORY_COUNT = 10000;
 	/* may need to calculate memory for search tree and modify, or add a separate limit. 
 	 * for now this is low enough it's not really a concern.
 	 */
 	private final static int MAX_OBJECT_SEARCH_COUNT_DEFAULT = 10000;
+	private final static int MIN_WS_LIST_BATCH = 100;
+	private final static int MAX_WS_LIST_BATCH = 10000;
 	
 	private final static IdReferenceType WS_ID_TYPE = new IdReferenceType("ws");
 	
 	private final WorkspaceDatabase db;
 	private ResourceUsageConfiguration rescfg;
 	private final TypedObjectValidator validator;
+	private final AdmissionController admission = new AdmissionController();
 	private int maximumObjectSearchCount;
 	
 	public Workspace(
@@ -122,6 +138,15 @@ public class Workspace {
 		return maximumObjectSearchCount;
 	}
 	
+	/** Get the admission controller that limits the load individual users
+	 * may place on the workspace. The controller has no limits until they
+	 * are set.
+	 * @return the admission controller.
+	 */
+	public AdmissionController getAdmissionController() {
+		return admission;
+	}
+	
 	public ResourceUsageConfiguration getResourceConfig() {
 		return rescfg;
 	}
@@ -367,10 +392,12 @@ public class Workspace {
 		final ResolvedWorkspaceID wsid = checkPerms(user, wsi, Permission.READ,
 				"read");
 		new WorkspaceIdentifier(newname, user); //check for errors
-		return db.cloneWorkspace(user, wsid, newname, globalread,
-				pruneWorkspaceDescription(description),
-				meta == null ? new WorkspaceUserMetadata() : meta,
-				exclude);
+		try (final Ticket ticket = admission.admit(user, Operation.WRITE)) {
+			return db.cloneWorkspace(user, wsid, newname, globalread,
+					pruneWorkspaceDescription(description),
+					meta == null ? new WorkspaceUserMetadata() : meta,
+					exclude);
+		}
 	}
 	
 	public WorkspaceInformation lockWorkspace(final WorkspaceUser user,
@@ -622,25 +649,44 @@ public class Workspace {
 	public List<ObjectInformation> saveObjects(
 			final WorkspaceUser user,
 			final WorkspaceIdentifier wsi, 
-			List<WorkspaceSaveObject> objects,
+			final List<WorkspaceSaveObject> objects,
 			final IdReferenceHandlerSetFactory idHandlerFac) throws
 			WorkspaceCommunicationException, WorkspaceAuthorizationException,
 			NoSuchObjectException, CorruptWorkspaceDBException,
 			NoSuchWorkspaceException, TypedObjectValidationException,
 			TypeStorageException, IOException, TypedObjectSchemaException {
+		try (final Ticket ticket = admission.admit(user, Operation.WRITE)) {
+			return saveObjects(user, wsi, objects, idHandlerFac, ticket);
+		}
+	}
+	
+	private List<ObjectInformation> saveObjects(
+			final WorkspaceUser user,
+			final WorkspaceIdentifier wsi, 
+			List<WorkspaceSaveObject> objects,
+			final IdReferenceHandlerSetFactory idHandlerFac,
+			final Ticket ticket) throws
+			WorkspaceCommunicationException, WorkspaceAuthorizationException,
+			NoSuchObjectException, CorruptWorkspaceDBException,
+			NoSuchWorkspaceException, TypedObjectValidationException,
+			TypeStorageException, IOException, TypedObjectSchemaException {
 		if (objects.isEmpty()) {
 			throw new IllegalArgumentException("No data provided");
 		}
+		long phaseStart = System.nanoTime();
 		final ResolvedWorkspaceID rwsi = checkPerms(user, wsi, Permission.WRITE,
 				"write to");
+		phaseStart = phaseDone(SAVE_PERMISSIONS, phaseStart);
 		idHandlerFac.addFactory(getHandlerFactory(user));
 		final IdReferenceHandlerSet<IDAssociation> idhandler =
 				idHandlerFac.createHandlers(IDAssociation.class);
 		
 		final Map<WorkspaceSaveObject, ValidatedTypedObject> reports = 
 				validateObjectsAndExtractReferences(objects, idhandler);
+		phaseStart = phaseDone(SAVE_VALIDATION, phaseStart);
 		
 		processIds(objects, idhandler, reports);
+		phaseStart = phaseDone(SAVE_ID_PROCESSING, phaseStart);
 		
 		//handle references and calculate size with new references
 		final List<ResolvedSaveObject> saveobjs =
@@ -692,8 +738,15 @@ public class Workspace {
 		reports.clear();
 		
 		try {
+			// the size is known before the expensive sort and save steps
+			ticket.addBytes(ttlObjSize);
+			phaseStart = System.nanoTime();
 			sortObjects(saveobjs, ttlObjSize);
-			return db.saveObjects(user, rwsi, saveobjs);
+			phaseStart = phaseDone(SAVE_SORT, phaseStart);
+			final List<ObjectInformation> ret =
+					db.saveObjects(user, rwsi, saveobjs);
+			phaseDone(SAVE_DB, phaseStart);
+			return ret;
 		} finally {
 			for (final ResolvedSaveObject wo: saveobjs) {
 				try {
@@ -916,6 +969,75 @@ public class Workspace {
 				showDeleted, showOnlyDeleted);
 	}
 	
+	/** List workspaces in order of their IDs, starting with minWorkspaceID.
+	 * Permissions are resolved and the workspaces fetched in batches of
+	 * consecutive IDs, so the cost of a call depends on the size of the
+	 * requested page rather than the number of workspaces the user can see.
+	 * To retrieve the next page, set minWorkspaceID to one more than the ID
+	 * of the last workspace returned.
+	 * 
+	 * If minWorkspaceID < 1 and limit < 1, all the workspaces the user can
+	 * see are returned in no particular order, as for the version of this
+	 * method without paging parameters.
+	 */
+	public List<WorkspaceInformation> listWorkspaces(
+			final WorkspaceUser user, Permission minPerm,
+			final List<WorkspaceUser> users, final WorkspaceUserMetadata meta,
+			final Date after, final Date before,
+			final boolean excludeGlobal, final boolean showDeleted,
+			final boolean showOnlyDeleted,
+			final long minWorkspaceID, final int limit)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
+		if (minWorkspaceID < 1 && limit < 1) {
+			return listWorkspaces(user, minPerm, users, meta, after, before,
+					excludeGlobal, showDeleted, showOnlyDeleted);
+		}
+		if (minPerm == null || Permission.READ.compareTo(minPerm) > 0) {
+			minPerm = Permission.READ;
+		}
+		if (meta != null && meta.size() > 1) {
+			throw new IllegalArgumentException("Only one metadata spec allowed");
+		}
+		// fetch somewhat more than the limit since filters may drop some
+		// workspaces from each batch
+		final int batch = limit < 1 ? MAX_WS_LIST_BATCH : Math.min(
+				Math.max(limit, MIN_WS_LIST_BATCH), MAX_WS_LIST_BATCH);
+		final List<WorkspaceInformation> ret =
+				new LinkedList<WorkspaceInformation>();
+		long min = minWorkspaceID < 1 ? 1 : minWorkspaceID;
+		while (true) {
+			final PermissionSet perms = db.getPermissions(
+					user, minPerm, excludeGlobal, min, batch);
+			if (perms.isEmpty()) {
+				return ret;
+			}
+			final List<WorkspaceInformation> wsis =
+					new ArrayList<WorkspaceInformation>(
+							db.getWorkspaceInformation(perms, users, meta,
+									after, before, showDeleted,
+									showOnlyDeleted));
+			Collections.sort(wsis, new Comparator<WorkspaceInformation>() {
+				
+				@Override
+				public int compare(
+						final WorkspaceInformation wsi1,
+						final WorkspaceInformation wsi2) {
+					return Long.compare(wsi1.getId(), wsi2.getId());
+				}
+			});
+			for (final WorkspaceInformation wsi: wsis) {
+				ret.add(wsi);
+				if (ret.size() == limit) {
+					return ret;
+				}
+			}
+			for (final ResolvedWorkspaceID rwsi: perms.getWorkspaces()) {
+				min = Math.max(min, rwsi.getID() + 1);
+			}
+		}
+	}
+	
 	public List<ObjectInformation> listObjects(
 			final ListObjectsParameters params)
 			throws CorruptWorkspaceDBException, NoSuchWorkspaceException,
@@ -967,6 +1089,25 @@ public class Workspace {
 				WorkspaceCommunicationException, InaccessibleObjectException,
 				NoSuchReferenceException, TypedObjectExtractionException,
 				ReferenceSearchMaximumSizeExceededException, NoSuchObjectException {
+		if (noData) {
+			return getObjectsAdmitted(user, loi, true, nullIfInaccessible);
+		}
+		// the size of the data isn't known until it's fetched, so only the
+		// number of concurrent reads is limited
+		try (final Ticket ticket = admission.admit(user, Operation.READ)) {
+			return getObjectsAdmitted(user, loi, false, nullIfInaccessible);
+		}
+	}
+	
+	private List<WorkspaceObjectData> getObjectsAdmitted(
+			final WorkspaceUser user,
+			final List<ObjectIdentifier> loi,
+			final boolean noData,
+			final boolean nullIfInaccessible)
+			throws CorruptWorkspaceDBException,
+				WorkspaceCommunicationException, InaccessibleObjectException,
+				NoSuchReferenceException, TypedObjectExtractionException,
+				ReferenceSearchMaximumSizeExceededException, NoSuchObjectException {
 		
 		final ResolvedRefPaths res = resolveObjects(user, loi, nullIfInaccessible);
 		
@@ -1339,6 +1480,61 @@ public class Workspace {
 		return db.getObjectHistory(ws.get(oi));
 	}
 	
+	/** Get a page of an object's version history. The version of the object
+	 * identifier, if any, is ignored.
+	 * 
+	 * To get the next page, set minVersion to one more than the last version
+	 * returned, or, if returning the newest versions first, set maxVersion to
+	 * one less than the last version returned.
+	 * @param user the user getting the history.
+	 * @param oi the object.
+	 * @param minVersion the earliest version to return, inclusive, or null
+	 * for no lower bound.
+	 * @param maxVersion the latest version to return, inclusive, or null for
+	 * no upper bound.
+	 * @param newestFirst true to return versions from newest to oldest,
+	 * false to return them from oldest to newest.
+	 * @param limit the maximum number of versions to return. If limit < 1 or
+	 * limit > 10000, limit is set to 10000.
+	 * @return information about the versions in the requested order.
+	 * @throws WorkspaceCommunicationException if a communication exception
+	 * occurs.
+	 * @throws InaccessibleObjectException if the object is inaccessible.
+	 * @throws CorruptWorkspaceDBException if the workspace database is
+	 * corrupt.
+	 * @throws NoSuchObjectException if the object does not exist.
+	 */
+	public List<ObjectInformation> getObjectHistory(
+			final WorkspaceUser user,
+			final ObjectIdentifier oi,
+			final Integer minVersion,
+			final Integer maxVersion,
+			final boolean newestFirst,
+			int limit)
+			throws WorkspaceCommunicationException, InaccessibleObjectException,
+			CorruptWorkspaceDBException, NoSuchObjectException {
+		if (minVersion != null && minVersion < 1) {
+			throw new IllegalArgumentException(
+					"Minimum version must be greater than 0");
+		}
+		if (maxVersion != null && maxVersion < 1) {
+			throw new IllegalArgumentException(
+					"Maximum version must be greater than 0");
+		}
+		if (minVersion != null && maxVersion != null &&
+				minVersion > maxVersion) {
+			throw new IllegalArgumentException(
+					"Minimum version cannot be greater than maximum version");
+		}
+		if (limit < 1 || limit > MAX_HISTORY_COUNT) {
+			limit = MAX_HISTORY_COUNT;
+		}
+		final Map<ObjectIdentifier, ObjectIDResolvedWS> ws = 
+				checkPerms(user, Arrays.asList(oi), Permission.READ, "read");
+		return db.getObjectHistory(ws.get(oi), minVersion, maxVersion,
+				newestFirst, limit);
+	}
+	
 	private static class ResolvedRefPaths {
 		public Map<ObjectIdentifier, ObjectIDResolvedWS> nopath;
 		public Map<ObjectIdentifier, ObjectIDResolvedWS> withpath;
@@ -1702,8 +1898,9 @@ public class Workspace {
 	}
 
 	/** Get object names based on a provided prefix. Returns at most 1000
-	 * names in no particular order. Intended for use as an auto-completion
-	 * method.
+	 * names, which are the first matching names in name order across all the
+	 * workspaces. The names for each workspace are sorted. Intended for use
+	 * as an auto-completion method.
 	 * @param user the user requesting names.
 	 * @param wsis the workspaces in which to look for names.
 	 * @param prefix the prefix returned names must have.
@@ -1782,6 +1979,58 @@ public class Workspace {
 		return db.renameObject(ws.get(oi), newname);
 	}
 	
+	/** Rename multiple objects. The renames are not atomic; if an error
+	 * occurs some of the objects may have been renamed.
+	 * @param user the user renaming the objects.
+	 * @param objects the objects to rename.
+	 * @param newnames the new names of the objects, in the same order as the
+	 * objects.
+	 * @return information about the renamed objects, in the same order as
+	 * the input.
+	 * @throws WorkspaceCommunicationException if a communication error with
+	 * the backend occurs.
+	 * @throws InaccessibleObjectException if an object or workspace is
+	 * inaccessible.
+	 * @throws CorruptWorkspaceDBException if the workspace database is
+	 * corrupt.
+	 * @throws NoSuchObjectException if an object does not exist.
+	 */
+	public List<ObjectInformation> renameObjects(final WorkspaceUser user,
+			final List<ObjectIdentifier> objects, final List<String> newnames)
+			throws WorkspaceCommunicationException, InaccessibleObjectException,
+			CorruptWorkspaceDBException, NoSuchObjectException {
+		if (objects.size() != newnames.size()) {
+			throw new IllegalArgumentException(
+					"The number of objects to rename and new names must match");
+		}
+		if (objects.size() > MAX_BULK_OBJECT_COUNT) {
+			throw new IllegalArgumentException(
+					"Maximum number of objects allowed for input is " +
+							MAX_BULK_OBJECT_COUNT);
+		}
+		final Map<ObjectIdentifier, ObjectIDResolvedWS> ws = checkPerms(user,
+				objects, Permission.WRITE, "rename objects in");
+		final Map<ObjectIDResolvedWS, String> names =
+				new HashMap<ObjectIDResolvedWS, String>();
+		for (int i = 0; i < objects.size(); i++) {
+			ObjectIDNoWSNoVer.checkObjectName(newnames.get(i));
+			final ObjectIDResolvedWS o = ws.get(objects.get(i));
+			if (names.containsKey(o) && !names.get(o).equals(newnames.get(i))) {
+				throw new IllegalArgumentException(String.format(
+						"Object %s cannot be renamed more than once",
+						objects.get(i).getIdentifierString()));
+			}
+			names.put(o, newnames.get(i));
+		}
+		final Map<ObjectIDResolvedWS, ObjectInformation> info =
+				db.renameObjects(names);
+		final List<ObjectInformation> ret = new ArrayList<ObjectInformation>();
+		for (final ObjectIdentifier o: objects) {
+			ret.add(info.get(ws.get(o)));
+		}
+		return ret;
+	}
+	
 	public ObjectInformation copyObject(final WorkspaceUser user,
 			final ObjectIdentifier from, final ObjectIdentifier to)
 			throws WorkspaceCommunicationException, InaccessibleObjectException,
@@ -1793,6 +2042,50 @@ public class Workspace {
 		return db.copyObject(user, f, t);
 	}
 	
+	/** Copy multiple objects. The permissions for all the sources and all
+	 * the destinations are each checked at once.
+	 * @param user the user copying the objects.
+	 * @param from the objects to copy.
+	 * @param to the destinations of the copies, in the same order as the
+	 * objects to copy. Each destination must be distinct.
+	 * @return information about the copies, in the same order as the input.
+	 * @throws WorkspaceCommunicationException if a communication error with
+	 * the backend occurs.
+	 * @throws InaccessibleObjectException if an object or workspace is
+	 * inaccessible.
+	 * @throws CorruptWorkspaceDBException if the workspace database is
+	 * corrupt.
+	 * @throws NoSuchObjectException if an object to copy, or a destination
+	 * specified by object ID, does not exist.
+	 */
+	public List<ObjectInformation> copyObjects(final WorkspaceUser user,
+			final List<ObjectIdentifier> from, final List<ObjectIdentifier> to)
+			throws WorkspaceCommunicationException, InaccessibleObjectException,
+			CorruptWorkspaceDBException, NoSuchObjectException {
+		if (from.size() != to.size()) {
+			throw new IllegalArgumentException(
+					"The number of objects to copy and destinations must match");
+		}
+		if (from.size() > MAX_BULK_OBJECT_COUNT) {
+			throw new IllegalArgumentException(
+					"Maximum number of objects allowed for input is " +
+							MAX_BULK_OBJECT_COUNT);
+		}
+		final Map<ObjectIdentifier, ObjectIDResolvedWS> f = checkPerms(user,
+				from, Permission.READ, "read");
+		final Map<ObjectIdentifier, ObjectIDResolvedWS> t = checkPerms(user,
+				to, Permission.WRITE, "write to");
+		final List<ObjectIDResolvedWS> rfrom =
+				new ArrayList<ObjectIDResolvedWS>();
+		final List<ObjectIDResolvedWS> rto =
+				new ArrayList<ObjectIDResolvedWS>();
+		for (int i = 0; i < from.size(); i++) {
+			rfrom.add(f.get(from.get(i)));
+			rto.add(t.get(to.get(i)));
+		}
+		return db.copyObjects(user, rfrom, rto);
+	}
+	
 	public ObjectInformation revertObject(WorkspaceUser user,
 			ObjectIdentifier oi)
 			throws WorkspaceCommunicationException, InaccessibleObjectException,
@@ -169,6 +169,31 @@ public interface WorkspaceDatabase {
 	public PermissionSet getPermissions(WorkspaceUser user,
 			Permission perm, boolean excludeGlobalRead)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException;
+	
+	/** Returns the workspaces with the lowest IDs, starting at a given ID,
+	 *  for which the user has the specified permission. If the user is null,
+	 *  only globally readable workspaces will be returned if specified. The
+	 *  permission set for the next page of workspaces may be retrieved by
+	 *  setting minWorkspaceID to one more than the maximum ID in the
+	 *  permission set.
+	 * 
+	 * Will return permissions for deleted workspaces.
+	 * 
+	 * @param user the user for whom to get permissions. If the user is null,
+	 * only the global readability of the workspaces will be returned. 
+	 * @param perm the minimum permission required for a workspace to be
+	 * included in the permission set.
+	 * @param excludeGlobalRead exclude globally readable workspaces.
+	 * @param minWorkspaceID the minimum ID of the workspaces to include.
+	 * @param limit the maximum number of workspaces to include.
+	 * @return a set of permissions to workspaces for a user.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 * @throws CorruptWorkspaceDBException if the workspace database is corrupt.
+	 */
+	public PermissionSet getPermissions(WorkspaceUser user,
+			Permission perm, boolean excludeGlobalRead, long minWorkspaceID,
+			int limit)
+			throws WorkspaceCommunicationException, CorruptWorkspaceDBException;
 
 	/** Get permissions for a set of workspaces for one user.
 	 * 
@@ -343,13 +368,29 @@ public interface WorkspaceDatabase {
 			ObjectIDResolvedWS from, ObjectIDResolvedWS to)
 			throws NoSuchObjectException, WorkspaceCommunicationException;
 	
+	/** Copy multiple objects.
+	 * @param user the user copying the objects.
+	 * @param from the objects to copy.
+	 * @param to the destinations of the copies, in the same order as the
+	 * objects to copy.
+	 * @return information about the copies, in the same order as the input.
+	 * @throws NoSuchObjectException if an object to copy, or a destination
+	 * specified by object ID, does not exist.
+	 * @throws WorkspaceCommunicationException if a communication error with
+	 * the backend occurs.
+	 */
+	public List<ObjectInformation> copyObjects(WorkspaceUser user,
+			List<ObjectIDResolvedWS> from, List<ObjectIDResolvedWS> to)
+			throws NoSuchObjectException, WorkspaceCommunicationException;
+	
 	public ObjectInformation revertObject(WorkspaceUser user,
 			ObjectIDResolvedWS target)
 			throws NoSuchObjectException, WorkspaceCommunicationException;
 	
 	/** Get object names based on a provided name prefix. Returns at most 1000
-	 * names in no particular order. Intended for use as an auto-completion
-	 * method.
+	 * names, which are the first matching names in name order across all the
+	 * workspaces. The names for each workspace are sorted. Intended for use
+	 * as an auto-completion method.
 	 * @param rwsis the workspaces in which to look for names.
 	 * @param prefix the prefix returned names must have.
 	 * @param includeHidden include hidden objects in the output.
@@ -371,6 +412,17 @@ public interface WorkspaceDatabase {
 			ObjectIDResolvedWS object, String newname)
 			throws NoSuchObjectException, WorkspaceCommunicationException;
 	
+	/** Rename multiple objects.
+	 * @param newnames a mapping of object to the new name for the object.
+	 * @return information about the latest version of each renamed object.
+	 * @throws NoSuchObjectException if an object does not exist.
+	 * @throws WorkspaceCommunicationException if a communication error with
+	 * the backend occurs.
+	 */
+	public Map<ObjectIDResolvedWS, ObjectInformation> renameObjects(
+			Map<ObjectIDResolvedWS, String> newnames)
+			throws NoSuchObjectException, WorkspaceCommunicationException;
+	
 	public void setObjectsHidden(Set<ObjectIDResolvedWS> objectIDs,
 			boolean hide) throws NoSuchObjectException,
 			WorkspaceCommunicationException;
@@ -419,6 +471,32 @@ public interface WorkspaceDatabase {
 			ObjectIDResolvedWS objectIDResolvedWS)
 			throws NoSuchObjectException, WorkspaceCommunicationException;
 
+	/** Get a page of an object's version history. The version of the object
+	 * identifier, if any, is ignored.
+	 * @param objectID the object.
+	 * @param minVersion the earliest version to return, inclusive, or null
+	 * for no lower bound.
+	 * @param maxVersion the latest version to return, inclusive, or null for
+	 * no upper bound.
+	 * @param newestFirst true to return versions from newest to oldest,
+	 * false to return them from oldest to newest.
+	 * @param limit the maximum number of versions to return. Less than 1 for
+	 * no limit.
+	 * @return information about the versions in the requested order. The
+	 * list is empty if no versions are in the requested range.
+	 * @throws NoSuchObjectException if the object does not exist or is
+	 * deleted.
+	 * @throws WorkspaceCommunicationException if a communication exception
+	 * occurs.
+	 */
+	public List<ObjectInformation> getObjectHistory(
+			ObjectIDResolvedWS objectID,
+			Integer minVersion,
+			Integer maxVersion,
+			boolean newestFirst,
+			int limit)
+			throws NoSuchObjectException, WorkspaceCommunicationException;
+
 	public Set<WorkspaceUser> getAllWorkspaceOwners()
 			throws WorkspaceCommunicationException;
 	
@@ -5,6 +5,8 @@ import java.util.Map;
 import java.util.HashMap;
 
 import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
 
 /** A package containing (optionally) a workspace object's data along with provenance and
  * information about the object.
@@ -17,7 +19,7 @@ public class WorkspaceObjectData {
 	
 	private final ByteArrayFileCache data;
 	private final ObjectInformation info;
-	private final Provenance prov;
+	private final ProvenanceSource prov;
 	private final List<String> references;
 	private Reference copied;
 	private boolean isCopySourceInaccessible = false;
@@ -36,17 +38,24 @@ public class WorkspaceObjectData {
 			final List<String> references,
 			final Reference copied,
 			final Map<String, List<String>> extIDs) {
-		if (info == null || prov == null || references == null) {
-			throw new IllegalArgumentException(
-					"references, prov and info cannot be null");
-		}
-		this.info = info;
-		this.prov = prov;
-		this.references = references;
-		this.copied = copied;
-		this.extIDs = extIDs == null ? new HashMap<String, List<String>>() :
-			extIDs;
-		this.data = null;
+		this(null, info, prov, references, copied, extIDs);
+	}
+	
+	/** Create a data package with only the provenance and other metadata,
+	 * where the provenance may be loaded when first requested.
+	 * @param info information about the object.
+	 * @param prov the source of the object's provenance.
+	 * @param references references to other workspace objects extracted from the object.
+	 * @param copied the source of the object if it was copied from another object. May be null.
+	 * @param extIDs any external IDs extracted from the object, mapped by the ID type.
+	 */
+	public WorkspaceObjectData(
+			final ObjectInformation info,
+			final ProvenanceSource prov,
+			final List<String> references,
+			final Reference copied,
+			final Map<String, List<String>> extIDs) {
+		this(null, info, prov, references, copied, extIDs);
 	}
 	
 	/** Create a data package.
@@ -64,6 +73,31 @@ public class WorkspaceObjectData {
 			final List<String> references,
 			final Reference copied,
 			final Map<String, List<String>> extIDs) {
+		this(data, info, prov == null ? null : new ProvenanceSource() {
+			
+			@Override
+			public Provenance getProvenance() {
+				return prov;
+			}
+		}, references, copied, extIDs);
+	}
+	
+	/** Create a data package where the provenance may be loaded when first
+	 * requested.
+	 * @param data the object data.
+	 * @param info information about the object.
+	 * @param prov the source of the object's provenance.
+	 * @param references references to other workspace objects extracted from the object.
+	 * @param copied the source of the object if it was copied from another object. May be null.
+	 * @param extIDs any external IDs extracted from the object, mapped by the ID type.
+	 */
+	public WorkspaceObjectData(
+			final ByteArrayFileCache data,
+			final ObjectInformation info,
+			final ProvenanceSource prov,
+			final List<String> references,
+			final Reference copied,
+			final Map<String, List<String>> extIDs) {
 		if (info == null || prov == null || references == null) {
 			throw new IllegalArgumentException(
 					"references, prov and info cannot be null");
@@ -83,11 +117,17 @@ public class WorkspaceObjectData {
 		return info;
 	}
 
-	/** Returns the object provenance.
+	/** Returns the object provenance, loading it from the backend if
+	 * necessary.
 	 * @return the object provenance.
+	 * @throws WorkspaceCommunicationException if a communication error occurs
+	 * while loading the provenance.
+	 * @throws CorruptWorkspaceDBException if the provenance is missing from
+	 * the workspace database.
 	 */
-	public Provenance getProvenance() {
-		return prov;
+	public Provenance getProvenance() throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
+		return prov.getProvenance();
 	}
 	
 	/** Returns any workspace references extracted from the object.
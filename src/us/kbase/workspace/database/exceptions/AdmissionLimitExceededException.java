@@ -0,0 +1,13 @@
+package us.kbase.workspace.database.exceptions;
+
+/** 
+ * Thrown when an operation is rejected because a user or the server has
+ * reached a limit on concurrent operations or data in flight. Unchecked, as
+ * any operation that does significant work may be rejected.
+ */
+public class AdmissionLimitExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public AdmissionLimitExceededException(String message) { super(message); }
+}
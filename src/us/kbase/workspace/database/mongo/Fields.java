@@ -61,6 +61,13 @@ public class Fields {
 	public static final String VER_COPIED = "copied";
 	//in 0.3.0, if missing assume no external IDs
 	public static final String VER_EXT_IDS = "extids";
+	//only present if the provenance document is shared with a version saved
+	//earlier, otherwise the date of the provenance document applies
+	public static final String VER_PROVDATE = "provdate";
+	
+	// provenance fields
+	//missing for provenance saved before provenance was deduplicated
+	public static final String PROV_HASH = "hash";
 	
 	// meta document key & value
 	public static final String META_KEY = "k";
@@ -83,6 +90,18 @@ public class Fields {
 	// since 0.2.0, if missing assume false
 	public static final String GFS_SORTED = "sorted";
 	
+	// file blob store fields
+	public static final String FILE_CHKSUM = "chksum";
+	public static final String FILE_SORTED = "sorted";
+	public static final String FILE_SIZE = "size";
+	
+	// tiered blob store access fields
+	public static final String TIER_CHKSUM = "chksum";
+	public static final String TIER_TIER = "tier";
+	public static final String TIER_LAST = "last";
+	public static final String TIER_READS = "reads";
+	public static final String TIER_MOVING = "moving";
+	
 	// admin fields
 	public static final String ADMIN_NAME = "user";
 	
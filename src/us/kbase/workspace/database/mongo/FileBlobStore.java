@@ -0,0 +1,276 @@
+package us.kbase.workspace.database.mongo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.LoggerFactory;
+
+import us.kbase.typedobj.core.MD5;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.DependencyStatus;
+import us.kbase.workspace.database.exceptions.FileCacheIOException;
+import us.kbase.workspace.database.exceptions.FileCacheLimitExceededException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreException;
+import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/** A blob store that keeps blobs as files in a directory tree on a local or
+ * network filesystem.
+ *
+ * Blobs are stored under two levels of subdirectories named after the first
+ * four characters of the blob's MD5, e.g. ab/cd/abcdef..., so that no
+ * single directory grows too large. Blobs are first written to a temporary
+ * directory under the root and then moved into place, so a partially
+ * written blob is never visible. The sorted flag for each blob is kept in a
+ * mongo collection, which also serves as the record of which blobs are
+ * completely saved.
+ *
+ * Blobs may optionally be gzip compressed, which trades CPU for disk space
+ * and is intended for rarely read data (see {@link TieredBlobStore}).
+ */
+public class FileBlobStore implements BlobStore {
+
+	public static final String TEMP_DIR = "tmp";
+	public static final String GZIP_EXT = ".gz";
+
+	private static final String IDX_UNIQ = "unique";
+
+	private final DBCollection mongoCol;
+	private final File root;
+	private final File tempDir;
+	private final boolean compress;
+
+	/** Create a filesystem blob store that stores blobs uncompressed.
+	 * @param mongoCollection the collection in which to store the blob
+	 * index.
+	 * @param root the root directory of the blob store. Will be created if
+	 * it does not exist.
+	 * @throws BlobStoreException if the root directory cannot be created or
+	 * is not writable.
+	 */
+	public FileBlobStore(
+			final DBCollection mongoCollection,
+			final File root)
+			throws BlobStoreException {
+		this(mongoCollection, root, false);
+	}
+
+	/** Create a filesystem blob store.
+	 * @param mongoCollection the collection in which to store the blob
+	 * index.
+	 * @param root the root directory of the blob store. Will be created if
+	 * it does not exist.
+	 * @param compress true to gzip compress blobs.
+	 * @throws BlobStoreException if the root directory cannot be created or
+	 * is not writable.
+	 */
+	public FileBlobStore(
+			final DBCollection mongoCollection,
+			final File root,
+			final boolean compress)
+			throws BlobStoreException {
+		if (mongoCollection == null || root == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		this.mongoCol = mongoCollection;
+		this.root = root;
+		this.compress = compress;
+		tempDir = new File(root, TEMP_DIR);
+		tempDir.mkdirs();
+		if (!tempDir.isDirectory() || !tempDir.canWrite()) {
+			throw new BlobStoreException(
+					"Cannot write to the blob store directory " + root);
+		}
+		final DBObject dbo = new BasicDBObject();
+		dbo.put(Fields.FILE_CHKSUM, 1);
+		final DBObject opts = new BasicDBObject();
+		opts.put(IDX_UNIQ, 1);
+		mongoCol.createIndex(dbo, opts);
+	}
+
+	/** Get the file in which a blob is or would be stored.
+	 * @param md5 the MD5 of the blob.
+	 * @return the blob's file.
+	 */
+	public File getFile(final MD5 md5) {
+		final String m = md5.getMD5();
+		return new File(new File(new File(root, m.substring(0, 2)),
+				m.substring(2, 4)), compress ? m + GZIP_EXT : m);
+	}
+
+	@Override
+	public void saveBlob(final MD5 md5, final InputStream data,
+			final boolean sorted)
+			throws BlobStoreCommunicationException {
+		if (md5 == null || data == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		final File target = getFile(md5);
+		try {
+			getBlobEntry(md5);
+			if (target.isFile()) {
+				return; //already saved
+			}
+		} catch (NoSuchBlobException nb) {
+			//go ahead, need to save
+		}
+		final File temp = new File(tempDir, UUID.randomUUID().toString());
+		try {
+			try {
+				if (compress) {
+					try (final OutputStream os = new GZIPOutputStream(
+							new BufferedOutputStream(
+									new FileOutputStream(temp)))) {
+						IOUtils.copy(data, os);
+					}
+				} else {
+					Files.copy(data, temp.toPath());
+				}
+				target.getParentFile().mkdirs();
+				try {
+					Files.move(temp.toPath(), target.toPath(),
+							StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					// the temp dir is always under the root dir, so this
+					// should only happen on unusual network filesystems
+					Files.move(temp.toPath(), target.toPath(),
+							StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				temp.delete();
+			}
+		} catch (IOException ioe) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the blob store directory: " +
+					ioe.getLocalizedMessage(), ioe);
+		}
+		final DBObject dbo = new BasicDBObject();
+		dbo.put(Fields.FILE_CHKSUM, md5.getMD5());
+		dbo.put(Fields.FILE_SORTED, sorted);
+		dbo.put(Fields.FILE_SIZE, target.length());
+		final DBObject query = new BasicDBObject();
+		query.put(Fields.FILE_CHKSUM, md5.getMD5());
+		try {
+			//possible that this was inserted just prior to saving the object
+			//so do update vs. insert since the data must be the same
+			mongoCol.update(query, dbo, true, false);
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the mongo database", me);
+		}
+	}
+
+	private DBObject getBlobEntry(final MD5 md5)
+			throws BlobStoreCommunicationException, NoSuchBlobException {
+		final DBObject query = new BasicDBObject();
+		query.put(Fields.FILE_CHKSUM, md5.getMD5());
+		final DBObject ret;
+		try {
+			ret = mongoCol.findOne(query);
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		if (ret == null) {
+			throw new NoSuchBlobException("No blob saved with chksum "
+					+ md5.getMD5());
+		}
+		return ret;
+	}
+
+	@Override
+	public ByteArrayFileCache getBlob(final MD5 md5,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreCommunicationException, NoSuchBlobException,
+			FileCacheLimitExceededException, FileCacheIOException {
+		final DBObject entry = getBlobEntry(md5);
+		final File f = getFile(md5);
+		if (!f.isFile()) {
+			throw new NoSuchBlobException(String.format(
+					"The blob with chksum %s is missing from the blob store " +
+					"directory", md5.getMD5()));
+		}
+		final boolean sorted;
+		if (!entry.containsField(Fields.FILE_SORTED)) {
+			sorted = false;
+		} else {
+			sorted = (Boolean) entry.get(Fields.FILE_SORTED);
+		}
+		if (!compress) {
+			return bafcMan.createBAFC(f, true, sorted);
+		}
+		try (final InputStream is = new GZIPInputStream(
+				new BufferedInputStream(new FileInputStream(f)))) {
+			return bafcMan.createBAFC(is, true, sorted);
+		} catch (IOException ioe) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the blob store directory: " +
+					ioe.getLocalizedMessage(), ioe);
+		}
+	}
+
+	@Override
+	public void removeBlob(final MD5 md5)
+			throws BlobStoreCommunicationException {
+		final DBObject query = new BasicDBObject();
+		query.put(Fields.FILE_CHKSUM, md5.getMD5());
+		try {
+			mongoCol.remove(query);
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the mongo database", me);
+		}
+		final File f = getFile(md5);
+		if (f.exists() && !f.delete()) {
+			throw new BlobStoreCommunicationException(
+					"Could not delete blob file " + f);
+		}
+	}
+
+	@Override
+	public String getExternalIdentifier(final MD5 md5) {
+		return null;
+	}
+
+	@Override
+	public String getStoreType() {
+		return "File";
+	}
+
+	@Override
+	public List<DependencyStatus> status() {
+		final File f;
+		try {
+			f = File.createTempFile("status", ".tmp", tempDir);
+		} catch (IOException e) {
+			LoggerFactory.getLogger(getClass())
+				.error("Failed to write to the blob store directory", e);
+			return Arrays.asList(new DependencyStatus(false,
+					"Cannot write to the blob store directory: " +
+					e.getMessage(), "File", "N/A"));
+		}
+		f.delete();
+		return Arrays.asList(new DependencyStatus(true, "OK", "File", "N/A"));
+	}
+}
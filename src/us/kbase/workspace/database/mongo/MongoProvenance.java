@@ -1,17 +1,35 @@
 package us.kbase.workspace.database.mongo;
 
+import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.bson.types.ObjectId;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import us.kbase.workspace.database.Provenance;
 
 public class MongoProvenance extends Provenance {
 	
+	// serializes the fields of the provenance classes in a stable order
+	private static final ObjectMapper HASH_MAPPER = new ObjectMapper()
+			.setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+			.setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+			.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+	
 	private ObjectId _id;
+	private String hash; // see Fields.PROV_HASH
 	
 	MongoProvenance(final Provenance p) {
 		super(p.getUser());
@@ -19,9 +37,41 @@ public class MongoProvenance extends Provenance {
 		for (final Provenance.ProvenanceAction pa: p.getActions()) {
 			addAction(pa);
 		}
+		hash = calculateHash();
+	}
+	
+	private MongoProvenance(final MongoProvenance p) {
+		super(p);
+		_id = p._id;
+		hash = p.hash;
 	}
 	
-	void resolveReferences(final List<String> resolvedRefs) {
+	/* The hash covers everything but the date, which is the time the
+	 * provenance was saved rather than part of its content.
+	 */
+	private String calculateHash() {
+		final Map<String, Object> content = new HashMap<String, Object>();
+		content.put("user", getUser().getUser());
+		content.put("wsid", getWorkspaceID());
+		content.put("actions", actions);
+		try {
+			return DigestUtils.md5Hex(HASH_MAPPER.writeValueAsBytes(content));
+		} catch (JsonProcessingException e) {
+			// the provenance has already been serialized to check its size
+			throw new RuntimeException(
+					"Something is very broken: " + e.getMessage(), e);
+		}
+	}
+	
+	/* Returns a copy of this provenance with the references resolved. This
+	 * instance is not modified, so it may be cached and shared between
+	 * object versions.
+	 * @param date the date the version was saved if this provenance was
+	 * saved with an earlier version, or null.
+	 */
+	MongoProvenance resolveReferences(
+			final List<String> resolvedRefs,
+			final Date date) {
 		final List<String> refs = new LinkedList<String>();
 		for (final String s: resolvedRefs) {//stupid LazyBSONLists
 			refs.add(s);
@@ -36,7 +86,12 @@ public class MongoProvenance extends Provenance {
 			actions.add(new MongoProvenanceAction(pa)
 					.withResolvedObjects(actionRefs));
 		}
-		this.actions = actions;
+		final MongoProvenance ret = new MongoProvenance(this);
+		ret.actions = actions;
+		if (date != null) {
+			ret.setDate(date);
+		}
+		return ret;
 	}
 	
 	@SuppressWarnings("unused")
@@ -46,6 +101,13 @@ public class MongoProvenance extends Provenance {
 		return _id;
 	}
 	
+	/* A hash of the content of the provenance. Null for provenance saved
+	 * before provenance was deduplicated.
+	 */
+	String getHash() {
+		return hash;
+	}
+	
 	static class MongoProvenanceAction extends Provenance.ProvenanceAction {
 
 		MongoProvenanceAction(final ProvenanceAction pa) {
@@ -2,6 +2,10 @@ package us.kbase.workspace.database.mongo;
 
 import static us.kbase.workspace.database.mongo.ObjectInfoUtils.metaMongoArrayToHash;
 import static us.kbase.workspace.database.mongo.ObjectInfoUtils.metaHashToMongoArray;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.GET_BLOB_FETCH;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.GET_QUERY;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.GET_SUBSET;
+import static us.kbase.workspace.metrics.WorkspaceMetrics.phaseDone;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -16,8 +20,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Pattern;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
@@ -25,7 +29,6 @@ import org.jongo.FindAndModify;
 import org.jongo.Jongo;
 import org.slf4j.LoggerFactory;
 
-import us.kbase.common.utils.Counter;
 import us.kbase.common.utils.CountingOutputStream;
 import us.kbase.typedobj.core.AbsoluteTypeDefId;
 import us.kbase.typedobj.core.ExtractedMetadata;
@@ -49,6 +52,7 @@ import us.kbase.workspace.database.ObjectIDResolvedWS;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.PermissionSet;
+import us.kbase.workspace.database.ProvenanceSource;
 import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedSaveObject;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
@@ -73,14 +77,20 @@ import us.kbase.workspace.database.exceptions.NoSuchWorkspaceException;
 import us.kbase.workspace.database.exceptions.PreExistingWorkspaceException;
 import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
 import us.kbase.workspace.database.exceptions.WorkspaceDBInitializationException;
+import us.kbase.workspace.database.mongo.ProvenanceLoader.CachedProvenance;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationException;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
 import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.CommandResult;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.DuplicateKeyException;
@@ -102,11 +112,19 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 
 	//TODO CONFIG this should really be configurable
 	private static final long MAX_PROV_SIZE = 1000000;
+	//typical provenance is a few KB, but may be up to MAX_PROV_SIZE
+	private static final long DEFAULT_PROV_CACHE_BYTES = 50 * 1024 * 1024;
 	private static final int SCHEMA_VERSION = 1;
 	
 	private ResourceUsageConfiguration rescfg;
+	private boolean dedupProvAcrossSaves = false;
 	private final DB wsmongo;
 	private final Jongo wsjongo;
+	/* provenance documents are never modified once written, so they can be
+	 * cached indefinitely. The size is the total BSON size of the documents.
+	 */
+	private volatile Cache<ObjectId, CachedProvenance> provCache =
+			ProvenanceLoader.buildCache(DEFAULT_PROV_CACHE_BYTES);
 	private final BlobStore blob;
 	private final QueryMethods query;
 	private final ObjectInfoUtils objutils;
@@ -139,6 +157,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsACL.put(Arrays.asList(Fields.ACL_WSID, Fields.ACL_USER, Fields.ACL_PERM), Arrays.asList(IDX_UNIQ));
 		//find workspaces to which a user has some level of permission, index coves queries
 		wsACL.put(Arrays.asList(Fields.ACL_USER, Fields.ACL_PERM, Fields.ACL_WSID), Arrays.asList(""));
+		//page through workspaces to which a user has some level of permission in id order
+		wsACL.put(Arrays.asList(Fields.ACL_USER, Fields.ACL_WSID, Fields.ACL_PERM), Arrays.asList(""));
 		INDEXES.put(COL_WS_ACLS, wsACL);
 		
 		//workspace object indexes
@@ -151,6 +171,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsObj.put(Arrays.asList(Fields.OBJ_MODDATE), Arrays.asList(""));
 		//find object to garbage collect
 		wsObj.put(Arrays.asList(Fields.OBJ_DEL, Fields.OBJ_REFCOUNTS), Arrays.asList(""));
+		//find object names by prefix, index covers queries
+		wsObj.put(NamePrefixSearch.INDEX, Arrays.asList(""));
 		INDEXES.put(COL_WORKSPACE_OBJS, wsObj);
 
 		//workspace object version indexes
@@ -172,7 +194,11 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsVer.put(Arrays.asList(Fields.VER_META), Arrays.asList(IDX_SPARSE));
 		INDEXES.put(COL_WORKSPACE_VERS, wsVer);
 		
-		//no indexes needed for provenance since all lookups are by _id
+		//provenance indexes
+		Map<List<String>, List<String>> prov = new HashMap<List<String>, List<String>>();
+		//find provenance with the same content
+		prov.put(Arrays.asList(Fields.PROV_HASH), Arrays.asList(IDX_SPARSE));
+		INDEXES.put(COL_PROVENANCE, prov);
 		
 		//admin indexes
 		Map<List<String>, List<String>> admin = new HashMap<List<String>, List<String>>();
@@ -242,6 +268,34 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return tfm;
 	}
 	
+	/** Set whether a new object version reuses provenance with identical
+	 * content saved with an earlier version. Provenance is always shared
+	 * between the objects saved in a single call. Reusing provenance across
+	 * calls costs an extra query per save. Defaults to false.
+	 * @param dedup true to reuse provenance saved with earlier versions.
+	 */
+	public void setProvenanceDedupAcrossSaves(final boolean dedup) {
+		dedupProvAcrossSaves = dedup;
+	}
+	
+	/** Set the maximum total size of the provenance documents cached in
+	 * memory, measured as the size of the documents in the database. The
+	 * deserialized documents take several times as much memory. Replaces the
+	 * current cache, discarding its contents. Defaults to 50MB.
+	 * @param bytes the maximum size of the cache in bytes. 0 disables the
+	 * cache.
+	 */
+	public void setProvenanceCacheSize(final long bytes) {
+		provCache = ProvenanceLoader.buildCache(bytes);
+	}
+	
+	/** Get the profiler that records the queries made by this database.
+	 * @return the query profiler.
+	 */
+	public QueryProfiler getQueryProfiler() {
+		return query.getProfiler();
+	}
+	
 	private void checkConfig() throws WorkspaceCommunicationException,
 			WorkspaceDBInitializationException, CorruptWorkspaceDBException {
 		final DBObject cfg = new BasicDBObject(
@@ -336,6 +390,29 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 	}
 
+	private void updateWorkspaceModifiedDates(
+			final Collection<ResolvedMongoWSID> rwsis)
+			throws WorkspaceCommunicationException {
+		if (rwsis.isEmpty()) {
+			return;
+		}
+		final List<Long> ids = new ArrayList<Long>();
+		for (final ResolvedMongoWSID rwsi: rwsis) {
+			ids.add(rwsi.getID());
+		}
+		try {
+			wsmongo.getCollection(COL_WORKSPACES).update(
+					new BasicDBObject(Fields.WS_ID,
+							new BasicDBObject("$in", ids)),
+					new BasicDBObject("$set", new BasicDBObject(
+							Fields.WS_MODDATE, new Date())),
+					false, true);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
 	private static final Set<String> FLDS_CREATE_WS =
 			newHashSet(Fields.WS_DEL, Fields.WS_OWNER);
 	
@@ -555,10 +632,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 	}
 	
-	private static final Set<String> FLDS_CLONE_WS =
-			newHashSet(Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL,
-					Fields.OBJ_HIDE);
-	
 	@Override
 	public WorkspaceInformation cloneWorkspace(
 			final WorkspaceUser user,
@@ -582,58 +655,12 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				user, newname, globalRead, description, meta, true);
 		final ResolvedMongoWSID toWS = new ResolvedMongoWSID(wsinfo.getName(),
 				wsinfo.getId(), wsinfo.isLocked(), false); //assume it's not deleted already
-		final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, fromWS.getID());
-		//skip any objects with no versions, likely a race condition
-		//or worse the db went down post version increment pre version save
-		//need to move to transactional backend or relationless schema
-		q.put(Fields.OBJ_VCNT, new BasicDBObject("$gt", 0));
-		q.put(Fields.OBJ_DEL, false);
-		addExcludedToCloneQuery(fromWS, resexclude, q);
-		final DBObject hint = new BasicDBObject(Fields.OBJ_WS_ID, 1);
-		hint.put(Fields.OBJ_ID, 1);
-		long maxid = 0;
-		try {
-			final DBCursor wsobjects = query.queryCollectionCursor(
-					COL_WORKSPACE_OBJS, q, FLDS_CLONE_WS, hint, -1);
-			for (final DBObject o: wsobjects) {
-				final long objid = (Long) o.get(Fields.OBJ_ID);
-				final String name = (String) o.get(Fields.OBJ_NAME);
-				final boolean hidden = (Boolean) o.get(Fields.OBJ_HIDE);
-				maxid = Math.max(maxid, objid);
-				final ResolvedMongoObjectIDNoVer roi =
-						new ResolvedMongoObjectIDNoVer(fromWS, name, objid);
-				final List<Map<String, Object>> versions;
-				try {
-					versions = queryAllVersions(
-							new HashSet<ResolvedMongoObjectIDNoVer>(
-									Arrays.asList(roi)),
-							FLDS_VER_COPYOBJ).get(roi);
-				} catch (NoSuchObjectException nsoe) {
-					/* The object was saved to the objects collections and the
-					 * version was incremented at least once. However, no
-					 * versions exist in the version collection. So either a
-					 * race condition or the system died before versions could
-					 * be saved, so skip it. Really need to move to a backend
-					 * with transactions or simplify the schema so it's
-					 * relationless.
-					 */
-					continue;
-				}
-				for (final Map<String, Object> v: versions) {
-					final int ver = (Integer) v.get(Fields.VER_VER);
-					v.remove(Fields.MONGO_ID);
-					v.put(Fields.VER_SAVEDBY, user.getUser());
-					v.put(Fields.VER_RVRT, null);
-					v.put(Fields.VER_COPIED, new Reference(fromWS.getID(), objid, ver).toString());
-				}
-				updateReferenceCountsForVersions(versions);
-				saveWorkspaceObject(toWS, objid, name);
-				saveObjectVersions(user, toWS, objid, versions, hidden);
-			}
-		} catch (MongoException me) {
-			throw new WorkspaceCommunicationException(
-					"There was a problem communicating with the database", me);
+		final Set<Long> excludeids = new HashSet<Long>();
+		for (final ResolvedMongoObjectID o: resexclude) {
+			excludeids.add(o.getId());
 		}
+		final long maxid = new WorkspaceCloner(wsmongo, FLDS_VER_COPYOBJ)
+				.cloneObjects(user, fromWS.getID(), toWS.getID(), excludeids);
 		if (maxid > 0) {
 			incrementWorkspaceCounter(toWS, maxid);
 		}
@@ -679,21 +706,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				new ResolvedMongoWSID(newname, id, false, false));
 	}
 
-	private void addExcludedToCloneQuery(
-			final ResolvedMongoWSID fromWS,
-			final Collection<ResolvedMongoObjectID> resexclude,
-			final DBObject q)
-			throws WorkspaceCommunicationException {
-		if (resexclude == null || resexclude.isEmpty()) {
-			return;
-		}
-		final Set<Long> excludeids = new HashSet<Long>();
-		for (final ResolvedMongoObjectID o: resexclude) {
-			excludeids.add(o.getId());
-		}
-		q.put(Fields.OBJ_ID, new BasicDBObject("$nin", excludeids));
-	}
-	
 	private final static String M_LOCK_WS_WTH = String.format("{$set: {%s: #}}",
 			Fields.WS_LOCKED);
 	
@@ -717,83 +729,289 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_VER,
 			Fields.VER_TYPE, Fields.VER_CHKSUM, Fields.VER_SIZE,
 			Fields.VER_PROV, Fields.VER_REF, Fields.VER_PROVREF,
-			Fields.VER_COPIED, Fields.VER_META, Fields.VER_EXT_IDS);
+			Fields.VER_COPIED, Fields.VER_META, Fields.VER_EXT_IDS,
+			Fields.VER_PROVDATE);
+	
+	private static final int COPY_BATCH_SIZE = 1000;
+	private static final int DUPLICATE_KEY_CODE = 11000;
 	
 	@Override
 	public ObjectInformation copyObject(final WorkspaceUser user,
 			final ObjectIDResolvedWS from, final ObjectIDResolvedWS to)
 			throws NoSuchObjectException, WorkspaceCommunicationException {
-		return copyOrRevert(user, from, to, false);
+		return copyObjects(user, Arrays.asList(from), Arrays.asList(to))
+				.get(0);
 	}
 	
+	/* The sources and destinations are resolved in bulk and the source
+	 * versions are fetched with at most two queries. New objects are
+	 * created with one workspace counter increment per workspace and batch
+	 * inserts, and the versions of all the copies are inserted in batches.
+	 * Copies to existing objects still need one update per object to
+	 * reserve their version numbers.
+	 */
 	@Override
-	public ObjectInformation revertObject(final WorkspaceUser user,
-			final ObjectIDResolvedWS oi)
+	public List<ObjectInformation> copyObjects(final WorkspaceUser user,
+			final List<ObjectIDResolvedWS> from,
+			final List<ObjectIDResolvedWS> to)
 			throws NoSuchObjectException, WorkspaceCommunicationException {
-		return copyOrRevert(user, oi, null, true);
-	}
+		if (from.size() != to.size()) {
+			throw new IllegalArgumentException(
+					"The number of copy sources and destinations must match");
+		}
+		final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> rfroms =
+				resolveObjectIDs(new HashSet<ObjectIDResolvedWS>(from));
+		final List<ObjectIDResolvedWS> toNoVer =
+				new ArrayList<ObjectIDResolvedWS>();
+		for (final ObjectIDResolvedWS t: to) {
+			toNoVer.add(t.getId() == null ?
+					new ObjectIDResolvedWS(t.getWorkspaceIdentifier(), t.getName()) :
+						new ObjectIDResolvedWS(t.getWorkspaceIdentifier(), t.getId()));
+		}
+		final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> rtos =
+				resolveObjectIDs(new HashSet<ObjectIDResolvedWS>(toNoVer),
+						false, true, false); //don't except if there's no object
+		final List<ResolvedMongoObjectID> rtoList =
+				new ArrayList<ResolvedMongoObjectID>();
+		final Set<String> dests = new HashSet<String>();
+		for (int i = 0; i < to.size(); i++) {
+			final ObjectIDResolvedWS t = to.get(i);
+			final ResolvedMongoObjectID rto = rtos.get(toNoVer.get(i));
+			if (rto == null && t.getId() != null) {
+				throw new NoSuchObjectException(String.format(
+						"Copy destination is specified as object id %s in workspace %s which does not exist.",
+						t.getId(), t.getWorkspaceIdentifier().getID()), t);
+			}
+			if (!dests.add(t.getWorkspaceIdentifier().getID() + " " +
+					(rto == null ? t.getName() : rto.getId()))) {
+				throw new IllegalArgumentException(String.format(
+						"Copy #%s has the same destination as an earlier copy",
+						i + 1));
+			}
+			rtoList.add(rto);
+		}
+		final List<List<Map<String, Object>>> copies =
+				getVersionsToCopy(user, from, rfroms, rtoList);
 		
-	private ObjectInformation copyOrRevert(final WorkspaceUser user,
-			final ObjectIDResolvedWS from, ObjectIDResolvedWS to,
-			final boolean revert)
-			throws NoSuchObjectException, WorkspaceCommunicationException {
-		final ResolvedMongoObjectID rfrom = resolveObjectIDs(
-				new HashSet<ObjectIDResolvedWS>(Arrays.asList(from))).get(from);
-		final ResolvedMongoObjectID rto;
-		if (revert) {
-			to = from;
-			rto = rfrom;
-		} else {
-			final ObjectIDResolvedWS toNoVer = to.getId() == null ?
-					new ObjectIDResolvedWS(to.getWorkspaceIdentifier(), to.getName()) :
-						new ObjectIDResolvedWS(to.getWorkspaceIdentifier(), to.getId());
-			rto = resolveObjectIDs(new HashSet<ObjectIDResolvedWS>(Arrays.asList(toNoVer)),
-					false, true, false).get(toNoVer); //don't except if there's no object
+		final Map<ResolvedMongoWSID, Long> newObjects =
+				new HashMap<ResolvedMongoWSID, Long>();
+		final List<ResolvedMongoWSID> toWS = new ArrayList<ResolvedMongoWSID>();
+		for (int i = 0; i < to.size(); i++) {
+			final ResolvedMongoWSID ws = query.convertResolvedWSID(
+					to.get(i).getWorkspaceIdentifier());
+			toWS.add(ws);
+			if (rtoList.get(i) == null) {
+				newObjects.put(ws, newObjects.containsKey(ws) ?
+						newObjects.get(ws) + 1 : 1);
+			}
 		}
-		if (rto == null && to.getId() != null) {
-			throw new NoSuchObjectException(String.format(
-					"Copy destination is specified as object id %s in workspace %s which does not exist.",
-					to.getId(), to.getWorkspaceIdentifier().getID()), to);
-		}
-		final List<Map<String, Object>> versions;
-		if (rto == null && from.getVersion() == null) {
-			final ResolvedMongoObjectIDNoVer o =
-					new ResolvedMongoObjectIDNoVer(rfrom);
-			versions = queryAllVersions(
-					new HashSet<ResolvedMongoObjectIDNoVer>(Arrays.asList(o)),
-					FLDS_VER_COPYOBJ).get(o);
-		} else {
-			versions = Arrays.asList(queryVersions(
-					new HashSet<ResolvedMongoObjectID>(Arrays.asList(rfrom)),
-					FLDS_VER_COPYOBJ, false).get(rfrom));
+		final Map<ResolvedMongoWSID, Long> nextID =
+				new HashMap<ResolvedMongoWSID, Long>();
+		for (final ResolvedMongoWSID ws: newObjects.keySet()) {
+			nextID.put(ws, incrementWorkspaceCounter(ws, newObjects.get(ws)));
 		}
-		for (final Map<String, Object> v: versions) {
-			int ver = (Integer) v.get(Fields.VER_VER);
-			v.remove(Fields.MONGO_ID);
-			v.put(Fields.VER_SAVEDBY, user.getUser());
-			if (revert) {
-				v.put(Fields.VER_RVRT, ver);
+		final Date saved = new Date();
+		final List<IDName> objs = new ArrayList<IDName>();
+		final Map<Integer, DBObject> containers =
+				new HashMap<Integer, DBObject>();
+		for (int i = 0; i < to.size(); i++) {
+			final ResolvedMongoObjectID rto = rtoList.get(i);
+			if (rto != null) {
+				objs.add(new IDName(rto.getId(), rto.getName()));
+				continue;
+			}
+			final ResolvedMongoWSID ws = toWS.get(i);
+			final long id = nextID.get(ws);
+			nextID.put(ws, id + 1);
+			objs.add(new IDName(id, to.get(i).getName()));
+			final List<Integer> zeros = new LinkedList<Integer>();
+			for (int j = 0; j < copies.get(i).size(); j++) {
+				zeros.add(0);
+			}
+			final DBObject dbo = new BasicDBObject();
+			dbo.put(Fields.OBJ_WS_ID, ws.getID());
+			dbo.put(Fields.OBJ_ID, id);
+			dbo.put(Fields.OBJ_VCNT, copies.get(i).size());
+			dbo.put(Fields.OBJ_REFCOUNTS, zeros);
+			dbo.put(Fields.OBJ_NAME, to.get(i).getName());
+			dbo.put(Fields.OBJ_LATEST, null);
+			dbo.put(Fields.OBJ_DEL, false);
+			dbo.put(Fields.OBJ_HIDE, false);
+			dbo.put(Fields.OBJ_MODDATE, saved);
+			containers.put(i, dbo);
+		}
+		final Set<Integer> created = insertObjectContainers(containers);
+		
+		final List<DBObject> vers = new LinkedList<DBObject>();
+		final List<ObjectInformation> ret = new ArrayList<ObjectInformation>();
+		for (int i = 0; i < to.size(); i++) {
+			final ResolvedMongoWSID ws = toWS.get(i);
+			final List<Map<String, Object>> versions = copies.get(i);
+			IDName obj = objs.get(i);
+			final int ver;
+			if (created.contains(i)) {
+				ver = 1;
 			} else {
+				if (containers.containsKey(i)) {
+					// someone saved an object with the same name since the
+					// destination was resolved
+					obj = saveWorkspaceObject(ws, obj.id, obj.name);
+				}
+				ver = incrementObjectVersions(ws, obj.id, versions.size(),
+						null, saved);
+			}
+			vers.addAll(toVersionDocuments(ws, obj.id, versions, ver, saved));
+			if (vers.size() >= COPY_BATCH_SIZE) {
+				insertVersions(vers);
+				vers.clear();
+			}
+			ret.add(ObjectInfoUtils.generateObjectInfo(ws, obj.id, obj.name,
+					versions.get(versions.size() - 1)));
+		}
+		insertVersions(vers);
+		updateWorkspaceModifiedDates(new HashSet<ResolvedMongoWSID>(toWS));
+		return ret;
+	}
+	
+	/* Fetches the versions to copy for each copy, marks them as copies by
+	 * the user, and counts the references from the copies.
+	 */
+	private List<List<Map<String, Object>>> getVersionsToCopy(
+			final WorkspaceUser user,
+			final List<ObjectIDResolvedWS> from,
+			final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> rfroms,
+			final List<ResolvedMongoObjectID> rtos)
+			throws WorkspaceCommunicationException, NoSuchObjectException {
+		final HashSet<ResolvedMongoObjectIDNoVer> allVers =
+				new HashSet<ResolvedMongoObjectIDNoVer>();
+		final Set<ResolvedMongoObjectID> oneVer =
+				new HashSet<ResolvedMongoObjectID>();
+		for (int i = 0; i < from.size(); i++) {
+			final ResolvedMongoObjectID rfrom = rfroms.get(from.get(i));
+			if (rtos.get(i) == null && from.get(i).getVersion() == null) {
+				allVers.add(new ResolvedMongoObjectIDNoVer(rfrom));
+			} else {
+				oneVer.add(rfrom);
+			}
+		}
+		final Map<ResolvedMongoObjectIDNoVer, List<Map<String, Object>>> all =
+				allVers.isEmpty() ?
+				new HashMap<ResolvedMongoObjectIDNoVer, List<Map<String, Object>>>() :
+				queryAllVersions(allVers, FLDS_VER_COPYOBJ);
+		final Map<ResolvedMongoObjectID, Map<String, Object>> one =
+				oneVer.isEmpty() ?
+				new HashMap<ResolvedMongoObjectID, Map<String, Object>>() :
+				queryVersions(oneVer, FLDS_VER_COPYOBJ, false);
+		final ReferenceCounter refcnt = newReferenceCounter();
+		final List<List<Map<String, Object>>> ret =
+				new ArrayList<List<Map<String, Object>>>();
+		for (int i = 0; i < from.size(); i++) {
+			final ResolvedMongoObjectID rfrom = rfroms.get(from.get(i));
+			final List<Map<String, Object>> source;
+			if (rtos.get(i) == null && from.get(i).getVersion() == null) {
+				source = all.get(new ResolvedMongoObjectIDNoVer(rfrom));
+			} else {
+				source = Arrays.asList(one.get(rfrom));
+			}
+			// the same source may be copied more than once
+			final List<Map<String, Object>> versions =
+					new LinkedList<Map<String, Object>>();
+			for (final Map<String, Object> s: source) {
+				final Map<String, Object> v = new HashMap<String, Object>(s);
+				final int ver = (Integer) v.get(Fields.VER_VER);
+				v.remove(Fields.MONGO_ID);
+				v.put(Fields.VER_SAVEDBY, user.getUser());
 				v.put(Fields.VER_RVRT, null);
 				v.put(Fields.VER_COPIED, new Reference(
-						rfrom.getWorkspaceIdentifier().getID(), rfrom.getId(), ver).toString());
+						rfrom.getWorkspaceIdentifier().getID(), rfrom.getId(),
+						ver).toString());
+				versions.add(v);
 			}
+			countReferencesForVersions(refcnt, versions);
+			ret.add(versions);
 		}
-		updateReferenceCountsForVersions(versions);
-		final ResolvedMongoWSID toWS = query.convertResolvedWSID(
-				to.getWorkspaceIdentifier());
-		final long objid;
-		if (rto == null) { //need to make a new object
-			final long id = incrementWorkspaceCounter(toWS, 1);
-			objid = saveWorkspaceObject(toWS, id, to.getName()).id;
-		} else {
-			objid = rto.getId();
+		refcnt.flush();
+		return ret;
+	}
+	
+	/* Inserts new object containers with unordered bulk inserts. Returns the
+	 * keys of the containers that were inserted. Containers that weren't
+	 * inserted because another object with the same name was saved
+	 * concurrently are omitted.
+	 */
+	private Set<Integer> insertObjectContainers(
+			final Map<Integer, DBObject> containers)
+			throws WorkspaceCommunicationException {
+		final Set<Integer> ret = new HashSet<Integer>(containers.keySet());
+		final DBCollection objCol = wsmongo.getCollection(COL_WORKSPACE_OBJS);
+		final List<Integer> keys = new ArrayList<Integer>(containers.keySet());
+		for (int start = 0; start < keys.size(); start += COPY_BATCH_SIZE) {
+			final List<Integer> batch = keys.subList(start,
+					Math.min(start + COPY_BATCH_SIZE, keys.size()));
+			final BulkWriteOperation bulk =
+					objCol.initializeUnorderedBulkOperation();
+			for (final Integer k: batch) {
+				bulk.insert(containers.get(k));
+			}
+			try {
+				bulk.execute();
+			} catch (BulkWriteException bwe) {
+				if (bwe.getWriteConcernError() != null) {
+					throw new WorkspaceCommunicationException(
+							"There was a problem communicating with the database",
+							bwe);
+				}
+				for (final BulkWriteError err: bwe.getWriteErrors()) {
+					if (err.getCode() != DUPLICATE_KEY_CODE) {
+						throw new WorkspaceCommunicationException(
+								"There was a problem communicating with the database",
+								bwe);
+					}
+					ret.remove(batch.get(err.getIndex()));
+				}
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+		}
+		return ret;
+	}
+	
+	private void insertVersions(final List<DBObject> versions)
+			throws WorkspaceCommunicationException {
+		if (versions.isEmpty()) {
+			return;
+		}
+		try {
+			wsmongo.getCollection(COL_WORKSPACE_VERS).insert(versions);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
 		}
-		saveObjectVersions(user, toWS, objid, versions, null);
-		final Map<String, Object> info = versions.get(versions.size() - 1);
-		updateWorkspaceModifiedDate(toWS);
-		return ObjectInfoUtils.generateObjectInfo(toWS, objid,
-				rto == null ? to.getName() : rto.getName(), info);
+	}
+	
+	@Override
+	public ObjectInformation revertObject(final WorkspaceUser user,
+			final ObjectIDResolvedWS oi)
+			throws NoSuchObjectException, WorkspaceCommunicationException {
+		final ResolvedMongoObjectID roi = resolveObjectIDs(
+				new HashSet<ObjectIDResolvedWS>(Arrays.asList(oi))).get(oi);
+		final Map<String, Object> v = queryVersions(
+				new HashSet<ResolvedMongoObjectID>(Arrays.asList(roi)),
+				FLDS_VER_COPYOBJ, false).get(roi);
+		final List<Map<String, Object>> versions = Arrays.asList(v);
+		v.remove(Fields.MONGO_ID);
+		v.put(Fields.VER_SAVEDBY, user.getUser());
+		v.put(Fields.VER_RVRT, (Integer) v.get(Fields.VER_VER));
+		final ReferenceCounter refcnt = newReferenceCounter();
+		countReferencesForVersions(refcnt, versions);
+		refcnt.flush();
+		final ResolvedMongoWSID ws = query.convertResolvedWSID(
+				oi.getWorkspaceIdentifier());
+		saveObjectVersions(user, ws, roi.getId(), versions, null);
+		updateWorkspaceModifiedDate(ws);
+		return ObjectInfoUtils.generateObjectInfo(ws, roi.getId(),
+				roi.getName(), v);
 	}
 	
 	final private static String M_RENAME_WS_WTH = String.format(
@@ -822,43 +1040,117 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return getWorkspaceInformation(user, rwsi);
 	}
 	
-	final private static String M_RENAME_OBJ_QRY = String.format(
-			"{%s: #, %s: #}", Fields.OBJ_WS_ID, Fields.OBJ_ID);
-	final private static String M_RENAME_OBJ_WTH = String.format(
-			"{$set: {%s: #, %s: #}}", Fields.OBJ_NAME, Fields.OBJ_MODDATE);
-	
 	@Override
 	public ObjectInformation renameObject(final ObjectIDResolvedWS oi,
 			final String newname)
 			throws NoSuchObjectException, WorkspaceCommunicationException {
-		Set<ObjectIDResolvedWS> input = new HashSet<ObjectIDResolvedWS>(
-				Arrays.asList(oi));
-		final ResolvedMongoObjectID roi = resolveObjectIDs(input).get(oi);
-		if (newname.equals(roi.getName())) {
-			throw new IllegalArgumentException("Object is already named " +
-					newname);
+		final Map<ObjectIDResolvedWS, String> names =
+				new HashMap<ObjectIDResolvedWS, String>();
+		names.put(oi, newname);
+		return renameObjects(names).get(oi);
+	}
+	
+	/* All the objects are resolved with one query and renamed with unordered
+	 * bulk writes, so the renames are not atomic - if a new name is already
+	 * in use some of the other objects may have been renamed when the
+	 * exception is thrown.
+	 */
+	@Override
+	public Map<ObjectIDResolvedWS, ObjectInformation> renameObjects(
+			final Map<ObjectIDResolvedWS, String> newnames)
+			throws NoSuchObjectException, WorkspaceCommunicationException {
+		final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> rois =
+				resolveObjectIDs(new HashSet<ObjectIDResolvedWS>(
+						newnames.keySet()));
+		final Map<ObjectIDResolvedWS, ObjectIDResolvedWS> latest =
+				new HashMap<ObjectIDResolvedWS, ObjectIDResolvedWS>();
+		final Map<ObjectIDResolvedWS, String> renames =
+				new HashMap<ObjectIDResolvedWS, String>();
+		final Set<String> targets = new HashSet<String>();
+		final Set<ResolvedMongoWSID> wsids = new HashSet<ResolvedMongoWSID>();
+		for (final ObjectIDResolvedWS oi: newnames.keySet()) {
+			final ResolvedMongoObjectID roi = rois.get(oi);
+			final String newname = newnames.get(oi);
+			if (newname.equals(roi.getName())) {
+				throw new IllegalArgumentException("Object is already named " +
+						newname);
+			}
+			final ObjectIDResolvedWS oid = new ObjectIDResolvedWS(
+					roi.getWorkspaceIdentifier(), roi.getId(), roi.getVersion());
+			final ObjectIDResolvedWS obj = new ObjectIDResolvedWS(
+					roi.getWorkspaceIdentifier(), roi.getId());
+			if (renames.containsKey(obj)) {
+				throw new IllegalArgumentException(String.format(
+						"Object %s in workspace %s cannot be renamed more than once",
+						roi.getId(), roi.getWorkspaceIdentifier().getID()));
+			}
+			if (!targets.add(roi.getWorkspaceIdentifier().getID() + " " +
+					newname)) {
+				throw new IllegalArgumentException(String.format(
+						"Multiple objects in workspace %s cannot be renamed to %s",
+						roi.getWorkspaceIdentifier().getID(), newname));
+			}
+			renames.put(obj, newname);
+			latest.put(oi, oid);
+			wsids.add(roi.getWorkspaceIdentifier());
 		}
 		try {
-			wsjongo.getCollection(COL_WORKSPACE_OBJS)
-					.update(M_RENAME_OBJ_QRY,
-							roi.getWorkspaceIdentifier().getID(), roi.getId())
-					.with(M_RENAME_OBJ_WTH, newname, new Date());
-		} catch (DuplicateKeyException medk) {
-			throw new IllegalArgumentException(
-					"There is already an object in the workspace named " +
-							newname);
-		} catch (MongoException me) {
-			throw new WorkspaceCommunicationException(
-					"There was a problem communicating with the database", me);
+			writeRenames(renames);
+		} finally {
+			updateWorkspaceModifiedDates(wsids);
+		}
+		final Map<ObjectIDResolvedWS, ObjectInformation> info =
+				getObjectInformation(
+						new HashSet<ObjectIDResolvedWS>(latest.values()),
+						false, true, false, true);
+		final Map<ObjectIDResolvedWS, ObjectInformation> ret =
+				new HashMap<ObjectIDResolvedWS, ObjectInformation>();
+		for (final ObjectIDResolvedWS oi: latest.keySet()) {
+			ret.put(oi, info.get(latest.get(oi)));
+		}
+		return ret;
+	}
+	
+	private void writeRenames(final Map<ObjectIDResolvedWS, String> renames)
+			throws WorkspaceCommunicationException {
+		final DBCollection objCol = wsmongo.getCollection(COL_WORKSPACE_OBJS);
+		final List<ObjectIDResolvedWS> objs =
+				new ArrayList<ObjectIDResolvedWS>(renames.keySet());
+		final Date moddate = new Date();
+		for (int start = 0; start < objs.size(); start += BULK_WRITE_SIZE) {
+			final List<ObjectIDResolvedWS> batch = objs.subList(start,
+					Math.min(start + BULK_WRITE_SIZE, objs.size()));
+			final BulkWriteOperation bulk =
+					objCol.initializeUnorderedBulkOperation();
+			for (final ObjectIDResolvedWS o: batch) {
+				final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID,
+						o.getWorkspaceIdentifier().getID());
+				q.put(Fields.OBJ_ID, o.getId());
+				final DBObject set = new BasicDBObject(
+						Fields.OBJ_NAME, renames.get(o));
+				set.put(Fields.OBJ_MODDATE, moddate);
+				bulk.find(q).updateOne(new BasicDBObject("$set", set));
+			}
+			try {
+				bulk.execute();
+			} catch (BulkWriteException bwe) {
+				if (bwe.getWriteConcernError() == null) {
+					for (final BulkWriteError err: bwe.getWriteErrors()) {
+						if (err.getCode() == DUPLICATE_KEY_CODE) {
+							throw new IllegalArgumentException(
+									"There is already an object in the workspace named " +
+									renames.get(batch.get(err.getIndex())));
+						}
+					}
+				}
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database",
+						bwe);
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
 		}
-		final ObjectIDResolvedWS oid = new ObjectIDResolvedWS(
-				roi.getWorkspaceIdentifier(), roi.getId(), roi.getVersion());
-		input = new HashSet<ObjectIDResolvedWS>(Arrays.asList(oid));
-		
-		final ObjectInformation oinf =
-				getObjectInformation(input, false, true, false, true).get(oid);
-		updateWorkspaceModifiedDate(roi.getWorkspaceIdentifier());
-		return oinf;
 	}
 	
 	//projection lists
@@ -1078,6 +1370,61 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return pset;
 	}
 	
+	@Override
+	public PermissionSet getPermissions(
+			final WorkspaceUser user,
+			final Permission perm,
+			final boolean excludeGlobalRead,
+			final long minWorkspaceID,
+			final int limit)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
+		if (perm == null || Permission.NONE.equals(perm)) {
+			throw new IllegalArgumentException(
+					"Permission cannot be null or NONE");
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be at least 1");
+		}
+		final boolean global = !excludeGlobalRead &&
+				perm.compareTo(Permission.WRITE) < 0;
+		// the user's and the global ACLs are each walked in id order, so the
+		// lowest ids of the union are among the first limit ids of each
+		final TreeSet<Long> ids = new TreeSet<Long>();
+		if (user != null) {
+			ids.addAll(query.queryPermittedWorkspaceIDs(
+					user, perm, minWorkspaceID, limit));
+		}
+		if (global) {
+			ids.addAll(query.queryPermittedWorkspaceIDs(
+					ALL_USERS, Permission.READ, minWorkspaceID, limit));
+		}
+		while (ids.size() > limit) {
+			ids.pollLast();
+		}
+		final MongoPermissionSet pset = new MongoPermissionSet(user, ALL_USERS);
+		if (ids.isEmpty()) {
+			return pset;
+		}
+		final Set<User> users = new HashSet<User>(Arrays.asList(ALL_USERS));
+		if (user != null) {
+			users.add(user);
+		}
+		final Map<ResolvedMongoWSID, Map<User, Permission>> perms =
+				query.queryPermissionsByID(ids, users);
+		for (final ResolvedMongoWSID rwsi: perms.keySet()) {
+			Permission gl = perms.get(rwsi).get(ALL_USERS);
+			gl = gl == null ? Permission.NONE : gl;
+			Permission p = user == null ? null : perms.get(rwsi).get(user);
+			p = p == null || p.compareTo(perm) < 0 ? Permission.NONE : p;
+			if (!p.equals(Permission.NONE) ||
+					(global && !gl.equals(Permission.NONE))) {
+				pset.setPermission(rwsi, p, gl);
+			}
+		}
+		return pset;
+	}
+	
 	private static String getWSErrorId(final WorkspaceIdentifier wsi) {
 		if (wsi.getId() == null) {
 			return "name " + wsi.getName();
@@ -1385,7 +1732,10 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				pkg.wo.getUserMeta().getMetadata()));
 		version.put(Fields.VER_REF, pkg.refs);
 		version.put(Fields.VER_PROVREF, pkg.provrefs);
-		version.put(Fields.VER_PROV, pkg.mprov.getMongoId());
+		version.put(Fields.VER_PROV, pkg.provid);
+		if (pkg.provdate != null) {
+			version.put(Fields.VER_PROVDATE, pkg.provdate);
+		}
 		version.put(Fields.VER_TYPE, pkg.wo.getRep().getValidationTypeDefId()
 				.getTypeString());
 		version.put(Fields.VER_SIZE, pkg.wo.getRep().getRelabeledSize());
@@ -1455,31 +1805,50 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		 * None of the above addresses the object w/ 0 versions failure. Not sure what to do about that.
 		 * 
 		*/
-		int ver;
+		final Date saved = new Date();
+		final int ver = incrementObjectVersions(wsid, objectid,
+				versions.size(), hidden, saved);
+		insertVersions(toVersionDocuments(wsid, objectid, versions, ver,
+				saved));
+	}
+	
+	//returns the first of the new version numbers
+	private int incrementObjectVersions(
+			final ResolvedMongoWSID wsid,
+			final long objectid,
+			final int count,
+			final Boolean hidden,
+			final Date saved)
+			throws WorkspaceCommunicationException {
 		final List<Integer> zeros = new LinkedList<Integer>();
-		for (int i = 0; i < versions.size(); i++) {
+		for (int i = 0; i < count; i++) {
 			zeros.add(0);
 		}
-		final Date saved = new Date();
 		try {
 			final FindAndModify q = wsjongo.getCollection(COL_WORKSPACE_OBJS)
 					.findAndModify(M_SAVEINS_QRY, wsid.getID(), objectid)
 					.returnNew();
 			if (hidden == null) {
-				q.with(M_SAVEINS_NO_HIDE_WTH, versions.size(),
-						saved, zeros);
+				q.with(M_SAVEINS_NO_HIDE_WTH, count, saved, zeros);
 			} else {
-				q.with(M_SAVEINS_WTH, versions.size(), saved,
-						hidden, zeros);
+				q.with(M_SAVEINS_WTH, count, saved, hidden, zeros);
 			}
-			ver = (Integer) q
+			return (Integer) q
 					.projection(M_SAVEINS_PROJ).as(DBObject.class)
 					.get(Fields.OBJ_VCNT)
-					- versions.size() + 1;
+					- count + 1;
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+	}
+	
+	private List<DBObject> toVersionDocuments(
+			final ResolvedMongoWSID wsid,
+			final long objectid,
+			final List<Map<String, Object>> versions,
+			int ver,
+			final Date saved) {
 		//TODO look into why saving array of maps via List.ToArray() /w Jongo makes Lazy?Objects return, which screw up everything
 		final List<DBObject> dbo = new LinkedList<DBObject>();
 		for (final Map<String, Object> v: versions) {
@@ -1493,13 +1862,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			}
 			dbo.add(d);
 		}
-
-		try {
-			wsmongo.getCollection(COL_WORKSPACE_VERS).insert(dbo);
-		} catch (MongoException me) {
-			throw new WorkspaceCommunicationException(
-					"There was a problem communicating with the database", me);
-		}
+		return dbo;
 	}
 	
 	//save brand new object - create container
@@ -1769,195 +2132,106 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return newid;
 	}
 	
+	/* Objects saved in the same call frequently have identical provenance,
+	 * so provenance is saved once per unique content hash. The references in
+	 * the provenance are resolved per version and stored in the version
+	 * document, so only the unresolved provenance is shared.
+	 */
 	private void saveProvenance(final List<ObjectSavePackage> packages)
 			throws WorkspaceCommunicationException {
-		final List<MongoProvenance> prov = new LinkedList<MongoProvenance>();
+		final Map<String, MongoProvenance> hashToProv =
+				new HashMap<String, MongoProvenance>();
+		final Map<String, List<ObjectSavePackage>> hashToPkg =
+				new HashMap<String, List<ObjectSavePackage>>();
 		for (final ObjectSavePackage p: packages) {
 			final MongoProvenance mp = new MongoProvenance(
 					p.wo.getProvenance());
-			prov.add(mp);
-			p.mprov = mp;
+			if (!hashToProv.containsKey(mp.getHash())) {
+				hashToProv.put(mp.getHash(), mp);
+				hashToPkg.put(mp.getHash(),
+						new LinkedList<ObjectSavePackage>());
+			}
+			hashToPkg.get(mp.getHash()).add(p);
+		}
+		if (dedupProvAcrossSaves) {
+			for (final Entry<String, ObjectId> e:
+					getProvenanceIDsByHash(hashToProv.keySet()).entrySet()) {
+				// the shared document has the date of the earlier save
+				final Date date = hashToProv.remove(e.getKey()).getDate();
+				for (final ObjectSavePackage p: hashToPkg.get(e.getKey())) {
+					p.provid = e.getValue();
+					p.provdate = date;
+				}
+			}
+		}
+		if (hashToProv.isEmpty()) {
+			return;
 		}
 		try {
 			wsjongo.getCollection(COL_PROVENANCE).insert((Object[])
-					prov.toArray(new MongoProvenance[prov.size()]));
+					hashToProv.values().toArray(
+							new MongoProvenance[hashToProv.size()]));
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
-	}
-
-	private static class VerCount {
-		final public int ver;
-		final public int count;
-
-		public VerCount (final int ver, final int count) {
-			this.ver = ver;
-			this.count = count;
-		}
-		
-		@Override
-		public String toString() {
-			return "VerCount [ver=" + ver + ", count=" + count + "]";
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + count;
-			result = prime * result + ver;
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			VerCount other = (VerCount) obj;
-			if (count != other.count)
-				return false;
-			if (ver != other.ver)
-				return false;
-			return true;
-		}
-	}
-	
-	private void updateReferenceCounts(final List<ObjectSavePackage> packages)
-			throws WorkspaceCommunicationException {
-		//TODO GC when garbage collection working much more testing of these methods
-		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = 
-				countReferences(packages);
-		/* since the version numbers are probably highly skewed towards 1 and
-		 * the reference counts are also highly skewed towards 1 we can 
-		 * probably minimize the number of updates by running one update
-		 * per version/count combination
-		 */
-		updateReferenceCounts(refcounts);
-	}
-	
-	private void updateReferenceCountsForVersions(
-			final List<Map<String, Object>> versions)
-			throws WorkspaceCommunicationException {
-		//TODO GC when garbage collection working much more testing of these methods
-		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = 
-				countReferencesForVersions(versions);
-		/* since the version numbers are probably highly skewed towards 1 and
-		 * the reference counts are also highly skewed towards 1 we can 
-		 * probably minimize the number of updates by running one update
-		 * per version/count combination
-		 */
-		updateReferenceCounts(refcounts);
-	}
-
-	private void updateReferenceCounts(
-			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts)
-			throws WorkspaceCommunicationException {
-		final Map<VerCount, Map<Long, List<Long>>> queries = 
-				new HashMap<VerCount, Map<Long,List<Long>>>();
-		for (final Long ws: refcounts.keySet()) {
-			for (final Long obj: refcounts.get(ws).keySet()) {
-				for (final Integer ver: refcounts.get(ws).get(obj).keySet()) {
-					final VerCount vc = new VerCount(ver,
-							refcounts.get(ws).get(obj).get(ver).getValue());
-					if (!queries.containsKey(vc)) {
-						queries.put(vc, new HashMap<Long, List<Long>>());
-					}
-					if (!queries.get(vc).containsKey(ws)) {
-						queries.get(vc).put(ws, new LinkedList<Long>());
-					}
-					queries.get(vc).get(ws).add(obj);
-				}
+		for (final Entry<String, MongoProvenance> e: hashToProv.entrySet()) {
+			for (final ObjectSavePackage p: hashToPkg.get(e.getKey())) {
+				p.provid = e.getValue().getMongoId();
 			}
 		}
-		for (final VerCount vc: queries.keySet()) {
-			updateReferenceCounts(vc, queries.get(vc));
-		}
 	}
-
-	private void updateReferenceCounts(final VerCount vc,
-			final Map<Long, List<Long>> wsToObjs)
+	
+	private Map<String, ObjectId> getProvenanceIDsByHash(
+			final Set<String> hashes)
 			throws WorkspaceCommunicationException {
-		final DBObject update = new BasicDBObject("$inc",
-				new BasicDBObject(Fields.OBJ_REFCOUNTS + "." + (vc.ver - 1),
-						vc.count));
-		final List<DBObject> orquery = new LinkedList<DBObject>();
-		for (final Long ws: wsToObjs.keySet()) {
-			final DBObject query = new BasicDBObject(Fields.OBJ_WS_ID, ws);
-			query.put(Fields.OBJ_ID, new BasicDBObject("$in",
-					wsToObjs.get(ws)));
-			orquery.add(query);
-		}
+		final Map<String, ObjectId> ret = new HashMap<String, ObjectId>();
+		final DBObject q = new BasicDBObject(Fields.PROV_HASH,
+				new BasicDBObject("$in", hashes));
+		final DBObject proj = new BasicDBObject(Fields.MONGO_ID, 1);
+		proj.put(Fields.PROV_HASH, 1);
 		try {
-			wsmongo.getCollection(COL_WORKSPACE_OBJS).update(
-					new BasicDBObject("$or", orquery), update, false, true);
+			final long start = System.nanoTime();
+			final DBCursor cur = wsmongo.getCollection(COL_PROVENANCE)
+					.find(q, proj);
+			for (final DBObject o: cur) {
+				ret.put((String) o.get(Fields.PROV_HASH),
+						(ObjectId) o.get(Fields.MONGO_ID));
+			}
+			query.getProfiler().record(COL_PROVENANCE, q, cur, start,
+					ret.size());
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		return ret;
 	}
 
-	private Map<Long, Map<Long, Map<Integer, Counter>>> countReferences(
-			final List<ObjectSavePackage> packages) {
-		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts =
-				new HashMap<Long, Map<Long,Map<Integer,Counter>>>();
+	private void updateReferenceCounts(final List<ObjectSavePackage> packages)
+			throws WorkspaceCommunicationException {
+		final ReferenceCounter refcnt = newReferenceCounter();
 		for (final ObjectSavePackage p: packages) {
 			//these were checked to be MongoReferences in saveObjectBuildPackages
 			final Set<Reference> refs = new HashSet<Reference>();
 			refs.addAll(p.wo.getRefs());
 			refs.addAll(p.wo.getProvRefs());
-			countReferences(refcounts, refs);
+			refcnt.count(refs);
 		}
-		return refcounts;
+		refcnt.flush();
 	}
 	
-	private Map<Long, Map<Long, Map<Integer, Counter>>> countReferencesForVersions(
-			final List<Map<String, Object>> versions) {
-		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts =
-				new HashMap<Long, Map<Long,Map<Integer,Counter>>>();
-		for (final Map<String, Object> p: versions) {
-			//these were checked to be MongoReferences in saveObjectBuildPackages
-			final Set<Reference> refs = new HashSet<Reference>();
-			@SuppressWarnings("unchecked")
-			final List<String> objrefs = (List<String>) p.get(Fields.VER_REF);
-			@SuppressWarnings("unchecked")
-			final List<String> provrefs = (List<String>) p.get(Fields.VER_PROVREF);
-//			objrefs.addAll(provrefs); //DON'T DO THIS YOU MORON
-			for (final String s: objrefs) {
-				refs.add(new Reference(s));
-			}
-			for (final String s: provrefs) {
-				refs.add(new Reference(s));
-			}
-			countReferences(refcounts, refs);
-		}
-		return refcounts;
+	private ReferenceCounter newReferenceCounter() {
+		return new ReferenceCounter(wsmongo.getCollection(COL_WORKSPACE_OBJS));
 	}
-
-	private void countReferences(
-			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts,
-			final Set<Reference> refs) {
-		for (final Reference r: refs) {
-			if (!refcounts.containsKey(r.getWorkspaceID())) {
-				refcounts.put(r.getWorkspaceID(),
-						new HashMap<Long, Map<Integer, Counter>>());
-			}
-			if (!refcounts.get(r.getWorkspaceID())
-					.containsKey(r.getObjectID())) {
-				refcounts.get(r.getWorkspaceID()).put(r.getObjectID(),
-						new HashMap<Integer, Counter>());
-			}
-			if (!refcounts.get(r.getWorkspaceID()).get(r.getObjectID())
-					.containsKey(r.getVersion())) {
-				refcounts.get(r.getWorkspaceID()).get(r.getObjectID())
-					.put(r.getVersion(), new Counter());
-			}
-			refcounts.get(r.getWorkspaceID()).get(r.getObjectID())
-				.get(r.getVersion()).increment();
+	
+	@SuppressWarnings("unchecked")
+	private void countReferencesForVersions(
+			final ReferenceCounter refcnt,
+			final List<Map<String, Object>> versions)
+			throws WorkspaceCommunicationException {
+		for (final Map<String, Object> v: versions) {
+			refcnt.count((List<String>) v.get(Fields.VER_REF),
+					(List<String>) v.get(Fields.VER_PROVREF));
 		}
 	}
 
@@ -2001,7 +2275,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			Fields.VER_SAVEDATE, Fields.VER_SAVEDBY,
 			Fields.VER_CHKSUM, Fields.VER_SIZE, Fields.VER_PROV,
 			Fields.VER_PROVREF, Fields.VER_REF, Fields.VER_EXT_IDS,
-			Fields.VER_COPIED);
+			Fields.VER_COPIED, Fields.VER_PROVDATE);
 	
 	@Override
 	public Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>>
@@ -2015,6 +2289,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throws WorkspaceCommunicationException, NoSuchObjectException,
 			TypedObjectExtractionException, CorruptWorkspaceDBException {
 		
+		final long queryStart = System.nanoTime();
 		final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> resobjs =
 				resolveObjectIDs(objs.keySet(), exceptIfDeleted, includeDeleted, exceptIfMissing);
 		final Map<ResolvedMongoObjectID, Map<String, Object>> vers = 
@@ -2024,9 +2299,17 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		if (dataMan != null) {
 			checkTotalFileSize(usedDataAllocation, objs, resobjs, vers);
 		}
-		final Map<ObjectId, MongoProvenance> provs = getProvenance(vers);
+		final ProvenanceLoader provs = new ProvenanceLoader(
+				wsjongo.getCollection(COL_PROVENANCE), provCache,
+				query.getProfiler());
+		phaseDone(GET_QUERY, queryStart);
 		final Map<String, ByteArrayFileCache> chksumToData =
 				new HashMap<String, ByteArrayFileCache>();
+		final Map<String, Set<SubsetSelection>> chksumToPaths =
+				getSubsetSelectionsByChecksum(objs, resobjs, vers);
+		final Map<String, Map<SubsetSelection, ByteArrayFileCache>>
+				chksumToSubsets = new HashMap<String,
+						Map<SubsetSelection, ByteArrayFileCache>>();
 		final Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>> ret =
 				new HashMap<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>>();
 		for (final ObjectIDResolvedWS o: objs.keySet()) {
@@ -2034,8 +2317,11 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			if (!vers.containsKey(roi)) {
 				continue; // works if roi is null or vers doesn't have the key
 			}
-			final MongoProvenance prov = provs.get((ObjectId) vers.get(roi)
-					.get(Fields.VER_PROV));
+			@SuppressWarnings("unchecked")
+			final ProvenanceSource prov = provs.add(
+					(ObjectId) vers.get(roi).get(Fields.VER_PROV),
+					(List<String>) vers.get(roi).get(Fields.VER_PROVREF),
+					(Date) vers.get(roi).get(Fields.VER_PROVDATE));
 			final String copyref =
 					(String) vers.get(roi).get(Fields.VER_COPIED);
 			final Reference copied = copyref == null ? null : new Reference(copyref);
@@ -2062,7 +2348,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 						for (final SubsetSelection op: objs.get(o)) {
 							buildReturnedObjectData(
 									o, op, prov, refs, copied, extIDs, info,
-									chksumToData, dataMan, ret);
+									chksumToData, chksumToPaths,
+									chksumToSubsets, dataMan, ret);
 						}
 					}
 				} catch (TypedObjectExtractionException |
@@ -2070,7 +2357,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 						CorruptWorkspaceDBException |
 						RuntimeException |
 						Error e) {
-					cleanUpTempObjectFiles(chksumToData, ret);
+					cleanUpTempObjectFiles(chksumToData, chksumToSubsets, ret);
 					throw e;
 				}
 			}
@@ -2104,8 +2391,38 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 	}
 
+	/* Collects all the subsets requested for each checksum across all the
+	 * objects so that all the subsets of the same data can be extracted in
+	 * one pass.
+	 */
+	private Map<String, Set<SubsetSelection>> getSubsetSelectionsByChecksum(
+			final Map<ObjectIDResolvedWS, Set<SubsetSelection>> paths,
+			final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> resobjs,
+			final Map<ResolvedMongoObjectID, Map<String, Object>> vers) {
+		final Map<String, Set<SubsetSelection>> ret =
+				new HashMap<String, Set<SubsetSelection>>();
+		for (final ObjectIDResolvedWS o: paths.keySet()) {
+			// works if resobjs.get(o) is null or vers doesn't contain
+			if (vers.containsKey(resobjs.get(o))) {
+				final String chksum = (String) vers.get(resobjs.get(o))
+						.get(Fields.VER_CHKSUM);
+				if (!ret.containsKey(chksum)) {
+					ret.put(chksum, new HashSet<SubsetSelection>());
+				}
+				for (final SubsetSelection op: paths.get(o)) {
+					if (!op.isEmpty()) {
+						ret.get(chksum).add(op);
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
 	private void cleanUpTempObjectFiles(
 			final Map<String, ByteArrayFileCache> chksumToData,
+			final Map<String, Map<SubsetSelection, ByteArrayFileCache>>
+				chksumToSubsets,
 			final Map<ObjectIDResolvedWS, Map<SubsetSelection,
 				WorkspaceObjectData>> ret) {
 		for (final ByteArrayFileCache f: chksumToData.values()) {
@@ -2115,6 +2432,16 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				//continue
 			}
 		}
+		for (final Map<SubsetSelection, ByteArrayFileCache> m:
+			chksumToSubsets.values()) {
+			for (final ByteArrayFileCache f: m.values()) {
+				try {
+					f.destroy();
+				} catch (RuntimeException | Error e) {
+					//continue
+				}
+			}
+		}
 		for (final Map<SubsetSelection, WorkspaceObjectData> m:
 			ret.values()) {
 			for (final WorkspaceObjectData wod: m.values()) {
@@ -2132,12 +2459,15 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	private void buildReturnedObjectData(
 			final ObjectIDResolvedWS o,
 			final SubsetSelection op,
-			final MongoProvenance prov,
+			final ProvenanceSource prov,
 			final List<String> refs,
 			final Reference copied,
 			final Map<String, List<String>> extIDs,
 			final ObjectInformation info,
 			final Map<String, ByteArrayFileCache> chksumToData,
+			final Map<String, Set<SubsetSelection>> chksumToPaths,
+			final Map<String, Map<SubsetSelection, ByteArrayFileCache>>
+				chksumToSubsets,
 			final ByteArrayFileCacheManager bafcMan,
 			final Map<ObjectIDResolvedWS,
 					Map<SubsetSelection, WorkspaceObjectData>> ret)
@@ -2146,55 +2476,74 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		if (!ret.containsKey(o)) {
 			ret.put(o, new HashMap<SubsetSelection, WorkspaceObjectData>());
 		}
-		if (chksumToData.containsKey(info.getCheckSum())) {
-			/* might be subsetting the same object the same way multiple
-			 * times, but probably unlikely. If it becomes a problem
-			 * memoize the subset
-			 */
-			ret.get(o).put(op, new WorkspaceObjectData(getDataSubSet(
-					chksumToData.get(info.getCheckSum()), op, bafcMan),
-					info, prov, refs, copied, extIDs));
+		final String chksum = info.getCheckSum();
+		if (!chksumToData.containsKey(chksum)) {
+			final long start = System.nanoTime();
+			chksumToData.put(chksum, getBlob(info, bafcMan));
+			phaseDone(GET_BLOB_FETCH, start);
+		}
+		final ByteArrayFileCache data = chksumToData.get(chksum);
+		final ByteArrayFileCache subset;
+		if (op.isEmpty()) {
+			subset = data;
 		} else {
-			final ByteArrayFileCache data;
-			try {
-				data = blob.getBlob(new MD5(info.getCheckSum()), bafcMan);
-			} catch (FileCacheIOException e) {
-				throw new WorkspaceCommunicationException(
-						e.getLocalizedMessage(), e);
-			} catch (FileCacheLimitExceededException e) {
-				throw new IllegalArgumentException( //shouldn't happen if size was checked correctly beforehand
-						"Too much data requested from the workspace at once; " +
-						"data requested including subsets exceeds maximum of "
-						+ bafcMan.getMaxSizeOnDisk());
-			} catch (BlobStoreCommunicationException e) {
-				throw new WorkspaceCommunicationException(
-						e.getLocalizedMessage(), e);
-			} catch (BlobStoreAuthorizationException e) {
-				throw new WorkspaceCommunicationException(
-						"Authorization error communicating with the backend storage system",
-						e);
-			} catch (NoSuchBlobException e) {
-				throw new CorruptWorkspaceDBException(String.format(
-						"No data present for valid object %s.%s.%s",
-						info.getWorkspaceId(), info.getObjectId(),
-						info.getVersion()), e);
+			/* all the subsets of the same data requested in this call are
+			 * extracted in one pass the first time any of them is needed, and
+			 * identical subsets are shared between objects.
+			 */
+			if (!chksumToSubsets.containsKey(chksum)) {
+				final long start = System.nanoTime();
+				chksumToSubsets.put(chksum, getDataSubSets(
+						data, chksumToPaths.get(chksum), bafcMan));
+				phaseDone(GET_SUBSET, start);
 			}
-			chksumToData.put(info.getCheckSum(), data);
-			ret.get(o).put(op, new WorkspaceObjectData(
-					getDataSubSet(data, op, bafcMan),
-					info, prov, refs, copied, extIDs));
+			subset = chksumToSubsets.get(chksum).get(op);
+		}
+		ret.get(o).put(op, new WorkspaceObjectData(
+				subset, info, prov, refs, copied, extIDs));
+	}
+	
+	private ByteArrayFileCache getBlob(
+			final ObjectInformation info,
+			final ByteArrayFileCacheManager bafcMan)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
+		try {
+			return blob.getBlob(new MD5(info.getCheckSum()), bafcMan);
+		} catch (FileCacheIOException e) {
+			throw new WorkspaceCommunicationException(
+					e.getLocalizedMessage(), e);
+		} catch (FileCacheLimitExceededException e) {
+			throw new IllegalArgumentException( //shouldn't happen if size was checked correctly beforehand
+					"Too much data requested from the workspace at once; " +
+					"data requested including subsets exceeds maximum of "
+					+ bafcMan.getMaxSizeOnDisk());
+		} catch (BlobStoreCommunicationException e) {
+			throw new WorkspaceCommunicationException(
+					e.getLocalizedMessage(), e);
+		} catch (BlobStoreAuthorizationException e) {
+			throw new WorkspaceCommunicationException(
+					"Authorization error communicating with the backend storage system",
+					e);
+		} catch (NoSuchBlobException e) {
+			throw new CorruptWorkspaceDBException(String.format(
+					"No data present for valid object %s.%s.%s",
+					info.getWorkspaceId(), info.getObjectId(),
+					info.getVersion()), e);
 		}
 	}
 	
-	private ByteArrayFileCache getDataSubSet(final ByteArrayFileCache data,
-			final SubsetSelection paths, final ByteArrayFileCacheManager bafcMan)
+	private Map<SubsetSelection, ByteArrayFileCache> getDataSubSets(
+			final ByteArrayFileCache data,
+			final Set<SubsetSelection> paths,
+			final ByteArrayFileCacheManager bafcMan)
 			throws TypedObjectExtractionException,
 			WorkspaceCommunicationException {
-		if (paths.isEmpty()) {
-			return data;
-		}
+		final List<SubsetSelection> pathlist =
+				new LinkedList<SubsetSelection>(paths);
+		final List<ByteArrayFileCache> subsets;
 		try {
-			return bafcMan.getSubdataExtraction(data, paths);
+			subsets = bafcMan.getSubdataExtractions(data, pathlist);
 		} catch (FileCacheIOException e) {
 			throw new WorkspaceCommunicationException(
 					e.getLocalizedMessage(), e);
@@ -2204,6 +2553,13 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 					"data requested including subsets exceeds maximum of "
 					+ bafcMan.getMaxSizeOnDisk());
 		}
+		final Map<SubsetSelection, ByteArrayFileCache> ret =
+				new HashMap<SubsetSelection, ByteArrayFileCache>();
+		final Iterator<ByteArrayFileCache> subiter = subsets.iterator();
+		for (final SubsetSelection path: pathlist) {
+			ret.put(path, subiter.next());
+		}
+		return ret;
 	}
 	
 	private static final Set<String> FLDS_GET_REF_FROM_OBJ = newHashSet(
@@ -2440,36 +2796,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
-	private Map<ObjectId, MongoProvenance> getProvenance(
-			final Map<ResolvedMongoObjectID, Map<String, Object>> vers)
-			throws WorkspaceCommunicationException {
-		final Map<ObjectId, Map<String, Object>> provIDs =
-				new HashMap<ObjectId, Map<String,Object>>();
-		for (final ResolvedMongoObjectID id: vers.keySet()) {
-			provIDs.put((ObjectId) vers.get(id).get(Fields.VER_PROV),
-					vers.get(id));
-		}
-		final Map<ObjectId, MongoProvenance> ret =
-				new HashMap<ObjectId, MongoProvenance>();
-		try {
-			final Iterable<MongoProvenance> provs =
-					wsjongo.getCollection(COL_PROVENANCE)
-					.find("{_id: {$in: #}}", provIDs.keySet())
-					.as(MongoProvenance.class);
-			for (MongoProvenance p: provs) {
-				@SuppressWarnings("unchecked")
-				final List<String> resolvedRefs = (List<String>) provIDs
-						.get(p.getMongoId()).get(Fields.VER_PROVREF);
-				ret.put(p.getMongoId(), p);
-				p.resolveReferences(resolvedRefs); //this is a gross hack. I'm rather proud of it actually
-			}
-		} catch (MongoException me) {
-			throw new WorkspaceCommunicationException(
-					"There was a problem communicating with the database", me);
-		}
-		return ret;
-	}
-	
 	private static final Set<String> FLDS_VER_TYPE = newHashSet(
 			Fields.VER_TYPE, Fields.VER_VER);
 	
@@ -2498,9 +2824,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
-	private static final Set<String> FLDS_NAME_PREFIX = newHashSet(
-			Fields.OBJ_NAME, Fields.OBJ_WS_ID);
-
 	@Override
 	public Map<ResolvedWorkspaceID, List<String>> getNamesByPrefix(
 			final Set<ResolvedWorkspaceID> rwsis,
@@ -2518,27 +2841,10 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		for (final ResolvedWorkspaceID rwsid: rwsis) {
 			wsIDtoWS.put(rwsid.getID(), rwsid);
 		}
-		final DBObject q = new BasicDBObject(Fields.OBJ_DEL, false);
-		q.put(Fields.OBJ_WS_ID, new BasicDBObject("$in", wsIDtoWS.keySet()));
-		if (!prefix.isEmpty()) {
-			// escape regex chars
-			q.put(Fields.OBJ_NAME,
-					new BasicDBObject("$regex", "^" + Pattern.quote(prefix)));
-		}
-		if (!includeHidden) {
-			q.put(Fields.OBJ_HIDE, false);
-		}
-		
-		final List<Map<String, Object>> names = query.queryCollection(
-				COL_WORKSPACE_OBJS, q, FLDS_NAME_PREFIX, limit);
-		for (final Map<String, Object> o: names) {
-			final Long wsid = (Long) o.get(Fields.OBJ_WS_ID);
-			final String name = (String) o.get(Fields.OBJ_NAME);
-			final ResolvedWorkspaceID rwsid = wsIDtoWS.get(wsid);
-			if (!ret.containsKey(rwsid)) {
-				ret.put(rwsid, new LinkedList<String>());
-			}
-			ret.get(rwsid).add(name);
+		final Map<Long, List<String>> names = new NamePrefixSearch(query)
+				.find(wsIDtoWS.keySet(), prefix, includeHidden, limit);
+		for (final Long wsid: names.keySet()) {
+			ret.put(wsIDtoWS.get(wsid), names.get(wsid));
 		}
 		return ret;
 	}
@@ -2559,17 +2865,71 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	public List<ObjectInformation> getObjectHistory(
 			final ObjectIDResolvedWS oi)
 		throws NoSuchObjectException, WorkspaceCommunicationException {
+		final List<ObjectInformation> ret =
+				getObjectHistory(oi, null, null, false, -1);
+		if (ret.isEmpty()) {
+			// see queryAllVersions
+			throw new NoSuchObjectException(String.format(
+					"No object with name %s exists in workspace %s",
+					oi.getName() != null ? oi.getName() : oi.getId(),
+					oi.getWorkspaceIdentifier().getID()), oi);
+		}
+		return ret;
+	}
+	
+	private static final DBObject IDX_VER_OBJ_HIST = new BasicDBObject();
+	static {
+		IDX_VER_OBJ_HIST.put(Fields.VER_WS_ID, 1);
+		IDX_VER_OBJ_HIST.put(Fields.VER_ID, 1);
+		IDX_VER_OBJ_HIST.put(Fields.VER_VER, 1);
+	}
+	
+	@Override
+	public List<ObjectInformation> getObjectHistory(
+			final ObjectIDResolvedWS oi,
+			final Integer minVersion,
+			final Integer maxVersion,
+			final boolean newestFirst,
+			final int limit)
+			throws NoSuchObjectException, WorkspaceCommunicationException {
 		final ResolvedMongoObjectID roi = resolveObjectIDs(
 				new HashSet<ObjectIDResolvedWS>(Arrays.asList(oi))).get(oi);
-		final ResolvedMongoObjectIDNoVer o =
-				new ResolvedMongoObjectIDNoVer(roi);
-		final List<Map<String, Object>> versions = queryAllVersions(
-				new HashSet<ResolvedMongoObjectIDNoVer>(Arrays.asList(o)),
-				FLDS_VER_OBJ_HIST).get(o);
-		final LinkedList<ObjectInformation> ret =
-				new LinkedList<ObjectInformation>();
-		for (final Map<String, Object> v: versions) {
-			ret.add(ObjectInfoUtils.generateObjectInfo(roi, v));
+		final DBObject q = new BasicDBObject(
+				Fields.VER_WS_ID, roi.getWorkspaceIdentifier().getID());
+		q.put(Fields.VER_ID, roi.getId());
+		final DBObject range = new BasicDBObject();
+		if (minVersion != null) {
+			range.put("$gte", minVersion);
+		}
+		if (maxVersion != null) {
+			range.put("$lte", maxVersion);
+		}
+		if (!range.keySet().isEmpty()) {
+			q.put(Fields.VER_VER, range);
+		}
+		final int dir = newestFirst ? -1 : 1;
+		final DBObject sort = new BasicDBObject(Fields.VER_WS_ID, dir);
+		sort.put(Fields.VER_ID, dir);
+		sort.put(Fields.VER_VER, dir);
+		final List<ObjectInformation> ret = new LinkedList<ObjectInformation>();
+		final long start = System.nanoTime();
+		final DBCursor cur = query.queryCollectionCursor(COL_WORKSPACE_VERS, q,
+				FLDS_VER_OBJ_HIST, IDX_VER_OBJ_HIST, limit).sort(sort);
+		if (limit > 0) {
+			cur.batchSize(limit);
+		}
+		try {
+			for (final DBObject v: cur) {
+				ret.add(ObjectInfoUtils.generateObjectInfo(
+						roi, QueryMethods.dbObjectToMap(v)));
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		} finally {
+			cur.close();
+			query.getProfiler().record(
+					COL_WORKSPACE_VERS, q, cur, start, ret.size());
 		}
 		return ret;
 	}
@@ -2860,70 +3220,90 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	public void setObjectsHidden(final Set<ObjectIDResolvedWS> objectIDs,
 			final boolean hide)
 			throws NoSuchObjectException, WorkspaceCommunicationException {
-		//TODO CODE generalize, nearly identical to delete objects
-		final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> ids =
-				resolveObjectIDs(objectIDs);
-		final Map<ResolvedMongoWSID, List<Long>> toModify =
+		updateObjects(groupByWorkspace(objectIDs, resolveObjectIDs(objectIDs)),
+				null, new BasicDBObject(Fields.OBJ_HIDE, hide));
+	}
+	
+	@Override
+	public void setObjectsDeleted(final Set<ObjectIDResolvedWS> objectIDs,
+			final boolean delete)
+			throws NoSuchObjectException, WorkspaceCommunicationException {
+		final Map<ResolvedMongoWSID, List<Long>> toModify = groupByWorkspace(
+				objectIDs, resolveObjectIDs(objectIDs, delete, true));
+		final DBObject set = new BasicDBObject(Fields.OBJ_DEL, delete);
+		set.put(Fields.OBJ_MODDATE, new Date());
+		try {
+			updateObjects(toModify,
+					new BasicDBObject(Fields.OBJ_DEL, !delete), set);
+		} finally {
+			updateWorkspaceModifiedDates(toModify.keySet());
+		}
+	}
+	
+	private Map<ResolvedMongoWSID, List<Long>> groupByWorkspace(
+			final Set<ObjectIDResolvedWS> objectIDs,
+			final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> ids) {
+		final Map<ResolvedMongoWSID, List<Long>> ret =
 				new HashMap<ResolvedMongoWSID, List<Long>>();
 		for (final ObjectIDResolvedWS o: objectIDs) {
 			final ResolvedMongoWSID ws = query.convertResolvedWSID(
 					o.getWorkspaceIdentifier());
-			if (!toModify.containsKey(ws)) {
-				toModify.put(ws, new ArrayList<Long>());
+			if (!ret.containsKey(ws)) {
+				ret.put(ws, new ArrayList<Long>());
 			}
-			toModify.get(ws).add(ids.get(o).getId());
-		}
-		//Do this by workspace since per mongo docs nested $ors are crappy
-		for (final ResolvedMongoWSID ws: toModify.keySet()) {
-			setObjectsHidden(ws, toModify.get(ws), hide);
+			ret.get(ws).add(ids.get(o).getId());
 		}
+		return ret;
 	}
 	
-	private static final String M_HIDOBJ_WTH = String.format(
-			"{$set: {%s: #}}", Fields.OBJ_HIDE);
-	private static final String M_HIDOBJ_QRY = String.format(
-			"{%s: #, %s: {$in: #}}", Fields.OBJ_WS_ID, Fields.OBJ_ID);
+	private static final int BULK_WRITE_SIZE = 1000;
+	private static final int BULK_UPDATE_IDS = 10000;
 	
-	private void setObjectsHidden(final ResolvedMongoWSID ws,
-			final List<Long> objectIDs, final boolean hide)
+	/* Sets fields on objects. There's one multi-document update per
+	 * workspace, or per BULK_UPDATE_IDS objects in a workspace, since per
+	 * the mongo docs nested $ors are crappy, and the updates are sent to the
+	 * database in unordered bulk writes.
+	 */
+	private void updateObjects(
+			final Map<ResolvedMongoWSID, List<Long>> objectIDs,
+			final DBObject query,
+			final DBObject set)
 			throws WorkspaceCommunicationException {
-		//TODO CODE general set field method?
-		if (objectIDs.isEmpty()) {
-			throw new IllegalArgumentException("Object IDs cannot be empty");
-		}
+		final DBCollection objCol = wsmongo.getCollection(COL_WORKSPACE_OBJS);
+		final DBObject update = new BasicDBObject("$set", set);
+		BulkWriteOperation bulk = null;
+		int count = 0;
 		try {
-			wsjongo.getCollection(COL_WORKSPACE_OBJS)
-					.update(M_HIDOBJ_QRY, ws.getID(), objectIDs).multi()
-					.with(M_HIDOBJ_WTH, hide);
+			for (final ResolvedMongoWSID ws: objectIDs.keySet()) {
+				final List<Long> ids = objectIDs.get(ws);
+				for (int start = 0; start < ids.size();
+						start += BULK_UPDATE_IDS) {
+					final DBObject q = query == null ? new BasicDBObject() :
+						new BasicDBObject(query.toMap());
+					q.put(Fields.OBJ_WS_ID, ws.getID());
+					q.put(Fields.OBJ_ID, new BasicDBObject("$in",
+							ids.subList(start, Math.min(
+									start + BULK_UPDATE_IDS, ids.size()))));
+					if (bulk == null) {
+						bulk = objCol.initializeUnorderedBulkOperation();
+					}
+					bulk.find(q).update(update);
+					if (++count >= BULK_WRITE_SIZE) {
+						bulk.execute();
+						bulk = null;
+						count = 0;
+					}
+				}
+			}
+			if (bulk != null) {
+				bulk.execute();
+			}
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
 	}
 	
-	@Override
-	public void setObjectsDeleted(final Set<ObjectIDResolvedWS> objectIDs,
-			final boolean delete)
-			throws NoSuchObjectException, WorkspaceCommunicationException {
-		final Map<ObjectIDResolvedWS, ResolvedMongoObjectID> ids =
-				resolveObjectIDs(objectIDs, delete, true);
-		final Map<ResolvedMongoWSID, List<Long>> toModify =
-				new HashMap<ResolvedMongoWSID, List<Long>>();
-		for (final ObjectIDResolvedWS o: objectIDs) {
-			final ResolvedMongoWSID ws = query.convertResolvedWSID(
-					o.getWorkspaceIdentifier());
-			if (!toModify.containsKey(ws)) {
-				toModify.put(ws, new ArrayList<Long>());
-			}
-			toModify.get(ws).add(ids.get(o).getId());
-		}
-		//Do this by workspace since per mongo docs nested $ors are crappy
-		for (final ResolvedMongoWSID ws: toModify.keySet()) {
-			setObjectsDeleted(ws, toModify.get(ws), delete);
-			updateWorkspaceModifiedDate(ws);
-		}
-	}
-	
 	private static final String M_DELOBJ_WTH = String.format(
 			"{$set: {%s: #, %s: #}}", Fields.OBJ_DEL, Fields.OBJ_MODDATE);
 	
@@ -2979,9 +3359,12 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		final DBObject q = new BasicDBObject(Fields.WS_CLONING,
 				new BasicDBObject("$exists", false));
 		try {
+			final long start = System.nanoTime();
 			@SuppressWarnings("unchecked")
 			final List<String> users = wsmongo.getCollection(COL_WORKSPACES)
 				.distinct(Fields.WS_OWNER, q);
+			query.getProfiler().record(COL_WORKSPACES, q, null, start,
+					users.size());
 			for (final String u: users) {
 				ret.add(new WorkspaceUser(u));
 			}
@@ -2999,8 +3382,13 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	public boolean isAdmin(WorkspaceUser putativeAdmin)
 			throws WorkspaceCommunicationException {
 		try {
-			return wsjongo.getCollection(COL_ADMINS).count(M_ADMIN_QRY,
-					putativeAdmin.getUser()) > 0;
+			final long start = System.nanoTime();
+			final long count = wsjongo.getCollection(COL_ADMINS).count(
+					M_ADMIN_QRY, putativeAdmin.getUser());
+			query.getProfiler().record(COL_ADMINS, new BasicDBObject(
+					Fields.ADMIN_NAME, putativeAdmin.getUser()), null, start,
+					count);
+			return count > 0;
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -3014,10 +3402,13 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		final Set<WorkspaceUser> ret = new HashSet<WorkspaceUser>();
 		final DBCursor cur;
 		try {
+			final long start = System.nanoTime();
 			cur = wsmongo.getCollection(COL_ADMINS).find();
 			for (final DBObject dbo: cur) {
 				ret.add(new WorkspaceUser((String) dbo.get(Fields.ADMIN_NAME)));
 			}
+			query.getProfiler().record(COL_ADMINS, new BasicDBObject(), cur,
+					start, ret.size());
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -0,0 +1,207 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Finds the names of objects that start with a prefix.
+ *
+ * Each workspace is searched with a range query on object names - names
+ * greater than or equal to the prefix and less than the prefix's successor -
+ * for each included hidden state. The queries are covered by the
+ * (workspace, deleted, hidden, name) index and return names in order, so
+ * the cursors are merged in name order and reading stops as soon as the
+ * limit is reached. No cursor returns more than the limit.
+ *
+ * When many workspaces are searched most cursors contribute only a few names,
+ * so each cursor starts with a small first batch. A cursor that is read past
+ * its first batch fetches the rest of its names in batches up to the limit.
+ */
+class NamePrefixSearch {
+
+	/** The index that covers the prefix queries. */
+	static final List<String> INDEX = Arrays.asList(Fields.OBJ_WS_ID,
+			Fields.OBJ_DEL, Fields.OBJ_HIDE, Fields.OBJ_NAME);
+
+	private static final DBObject HINT = new BasicDBObject();
+	static {
+		for (final String f: INDEX) {
+			HINT.put(f, 1);
+		}
+	}
+	private static final DBObject SORT = new BasicDBObject(Fields.OBJ_NAME, 1);
+	private static final Set<String> FIELDS = new HashSet<String>(
+			Arrays.asList(Fields.OBJ_NAME));
+	/** The number of names in the first batch of each cursor. */
+	static final int FIRST_BATCH_SIZE = 10;
+
+	private final QueryMethods query;
+
+	/** Create a prefix search.
+	 * @param query the query methods for the workspace database.
+	 */
+	NamePrefixSearch(final QueryMethods query) {
+		this.query = query;
+	}
+
+	/** Find the names of undeleted objects that start with a prefix.
+	 * @param wsids the IDs of the workspaces to search.
+	 * @param prefix the prefix. An empty prefix matches all names.
+	 * @param includeHidden true to include hidden objects.
+	 * @param limit the maximum number of names to return across all the
+	 * workspaces. Less than 1 for no limit.
+	 * @return a mapping of workspace ID to the matching names in that
+	 * workspace, in name order. Workspaces with no matching names are
+	 * omitted. The names returned are the first names in name order across
+	 * all the workspaces.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	Map<Long, List<String>> find(
+			final Collection<Long> wsids,
+			final String prefix,
+			final boolean includeHidden,
+			final int limit)
+			throws WorkspaceCommunicationException {
+		final Map<Long, List<String>> ret = new HashMap<Long, List<String>>();
+		final DBObject range = new BasicDBObject();
+		if (!prefix.isEmpty()) {
+			range.put("$gte", prefix);
+			final String end = successor(prefix);
+			if (end != null) {
+				range.put("$lt", end);
+			}
+		}
+		final List<Boolean> hidden = includeHidden ?
+				Arrays.asList(false, true) : Arrays.asList(false);
+		final List<Cursor> cursors = new LinkedList<Cursor>();
+		final PriorityQueue<Cursor> heads = new PriorityQueue<Cursor>(
+				Math.max(1, wsids.size() * hidden.size()), ORDER);
+		final int firstBatch = limit > 0 ?
+				Math.min(limit, FIRST_BATCH_SIZE) : FIRST_BATCH_SIZE;
+		// 0 leaves the size of the following batches to the server
+		final int batch = Math.max(0, limit);
+		final long start = System.nanoTime();
+		try {
+			for (final Long wsid: wsids) {
+				for (final Boolean hide: hidden) {
+					final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, wsid);
+					q.put(Fields.OBJ_DEL, false);
+					q.put(Fields.OBJ_HIDE, hide);
+					if (!range.keySet().isEmpty()) {
+						q.put(Fields.OBJ_NAME, range);
+					}
+					final DBCursor c = query.queryCollectionCursor(
+							CollectionNames.COL_WORKSPACE_OBJS, q, FIELDS,
+							HINT, limit).sort(SORT).batchSize(firstBatch);
+					final Cursor cur = new Cursor(wsid, q, c, firstBatch, batch);
+					cursors.add(cur);
+					if (cur.advance()) {
+						heads.add(cur);
+					}
+				}
+			}
+			int count = 0;
+			while (!heads.isEmpty() && (limit < 1 || count < limit)) {
+				final Cursor cur = heads.poll();
+				if (!ret.containsKey(cur.wsid)) {
+					ret.put(cur.wsid, new LinkedList<String>());
+				}
+				ret.get(cur.wsid).add(cur.name);
+				count++;
+				if (cur.advance()) {
+					heads.add(cur);
+				}
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		} finally {
+			for (final Cursor cur: cursors) {
+				cur.cursor.close();
+				query.getProfiler().record(CollectionNames.COL_WORKSPACE_OBJS,
+						cur.query, cur.cursor, start, cur.read);
+			}
+		}
+		return ret;
+	}
+
+	/** Get the smallest string that is greater than every string starting
+	 * with the prefix.
+	 * @param prefix the prefix.
+	 * @return the successor of the prefix, or null if there is none.
+	 */
+	static String successor(final String prefix) {
+		final StringBuilder sb = new StringBuilder(prefix);
+		while (sb.length() > 0) {
+			final int last = sb.length() - 1;
+			final char c = sb.charAt(last);
+			if (c != Character.MAX_VALUE) {
+				sb.setCharAt(last, (char) (c + 1));
+				return sb.toString();
+			}
+			sb.setLength(last);
+		}
+		return null;
+	}
+
+	private static final Comparator<Cursor> ORDER = new Comparator<Cursor>() {
+
+		@Override
+		public int compare(final Cursor c1, final Cursor c2) {
+			final int n = c1.name.compareTo(c2.name);
+			return n != 0 ? n : Long.compare(c1.wsid, c2.wsid);
+		}
+	};
+
+	private static class Cursor {
+
+		private final long wsid;
+		private final DBObject query;
+		private final DBCursor cursor;
+		private final int firstBatch;
+		private final int batch;
+		private String name = null;
+		private long read = 0;
+
+		private Cursor(
+				final long wsid,
+				final DBObject query,
+				final DBCursor cursor,
+				final int firstBatch,
+				final int batch) {
+			this.wsid = wsid;
+			this.query = query;
+			this.cursor = cursor;
+			this.firstBatch = firstBatch;
+			this.batch = batch;
+		}
+
+		private boolean advance() {
+			if (read == firstBatch) {
+				// past the first batch, so this workspace has many matches
+				cursor.batchSize(batch);
+			}
+			if (!cursor.hasNext()) {
+				return false;
+			}
+			name = (String) cursor.next().get(Fields.OBJ_NAME);
+			read++;
+			return true;
+		}
+	}
+}
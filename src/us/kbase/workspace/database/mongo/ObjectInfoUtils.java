@@ -89,6 +89,10 @@ public class ObjectInfoUtils {
 		
 		final List<ObjectInformation> ret =
 				new LinkedList<ObjectInformation>();
+		// only the time spent reading the cursor is attributed to the query
+		long queryNanos = 0;
+		long docs = 0;
+		long start = System.nanoTime();
 		while (cur.hasNext() && ret.size() < params.getLimit()) {
 			final List<Map<String, Object>> verobjs =
 					new ArrayList<Map<String,Object>>();
@@ -100,6 +104,8 @@ public class ObjectInfoUtils {
 							"There was a problem communicating with the database", me);
 				}
 			}
+			queryNanos += System.nanoTime() - start;
+			docs += verobjs.size();
 			final Map<Map<String, Object>, ObjectInformation> objs =
 					generateObjectInfo(pset, verobjs, params.isShowHidden(),
 							params.isShowDeleted(), params.isShowOnlyDeleted(),
@@ -113,7 +119,11 @@ public class ObjectInfoUtils {
 					ret.add(objs.get(v));
 				}
 			}
+			start = System.nanoTime();
 		}
+		queryNanos += System.nanoTime() - start;
+		query.getProfiler().recordDuration(query.getVersionCollection(), verq,
+				cur, queryNanos, docs);
 		return ret;
 	}
 
@@ -1,8 +1,11 @@
 package us.kbase.workspace.database.mongo;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
+import org.bson.types.ObjectId;
+
 import us.kbase.workspace.database.ResolvedSaveObject;
 
 public class ObjectSavePackage {
@@ -13,12 +16,14 @@ public class ObjectSavePackage {
 	String name;
 	Set<String> refs;
 	List<String> provrefs;
-	MongoProvenance mprov;
+	ObjectId provid;
+	// null unless the provenance was saved with an earlier version
+	Date provdate;
 	
 	@Override
 	public String toString() {
 		return "ObjectSavePackage [wo=" + wo + ", name=" + name +
-				", mprov =" + mprov +  "]";
+				", provid =" + provid + ", provdate=" + provdate + "]";
 	}
 
 }
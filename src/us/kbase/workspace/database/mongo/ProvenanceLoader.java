@@ -0,0 +1,196 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
+import org.jongo.MongoCollection;
+import org.jongo.ResultHandler;
+import org.jongo.bson.Bson;
+import org.jongo.bson.BsonDocument;
+import org.jongo.marshall.Unmarshaller;
+import org.jongo.marshall.jackson.JacksonMapper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.Provenance;
+import us.kbase.workspace.database.ProvenanceSource;
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Loads the provenance for the objects returned from a single call to
+ * {@link MongoWorkspaceDB#getObjects}.
+ *
+ * No provenance is loaded until the provenance of one of the objects is
+ * requested, at which point the provenance for all of the objects is loaded
+ * in a single query. Provenance documents are never modified once written,
+ * so deserialized provenance is kept in a cache shared between calls and
+ * only the documents missing from the cache are queried.
+ *
+ * The cache is bounded by the total BSON size of the cached documents. The
+ * deserialized documents are larger, but in proportion to their BSON size,
+ * which unlike a count of documents bounds the memory used by the cache no
+ * matter how large individual documents are.
+ */
+class ProvenanceLoader {
+
+	// the same mapper Jongo uses by default
+	private static final Unmarshaller UNMARSHALLER =
+			new JacksonMapper.Builder().build().getUnmarshaller();
+
+	private final MongoCollection provCol;
+	private final Cache<ObjectId, CachedProvenance> cache;
+	private final QueryProfiler profiler;
+	private final Set<ObjectId> ids = new HashSet<ObjectId>();
+	private Map<ObjectId, MongoProvenance> loaded = null;
+
+	/** A deserialized provenance document and the size of the document as
+	 * stored in the database.
+	 */
+	static class CachedProvenance {
+
+		private final MongoProvenance prov;
+		private final int size;
+
+		private CachedProvenance(final MongoProvenance prov, final int size) {
+			this.prov = prov;
+			this.size = size;
+		}
+	}
+
+	/** Build a provenance cache.
+	 * @param maxBytes the maximum total BSON size of the cached provenance
+	 * documents. 0 disables caching.
+	 * @return the cache.
+	 */
+	static Cache<ObjectId, CachedProvenance> buildCache(final long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException(
+					"maxBytes must be at least 0");
+		}
+		return CacheBuilder.newBuilder().maximumWeight(maxBytes)
+				.weigher(new Weigher<ObjectId, CachedProvenance>() {
+
+					@Override
+					public int weigh(
+							final ObjectId id,
+							final CachedProvenance p) {
+						return p.size;
+					}
+				}).build();
+	}
+
+	/** Create a provenance loader.
+	 * @param provenanceCollection the provenance collection.
+	 * @param cache the provenance cache.
+	 * @param profiler the profiler to which the provenance query is reported.
+	 */
+	ProvenanceLoader(
+			final MongoCollection provenanceCollection,
+			final Cache<ObjectId, CachedProvenance> cache,
+			final QueryProfiler profiler) {
+		this.provCol = provenanceCollection;
+		this.cache = cache;
+		this.profiler = profiler;
+	}
+
+	/** Add an object version's provenance to the set of provenance to load.
+	 * @param provID the ID of the provenance document.
+	 * @param resolvedRefs the references in the provenance, resolved at the
+	 * time the object version was saved.
+	 * @param provDate the date the object version was saved, if it differs
+	 * from the date stored in the provenance document, or null.
+	 * @return the source of the object version's provenance.
+	 */
+	ProvenanceSource add(final ObjectId provID,
+			final List<String> resolvedRefs,
+			final Date provDate) {
+		synchronized (this) {
+			if (loaded != null) {
+				throw new IllegalStateException(
+						"Provenance has already been loaded");
+			}
+			ids.add(provID);
+		}
+		return new ProvenanceSource() {
+
+			private Provenance prov = null;
+
+			@Override
+			public synchronized Provenance getProvenance()
+					throws WorkspaceCommunicationException,
+					CorruptWorkspaceDBException {
+				if (prov == null) {
+					final MongoProvenance p = load().get(provID);
+					if (p == null) {
+						throw new CorruptWorkspaceDBException(
+								"No provenance document with id " + provID);
+					}
+					prov = p.resolveReferences(resolvedRefs, provDate); //this is a gross hack. I'm rather proud of it actually
+				}
+				return prov;
+			}
+		};
+	}
+
+	private synchronized Map<ObjectId, MongoProvenance> load()
+			throws WorkspaceCommunicationException {
+		if (loaded != null) {
+			return loaded;
+		}
+		final Map<ObjectId, MongoProvenance> ret =
+				new HashMap<ObjectId, MongoProvenance>();
+		final Set<ObjectId> query = new HashSet<ObjectId>();
+		for (final ObjectId id: ids) {
+			final CachedProvenance p = cache.getIfPresent(id);
+			if (p == null) {
+				query.add(id);
+			} else {
+				ret.put(id, p.prov);
+			}
+		}
+		if (!query.isEmpty()) {
+			try {
+				final long start = System.nanoTime();
+				final Iterable<CachedProvenance> provs = provCol
+						.find("{_id: {$in: #}}", query)
+						.map(new ResultHandler<CachedProvenance>() {
+
+							@Override
+							public CachedProvenance map(final DBObject o) {
+								final BsonDocument doc =
+										Bson.createDocument(o);
+								return new CachedProvenance(
+										UNMARSHALLER.unmarshall(
+												doc, MongoProvenance.class),
+										doc.getSize());
+							}
+						});
+				int count = 0;
+				for (final CachedProvenance p: provs) {
+					ret.put(p.prov.getMongoId(), p.prov);
+					cache.put(p.prov.getMongoId(), p);
+					count++;
+				}
+				profiler.record(provCol.getName(), new BasicDBObject(
+						Fields.MONGO_ID, new BasicDBObject("$in", query)),
+						null, start, count);
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database",
+						me);
+			}
+		}
+		loaded = ret;
+		return loaded;
+	}
+}
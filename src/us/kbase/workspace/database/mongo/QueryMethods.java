@@ -36,6 +36,7 @@ public class QueryMethods {
 	private final String objectCollection;
 	private final String versionCollection;
 	private final String workspaceACLCollection;
+	private final QueryProfiler profiler = new QueryProfiler();
 	
 	QueryMethods(
 			final DB wsmongo,
@@ -72,6 +73,10 @@ public class QueryMethods {
 	DB getDatabase() {
 		return wsmongo;
 	}
+	
+	QueryProfiler getProfiler() {
+		return profiler;
+	}
 
 	String getWorkspaceCollection() {
 		return workspaceCollection;
@@ -431,11 +436,13 @@ public class QueryMethods {
 		final List<Map<String, Object>> result =
 				new ArrayList<Map<String,Object>>();
 		try {
+			final long start = System.nanoTime();
 			final DBCursor im = queryCollectionCursor(
 					collection, query, fields, queryHint, limit);
 			for (final DBObject o: im) {
 				result.add(dbObjectToMap(o));
 			}
+			profiler.record(collection, query, im, start, result.size());
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -443,6 +450,9 @@ public class QueryMethods {
 		return result;
 	}
 	
+	/* callers that iterate the cursor should report the query to the
+	 * profiler when done
+	 */
 	DBCursor queryCollectionCursor(
 			final String collection,
 			final DBObject query,
@@ -518,15 +528,85 @@ public class QueryMethods {
 			final boolean excludeDeletedWorkspaces)
 			throws WorkspaceCommunicationException,
 			CorruptWorkspaceDBException {
-		final DBObject query = new BasicDBObject();
 		final Map<Long, ResolvedMongoWSID> idToWS =
 				new HashMap<Long, ResolvedMongoWSID>();
-		if (rwsis != null && rwsis.size() > 0) {
-			final Set<Long> wsids = new HashSet<Long>();
+		final Set<Long> wsids = new HashSet<Long>();
+		if (rwsis != null) {
 			for (final ResolvedMongoWSID r: rwsis) {
 				idToWS.put(r.getID(), r);
 				wsids.add(r.getID());
 			}
+		}
+		final Map<ResolvedMongoWSID, Map<User, Permission>> wsidToPerms =
+				queryPermissions(idToWS, wsids, users, minPerm,
+						excludeDeletedWorkspaces);
+		if (rwsis != null) {
+			for (ResolvedMongoWSID rwsi: rwsis) {
+				if (!wsidToPerms.containsKey(rwsi)) {
+					wsidToPerms.put(rwsi, new HashMap<User, Permission>());
+				}
+			}
+		}
+		return wsidToPerms;
+	}
+	
+	/* Get permissions for workspaces by their ids. Workspaces with no
+	 * permissions for the users are not included in the returned map.
+	 */
+	Map<ResolvedMongoWSID, Map<User, Permission>> queryPermissionsByID(
+			final Set<Long> wsids, final Set<User> users)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
+		return queryPermissions(new HashMap<Long, ResolvedMongoWSID>(),
+				wsids, users, Permission.NONE, false);
+	}
+	
+	/* Get the ids of the workspaces to which a user has at least minPerm
+	 * permission, in ascending order, starting with minWorkspaceID.
+	 */
+	List<Long> queryPermittedWorkspaceIDs(
+			final User user,
+			final Permission minPerm,
+			final long minWorkspaceID,
+			final int limit)
+			throws WorkspaceCommunicationException {
+		final DBObject query = new BasicDBObject();
+		query.put(Fields.ACL_USER, user.getUser());
+		query.put(Fields.ACL_WSID, new BasicDBObject("$gte", minWorkspaceID));
+		query.put(Fields.ACL_PERM, new BasicDBObject("$gte",
+				minPerm.getPermission()));
+		final DBObject proj = new BasicDBObject();
+		proj.put(Fields.MONGO_ID, 0);
+		proj.put(Fields.ACL_WSID, 1);
+		final List<Long> ret = new ArrayList<Long>();
+		try {
+			final long start = System.nanoTime();
+			final DBCursor res = wsmongo.getCollection(workspaceACLCollection)
+					.find(query, proj)
+					.sort(new BasicDBObject(Fields.ACL_WSID, 1))
+					.limit(limit);
+			for (final DBObject m: res) {
+				ret.add((Long) m.get(Fields.ACL_WSID));
+			}
+			profiler.record(workspaceACLCollection, query, res, start,
+					ret.size());
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return ret;
+	}
+	
+	private Map<ResolvedMongoWSID, Map<User, Permission>> queryPermissions(
+			final Map<Long, ResolvedMongoWSID> idToWS,
+			final Set<Long> wsids,
+			final Set<User> users,
+			final Permission minPerm,
+			final boolean excludeDeletedWorkspaces)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
+		final DBObject query = new BasicDBObject();
+		if (!wsids.isEmpty()) {
 			query.put(Fields.ACL_WSID, new BasicDBObject("$in", wsids));
 		}
 		if (users != null && users.size() > 0) {
@@ -551,9 +631,12 @@ public class QueryMethods {
 		final Map<Long, List<DBObject>> noWS =
 				new HashMap<Long, List<DBObject>>();
 		try {
+			final long start = System.nanoTime();
 			final DBCursor res = wsmongo.getCollection(workspaceACLCollection)
 					.find(query, proj);
+			int count = 0;
 			for (final DBObject m: res) {
+				count++;
 				final Long id = (Long) m.get(Fields.ACL_WSID);
 				if (!idToWS.containsKey(id)) {
 					if (!noWS.containsKey(id)) {
@@ -565,17 +648,11 @@ public class QueryMethods {
 					addPerm(wsidToPerms, m, wsid);
 				}
 			}
+			profiler.record(workspaceACLCollection, query, res, start, count);
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
-		if (rwsis != null) {
-			for (ResolvedMongoWSID rwsi: rwsis) {
-				if (!wsidToPerms.containsKey(rwsi)) {
-					wsidToPerms.put(rwsi, new HashMap<User, Permission>());
-				}
-			}
-		}
 		if (!noWS.isEmpty()) {
 			final Map<Long, Map<String, Object>> ws =
 					queryWorkspacesByID(noWS.keySet(), PROJ_WS_ID_NAME_LOCK_DEL,
@@ -0,0 +1,452 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/** Records the time taken and the number of documents returned by Mongo
+ * queries.
+ *
+ * Queries are grouped by collection, the shape of the query - the query
+ * with all the values removed, e.g. {ws: {$in: ?}, type: {$regex: ?}} - and
+ * the workspace operation that issued the query.
+ *
+ * Queries that take longer than the slow query threshold are logged, and
+ * the query plan is logged separately once the query has been explained.
+ * Queries are explained in a single background thread so that the request
+ * that issued the query isn't delayed further. Each query shape is explained
+ * at most once per window, and at most a few explanations may be waiting at
+ * once, to avoid doubling the load of an already slow query. The slowest
+ * queries in the window are kept in memory.
+ */
+public class QueryProfiler {
+
+	/** The default number of slow queries to keep. */
+	public static final int DEFAULT_TOP_N = 50;
+	/** The default window for keeping slow queries in milliseconds. */
+	public static final long DEFAULT_WINDOW = 60 * 60 * 1000;
+
+	private static final String UNKNOWN_OPERATION = "unknown";
+	private static final int MAX_QUERY_LENGTH = 1000;
+	private static final int MAX_WAITING_EXPLAINS = 10;
+
+	/** Provides the name of the operation, e.g. the API method, that the
+	 * current thread is processing.
+	 */
+	public interface OperationProvider {
+
+		/** Get the name of the current operation.
+		 * @return the name of the operation, or null if unknown.
+		 */
+		String getCurrentOperation();
+	}
+
+	private static class ShapeStats {
+		private final String collection;
+		private final String shape;
+		private final String operation;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLong docs = new AtomicLong();
+		private final AtomicLong slow = new AtomicLong();
+		private volatile long lastExplained = 0;
+
+		private ShapeStats(
+				final String collection,
+				final String shape,
+				final String operation) {
+			this.collection = collection;
+			this.shape = shape;
+			this.operation = operation;
+		}
+	}
+
+	private static class SlowQuery {
+		private final long time = System.currentTimeMillis();
+		private final String collection;
+		private final String shape;
+		private final String operation;
+		private final String query;
+		private final long nanos;
+		private final long docs;
+
+		private SlowQuery(
+				final ShapeStats stats,
+				final String query,
+				final long nanos,
+				final long docs) {
+			this.collection = stats.collection;
+			this.shape = stats.shape;
+			this.operation = stats.operation;
+			this.query = query;
+			this.nanos = nanos;
+			this.docs = docs;
+		}
+	}
+
+	private static final Comparator<SlowQuery> FASTEST_FIRST =
+			new Comparator<SlowQuery>() {
+
+		@Override
+		public int compare(final SlowQuery q1, final SlowQuery q2) {
+			return Long.compare(q1.nanos, q2.nanos);
+		}
+	};
+
+	private final int topN;
+	private final long window;
+	private final ConcurrentMap<String, ShapeStats> stats =
+			new ConcurrentHashMap<String, ShapeStats>();
+	private final PriorityQueue<SlowQuery> slowest;
+	private volatile long slowQueryThresholdNanos = 0;
+	private volatile OperationProvider opProvider = null;
+	// explanations are dropped if too many are waiting
+	private final ThreadPoolExecutor explainer = new ThreadPoolExecutor(
+			1, 1, 60, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<Runnable>(MAX_WAITING_EXPLAINS),
+			new ThreadFactory() {
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "ws-query-explain");
+					t.setDaemon(true);
+					return t;
+				}
+			},
+			new ThreadPoolExecutor.DiscardPolicy());
+
+	/** Create a profiler that keeps the {@link #DEFAULT_TOP_N} slowest
+	 * queries over the last {@link #DEFAULT_WINDOW} milliseconds.
+	 */
+	public QueryProfiler() {
+		this(DEFAULT_TOP_N, DEFAULT_WINDOW);
+	}
+
+	/** Create a profiler.
+	 * @param topN the number of slow queries to keep.
+	 * @param windowMillis the time in milliseconds after which slow queries
+	 * are discarded and query shapes may be explained again.
+	 */
+	public QueryProfiler(final int topN, final long windowMillis) {
+		if (topN < 1) {
+			throw new IllegalArgumentException("topN must be at least 1");
+		}
+		if (windowMillis < 1) {
+			throw new IllegalArgumentException("window must be at least 1");
+		}
+		this.topN = topN;
+		this.window = windowMillis;
+		slowest = new PriorityQueue<SlowQuery>(topN, FASTEST_FIRST);
+		explainer.allowCoreThreadTimeOut(true);
+	}
+
+	/** Set the threshold above which queries are logged and explained.
+	 * @param millis the threshold in milliseconds. 0 disables logging.
+	 */
+	public void setSlowQueryThresholdMillis(final long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("threshold must be at least 0");
+		}
+		slowQueryThresholdNanos = millis * 1000000;
+	}
+
+	/** Get the threshold above which queries are logged and explained.
+	 * @return the threshold in milliseconds, or 0 if logging is disabled.
+	 */
+	public long getSlowQueryThresholdMillis() {
+		return slowQueryThresholdNanos / 1000000;
+	}
+
+	/** Set the provider of the name of the operation that issues each query.
+	 * @param provider the provider, or null if the operation is unknown.
+	 */
+	public void setOperationProvider(final OperationProvider provider) {
+		opProvider = provider;
+	}
+
+	/** Record a completed query.
+	 * @param collection the collection that was queried.
+	 * @param query the query.
+	 * @param cursor the cursor used to run the query, used to explain the
+	 * query if it was slow. May be null.
+	 * @param startNanos the value of {@link System#nanoTime()} before the
+	 * query was issued.
+	 * @param docs the number of documents returned.
+	 */
+	public void record(
+			final String collection,
+			final DBObject query,
+			final DBCursor cursor,
+			final long startNanos,
+			final long docs) {
+		recordDuration(collection, query, cursor,
+				System.nanoTime() - startNanos, docs);
+	}
+
+	/** Record a completed query.
+	 * @param collection the collection that was queried.
+	 * @param query the query.
+	 * @param cursor the cursor used to run the query, used to explain the
+	 * query if it was slow. May be null.
+	 * @param nanos the time spent running the query and reading the results.
+	 * @param docs the number of documents returned.
+	 */
+	public void recordDuration(
+			final String collection,
+			final DBObject query,
+			final DBCursor cursor,
+			final long nanos,
+			final long docs) {
+		final String shape = getShape(query);
+		final String op = getOperation();
+		final String key = collection + " " + op + " " + shape;
+		ShapeStats s = stats.get(key);
+		if (s == null) {
+			final ShapeStats prev = stats.putIfAbsent(
+					key, new ShapeStats(collection, shape, op));
+			s = prev == null ? stats.get(key) : prev;
+		}
+		s.count.incrementAndGet();
+		s.totalNanos.addAndGet(nanos);
+		s.docs.addAndGet(docs);
+		long max = s.maxNanos.get();
+		while (nanos > max && !s.maxNanos.compareAndSet(max, nanos)) {
+			max = s.maxNanos.get();
+		}
+		offer(s, query, nanos, docs);
+		final long threshold = slowQueryThresholdNanos;
+		if (threshold > 0 && nanos > threshold) {
+			s.slow.incrementAndGet();
+			logSlowQuery(s, query, cursor, nanos, docs);
+		}
+	}
+
+	private String getOperation() {
+		final OperationProvider p = opProvider;
+		if (p == null) {
+			return UNKNOWN_OPERATION;
+		}
+		try {
+			final String op = p.getCurrentOperation();
+			return op == null ? UNKNOWN_OPERATION : op;
+		} catch (RuntimeException e) {
+			return UNKNOWN_OPERATION;
+		}
+	}
+
+	private void offer(
+			final ShapeStats s,
+			final DBObject query,
+			final long nanos,
+			final long docs) {
+		synchronized (slowest) {
+			evictExpired();
+			if (slowest.size() >= topN) {
+				if (slowest.peek().nanos >= nanos) {
+					return;
+				}
+				slowest.poll();
+			}
+			slowest.add(new SlowQuery(s, truncate(query), nanos, docs));
+		}
+	}
+
+	// must hold the slowest lock
+	private void evictExpired() {
+		final long oldest = System.currentTimeMillis() - window;
+		final Iterator<SlowQuery> i = slowest.iterator();
+		while (i.hasNext()) {
+			if (i.next().time < oldest) {
+				i.remove();
+			}
+		}
+	}
+
+	private void logSlowQuery(
+			final ShapeStats s,
+			final DBObject query,
+			final DBCursor cursor,
+			final long nanos,
+			final long docs) {
+		final String q = truncate(query);
+		LoggerFactory.getLogger(getClass()).warn(String.format(
+				"Slow query: %s ms, %s docs, collection %s, operation %s, query %s",
+				nanos / 1000000, docs, s.collection, s.operation, q));
+		final long now = System.currentTimeMillis();
+		if (cursor != null && now - s.lastExplained > window) {
+			s.lastExplained = now;
+			final DBCursor copy = cursor.copy();
+			explainer.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					String plan;
+					try {
+						plan = copy.explain().toString();
+					} catch (MongoException | IllegalArgumentException e) {
+						plan = "Could not explain query: " + e.getMessage();
+					} finally {
+						copy.close();
+					}
+					LoggerFactory.getLogger(QueryProfiler.class).warn(
+							String.format(
+							"Slow query plan: collection %s, operation %s, query %s, plan %s",
+							s.collection, s.operation, q, plan));
+				}
+			});
+		}
+	}
+
+	private static String truncate(final DBObject query) {
+		final String q = String.valueOf(query);
+		if (q.length() <= MAX_QUERY_LENGTH) {
+			return q;
+		}
+		return q.substring(0, MAX_QUERY_LENGTH) + "...";
+	}
+
+	/** Get the shape of a query. Field names and operators are retained and
+	 * all values are replaced by ?. Lists of subqueries, for example the
+	 * arguments of $and, are replaced by the shape of each subquery.
+	 * @param query the query.
+	 * @return the shape of the query.
+	 */
+	public static String getShape(final Object query) {
+		final StringBuilder sb = new StringBuilder();
+		appendShape(sb, query);
+		return sb.toString();
+	}
+
+	private static void appendShape(final StringBuilder sb, final Object o) {
+		if (o instanceof List) {
+			sb.append("[");
+			boolean first = true;
+			for (final Object e: (List<?>) o) {
+				if (!first) {
+					sb.append(", ");
+				}
+				first = false;
+				appendShape(sb, e);
+			}
+			sb.append("]");
+		} else if (o instanceof DBObject || o instanceof Map) {
+			final Map<?, ?> m = o instanceof DBObject ?
+					((DBObject) o).toMap() : (Map<?, ?>) o;
+			sb.append("{");
+			boolean first = true;
+			for (final Map.Entry<?, ?> e: m.entrySet()) {
+				if (!first) {
+					sb.append(", ");
+				}
+				first = false;
+				final String key = String.valueOf(e.getKey());
+				sb.append(key).append(": ");
+				final Object v = e.getValue();
+				if (v instanceof List && !isLogicalOperator(key)) {
+					// a list of values, e.g. the argument to $in
+					sb.append("?");
+				} else {
+					appendShape(sb, v);
+				}
+			}
+			sb.append("}");
+		} else {
+			sb.append("?");
+		}
+	}
+
+	private static boolean isLogicalOperator(final String key) {
+		return "$and".equals(key) || "$or".equals(key) || "$nor".equals(key);
+	}
+
+	/** Get the slowest queries recorded in the current window, slowest
+	 * first.
+	 * @return the queries as maps suitable for serializing to JSON.
+	 */
+	public List<Map<String, Object>> getSlowestQueries() {
+		final List<SlowQuery> qs;
+		synchronized (slowest) {
+			evictExpired();
+			qs = new ArrayList<SlowQuery>(slowest);
+		}
+		Collections.sort(qs, Collections.reverseOrder(FASTEST_FIRST));
+		final List<Map<String, Object>> ret =
+				new ArrayList<Map<String, Object>>();
+		for (final SlowQuery q: qs) {
+			final Map<String, Object> m = new LinkedHashMap<String, Object>();
+			m.put("time", q.time);
+			m.put("collection", q.collection);
+			m.put("operation", q.operation);
+			m.put("shape", q.shape);
+			m.put("query", q.query);
+			m.put("ms", q.nanos / 1000000.0);
+			m.put("docs", q.docs);
+			ret.add(m);
+		}
+		return ret;
+	}
+
+	/** Get the statistics for each query shape, ordered by the total time
+	 * spent on queries with that shape, highest first.
+	 * @param limit the maximum number of shapes to return.
+	 * @return the statistics as maps suitable for serializing to JSON.
+	 */
+	public List<Map<String, Object>> getShapeStatistics(final int limit) {
+		final List<ShapeStats> ss = new ArrayList<ShapeStats>(stats.values());
+		Collections.sort(ss, new Comparator<ShapeStats>() {
+
+			@Override
+			public int compare(final ShapeStats s1, final ShapeStats s2) {
+				return Long.compare(s2.totalNanos.get(), s1.totalNanos.get());
+			}
+		});
+		final List<Map<String, Object>> ret =
+				new ArrayList<Map<String, Object>>();
+		for (final ShapeStats s: ss) {
+			if (ret.size() >= limit) {
+				break;
+			}
+			final long count = s.count.get();
+			final Map<String, Object> m = new LinkedHashMap<String, Object>();
+			m.put("collection", s.collection);
+			m.put("operation", s.operation);
+			m.put("shape", s.shape);
+			m.put("count", count);
+			m.put("slow", s.slow.get());
+			m.put("total_ms", s.totalNanos.get() / 1000000.0);
+			m.put("mean_ms", count == 0 ? 0.0 :
+				s.totalNanos.get() / 1000000.0 / count);
+			m.put("max_ms", s.maxNanos.get() / 1000000.0);
+			m.put("docs", s.docs.get());
+			ret.add(m);
+		}
+		return ret;
+	}
+
+	/** Discard all the recorded statistics and slow queries. */
+	public void reset() {
+		stats.clear();
+		synchronized (slowest) {
+			slowest.clear();
+		}
+	}
+}
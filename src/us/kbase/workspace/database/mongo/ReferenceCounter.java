@@ -0,0 +1,141 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.common.utils.Counter;
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Accumulates increments to the reference counts of object versions and
+ * writes them to the workspace objects collection in bulk.
+ *
+ * Each referenced object receives a single $inc covering all of its
+ * referenced versions, and the updates are sent in unordered bulk writes of
+ * bounded size. Counts are only written when {@link #flush()} is called or
+ * when the number of referenced objects with pending counts exceeds the
+ * maximum, so callers copying many objects can count references for all of
+ * them and write the counts once.
+ */
+class ReferenceCounter {
+
+	//TODO GC when garbage collection working much more testing of this class
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int MAX_PENDING = 100000;
+
+	private final DBCollection objCol;
+	// ws id -> obj id -> version -> count
+	private Map<Long, Map<Long, Map<Integer, Counter>>> counts =
+			new HashMap<Long, Map<Long, Map<Integer, Counter>>>();
+	private int pending = 0;
+
+	/** Create a reference counter.
+	 * @param objectCollection the workspace objects collection.
+	 */
+	ReferenceCounter(final DBCollection objectCollection) {
+		objCol = objectCollection;
+	}
+
+	/** Count the references from one object version. Each referenced version
+	 * is counted once, regardless of how many times it occurs in the input.
+	 * @param refs the references from the object version.
+	 * @throws WorkspaceCommunicationException if the pending counts exceed
+	 * the maximum and writing them to the database fails.
+	 */
+	void count(final Collection<Reference> refs)
+			throws WorkspaceCommunicationException {
+		for (final Reference r: new HashSet<Reference>(refs)) {
+			if (!counts.containsKey(r.getWorkspaceID())) {
+				counts.put(r.getWorkspaceID(),
+						new HashMap<Long, Map<Integer, Counter>>());
+			}
+			final Map<Long, Map<Integer, Counter>> objs =
+					counts.get(r.getWorkspaceID());
+			if (!objs.containsKey(r.getObjectID())) {
+				objs.put(r.getObjectID(), new HashMap<Integer, Counter>());
+				pending++;
+			}
+			final Map<Integer, Counter> vers = objs.get(r.getObjectID());
+			if (!vers.containsKey(r.getVersion())) {
+				vers.put(r.getVersion(), new Counter());
+			}
+			vers.get(r.getVersion()).increment();
+		}
+		if (pending >= MAX_PENDING) {
+			flush();
+		}
+	}
+
+	/** Count the references from one object version as stored in the
+	 * versions collection.
+	 * @param objrefs the object references from the version.
+	 * @param provrefs the provenance references from the version.
+	 * @throws WorkspaceCommunicationException if the pending counts exceed
+	 * the maximum and writing them to the database fails.
+	 */
+	void count(final List<String> objrefs, final List<String> provrefs)
+			throws WorkspaceCommunicationException {
+		final Set<Reference> refs = new HashSet<Reference>();
+		for (final String s: objrefs) {
+			refs.add(new Reference(s));
+		}
+		for (final String s: provrefs) {
+			refs.add(new Reference(s));
+		}
+		count(refs);
+	}
+
+	/** Write the pending reference counts to the database.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	void flush() throws WorkspaceCommunicationException {
+		final Map<Long, Map<Long, Map<Integer, Counter>>> c = counts;
+		counts = new HashMap<Long, Map<Long, Map<Integer, Counter>>>();
+		pending = 0;
+		BulkWriteOperation bulk = null;
+		int batch = 0;
+		try {
+			for (final Long ws: c.keySet()) {
+				for (final Long obj: c.get(ws).keySet()) {
+					final DBObject inc = new BasicDBObject();
+					final Map<Integer, Counter> vers = c.get(ws).get(obj);
+					for (final Integer ver: vers.keySet()) {
+						inc.put(Fields.OBJ_REFCOUNTS + "." + (ver - 1),
+								vers.get(ver).getValue());
+					}
+					final DBObject query = new BasicDBObject(
+							Fields.OBJ_WS_ID, ws);
+					query.put(Fields.OBJ_ID, obj);
+					if (bulk == null) {
+						bulk = objCol.initializeUnorderedBulkOperation();
+					}
+					bulk.find(query).updateOne(
+							new BasicDBObject("$inc", inc));
+					if (++batch >= BATCH_SIZE) {
+						bulk.execute();
+						bulk = null;
+						batch = 0;
+					}
+				}
+			}
+			if (bulk != null) {
+				bulk.execute();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+}
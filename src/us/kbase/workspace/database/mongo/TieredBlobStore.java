@@ -0,0 +1,519 @@
+package us.kbase.workspace.database.mongo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.input.ReaderInputStream;
+import org.slf4j.LoggerFactory;
+
+import us.kbase.typedobj.core.MD5;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.DependencyStatus;
+import us.kbase.workspace.database.exceptions.FileCacheIOException;
+import us.kbase.workspace.database.exceptions.FileCacheLimitExceededException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreException;
+import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
+import us.kbase.workspace.metrics.WorkspaceMetrics;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/** A blob store that keeps frequently read blobs in a hot tier and moves
+ * blobs that have not been read for a while to a cheaper cold tier.
+ *
+ * New blobs are always saved to the hot tier. Reads are counted in memory
+ * and periodically written to an access collection that records, per blob,
+ * the tier the blob is in, the time it was last read, and the number of
+ * reads since it last moved. A background mover demotes blobs that have not
+ * been read within the demotion age and promotes cold blobs that have been
+ * read at least the promotion number of times.
+ *
+ * getBlob() always checks the hot tier first and then the cold tier, so
+ * blobs are readable while they are being moved, and blobs saved before
+ * tiering was enabled are found in the hot tier. Such blobs are not tracked,
+ * and therefore cannot be demoted, until they are first read.
+ *
+ * Before moving a blob, the mover claims it in the access collection so
+ * that several servers can run movers against the same database. A
+ * demotion is abandoned if the blob is read while it is being copied. Reads
+ * on this server are seen whether or not they have been flushed, but reads
+ * on other servers are only seen once they have been flushed to the access
+ * collection.
+ */
+public class TieredBlobStore implements BlobStore {
+
+	public static final String TIER_HOT = "hot";
+	public static final String TIER_COLD = "cold";
+
+	private static final String IDX_UNIQ = "unique";
+	// claims older than this are assumed to be from a mover that died
+	private static final long STALE_CLAIM_MS = 24 * 60 * 60 * 1000L;
+	private static final int COPY_MEM = 16000000;
+
+	private final DBCollection accessCol;
+	private final BlobStore hot;
+	private final BlobStore cold;
+	private final TempFilesManager tfm;
+
+	private long demoteAfterMillis = 180L * 24 * 60 * 60 * 1000;
+	private int promoteReads = 3;
+
+	// md5 -> number of reads since the last flush
+	private Map<String, Integer> pendingReads = new HashMap<String, Integer>();
+	private ScheduledExecutorService mover = null;
+
+	/** Create a tiered blob store.
+	 * @param accessCollection the collection in which to record blob
+	 * accesses.
+	 * @param hot the blob store for frequently read blobs.
+	 * @param cold the blob store for rarely read blobs.
+	 * @param tfm the temporary file manager to use when moving blobs between
+	 * tiers.
+	 */
+	public TieredBlobStore(
+			final DBCollection accessCollection,
+			final BlobStore hot,
+			final BlobStore cold,
+			final TempFilesManager tfm) {
+		if (accessCollection == null || hot == null || cold == null ||
+				tfm == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		this.accessCol = accessCollection;
+		this.hot = hot;
+		this.cold = cold;
+		this.tfm = tfm;
+		final DBObject opts = new BasicDBObject();
+		opts.put(IDX_UNIQ, 1);
+		accessCol.createIndex(new BasicDBObject(Fields.TIER_CHKSUM, 1), opts);
+		final DBObject idx = new BasicDBObject();
+		idx.put(Fields.TIER_TIER, 1);
+		idx.put(Fields.TIER_LAST, 1);
+		accessCol.createIndex(idx);
+	}
+
+	/** Set how long a blob in the hot tier may go unread before it is moved
+	 * to the cold tier. The default is 180 days.
+	 * @param millis the demotion age in milliseconds.
+	 */
+	public void setDemoteAfterMillis(final long millis) {
+		if (millis < 1) {
+			throw new IllegalArgumentException(
+					"The demotion age must be at least 1 ms");
+		}
+		demoteAfterMillis = millis;
+	}
+
+	/** Set how many times a blob in the cold tier must be read before it is
+	 * moved to the hot tier. The default is 3.
+	 * @param reads the number of reads.
+	 */
+	public void setPromoteReads(final int reads) {
+		if (reads < 1) {
+			throw new IllegalArgumentException(
+					"The number of reads to promote a blob must be at least 1");
+		}
+		promoteReads = reads;
+	}
+
+	/** Start the background mover. Reads are written to the access
+	 * collection every flushIntervalMillis and blobs are moved between tiers
+	 * every moveIntervalMillis.
+	 * @param flushIntervalMillis the interval between writing reads to the
+	 * database.
+	 * @param moveIntervalMillis the interval between moving blobs.
+	 */
+	public synchronized void start(
+			final long flushIntervalMillis,
+			final long moveIntervalMillis) {
+		if (mover != null) {
+			throw new IllegalStateException("The mover is already running");
+		}
+		mover = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "ws-blob-tier-mover");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		mover.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					flushReads();
+				} catch (Throwable e) {
+					LoggerFactory.getLogger(getClass()).error(
+							"Failed to record blob reads", e);
+				}
+			}
+		}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+		mover.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					moveBlobs();
+				} catch (Throwable e) {
+					LoggerFactory.getLogger(getClass()).error(
+							"Failed to move blobs between tiers", e);
+				}
+			}
+		}, moveIntervalMillis, moveIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** Stop the background mover and write any pending reads to the
+	 * database.
+	 * @throws BlobStoreCommunicationException if the reads could not be
+	 * written.
+	 */
+	public void stop() throws BlobStoreCommunicationException {
+		synchronized (this) {
+			if (mover != null) {
+				mover.shutdownNow();
+				mover = null;
+			}
+		}
+		flushReads();
+	}
+
+	@Override
+	public void saveBlob(final MD5 md5, final InputStream data,
+			final boolean sorted)
+			throws BlobStoreAuthorizationException,
+			BlobStoreCommunicationException {
+		if (md5 == null || data == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		if (getAccess(md5) != null) {
+			return; // already saved in one of the tiers
+		}
+		hot.saveBlob(md5, data, sorted);
+		final DBObject ins = new BasicDBObject();
+		ins.put(Fields.TIER_TIER, TIER_HOT);
+		ins.put(Fields.TIER_LAST, new Date());
+		ins.put(Fields.TIER_READS, 0);
+		try {
+			accessCol.update(new BasicDBObject(Fields.TIER_CHKSUM, md5.getMD5()),
+					new BasicDBObject("$setOnInsert", ins), true, false);
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the mongo database", me);
+		}
+	}
+
+	private DBObject getAccess(final MD5 md5)
+			throws BlobStoreCommunicationException {
+		try {
+			return accessCol.findOne(
+					new BasicDBObject(Fields.TIER_CHKSUM, md5.getMD5()));
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+	}
+
+	@Override
+	public ByteArrayFileCache getBlob(final MD5 md5,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreAuthorizationException,
+			BlobStoreCommunicationException, NoSuchBlobException,
+			FileCacheLimitExceededException, FileCacheIOException {
+		ByteArrayFileCache ret;
+		try {
+			ret = hot.getBlob(md5, bafcMan);
+		} catch (NoSuchBlobException e) {
+			ret = cold.getBlob(md5, bafcMan);
+		}
+		recordRead(md5);
+		return ret;
+	}
+
+	private synchronized void recordRead(final MD5 md5) {
+		final Integer count = pendingReads.get(md5.getMD5());
+		pendingReads.put(md5.getMD5(), count == null ? 1 : count + 1);
+	}
+
+	private synchronized boolean hasPendingRead(final MD5 md5) {
+		return pendingReads.containsKey(md5.getMD5());
+	}
+
+	/** Write the reads recorded since the last flush to the access
+	 * collection.
+	 * @throws BlobStoreCommunicationException if the reads could not be
+	 * written.
+	 */
+	public void flushReads() throws BlobStoreCommunicationException {
+		final Map<String, Integer> reads;
+		synchronized (this) {
+			if (pendingReads.isEmpty()) {
+				return;
+			}
+			reads = pendingReads;
+			pendingReads = new HashMap<String, Integer>();
+		}
+		final Date now = new Date();
+		final BulkWriteOperation bulk =
+				accessCol.initializeUnorderedBulkOperation();
+		for (final String md5: reads.keySet()) {
+			final DBObject upd = new BasicDBObject();
+			upd.put("$set", new BasicDBObject(Fields.TIER_LAST, now));
+			upd.put("$inc", new BasicDBObject(Fields.TIER_READS,
+					reads.get(md5)));
+			// untracked blobs were saved before tiering was enabled
+			upd.put("$setOnInsert", new BasicDBObject(
+					Fields.TIER_TIER, TIER_HOT));
+			bulk.find(new BasicDBObject(Fields.TIER_CHKSUM, md5)).upsert()
+					.updateOne(upd);
+		}
+		try {
+			bulk.execute();
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the mongo database", me);
+		}
+	}
+
+	/** Move blobs between tiers. Blobs in the hot tier that have not been
+	 * read within the demotion age are moved to the cold tier, and blobs in
+	 * the cold tier that have been read at least the promotion number of
+	 * times are moved to the hot tier. Failures to move individual blobs are
+	 * logged and skipped.
+	 * @return a map containing the number of blobs demoted, promoted, and
+	 * that failed to move.
+	 * @throws BlobStoreCommunicationException if the access collection
+	 * could not be read.
+	 */
+	public Map<String, Integer> moveBlobs()
+			throws BlobStoreCommunicationException {
+		flushReads();
+		final Date cutoff = new Date(
+				System.currentTimeMillis() - demoteAfterMillis);
+		final DBObject demoteq = new BasicDBObject();
+		demoteq.put(Fields.TIER_TIER, TIER_HOT);
+		demoteq.put(Fields.TIER_LAST, new BasicDBObject("$lt", cutoff));
+		final DBObject promoteq = new BasicDBObject();
+		promoteq.put(Fields.TIER_TIER, TIER_COLD);
+		promoteq.put(Fields.TIER_READS,
+				new BasicDBObject("$gte", promoteReads));
+		final int[] failed = {0};
+		final int demoted = move(demoteq, hot, cold, TIER_COLD, failed);
+		final int promoted = move(promoteq, cold, hot, TIER_HOT, failed);
+		final Map<String, Integer> ret = new HashMap<String, Integer>();
+		ret.put("demoted", demoted);
+		ret.put("promoted", promoted);
+		ret.put("failed", failed[0]);
+		return ret;
+	}
+
+	private int move(
+			final DBObject query,
+			final BlobStore from,
+			final BlobStore to,
+			final String toTier,
+			final int[] failed)
+			throws BlobStoreCommunicationException {
+		final List<String> md5s = new LinkedList<String>();
+		try {
+			final DBCursor cur = accessCol.find(query,
+					new BasicDBObject(Fields.TIER_CHKSUM, 1));
+			for (final DBObject o: cur) {
+				md5s.add((String) o.get(Fields.TIER_CHKSUM));
+			}
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		int moved = 0;
+		for (final String md5: md5s) {
+			try {
+				if (move(new MD5(md5), query, from, to, toTier)) {
+					moved++;
+					WorkspaceMetrics.blobTierMoved(toTier);
+				}
+			} catch (Exception e) {
+				failed[0]++;
+				LoggerFactory.getLogger(getClass()).error(String.format(
+						"Failed to move blob %s to the %s tier", md5, toTier),
+						e);
+			}
+		}
+		return moved;
+	}
+
+	private boolean move(
+			final MD5 md5,
+			final DBObject query,
+			final BlobStore from,
+			final BlobStore to,
+			final String toTier)
+			throws BlobStoreException, FileCacheIOException,
+			FileCacheLimitExceededException, IOException {
+		final Date claim = new Date();
+		final DBObject claimq = new BasicDBObject(query.toMap());
+		claimq.put(Fields.TIER_CHKSUM, md5.getMD5());
+		final List<DBObject> unclaimed = new LinkedList<DBObject>();
+		unclaimed.add(new BasicDBObject(Fields.TIER_MOVING,
+				new BasicDBObject("$exists", false)));
+		unclaimed.add(new BasicDBObject(Fields.TIER_MOVING,
+				new BasicDBObject("$lt", new Date(
+						claim.getTime() - STALE_CLAIM_MS))));
+		claimq.put("$or", unclaimed);
+		if (update(claimq, new BasicDBObject("$set",
+				new BasicDBObject(Fields.TIER_MOVING, claim))) < 1) {
+			return false; // read since the query, or another mover has it
+		}
+		final DBObject doneq = new BasicDBObject(query.toMap());
+		doneq.put(Fields.TIER_CHKSUM, md5.getMD5());
+		doneq.put(Fields.TIER_MOVING, claim);
+		final DBObject done = new BasicDBObject();
+		done.put(Fields.TIER_TIER, toTier);
+		done.put(Fields.TIER_READS, 0);
+		done.put(Fields.TIER_LAST, new Date());
+		final DBObject doneupd = new BasicDBObject("$set", done);
+		doneupd.put("$unset", new BasicDBObject(Fields.TIER_MOVING, ""));
+		boolean complete = false;
+		try {
+			copy(md5, from, to);
+			// the query fails if the blob was read during a demotion, but
+			// reads that haven't been flushed yet have to be checked here
+			if (!TIER_COLD.equals(toTier) || !hasPendingRead(md5)) {
+				complete = update(doneq, doneupd) > 0;
+			}
+		} finally {
+			// if the claim can't be released the move may have completed
+			// after all, so leave the copy in place
+			if (!complete && update(new BasicDBObject(
+					Fields.TIER_CHKSUM, md5.getMD5())
+						.append(Fields.TIER_MOVING, claim),
+					new BasicDBObject("$unset", new BasicDBObject(
+							Fields.TIER_MOVING, ""))) > 0) {
+				to.removeBlob(md5);
+			}
+		}
+		if (complete) {
+			from.removeBlob(md5);
+		}
+		return complete;
+	}
+
+	private int update(final DBObject query, final DBObject update)
+			throws BlobStoreCommunicationException {
+		try {
+			return accessCol.update(query, update).getN();
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the mongo database", me);
+		}
+	}
+
+	private void copy(final MD5 md5, final BlobStore from, final BlobStore to)
+			throws BlobStoreException, FileCacheIOException,
+			FileCacheLimitExceededException, IOException {
+		final ByteArrayFileCache bafc = from.getBlob(md5,
+				new ByteArrayFileCacheManager(COPY_MEM, Long.MAX_VALUE, tfm));
+		try {
+			final MessageDigest digest = getMD5Digest();
+			try (final InputStream is = new DigestInputStream(
+					new ReaderInputStream(bafc.getJSON(),
+							StandardCharsets.UTF_8), digest)) {
+				to.saveBlob(md5, is, bafc.isSorted());
+				// the target store doesn't read the data if it already
+				// has the blob
+				final byte[] buf = new byte[100000];
+				while (is.read(buf) > -1) {
+					// just calculate the digest
+				}
+			}
+			if (!md5.getMD5().equals(toHex(digest.digest()))) {
+				throw new IOException(String.format(
+						"The data for blob %s does not match its MD5",
+						md5.getMD5()));
+			}
+		} finally {
+			bafc.destroy();
+		}
+	}
+
+	private static MessageDigest getMD5Digest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new RuntimeException("There definitely should be an MD5 " +
+					"digester", nsae);
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder sb = new StringBuilder();
+		for (final byte b: bytes) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void removeBlob(final MD5 md5)
+			throws BlobStoreAuthorizationException,
+			BlobStoreCommunicationException {
+		synchronized (this) {
+			pendingReads.remove(md5.getMD5());
+		}
+		hot.removeBlob(md5);
+		cold.removeBlob(md5);
+		try {
+			accessCol.remove(
+					new BasicDBObject(Fields.TIER_CHKSUM, md5.getMD5()));
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not write to the mongo database", me);
+		}
+	}
+
+	@Override
+	public String getExternalIdentifier(final MD5 md5)
+			throws BlobStoreCommunicationException, NoSuchBlobException {
+		try {
+			return hot.getExternalIdentifier(md5);
+		} catch (NoSuchBlobException e) {
+			return cold.getExternalIdentifier(md5);
+		}
+	}
+
+	@Override
+	public String getStoreType() {
+		return hot.getStoreType() + " with " + cold.getStoreType() +
+				" cold storage";
+	}
+
+	@Override
+	public List<DependencyStatus> status() {
+		final List<DependencyStatus> ret = new LinkedList<DependencyStatus>();
+		ret.addAll(hot.status());
+		ret.addAll(cold.status());
+		return ret;
+	}
+}
@@ -0,0 +1,902 @@
+package us.kbase.workspace.database.mongo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bson.BasicBSONEncoder;
+import org.bson.types.ObjectId;
+import org.slf4j.LoggerFactory;
+
+import us.kbase.typedobj.core.MD5;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.FileCacheIOException;
+import us.kbase.workspace.database.exceptions.FileCacheLimitExceededException;
+import us.kbase.workspace.database.exceptions.NoSuchWorkspaceException;
+import us.kbase.workspace.database.exceptions.PreExistingWorkspaceException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
+import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBDecoder;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.MongoException;
+
+/** Exports workspaces to, and imports workspaces from, portable archives.
+ *
+ * An archive is a directory containing the workspace's documents from each of
+ * the workspace collections as BSON files, the same format that mongodump
+ * produces, and a content addressed blobs directory containing the raw JSON
+ * of each object version's data. The manifest, written last, records the
+ * archive format and the number of items of each type.
+ *
+ * Blobs are read from and written to the blob store in parallel. On import
+ * blobs are checked against their MD5s and saved as is, without validating or
+ * sorting the data again. The workspace, object, and version IDs are
+ * preserved so that references within the workspace remain valid, which means
+ * that a workspace cannot be imported into a database where its ID or name is
+ * already in use. References to objects in other workspaces must resolve to
+ * existing object versions in the importing database or the import is
+ * rejected before any data is written.
+ *
+ * Reference counts are recalculated from the imported versions rather than
+ * copied, since references to the workspace from other workspaces in the
+ * source database do not exist in the importing database. Exporting a
+ * workspace that is being modified may produce an archive with partially
+ * saved objects.
+ *
+ * A failed import leaves the workspace invisible, since the workspace document
+ * is written before the counts of references to other workspaces but after
+ * everything else, and may be retried. If the import fails after the
+ * workspace document is written the counts of references to other workspaces
+ * may be too low.
+ */
+public class WorkspaceArchiver {
+
+	public static final String FORMAT = "kbase-workspace-archive";
+	public static final int FORMAT_VERSION = 1;
+
+	public static final String MANIFEST = "manifest.json";
+	public static final String BLOB_DIR = "blobs";
+
+	private static final String WORKSPACE_FILE = "workspace.bson";
+	private static final String ACL_FILE = "acls.bson";
+	private static final String OBJECT_FILE = "objects.bson";
+	private static final String VERSION_FILE = "versions.bson";
+	private static final String PROVENANCE_FILE = "provenance.bson";
+	private static final String BLOB_FILE = "blobs.bson";
+
+	private static final String BLOB_MD5 = Fields.MONGO_ID;
+	private static final String BLOB_SIZE = "size";
+	private static final String BLOB_SORTED = "sorted";
+
+	private static final String MAN_FORMAT = "format";
+	private static final String MAN_VERSION = "version";
+	private static final String MAN_WSID = "ws";
+	private static final String MAN_NAME = "name";
+	private static final String MAN_DATE = "exported";
+	private static final String MAN_ACLS = "acls";
+	private static final String MAN_OBJECTS = "objects";
+	private static final String MAN_VERSIONS = "versions";
+	private static final String MAN_PROVENANCE = "provenance";
+	private static final String MAN_BLOBS = "blobs";
+	private static final String MAN_BLOB_BYTES = "blob_bytes";
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int MAX_REPORTED_REFS = 20;
+	private static final int BLOB_MEM = 16 * 1024 * 1024;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final DB wsmongo;
+	private final BlobStore blob;
+	private final TempFilesManager tfm;
+	private final int threads;
+
+	/** Create an archiver.
+	 * @param workspaceDB the workspace database.
+	 * @param blobStore the blob store containing the workspace object data.
+	 * @param tfm the temporary files manager.
+	 * @param threads the number of blobs to transfer at once.
+	 */
+	public WorkspaceArchiver(
+			final DB workspaceDB,
+			final BlobStore blobStore,
+			final TempFilesManager tfm,
+			final int threads) {
+		if (workspaceDB == null || blobStore == null || tfm == null) {
+			throw new NullPointerException("No arguments can be null");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+		this.wsmongo = workspaceDB;
+		this.blob = blobStore;
+		this.tfm = tfm;
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/** Export a workspace, deleted or not, to an archive.
+	 * @param wsi the workspace to export.
+	 * @param dir the directory in which to write the archive. The directory
+	 * must not exist.
+	 * @return the manifest of the archive.
+	 * @throws NoSuchWorkspaceException if the workspace does not exist.
+	 * @throws WorkspaceCommunicationException if a communication error occurs
+	 * with the database or the blob store.
+	 * @throws CorruptWorkspaceDBException if provenance or data for an object
+	 * version is missing or the data does not match its MD5.
+	 * @throws IOException if the archive could not be written.
+	 */
+	public Map<String, Object> exportWorkspace(
+			final WorkspaceIdentifier wsi,
+			final File dir)
+			throws NoSuchWorkspaceException, WorkspaceCommunicationException,
+			CorruptWorkspaceDBException, IOException {
+		if (wsi == null || dir == null) {
+			throw new NullPointerException("No arguments can be null");
+		}
+		final DBObject ws = getWorkspace(wsi);
+		if (dir.exists()) {
+			throw new IllegalArgumentException(
+					"Archive directory already exists: " + dir);
+		}
+		if (!dir.mkdirs()) {
+			throw new IOException("Could not create archive directory " + dir);
+		}
+		final long wsid = (Long) ws.get(Fields.WS_ID);
+		final String name = (String) ws.get(Fields.WS_NAME);
+		final Map<String, Object> man = new LinkedHashMap<String, Object>();
+		man.put(MAN_FORMAT, FORMAT);
+		man.put(MAN_VERSION, FORMAT_VERSION);
+		man.put(MAN_WSID, wsid);
+		man.put(MAN_NAME, name);
+		man.put(MAN_DATE, new Date().getTime());
+		getLogger().info("Exporting workspace {} ({}) to {}", wsid, name, dir);
+
+		try (final BSONWriter w = new BSONWriter(
+				new File(dir, WORKSPACE_FILE))) {
+			w.write(ws);
+		}
+		man.put(MAN_ACLS, exportCollection(
+				CollectionNames.COL_WS_ACLS,
+				new BasicDBObject(Fields.ACL_WSID, wsid),
+				new File(dir, ACL_FILE), null));
+		man.put(MAN_OBJECTS, exportCollection(
+				CollectionNames.COL_WORKSPACE_OBJS,
+				new BasicDBObject(Fields.OBJ_WS_ID, wsid),
+				new File(dir, OBJECT_FILE), null));
+		final Set<ObjectId> provids = new HashSet<ObjectId>();
+		final Set<String> md5s = new HashSet<String>();
+		man.put(MAN_VERSIONS, exportCollection(
+				CollectionNames.COL_WORKSPACE_VERS,
+				new BasicDBObject(Fields.VER_WS_ID, wsid),
+				new File(dir, VERSION_FILE),
+				new VersionCallback() {
+
+					@Override
+					public void version(final DBObject v) {
+						if (v.get(Fields.VER_PROV) != null) {
+							provids.add((ObjectId) v.get(Fields.VER_PROV));
+						}
+						md5s.add((String) v.get(Fields.VER_CHKSUM));
+					}
+				}));
+		man.put(MAN_PROVENANCE, exportProvenance(
+				provids, new File(dir, PROVENANCE_FILE)));
+		provids.clear();
+
+		final File blobdir = new File(dir, BLOB_DIR);
+		final List<Callable<DBObject>> tasks =
+				new LinkedList<Callable<DBObject>>();
+		for (final String md5: md5s) {
+			tasks.add(new Callable<DBObject>() {
+
+				@Override
+				public DBObject call() throws Exception {
+					return exportBlob(new MD5(md5), blobdir);
+				}
+			});
+		}
+		md5s.clear();
+		long bytes = 0;
+		try (final BSONWriter w = new BSONWriter(new File(dir, BLOB_FILE))) {
+			for (final DBObject b: runAll(tasks)) {
+				w.write(b);
+				bytes += (Long) b.get(BLOB_SIZE);
+			}
+		}
+		man.put(MAN_BLOBS, tasks.size());
+		man.put(MAN_BLOB_BYTES, bytes);
+		MAPPER.writeValue(new File(dir, MANIFEST), man);
+		getLogger().info("Exported workspace {}: {}", wsid, man);
+		return man;
+	}
+
+	/** Import a workspace from an archive.
+	 * @param dir the archive directory.
+	 * @return the manifest of the archive.
+	 * @throws PreExistingWorkspaceException if the workspace ID or name is
+	 * already in use.
+	 * @throws WorkspaceCommunicationException if a communication error occurs
+	 * with the database or the blob store.
+	 * @throws IOException if the archive could not be read, is incomplete, or
+	 * contains a blob that does not match its MD5.
+	 */
+	public Map<String, Object> importWorkspace(final File dir)
+			throws PreExistingWorkspaceException,
+			WorkspaceCommunicationException, IOException {
+		if (dir == null) {
+			throw new NullPointerException("dir cannot be null");
+		}
+		final Map<String, Object> man = readManifest(dir);
+		final DBObject ws;
+		try (final BSONReader r = new BSONReader(
+				new File(dir, WORKSPACE_FILE))) {
+			ws = r.next();
+		}
+		if (ws == null) {
+			throw new IOException("No workspace document in archive " + dir);
+		}
+		final long wsid = (Long) ws.get(Fields.WS_ID);
+		final String name = (String) ws.get(Fields.WS_NAME);
+		checkWorkspaceAvailable(wsid, name);
+		final File versions = new File(dir, VERSION_FILE);
+		checkReferences(getExternalReferences(versions, wsid));
+		// keep new workspaces from being assigned this ID during the import
+		updateWorkspaceCounter(wsid);
+		getLogger().info("Importing workspace {} ({}) from {}",
+				wsid, name, dir);
+
+		final File blobdir = new File(dir, BLOB_DIR);
+		final List<Callable<DBObject>> tasks =
+				new LinkedList<Callable<DBObject>>();
+		try (final BSONReader r = new BSONReader(new File(dir, BLOB_FILE))) {
+			DBObject b;
+			while ((b = r.next()) != null) {
+				final DBObject bl = b;
+				tasks.add(new Callable<DBObject>() {
+
+					@Override
+					public DBObject call() throws Exception {
+						importBlob(bl, blobdir);
+						return bl;
+					}
+				});
+			}
+		}
+		try {
+			runAll(tasks);
+		} catch (CorruptWorkspaceDBException e) {
+			// importing blobs never throws this
+			throw new RuntimeException("Something is very broken", e);
+		}
+		importCollection(CollectionNames.COL_PROVENANCE,
+				new File(dir, PROVENANCE_FILE), null);
+		importCollection(CollectionNames.COL_WORKSPACE_VERS, versions, null);
+		importCollection(CollectionNames.COL_WORKSPACE_OBJS,
+				new File(dir, OBJECT_FILE),
+				new VersionCallback() {
+
+					@Override
+					public void version(final DBObject o) {
+						// references from other source workspaces are lost
+						final int numver = (Integer) o.get(Fields.OBJ_VCNT);
+						final List<Integer> zeros =
+								new ArrayList<Integer>(numver);
+						for (int i = 0; i < numver; i++) {
+							zeros.add(0);
+						}
+						o.put(Fields.OBJ_REFCOUNTS, zeros);
+					}
+				});
+		importCollection(CollectionNames.COL_WS_ACLS,
+				new File(dir, ACL_FILE), null);
+		final ReferenceCounter internal = new ReferenceCounter(
+				wsmongo.getCollection(CollectionNames.COL_WORKSPACE_OBJS));
+		final ReferenceCounter external = new ReferenceCounter(
+				wsmongo.getCollection(CollectionNames.COL_WORKSPACE_OBJS));
+		countReferences(versions, wsid, internal, external);
+		internal.flush();
+		// the workspace is invisible until this document exists
+		try {
+			wsmongo.getCollection(CollectionNames.COL_WORKSPACES).insert(ws);
+		} catch (DuplicateKeyException dk) {
+			throw new PreExistingWorkspaceException(String.format(
+					"Workspace name %s or ID %s is already in use",
+					name, wsid));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		// counted last so that a rejected import doesn't change the counts
+		external.flush();
+		getLogger().info("Imported workspace {}: {}", wsid, man);
+		return man;
+	}
+
+	private static Set<Reference> getReferences(final DBObject version) {
+		final Set<Reference> ret = new HashSet<Reference>();
+		for (final String field: Arrays.asList(
+				Fields.VER_REF, Fields.VER_PROVREF)) {
+			@SuppressWarnings("unchecked")
+			final List<String> refs = (List<String>) version.get(field);
+			if (refs != null) {
+				for (final String r: refs) {
+					ret.add(new Reference(r));
+				}
+			}
+		}
+		return ret;
+	}
+
+	private static Set<Reference> getExternalReferences(
+			final File versions,
+			final long wsid)
+			throws IOException {
+		final Set<Reference> ret = new HashSet<Reference>();
+		try (final BSONReader r = new BSONReader(versions)) {
+			DBObject v;
+			while ((v = r.next()) != null) {
+				for (final Reference ref: getReferences(v)) {
+					if (ref.getWorkspaceID() != wsid) {
+						ret.add(ref);
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	private void checkReferences(final Set<Reference> refs)
+			throws WorkspaceCommunicationException {
+		// ws id -> obj id -> version count
+		final Map<Long, Map<Long, Integer>> vers =
+				new HashMap<Long, Map<Long, Integer>>();
+		final Map<Long, Set<Long>> objs = new HashMap<Long, Set<Long>>();
+		for (final Reference r: refs) {
+			if (!objs.containsKey(r.getWorkspaceID())) {
+				objs.put(r.getWorkspaceID(), new HashSet<Long>());
+				vers.put(r.getWorkspaceID(), new HashMap<Long, Integer>());
+			}
+			objs.get(r.getWorkspaceID()).add(r.getObjectID());
+		}
+		final DBCollection col = wsmongo.getCollection(
+				CollectionNames.COL_WORKSPACE_OBJS);
+		final DBObject fields = new BasicDBObject(Fields.OBJ_ID, 1);
+		fields.put(Fields.OBJ_VCNT, 1);
+		try {
+			for (final Long ws: objs.keySet()) {
+				final List<Long> ids = new ArrayList<Long>(objs.get(ws));
+				for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+					final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, ws);
+					q.put(Fields.OBJ_ID, new BasicDBObject("$in", ids.subList(
+							i, Math.min(i + BATCH_SIZE, ids.size()))));
+					for (final DBObject o: col.find(q, fields)) {
+						vers.get(ws).put((Long) o.get(Fields.OBJ_ID),
+								(Integer) o.get(Fields.OBJ_VCNT));
+					}
+				}
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		final Set<String> missing = new TreeSet<String>();
+		for (final Reference r: refs) {
+			final Integer numver = vers.get(r.getWorkspaceID())
+					.get(r.getObjectID());
+			if (numver == null || r.getVersion() > numver) {
+				missing.add(r.getId());
+			}
+		}
+		if (!missing.isEmpty()) {
+			final List<String> show = new ArrayList<String>(missing).subList(
+					0, Math.min(MAX_REPORTED_REFS, missing.size()));
+			throw new IllegalArgumentException(String.format(
+					"The archive contains %s reference%s to object versions " +
+					"that do not exist in this database: %s%s",
+					missing.size(), missing.size() == 1 ? "" : "s",
+					StringUtils.join(show, ", "),
+					missing.size() > show.size() ? ", ..." : ""));
+		}
+	}
+
+	private static void countReferences(
+			final File versions,
+			final long wsid,
+			final ReferenceCounter internal,
+			final ReferenceCounter external)
+			throws IOException, WorkspaceCommunicationException {
+		try (final BSONReader r = new BSONReader(versions)) {
+			DBObject v;
+			while ((v = r.next()) != null) {
+				final List<Reference> in = new LinkedList<Reference>();
+				final List<Reference> ex = new LinkedList<Reference>();
+				for (final Reference ref: getReferences(v)) {
+					(ref.getWorkspaceID() == wsid ? in : ex).add(ref);
+				}
+				internal.count(in);
+				external.count(ex);
+			}
+		}
+	}
+
+	private static org.slf4j.Logger getLogger() {
+		return LoggerFactory.getLogger(WorkspaceArchiver.class);
+	}
+
+	private DBObject getWorkspace(final WorkspaceIdentifier wsi)
+			throws NoSuchWorkspaceException, WorkspaceCommunicationException {
+		final DBObject q = wsi.getId() == null ?
+				new BasicDBObject(Fields.WS_NAME, wsi.getName()) :
+				new BasicDBObject(Fields.WS_ID, wsi.getId());
+		q.put(Fields.WS_CLONING, new BasicDBObject("$exists", false));
+		final DBObject ws;
+		try {
+			ws = wsmongo.getCollection(CollectionNames.COL_WORKSPACES)
+					.findOne(q);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (ws == null) {
+			throw new NoSuchWorkspaceException(String.format(
+					"No workspace with %s %s exists",
+					wsi.getId() == null ? "name" : "id",
+					wsi.getIdentifierString()), wsi);
+		}
+		return ws;
+	}
+
+	private void checkWorkspaceAvailable(final long wsid, final String name)
+			throws PreExistingWorkspaceException,
+			WorkspaceCommunicationException {
+		final List<DBObject> or = new ArrayList<DBObject>();
+		or.add(new BasicDBObject(Fields.WS_ID, wsid));
+		or.add(new BasicDBObject(Fields.WS_NAME, name));
+		final DBObject existing;
+		try {
+			existing = wsmongo.getCollection(CollectionNames.COL_WORKSPACES)
+					.findOne(new BasicDBObject("$or", or));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (existing != null) {
+			throw new PreExistingWorkspaceException(String.format(
+					"Workspace name %s or ID %s is already in use",
+					name, wsid));
+		}
+	}
+
+	private void updateWorkspaceCounter(final long wsid)
+			throws WorkspaceCommunicationException {
+		final DBObject q = new BasicDBObject(Fields.CNT_ID, Fields.CNT_ID_VAL);
+		try {
+			final DBCollection cnt = wsmongo.getCollection(
+					CollectionNames.COL_WS_CNT);
+			if (cnt.findOne(q) == null) {
+				cnt.insert(new BasicDBObject(Fields.CNT_ID, Fields.CNT_ID_VAL)
+						.append(Fields.CNT_NUM, wsid));
+				return;
+			}
+			q.put(Fields.CNT_NUM, new BasicDBObject("$lt", wsid));
+			cnt.update(q, new BasicDBObject("$set",
+					new BasicDBObject(Fields.CNT_NUM, wsid)));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private Map<String, Object> readManifest(final File dir)
+			throws IOException {
+		final File f = new File(dir, MANIFEST);
+		if (!f.isFile()) {
+			throw new IOException(String.format(
+					"No %s in archive %s. The archive may be incomplete",
+					MANIFEST, dir));
+		}
+		@SuppressWarnings("unchecked")
+		final Map<String, Object> man = MAPPER.readValue(f, Map.class);
+		if (!FORMAT.equals(man.get(MAN_FORMAT)) ||
+				!Integer.valueOf(FORMAT_VERSION).equals(man.get(MAN_VERSION))) {
+			throw new IOException(String.format(
+					"Archive %s has format %s version %s, expected %s version %s",
+					dir, man.get(MAN_FORMAT), man.get(MAN_VERSION), FORMAT,
+					FORMAT_VERSION));
+		}
+		return man;
+	}
+
+	private interface VersionCallback {
+		void version(DBObject version);
+	}
+
+	private long exportCollection(
+			final String collection,
+			final DBObject query,
+			final File file,
+			final VersionCallback cb)
+			throws WorkspaceCommunicationException, IOException {
+		long count = 0;
+		try (final BSONWriter w = new BSONWriter(file)) {
+			final DBCursor cur = wsmongo.getCollection(collection).find(query);
+			try {
+				for (final DBObject o: cur) {
+					w.write(o);
+					if (cb != null) {
+						cb.version(o);
+					}
+					count++;
+				}
+			} finally {
+				cur.close();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return count;
+	}
+
+	private long exportProvenance(final Set<ObjectId> ids, final File file)
+			throws WorkspaceCommunicationException, IOException,
+			CorruptWorkspaceDBException {
+		final DBCollection col = wsmongo.getCollection(
+				CollectionNames.COL_PROVENANCE);
+		long count = 0;
+		try (final BSONWriter w = new BSONWriter(file)) {
+			final List<ObjectId> batch = new ArrayList<ObjectId>();
+			final List<ObjectId> all = new ArrayList<ObjectId>(ids);
+			for (int i = 0; i < all.size(); i += BATCH_SIZE) {
+				batch.clear();
+				batch.addAll(all.subList(
+						i, Math.min(i + BATCH_SIZE, all.size())));
+				final DBCursor cur = col.find(new BasicDBObject(
+						Fields.MONGO_ID, new BasicDBObject("$in", batch)));
+				int found = 0;
+				try {
+					for (final DBObject o: cur) {
+						w.write(o);
+						found++;
+					}
+				} finally {
+					cur.close();
+				}
+				if (found != batch.size()) {
+					throw new CorruptWorkspaceDBException(String.format(
+							"Found %s of %s provenance documents for the workspace",
+							found, batch.size()));
+				}
+				count += found;
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return count;
+	}
+
+	private void importCollection(
+			final String collection,
+			final File file,
+			final VersionCallback cb)
+			throws WorkspaceCommunicationException, IOException {
+		final DBCollection col = wsmongo.getCollection(collection);
+		try (final BSONReader r = new BSONReader(file)) {
+			BulkWriteOperation bulk = col.initializeUnorderedBulkOperation();
+			int count = 0;
+			DBObject o;
+			while ((o = r.next()) != null) {
+				if (cb != null) {
+					cb.version(o);
+				}
+				// upsert so a failed import can be repeated
+				bulk.find(new BasicDBObject(Fields.MONGO_ID,
+						o.get(Fields.MONGO_ID))).upsert().replaceOne(o);
+				if (++count == BATCH_SIZE) {
+					bulk.execute();
+					bulk = col.initializeUnorderedBulkOperation();
+					count = 0;
+				}
+			}
+			if (count > 0) {
+				bulk.execute();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private static File getBlobFile(final File blobdir, final String md5) {
+		return new File(new File(blobdir, md5.substring(0, 2)), md5);
+	}
+
+	private DBObject exportBlob(final MD5 md5, final File blobdir)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException, IOException {
+		final File f = getBlobFile(blobdir, md5.getMD5());
+		final File dir = f.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+			throw new IOException("Could not create directory " + dir);
+		}
+		final ByteArrayFileCacheManager bafcMan =
+				new ByteArrayFileCacheManager(BLOB_MEM, Long.MAX_VALUE, tfm);
+		final ByteArrayFileCache bafc;
+		try {
+			bafc = blob.getBlob(md5, bafcMan);
+		} catch (BlobStoreCommunicationException e) {
+			throw new WorkspaceCommunicationException(e.getLocalizedMessage(),
+					e);
+		} catch (BlobStoreAuthorizationException e) {
+			throw new WorkspaceCommunicationException(
+					"Authorization error communicating with the backend storage system",
+					e);
+		} catch (NoSuchBlobException e) {
+			throw new CorruptWorkspaceDBException(
+					"No data present for blob " + md5.getMD5(), e);
+		} catch (FileCacheIOException | FileCacheLimitExceededException e) {
+			throw new IOException(e.getLocalizedMessage(), e);
+		}
+		final MessageDigest digest = getMD5Digest();
+		long size = 0;
+		try {
+			final CountingOutputStream cos = new CountingOutputStream(
+					new DigestOutputStream(new BufferedOutputStream(
+							new FileOutputStream(f)), digest));
+			try (final Writer w = new OutputStreamWriter(
+					cos, StandardCharsets.UTF_8);
+					final Reader r = bafc.getJSON()) {
+				final char[] buf = new char[100000];
+				int read;
+				while ((read = r.read(buf)) > -1) {
+					w.write(buf, 0, read);
+				}
+			}
+			size = cos.count;
+			final DBObject ret = new BasicDBObject(BLOB_MD5, md5.getMD5());
+			ret.put(BLOB_SIZE, size);
+			ret.put(BLOB_SORTED, bafc.isSorted());
+			if (!md5.getMD5().equals(toHex(digest.digest()))) {
+				throw new CorruptWorkspaceDBException(String.format(
+						"The data for blob %s does not match its MD5",
+						md5.getMD5()));
+			}
+			return ret;
+		} finally {
+			bafc.destroy();
+		}
+	}
+
+	private void importBlob(final DBObject b, final File blobdir)
+			throws IOException, WorkspaceCommunicationException {
+		final String md5 = (String) b.get(BLOB_MD5);
+		final File f = getBlobFile(blobdir, md5);
+		final MessageDigest digest = getMD5Digest();
+		try (final InputStream is = new DigestInputStream(
+				new BufferedInputStream(new FileInputStream(f)), digest)) {
+			final byte[] buf = new byte[100000];
+			while (is.read(buf) > -1) {
+				// just calculate the digest
+			}
+		}
+		if (!md5.equals(toHex(digest.digest()))) {
+			throw new IOException(String.format(
+					"Archive blob %s does not match its MD5", f));
+		}
+		// the data was validated and sorted when originally saved
+		try (final InputStream is = new BufferedInputStream(
+				new FileInputStream(f))) {
+			blob.saveBlob(new MD5(md5), is, (Boolean) b.get(BLOB_SORTED));
+		} catch (BlobStoreCommunicationException e) {
+			throw new WorkspaceCommunicationException(e.getLocalizedMessage(),
+					e);
+		} catch (BlobStoreAuthorizationException e) {
+			throw new WorkspaceCommunicationException(
+					"Authorization error communicating with the backend storage system",
+					e);
+		}
+	}
+
+	private List<DBObject> runAll(final List<Callable<DBObject>> tasks)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException, IOException {
+		final ExecutorService exe = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r,
+								"ws-archive-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		try {
+			final CompletionService<DBObject> cs =
+					new ExecutorCompletionService<DBObject>(exe);
+			for (final Callable<DBObject> t: tasks) {
+				cs.submit(t);
+			}
+			final List<DBObject> ret = new ArrayList<DBObject>(tasks.size());
+			for (int i = 0; i < tasks.size(); i++) {
+				try {
+					ret.add(cs.take().get());
+				} catch (InterruptedException e) {
+					throw new IOException("Interrupted while transferring blobs",
+							e);
+				} catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof WorkspaceCommunicationException) {
+						throw (WorkspaceCommunicationException) cause;
+					}
+					if (cause instanceof CorruptWorkspaceDBException) {
+						throw (CorruptWorkspaceDBException) cause;
+					}
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					}
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new RuntimeException(cause.getMessage(), cause);
+				}
+			}
+			return ret;
+		} finally {
+			exe.shutdownNow();
+		}
+	}
+
+	private static MessageDigest getMD5Digest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("There definitely is an MD5 digest", e);
+		}
+	}
+
+	private static String toHex(final byte[] digest) {
+		final StringBuilder sb = new StringBuilder();
+		for (final byte b: digest) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+
+		private final OutputStream out;
+		private long count = 0;
+
+		private CountingOutputStream(final OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+				throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/* Writes BSON documents end to end, as mongodump does. */
+	private static class BSONWriter implements Closeable {
+
+		private final OutputStream os;
+		private final BasicBSONEncoder enc = new BasicBSONEncoder();
+
+		private BSONWriter(final File f) throws IOException {
+			os = new BufferedOutputStream(new FileOutputStream(f));
+		}
+
+		private void write(final DBObject o) throws IOException {
+			os.write(enc.encode(o));
+		}
+
+		@Override
+		public void close() throws IOException {
+			os.close();
+		}
+	}
+
+	private static class BSONReader implements Closeable {
+
+		private final PushbackInputStream is;
+		private final DefaultDBDecoder dec = new DefaultDBDecoder();
+
+		private BSONReader(final File f) throws IOException {
+			is = new PushbackInputStream(new BufferedInputStream(
+					new FileInputStream(f)));
+		}
+
+		/* returns null when there are no more documents */
+		private DBObject next() throws IOException {
+			final int b = is.read();
+			if (b < 0) {
+				return null;
+			}
+			is.unread(b);
+			return dec.decode(is, (DBCollection) null);
+		}
+
+		@Override
+		public void close() throws IOException {
+			is.close();
+		}
+	}
+}
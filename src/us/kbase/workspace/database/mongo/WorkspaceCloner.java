@@ -0,0 +1,216 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Copies the objects in one workspace into a newly created, empty
+ * workspace.
+ *
+ * The objects and versions in the source workspace are read with two
+ * cursors, both sorted by object ID, which are merged as they're read. The
+ * copies are written with batch inserts and the reference counts for the
+ * copied versions are written in bulk once all the objects are copied.
+ * Since the target workspace is new and is not visible until cloning is
+ * complete, there's no need to deal with conflicting writes.
+ */
+class WorkspaceCloner {
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int LOG_INTERVAL = 10000;
+
+	private final DBCollection objCol;
+	private final DBCollection verCol;
+	private final Set<String> verFields;
+
+	/** Create a workspace cloner.
+	 * @param db the workspace database.
+	 * @param versionFields the fields of a version document to copy.
+	 */
+	WorkspaceCloner(final DB db, final Set<String> versionFields) {
+		objCol = db.getCollection(CollectionNames.COL_WORKSPACE_OBJS);
+		verCol = db.getCollection(CollectionNames.COL_WORKSPACE_VERS);
+		verFields = versionFields;
+	}
+
+	/** Copy the undeleted objects in a workspace, including all their
+	 * versions, into another workspace. The objects keep their IDs and
+	 * names.
+	 * @param user the user performing the clone.
+	 * @param fromWS the ID of the workspace to copy.
+	 * @param toWS the ID of the empty workspace to copy into.
+	 * @param exclude the IDs of objects to skip, or null.
+	 * @return the largest object ID in the copied workspace, or 0 if there
+	 * were no objects to copy.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	long cloneObjects(
+			final WorkspaceUser user,
+			final long fromWS,
+			final long toWS,
+			final Collection<Long> exclude)
+			throws WorkspaceCommunicationException {
+		final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, fromWS);
+		//skip any objects with no versions, likely a race condition
+		//or worse the db went down post version increment pre version save
+		//need to move to transactional backend or relationless schema
+		q.put(Fields.OBJ_VCNT, new BasicDBObject("$gt", 0));
+		q.put(Fields.OBJ_DEL, false);
+		if (exclude != null && !exclude.isEmpty()) {
+			q.put(Fields.OBJ_ID, new BasicDBObject("$nin", exclude));
+		}
+		final DBObject objProj = new BasicDBObject(Fields.MONGO_ID, 0);
+		objProj.put(Fields.OBJ_ID, 1);
+		objProj.put(Fields.OBJ_NAME, 1);
+		objProj.put(Fields.OBJ_HIDE, 1);
+		final DBObject objSort = new BasicDBObject(Fields.OBJ_WS_ID, 1);
+		objSort.put(Fields.OBJ_ID, 1);
+
+		final DBObject verProj = new BasicDBObject(Fields.MONGO_ID, 0);
+		for (final String f: verFields) {
+			verProj.put(f, 1);
+		}
+		verProj.put(Fields.VER_ID, 1);
+		verProj.put(Fields.VER_VER, 1);
+		final DBObject verSort = new BasicDBObject(Fields.VER_WS_ID, 1);
+		verSort.put(Fields.VER_ID, 1);
+		verSort.put(Fields.VER_VER, 1);
+
+		final ReferenceCounter refcnt = new ReferenceCounter(objCol);
+		final Batch batch = new Batch();
+		long maxid = 0;
+		final Date start = new Date();
+		try (final DBCursor objs = objCol.find(q, objProj)
+					.hint(objSort).sort(objSort);
+				final DBCursor vers = verCol.find(
+					new BasicDBObject(Fields.VER_WS_ID, fromWS), verProj)
+					.hint(verSort).sort(verSort)) {
+			DBObject ver = vers.hasNext() ? vers.next() : null;
+			for (final DBObject o: objs) {
+				final long objid = (Long) o.get(Fields.OBJ_ID);
+				maxid = Math.max(maxid, objid);
+				while (ver != null && (Long) ver.get(Fields.VER_ID) < objid) {
+					ver = vers.hasNext() ? vers.next() : null;
+				}
+				final List<DBObject> objvers = new LinkedList<DBObject>();
+				while (ver != null && (Long) ver.get(Fields.VER_ID) == objid) {
+					objvers.add(ver);
+					ver = vers.hasNext() ? vers.next() : null;
+				}
+				/* The object was saved to the objects collections and the
+				 * version was incremented at least once. However, no
+				 * versions exist in the version collection. So either a
+				 * race condition or the system died before versions could
+				 * be saved, so skip it.
+				 */
+				if (objvers.isEmpty()) {
+					continue;
+				}
+				batch.add(user, fromWS, toWS, o, objvers, refcnt);
+				if (batch.objects.size() >= BATCH_SIZE) {
+					batch.insert();
+				}
+			}
+			batch.insert();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		refcnt.flush();
+		if (batch.objcount >= LOG_INTERVAL) {
+			LoggerFactory.getLogger(getClass()).info(String.format(
+					"Cloned %s objects and %s versions from workspace %s " +
+					"to workspace %s in %s ms", batch.objcount,
+					batch.vercount, fromWS, toWS,
+					new Date().getTime() - start.getTime()));
+		}
+		return maxid;
+	}
+
+	private class Batch {
+
+		private final List<DBObject> objects = new LinkedList<DBObject>();
+		private final List<DBObject> versions = new LinkedList<DBObject>();
+		private long objcount = 0;
+		private long vercount = 0;
+		private long nextLog = LOG_INTERVAL;
+
+		private void add(
+				final WorkspaceUser user,
+				final long fromWS,
+				final long toWS,
+				final DBObject obj,
+				final List<DBObject> objvers,
+				final ReferenceCounter refcnt)
+				throws WorkspaceCommunicationException {
+			final long objid = (Long) obj.get(Fields.OBJ_ID);
+			final Date saved = new Date();
+			final List<Integer> zeros = new LinkedList<Integer>();
+			int newver = 1;
+			for (final DBObject v: objvers) {
+				final int ver = (Integer) v.get(Fields.VER_VER);
+				@SuppressWarnings("unchecked")
+				final List<String> objrefs =
+						(List<String>) v.get(Fields.VER_REF);
+				@SuppressWarnings("unchecked")
+				final List<String> provrefs =
+						(List<String>) v.get(Fields.VER_PROVREF);
+				refcnt.count(objrefs, provrefs);
+				v.put(Fields.VER_SAVEDBY, user.getUser());
+				v.put(Fields.VER_RVRT, null);
+				v.put(Fields.VER_COPIED,
+						new Reference(fromWS, objid, ver).toString());
+				v.put(Fields.VER_SAVEDATE, saved);
+				v.put(Fields.VER_WS_ID, toWS);
+				v.put(Fields.VER_VER, newver++);
+				versions.add(v);
+				zeros.add(0);
+			}
+			final DBObject dbo = new BasicDBObject();
+			dbo.put(Fields.OBJ_WS_ID, toWS);
+			dbo.put(Fields.OBJ_ID, objid);
+			dbo.put(Fields.OBJ_VCNT, objvers.size());
+			dbo.put(Fields.OBJ_REFCOUNTS, zeros);
+			dbo.put(Fields.OBJ_NAME, obj.get(Fields.OBJ_NAME));
+			dbo.put(Fields.OBJ_LATEST, null);
+			dbo.put(Fields.OBJ_DEL, false);
+			dbo.put(Fields.OBJ_HIDE, obj.get(Fields.OBJ_HIDE));
+			dbo.put(Fields.OBJ_MODDATE, saved);
+			objects.add(dbo);
+		}
+
+		private void insert() {
+			if (objects.isEmpty()) {
+				return;
+			}
+			objCol.insert(objects);
+			verCol.insert(versions);
+			objcount += objects.size();
+			vercount += versions.size();
+			objects.clear();
+			versions.clear();
+			if (objcount >= nextLog) {
+				nextLog += LOG_INTERVAL;
+				LoggerFactory.getLogger(getClass()).info(String.format(
+						"Cloning: %s objects and %s versions copied",
+						objcount, vercount));
+			}
+		}
+	}
+}
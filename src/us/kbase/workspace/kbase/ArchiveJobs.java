@@ -0,0 +1,204 @@
+package us.kbase.workspace.kbase;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
+
+import org.slf4j.LoggerFactory;
+
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.mongo.WorkspaceArchiver;
+
+/** Runs workspace exports and imports in the background, one at a time, and
+ * keeps track of their progress.
+ *
+ * Archives are referred to by name and are stored as subdirectories of the
+ * archive directory.
+ */
+public class ArchiveJobs {
+
+	private static final Pattern NAME = Pattern.compile("[\\w-][\\w.-]*");
+	private static final int MAX_HISTORY = 100;
+
+	public static final String QUEUED = "queued";
+	public static final String RUNNING = "running";
+	public static final String COMPLETE = "complete";
+	public static final String FAILED = "failed";
+
+	private final WorkspaceArchiver archiver;
+	private final File archiveDir;
+	// archive name -> job status, in order of submission
+	private final Map<String, Map<String, Object>> jobs =
+			new LinkedHashMap<String, Map<String, Object>>();
+	private final ExecutorService exe = Executors.newSingleThreadExecutor(
+			new ThreadFactory() {
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "ws-archive-jobs");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
+	/** Create a job runner.
+	 * @param archiver the archiver that exports and imports workspaces.
+	 * @param archiveDir the directory in which to store archives.
+	 */
+	public ArchiveJobs(final WorkspaceArchiver archiver, final File archiveDir) {
+		if (archiver == null || archiveDir == null) {
+			throw new NullPointerException("No arguments can be null");
+		}
+		this.archiver = archiver;
+		this.archiveDir = archiveDir;
+	}
+
+	public File getArchiveDir() {
+		return archiveDir;
+	}
+
+	/** Start exporting a workspace.
+	 * @param wsi the workspace to export.
+	 * @param archive the name of the archive to create.
+	 * @return the status of the job.
+	 */
+	public synchronized Map<String, Object> startExport(
+			final WorkspaceIdentifier wsi,
+			final String archive) {
+		if (wsi == null) {
+			throw new NullPointerException("wsi cannot be null");
+		}
+		final File dir = getArchive(archive);
+		if (dir.exists()) {
+			throw new IllegalArgumentException(
+					"Archive " + archive + " already exists");
+		}
+		return submit(archive, "export", new Job() {
+
+			@Override
+			public Map<String, Object> run() throws Exception {
+				return archiver.exportWorkspace(wsi, dir);
+			}
+		});
+	}
+
+	/** Start importing a workspace.
+	 * @param archive the name of the archive to import.
+	 * @return the status of the job.
+	 */
+	public synchronized Map<String, Object> startImport(final String archive) {
+		final File dir = getArchive(archive);
+		if (!dir.isDirectory()) {
+			throw new IllegalArgumentException(
+					"No archive named " + archive + " exists");
+		}
+		return submit(archive, "import", new Job() {
+
+			@Override
+			public Map<String, Object> run() throws Exception {
+				return archiver.importWorkspace(dir);
+			}
+		});
+	}
+
+	/** Get the status of the current and most recent jobs.
+	 * @return a map of archive name to job status.
+	 */
+	public synchronized Map<String, Object> getStatus() {
+		final Map<String, Object> ret = new LinkedHashMap<String, Object>();
+		for (final String archive: jobs.keySet()) {
+			ret.put(archive, new LinkedHashMap<String, Object>(
+					jobs.get(archive)));
+		}
+		return ret;
+	}
+
+	/** Stop the job thread. A running job is interrupted and queued jobs are
+	 * discarded.
+	 */
+	public void stop() {
+		exe.shutdownNow();
+	}
+
+	private interface Job {
+		Map<String, Object> run() throws Exception;
+	}
+
+	private File getArchive(final String archive) {
+		if (archive == null || !NAME.matcher(archive).matches()) {
+			throw new IllegalArgumentException(
+					"Illegal archive name: " + archive);
+		}
+		return new File(archiveDir, archive);
+	}
+
+	private Map<String, Object> submit(
+			final String archive,
+			final String type,
+			final Job job) {
+		final Map<String, Object> existing = jobs.get(archive);
+		if (existing != null && (QUEUED.equals(existing.get("state")) ||
+				RUNNING.equals(existing.get("state")))) {
+			throw new IllegalArgumentException(
+					"A job for archive " + archive + " is already in progress");
+		}
+		final Map<String, Object> status = new LinkedHashMap<String, Object>();
+		status.put("type", type);
+		status.put("state", QUEUED);
+		status.put("submitted", new Date().getTime());
+		jobs.remove(archive);
+		jobs.put(archive, status);
+		pruneHistory();
+		exe.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				update(status, RUNNING, null, null);
+				try {
+					update(status, COMPLETE, job.run(), null);
+				} catch (Throwable e) {
+					LoggerFactory.getLogger(getClass()).error(String.format(
+							"Archive %s of %s failed", type, archive), e);
+					update(status, FAILED, null, e);
+				}
+			}
+		});
+		return new LinkedHashMap<String, Object>(status);
+	}
+
+	private synchronized void update(
+			final Map<String, Object> status,
+			final String state,
+			final Map<String, Object> manifest,
+			final Throwable error) {
+		status.put("state", state);
+		if (RUNNING.equals(state)) {
+			status.put("started", new Date().getTime());
+		} else {
+			status.put("finished", new Date().getTime());
+		}
+		if (manifest != null) {
+			status.put("manifest", manifest);
+		}
+		if (error != null) {
+			status.put("error", error.getClass().getSimpleName() + ": " +
+					error.getMessage());
+		}
+	}
+
+	private void pruneHistory() {
+		final Iterator<Map<String, Object>> i = jobs.values().iterator();
+		while (jobs.size() > MAX_HISTORY && i.hasNext()) {
+			final Object state = i.next().get("state");
+			if (COMPLETE.equals(state) || FAILED.equals(state)) {
+				i.remove();
+			}
+		}
+	}
+}
@@ -37,6 +37,7 @@ import us.kbase.handlemngr.HandleMngrClient;
 import us.kbase.auth.AuthException;
 import us.kbase.auth.AuthToken;
 import us.kbase.workspace.ExternalDataUnit;
+import us.kbase.workspace.JobInfo;
 import us.kbase.workspace.ObjectData;
 import us.kbase.workspace.ProvenanceAction;
 import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
@@ -49,6 +50,8 @@ import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.WorkspaceInformation;
 import us.kbase.workspace.database.WorkspaceObjectData;
 import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
 
 /**
  * @author gaprice@lbl.gov
@@ -235,6 +238,21 @@ public class ArgUtils {
 				.withE9(info.getUserMeta().getMetadata());
 	}
 	
+	public static JobInfo jobToJobInfo(final WorkspaceJobs.Job job)
+			throws IOException {
+		return new JobInfo()
+				.withId(job.getId())
+				.withType(job.getType())
+				.withUser(job.getUser().getUser())
+				.withState(job.getState())
+				.withSubmitted(formatDate(job.getSubmitted()))
+				.withStarted(formatDate(job.getStarted()))
+				.withFinished(formatDate(job.getFinished()))
+				.withResult(job.getResult() == null ? null : new UObject(
+						UObject.getMapper().readTree(job.getResult())))
+				.withError(job.getError());
+	}
+	
 	public static List<Tuple7<String, String, String, Long, String, String, Long>> wsInfoToMetaTuple(
 			List<WorkspaceInformation> info) {
 		final List<Tuple7<String, String, String, Long, String, String, Long>> ret =
@@ -373,7 +391,8 @@ public class ArgUtils {
 			final URL handleManagerURl,
 			final TokenProvider handleManagertoken,
 			final boolean logObjects)
-			throws JsonParseException, IOException {
+			throws JsonParseException, IOException,
+			WorkspaceCommunicationException, CorruptWorkspaceDBException {
 		final List<ObjectData> ret = new ArrayList<ObjectData>();
 		for (final WorkspaceObjectData o: objects) {
 			if (o == null) {
@@ -432,7 +451,9 @@ public class ArgUtils {
 			final WorkspaceUser user,
 			final URL handleManagerURl,
 			final TokenProvider handleManagertoken,
-			final boolean logObjects) {
+			final boolean logObjects)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
 		final List<us.kbase.workspace.ObjectProvenanceInfo> ret =
 				new ArrayList<us.kbase.workspace.ObjectProvenanceInfo>();
 		for (final WorkspaceObjectData o: objects) {
@@ -5,4 +5,8 @@ public class InitConstants {
 	public static final int TOKEN_REFRESH_INTERVAL_SEC = 24 * 60 * 60;
 	public static final String COL_SETTINGS = "settings";
 	public static final String COL_SHOCK_NODES = "shock_nodeMap";
+	public static final String COL_FILE_BLOBS = "file_blobMap";
+	public static final String COL_COLD_BLOBS = "cold_blobMap";
+	public static final String COL_BLOB_ACCESS = "blob_access";
+	public static final String COL_JOBS = "jobs";
 }
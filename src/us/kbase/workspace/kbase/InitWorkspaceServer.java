@@ -8,11 +8,13 @@ import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.jongo.Jongo;
 import org.jongo.MongoCollection;
 import org.jongo.marshall.MarshallingException;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.mongodb.DB;
 import com.mongodb.MongoException;
 import com.mongodb.MongoTimeoutException;
@@ -25,6 +27,8 @@ import us.kbase.auth.ConfigurableAuthService;
 import us.kbase.common.mongo.GetMongoDB;
 import us.kbase.common.mongo.exceptions.InvalidHostException;
 import us.kbase.common.mongo.exceptions.MongoAuthException;
+import us.kbase.common.service.JsonServerSyslog;
+import us.kbase.common.service.UObject;
 import us.kbase.common.service.ServerException;
 import us.kbase.handlemngr.HandleMngrClient;
 import us.kbase.typedobj.core.LocalTypeProvider;
@@ -33,18 +37,30 @@ import us.kbase.typedobj.core.TypedObjectValidator;
 import us.kbase.typedobj.db.MongoTypeStorage;
 import us.kbase.typedobj.db.TypeDefinitionDB;
 import us.kbase.typedobj.exceptions.TypeStorageException;
+import us.kbase.workspace.CloneWorkspaceParams;
+import us.kbase.workspace.CopyObjectParams;
+import us.kbase.workspace.database.AdmissionController;
+import us.kbase.workspace.database.AdmissionController.Limits;
+import us.kbase.workspace.database.AdmissionController.Operation;
 import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
 import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceDatabase;
+import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
 import us.kbase.workspace.database.exceptions.WorkspaceDBException;
 import us.kbase.workspace.database.mongo.BlobStore;
+import us.kbase.workspace.database.mongo.FileBlobStore;
 import us.kbase.workspace.database.mongo.GridFSBlobStore;
 import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+import us.kbase.workspace.database.mongo.QueryProfiler;
+import us.kbase.workspace.database.mongo.QueryProfiler.OperationProvider;
 import us.kbase.workspace.database.mongo.ShockBlobStore;
+import us.kbase.workspace.database.mongo.TieredBlobStore;
+import us.kbase.workspace.database.mongo.WorkspaceArchiver;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationException;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreException;
+import us.kbase.workspace.kbase.WorkspaceJobs.JobHandler;
 
 
 public class InitWorkspaceServer {
@@ -55,12 +71,25 @@ public class InitWorkspaceServer {
 	private static final int TOKEN_REFRESH_INTERVAL_SEC = InitConstants.TOKEN_REFRESH_INTERVAL_SEC;
 	private static final String COL_SETTINGS = InitConstants.COL_SETTINGS;
 	public static final String COL_SHOCK_NODES = InitConstants.COL_SHOCK_NODES;
+	public static final String COL_FILE_BLOBS = InitConstants.COL_FILE_BLOBS;
+	public static final String COL_COLD_BLOBS = InitConstants.COL_COLD_BLOBS;
+	public static final String COL_BLOB_ACCESS = InitConstants.COL_BLOB_ACCESS;
+	public static final String COL_JOBS = InitConstants.COL_JOBS;
+	
+	public static final String JOB_CLONE_WORKSPACE = "clone_workspace";
+	public static final String JOB_COPY_OBJECTS = "copy_objects";
 	
 	
 	private static int maxUniqueIdCountPerCall = 100000;
 
 	private static int instanceCount = 0;
 	private static boolean wasTempFileCleaningDone = false;
+	// maximum time between runs of the orphaned temp file reaper in ms
+	private static final long TEMP_FILE_REAPER_INTERVAL = 5 * 60 * 1000;
+	// time between writing blob reads to the db when cold storage is enabled
+	private static final long BLOB_READ_FLUSH_INTERVAL = 60 * 1000;
+	// time between runs of the cold storage blob mover
+	private static final long BLOB_MOVE_INTERVAL = 60 * 60 * 1000;
 	
 	public static abstract class InitReporter {
 		
@@ -84,6 +113,7 @@ public class InitWorkspaceServer {
 		private Workspace ws;
 		private WorkspaceServerMethods wsmeth;
 		private WorkspaceAdministration wsadmin;
+		private WorkspaceJobs jobs;
 		private Types types;
 		private URL handleManagerUrl;
 		private TokenProvider handleMgrToken;
@@ -92,6 +122,7 @@ public class InitWorkspaceServer {
 				final Workspace ws,
 				final WorkspaceServerMethods wsmeth,
 				final WorkspaceAdministration wsadmin,
+				final WorkspaceJobs jobs,
 				final Types types,
 				final URL handleManagerUrl,
 				final TokenProvider handleMgrToken) {
@@ -99,6 +130,7 @@ public class InitWorkspaceServer {
 			this.ws = ws;
 			this.wsmeth = wsmeth;
 			this.wsadmin = wsadmin;
+			this.jobs = jobs;
 			this.types = types;
 			this.handleManagerUrl = handleManagerUrl;
 			this.handleMgrToken = handleMgrToken;
@@ -116,6 +148,10 @@ public class InitWorkspaceServer {
 			return wsadmin;
 		}
 		
+		public WorkspaceJobs getJobs() {
+			return jobs;
+		}
+		
 		public Types getTypes() {
 			return types;
 		}
@@ -136,8 +172,7 @@ public class InitWorkspaceServer {
 	public static WorkspaceInitResults initWorkspaceServer(
 			final KBaseWorkspaceConfig cfg,
 			final InitReporter rep) {
-		final TempFilesManager tfm = initTempFilesManager(cfg.getTempDir(),
-				rep);
+		final TempFilesManager tfm = initTempFilesManager(cfg, rep);
 		
 		final ConfigurableAuthService auth = setUpAuthClient(cfg, rep);
 
@@ -160,7 +195,15 @@ public class InitWorkspaceServer {
 		} 
 		rep.reportInfo("Starting server using connection parameters:\n" +
 				cfg.getParamReport());
-		rep.reportInfo("Temporary file location: " + tfm.getTempDir());
+		rep.reportInfo("Temporary file location: " + tfm.getTempDirs());
+		if (tfm.getDiskQuota() > 0) {
+			rep.reportInfo("Temporary file disk quota: " +
+					cfg.getTempDiskQuotaMB() + "MB");
+		}
+		if (cfg.getTempFileTTLMinutes() > 0) {
+			rep.reportInfo("Orphaned temporary files are deleted after " +
+					cfg.getTempFileTTLMinutes() + " minutes");
+		}
 
 		final WorkspaceDependencies wsdeps;
 		try {
@@ -175,12 +218,34 @@ public class InitWorkspaceServer {
 				wsdeps.mongoWS.getBackendType()));
 		Workspace ws = new Workspace(wsdeps.mongoWS,
 				new ResourceUsageConfigurationBuilder().build(), wsdeps.validator);
+		final AdmissionController admission = ws.getAdmissionController();
+		admission.setLimits(Operation.READ, new Limits(
+				cfg.getUserMaxConcurrentReads(), 0, 0));
+		admission.setLimits(Operation.WRITE, new Limits(
+				cfg.getUserMaxConcurrentWrites(),
+				cfg.getUserMaxWriteMB() * 1024 * 1024,
+				cfg.getMaxWriteMB() * 1024 * 1024));
+		rep.reportInfo("User admission limits: read " +
+				admission.getLimits(Operation.READ) + ", write " +
+				admission.getLimits(Operation.WRITE));
 		Types types = new Types(wsdeps.typeDB);
 		WorkspaceServerMethods wsmeth = new WorkspaceServerMethods(
 				ws, types, cfg.getHandleServiceURL(),
 				maxUniqueIdCountPerCall, auth);
+		ArchiveJobs archives = null;
+		if (cfg.getArchiveDir() != null) {
+			archives = new ArchiveJobs(wsdeps.archiver,
+					new File(cfg.getArchiveDir()));
+			rep.reportInfo("Workspace archive location: " +
+					cfg.getArchiveDir());
+		}
 		WorkspaceAdministration wsadmin = new WorkspaceAdministration(
-				ws, wsmeth, types, cfg.getWorkspaceAdmin());
+				ws, wsmeth, types, wsdeps.profiler, archives,
+				cfg.getWorkspaceAdmin());
+		final WorkspaceJobs jobs = wsdeps.jobs;
+		registerJobHandlers(jobs, wsmeth);
+		jobs.start(cfg.getJobThreads());
+		rep.reportInfo("Background job threads: " + cfg.getJobThreads());
 		final String mem = String.format(
 				"Started workspace server instance %s. Free mem: %s Total mem: %s, Max mem: %s",
 				++instanceCount, Runtime.getRuntime().freeMemory(),
@@ -188,14 +253,41 @@ public class InitWorkspaceServer {
 				Runtime.getRuntime().maxMemory());
 		rep.reportInfo(mem);
 		return new WorkspaceInitResults(
-				ws, wsmeth, wsadmin, types, cfg.getHandleManagerURL(),
+				ws, wsmeth, wsadmin, jobs, types, cfg.getHandleManagerURL(),
 				handleMgrToken);
 	}
 	
+	private static void registerJobHandlers(
+			final WorkspaceJobs jobs,
+			final WorkspaceServerMethods wsmeth) {
+		jobs.register(JOB_CLONE_WORKSPACE, new JobHandler() {
+			
+			@Override
+			public Object run(final WorkspaceUser user, final String params)
+					throws Exception {
+				return wsmeth.cloneWorkspace(UObject.getMapper().readValue(
+						params, CloneWorkspaceParams.class), user);
+			}
+		});
+		jobs.register(JOB_COPY_OBJECTS, new JobHandler() {
+			
+			@Override
+			public Object run(final WorkspaceUser user, final String params)
+					throws Exception {
+				return wsmeth.copyObjects(UObject.getMapper().readValue(
+						params, new TypeReference<List<CopyObjectParams>>() {}),
+						user);
+			}
+		});
+	}
+	
 	private static class WorkspaceDependencies {
 		public TypeDefinitionDB typeDB;
 		public TypedObjectValidator validator;
 		public WorkspaceDatabase mongoWS;
+		public QueryProfiler profiler;
+		public WorkspaceArchiver archiver;
+		public WorkspaceJobs jobs;
 	}
 	
 	private static WorkspaceDependencies getDependencies(
@@ -211,10 +303,22 @@ public class InitWorkspaceServer {
 				cfg.getMongoReconnectAttempts());
 		
 		final Settings settings = getSettings(db);
-		final String bsType = settings.isGridFSBackend() ? "GridFS" : "Shock";
+		final String bsType;
+		final String bsLocation;
+		if (settings.isGridFSBackend()) {
+			bsType = "GridFS";
+			bsLocation = null;
+		} else if (settings.isFileBackend()) {
+			bsType = "File";
+			bsLocation = settings.getFileLocation();
+		} else {
+			bsType = "Shock";
+			bsLocation = settings.getShockUrl();
+		}
 		
-		final BlobStore bs = setupBlobStore(db, bsType, settings.getShockUrl(),
-				settings.getShockUser(), cfg, auth);
+		final BlobStore bs = setupTiers(db, setupBlobStore(db, bsType,
+				bsLocation, settings.getShockUser(), cfg, auth),
+				settings.getColdLocation(), cfg, tfm);
 		
 		final DB typeDB = getMongoDBInstance(cfg.getHost(),
 				settings.getTypeDatabase(), cfg.getMongoUser(),
@@ -228,13 +332,31 @@ public class InitWorkspaceServer {
 		}
 		deps.validator = new TypedObjectValidator(
 				new LocalTypeProvider(deps.typeDB));
+		final MongoWorkspaceDB mongoWS;
 		try {
-			deps.mongoWS = new MongoWorkspaceDB(db, bs, tfm);
+			mongoWS = new MongoWorkspaceDB(db, bs, tfm);
 		} catch (WorkspaceDBException wde) {
 			throw new WorkspaceInitException(
 					"Error initializing the workspace database: " +
 					wde.getLocalizedMessage(), wde);
 		}
+		mongoWS.setProvenanceDedupAcrossSaves(
+				cfg.dedupProvenanceAcrossSaves());
+		mongoWS.setProvenanceCacheSize(
+				cfg.getProvenanceCacheMB() * 1024 * 1024);
+		deps.mongoWS = mongoWS;
+		deps.profiler = mongoWS.getQueryProfiler();
+		deps.archiver = new WorkspaceArchiver(db, bs, tfm,
+				cfg.getArchiveThreads());
+		deps.jobs = new WorkspaceJobs(db.getCollection(COL_JOBS), tfm);
+		deps.profiler.setSlowQueryThresholdMillis(cfg.getMongoSlowQueryMillis());
+		deps.profiler.setOperationProvider(new OperationProvider() {
+			
+			@Override
+			public String getCurrentOperation() {
+				return JsonServerSyslog.getCurrentRpcInfo().getMethod();
+			}
+		});
 		return deps;
 	}
 	
@@ -276,6 +398,33 @@ public class InitWorkspaceServer {
 		}
 	}
 
+	private static BlobStore setupTiers(
+			final DB db,
+			final BlobStore hot,
+			final String coldLocation,
+			final KBaseWorkspaceConfig cfg,
+			final TempFilesManager tfm)
+			throws WorkspaceInitException {
+		if (coldLocation == null) {
+			return hot;
+		}
+		final FileBlobStore cold;
+		try {
+			cold = new FileBlobStore(db.getCollection(COL_COLD_BLOBS),
+					new File(coldLocation), true);
+		} catch (BlobStoreException e) {
+			throw new WorkspaceInitException(
+					"The cold storage blob store could not be initialized: " +
+					e.getLocalizedMessage(), e);
+		}
+		final TieredBlobStore tiers = new TieredBlobStore(
+				db.getCollection(COL_BLOB_ACCESS), hot, cold, tfm);
+		tiers.setDemoteAfterMillis(cfg.getColdStorageDays() * 24L * 60 * 60 * 1000);
+		tiers.setPromoteReads(cfg.getColdStoragePromoteReads());
+		tiers.start(BLOB_READ_FLUSH_INTERVAL, BLOB_MOVE_INTERVAL);
+		return tiers;
+	}
+
 	private static BlobStore setupBlobStore(
 			final DB db,
 			final String blobStoreType,
@@ -288,6 +437,16 @@ public class InitWorkspaceServer {
 		if (blobStoreType.equals("GridFS")) {
 			return new GridFSBlobStore(db);
 		}
+		if (blobStoreType.equals("File")) {
+			try {
+				return new FileBlobStore(db.getCollection(COL_FILE_BLOBS),
+						new File(blobStoreURL));
+			} catch (BlobStoreException e) {
+				throw new WorkspaceInitException(
+						"The blob store backend database could not be initialized: " +
+						e.getLocalizedMessage(), e);
+			}
+		}
 		if (blobStoreType.equals("Shock")) {
 			final URL shockurl;
 			try {
@@ -390,17 +549,28 @@ public class InitWorkspaceServer {
 	}
 
 	private static TempFilesManager initTempFilesManager(
-			final String tempDir,
+			final KBaseWorkspaceConfig cfg,
 			final InitReporter rep) {
 		try {
-			final TempFilesManager tfm = new TempFilesManager(
-					new File(tempDir));
+			final List<File> dirs = new LinkedList<File>();
+			dirs.add(new File(cfg.getTempDir()));
+			for (final String shard: cfg.getTempDirShards()) {
+				dirs.add(new File(shard));
+			}
+			final TempFilesManager tfm = new TempFilesManager(dirs);
 			if (!wasTempFileCleaningDone) {
-				// check the directory is writeable
-				tfm.generateTempFile("startuptest", "tmp");
+				// check the directories are writeable
+				for (int i = 0; i < dirs.size(); i++) {
+					tfm.generateTempFile("startuptest", "tmp");
+				}
 				wasTempFileCleaningDone = true;
 				tfm.cleanup();
 			}
+			tfm.setDiskQuota(cfg.getTempDiskQuotaMB() * 1024 * 1024);
+			if (cfg.getTempFileTTLMinutes() > 0) {
+				final long ttl = cfg.getTempFileTTLMinutes() * 60 * 1000L;
+				tfm.startReaper(ttl, Math.min(ttl, TEMP_FILE_REAPER_INTERVAL));
+			}
 			return tfm;
 		} catch (Exception e) {
 			rep.reportFail("There was an error initializing the temporary " +
@@ -5,10 +5,14 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import us.kbase.workspace.scheduler.MethodClass;
+import us.kbase.workspace.scheduler.MethodScheduler.Limits;
+
 public class KBaseWorkspaceConfig {
 	
 	//TODO AUTH LATER remove user names and pwds when auth2 server is up
@@ -27,6 +31,9 @@ public class KBaseWorkspaceConfig {
 	private static final String MONGO_PWD = "mongodb-pwd";
 	//mongo connection attempt limit
 	private static final String MONGO_RECONNECT = "mongodb-retry";
+	//queries slower than this are logged
+	private static final String MONGO_SLOW_QUERY = "mongodb-slow-query-ms";
+	private static final int DEFAULT_MONGO_SLOW_QUERY = 1000;
 	
 	//auth servers
 	private static final String KBASE_AUTH_URL = "auth-service-url";
@@ -49,6 +56,61 @@ public class KBaseWorkspaceConfig {
 	
 	//directory for temp files
 	private static final String TEMP_DIR = "temp-dir";
+	//additional directories for temp files, comma separated
+	private static final String TEMP_DIR_SHARDS = "temp-dir-shards";
+	//maximum size of all temp files in MB
+	private static final String TEMP_DISK_QUOTA = "temp-disk-quota-mb";
+	//minutes after which orphaned temp files are deleted
+	private static final String TEMP_FILE_TTL = "temp-file-ttl-min";
+	private static final int DEFAULT_TEMP_FILE_TTL = 60;
+	
+	//per user admission limits
+	private static final String USER_MAX_READS = "user-max-concurrent-reads";
+	private static final int DEFAULT_USER_MAX_READS = 10;
+	private static final String USER_MAX_WRITES = "user-max-concurrent-writes";
+	private static final int DEFAULT_USER_MAX_WRITES = 5;
+	private static final String USER_MAX_WRITE_MB = "user-max-write-mb";
+	private static final int DEFAULT_USER_MAX_WRITE_MB = 3000;
+	private static final String MAX_WRITE_MB = "max-write-mb";
+	
+	//workspace export and import
+	private static final String ARCHIVE_DIR = "archive-dir";
+	private static final String ARCHIVE_THREADS = "archive-threads";
+	private static final int DEFAULT_ARCHIVE_THREADS = 8;
+	
+	//blob store tiering, only used if cold storage is configured in the db
+	private static final String COLD_STORAGE_DAYS = "cold-storage-days";
+	private static final int DEFAULT_COLD_STORAGE_DAYS = 180;
+	private static final String COLD_STORAGE_PROMOTE_READS =
+			"cold-storage-promote-reads";
+	private static final int DEFAULT_COLD_STORAGE_PROMOTE_READS = 3;
+	
+	//share provenance between saves with identical provenance
+	private static final String DEDUP_PROV_ACROSS_SAVES =
+			"dedup-provenance-across-saves";
+	//maximum size of cached provenance documents in MB
+	private static final String PROV_CACHE_MB = "provenance-cache-mb";
+	private static final int DEFAULT_PROV_CACHE_MB = 50;
+	
+	//background jobs
+	private static final String JOB_THREADS = "job-threads";
+	private static final int DEFAULT_JOB_THREADS = 2;
+	
+	//per method class request limits
+	private static final String SCHEDULER_PREFIX = "scheduler-";
+	private static final String SCHEDULER_CONCURRENCY = "-concurrency";
+	private static final String SCHEDULER_QUEUE = "-queue";
+	private static final String SCHEDULER_TIMEOUT =
+			"scheduler-queue-timeout-sec";
+	private static final int DEFAULT_SCHEDULER_TIMEOUT = 30;
+	private static final Map<MethodClass, Limits> DEFAULT_SCHEDULER_LIMITS =
+			new EnumMap<MethodClass, Limits>(MethodClass.class);
+	static {
+		DEFAULT_SCHEDULER_LIMITS.put(MethodClass.FAST, new Limits(0, 0));
+		DEFAULT_SCHEDULER_LIMITS.put(MethodClass.BULK_READ, new Limits(5, 2));
+		DEFAULT_SCHEDULER_LIMITS.put(MethodClass.BULK_WRITE, new Limits(4, 2));
+		DEFAULT_SCHEDULER_LIMITS.put(MethodClass.ADMIN, new Limits(1, 1));
+	}
 	
 	private static final List<String> REQUIRED_PARAMS = Arrays.asList(
 			HOST, DB, TEMP_DIR, GLOBUS_AUTH_URL, KBASE_AUTH_URL);
@@ -61,12 +123,29 @@ public class KBaseWorkspaceConfig {
 	private final String kbaseAdminPassword;
 	private final String kbaseAdminToken;
 	private final String tempDir;
+	private final List<String> tempDirShards;
+	private final long tempDiskQuotaMB;
+	private final int tempFileTTLMinutes;
 	private final String workspaceAdmin;
 	private final String mongoUser;
 	private final String mongoPassword;
 	private final URL authURL;
 	private final URL globusURL;
 	private final int mongoReconnectAttempts;
+	private final long mongoSlowQueryMillis;
+	private final int userMaxConcurrentReads;
+	private final int userMaxConcurrentWrites;
+	private final long userMaxWriteMB;
+	private final long maxWriteMB;
+	private final String archiveDir;
+	private final int archiveThreads;
+	private final int coldStorageDays;
+	private final int coldStoragePromoteReads;
+	private final boolean dedupProvenanceAcrossSaves;
+	private final long provenanceCacheMB;
+	private final int jobThreads;
+	private final Map<MethodClass, Limits> schedulerLimits;
+	private final int schedulerQueueTimeoutSec;
 	private final boolean ignoreHandleService;
 	private final URL handleServiceURL;
 	private final URL handleManagerURL;
@@ -116,6 +195,11 @@ public class KBaseWorkspaceConfig {
 		host = config.get(HOST);
 		db = config.get(DB);
 		tempDir = config.get(TEMP_DIR);
+		tempDirShards = getTempDirShards(config);
+		tempDiskQuotaMB = getNonNegativeLong(config, TEMP_DISK_QUOTA, 0,
+				paramErrors);
+		tempFileTTLMinutes = (int) getNonNegativeLong(config, TEMP_FILE_TTL,
+				DEFAULT_TEMP_FILE_TTL, paramErrors);
 		
 		authURL = getUrl(config, KBASE_AUTH_URL, paramErrors);
 		globusURL = getUrl(config, GLOBUS_AUTH_URL, paramErrors);
@@ -195,6 +279,45 @@ public class KBaseWorkspaceConfig {
 		}
 		
 		mongoReconnectAttempts = getReconnectCount(config, infoMsgs);
+		mongoSlowQueryMillis = getNonNegativeLong(config, MONGO_SLOW_QUERY,
+				DEFAULT_MONGO_SLOW_QUERY, paramErrors);
+		userMaxConcurrentReads = (int) getNonNegativeLong(config,
+				USER_MAX_READS, DEFAULT_USER_MAX_READS, paramErrors);
+		userMaxConcurrentWrites = (int) getNonNegativeLong(config,
+				USER_MAX_WRITES, DEFAULT_USER_MAX_WRITES, paramErrors);
+		userMaxWriteMB = getNonNegativeLong(config, USER_MAX_WRITE_MB,
+				DEFAULT_USER_MAX_WRITE_MB, paramErrors);
+		maxWriteMB = getNonNegativeLong(config, MAX_WRITE_MB, 0, paramErrors);
+		final String adir = config.get(ARCHIVE_DIR);
+		archiveDir = adir == null || adir.trim().isEmpty() ? null : adir.trim();
+		archiveThreads = (int) getNonNegativeLong(config, ARCHIVE_THREADS,
+				DEFAULT_ARCHIVE_THREADS, paramErrors);
+		if (archiveThreads < 1) {
+			paramErrors.add("Parameter " + ARCHIVE_THREADS +
+					" must be at least 1");
+		}
+		coldStorageDays = (int) getNonNegativeLong(config, COLD_STORAGE_DAYS,
+				DEFAULT_COLD_STORAGE_DAYS, paramErrors);
+		if (coldStorageDays < 1) {
+			paramErrors.add("Parameter " + COLD_STORAGE_DAYS +
+					" must be at least 1");
+		}
+		coldStoragePromoteReads = (int) getNonNegativeLong(config,
+				COLD_STORAGE_PROMOTE_READS, DEFAULT_COLD_STORAGE_PROMOTE_READS,
+				paramErrors);
+		if (coldStoragePromoteReads < 1) {
+			paramErrors.add("Parameter " + COLD_STORAGE_PROMOTE_READS +
+					" must be at least 1");
+		}
+		final String dedupProv = config.get(DEDUP_PROV_ACROSS_SAVES);
+		dedupProvenanceAcrossSaves = dedupProv != null && !dedupProv.isEmpty();
+		provenanceCacheMB = getNonNegativeLong(config, PROV_CACHE_MB,
+				DEFAULT_PROV_CACHE_MB, paramErrors);
+		jobThreads = (int) getNonNegativeLong(config, JOB_THREADS,
+				DEFAULT_JOB_THREADS, paramErrors);
+		schedulerLimits = getSchedulerLimits(config, paramErrors);
+		schedulerQueueTimeoutSec = (int) getNonNegativeLong(config,
+				SCHEDULER_TIMEOUT, DEFAULT_SCHEDULER_TIMEOUT, paramErrors);
 		errors = Collections.unmodifiableList(paramErrors);
 		infoMessages = Collections.unmodifiableList(infoMsgs);
 		paramReport = generateParamReport(config);
@@ -264,6 +387,60 @@ public class KBaseWorkspaceConfig {
 		return null;
 	}
 	
+	private static List<String> getTempDirShards(
+			final Map<String, String> wsConfig) {
+		final List<String> shards = new LinkedList<String>();
+		final String s = wsConfig.get(TEMP_DIR_SHARDS);
+		if (s != null) {
+			for (final String dir: s.split(",")) {
+				if (!dir.trim().isEmpty()) {
+					shards.add(dir.trim());
+				}
+			}
+		}
+		return Collections.unmodifiableList(shards);
+	}
+	
+	private static long getNonNegativeLong(
+			final Map<String, String> wsConfig,
+			final String configKey,
+			final long defaultValue,
+			final List<String> errors) {
+		final String val = wsConfig.get(configKey);
+		if (val == null || val.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			final long l = Long.parseLong(val.trim());
+			if (l >= 0) {
+				return l;
+			}
+		} catch (NumberFormatException nfe) {
+			//fall through
+		}
+		errors.add("Parameter " + configKey +
+				" must be an integer >= 0: " + val);
+		return defaultValue;
+	}
+	
+	private static Map<MethodClass, Limits> getSchedulerLimits(
+			final Map<String, String> wsConfig,
+			final List<String> errors) {
+		final Map<MethodClass, Limits> limits =
+				new EnumMap<MethodClass, Limits>(MethodClass.class);
+		for (final MethodClass mc: MethodClass.values()) {
+			final Limits def = DEFAULT_SCHEDULER_LIMITS.get(mc);
+			final String key = SCHEDULER_PREFIX + mc.getConfigName();
+			limits.put(mc, new Limits(
+					(int) getNonNegativeLong(wsConfig,
+							key + SCHEDULER_CONCURRENCY,
+							def.getConcurrency(), errors),
+					(int) getNonNegativeLong(wsConfig, key + SCHEDULER_QUEUE,
+							def.getQueue(), errors)));
+		}
+		return Collections.unmodifiableMap(limits);
+	}
+	
 	private static int getReconnectCount(
 			final Map<String, String> wsConfig,
 			final List<String> infos) {
@@ -328,6 +505,27 @@ public class KBaseWorkspaceConfig {
 		return tempDir;
 	}
 
+	/** Get additional directories for temporary files.
+	 * @return the directories, possibly empty.
+	 */
+	public List<String> getTempDirShards() {
+		return tempDirShards;
+	}
+	
+	/** Get the maximum size of all the temporary files.
+	 * @return the quota in MB, or 0 for no quota.
+	 */
+	public long getTempDiskQuotaMB() {
+		return tempDiskQuotaMB;
+	}
+	
+	/** Get the time after which orphaned temporary files are deleted.
+	 * @return the time in minutes, or 0 to never delete orphaned files.
+	 */
+	public int getTempFileTTLMinutes() {
+		return tempFileTTLMinutes;
+	}
+
 	public String getWorkspaceAdmin() {
 		return workspaceAdmin;
 	}
@@ -343,6 +541,114 @@ public class KBaseWorkspaceConfig {
 	public int getMongoReconnectAttempts() {
 		return mongoReconnectAttempts;
 	}
+	
+	/** Get the time above which queries to MongoDB are logged as slow.
+	 * @return the time in milliseconds, or 0 to not log slow queries.
+	 */
+	public long getMongoSlowQueryMillis() {
+		return mongoSlowQueryMillis;
+	}
+
+	/** Get the maximum number of object data retrievals a user may run at
+	 * once.
+	 * @return the maximum, or 0 for no limit.
+	 */
+	public int getUserMaxConcurrentReads() {
+		return userMaxConcurrentReads;
+	}
+	
+	/** Get the maximum number of saves and clones a user may run at once.
+	 * @return the maximum, or 0 for no limit.
+	 */
+	public int getUserMaxConcurrentWrites() {
+		return userMaxConcurrentWrites;
+	}
+	
+	/** Get the maximum size of the data a user may be saving at once.
+	 * @return the size in MB, or 0 for no limit.
+	 */
+	public long getUserMaxWriteMB() {
+		return userMaxWriteMB;
+	}
+	
+	/** Get the maximum size of the data all users may be saving at once.
+	 * @return the size in MB, or 0 for no limit.
+	 */
+	public long getMaxWriteMB() {
+		return maxWriteMB;
+	}
+	
+	/** Get the directory in which workspace archives are stored.
+	 * @return the directory, or null if exporting and importing workspaces
+	 * is disabled.
+	 */
+	public String getArchiveDir() {
+		return archiveDir;
+	}
+	
+	/** Get the number of blobs to transfer at once when exporting or
+	 * importing a workspace.
+	 * @return the number of blobs.
+	 */
+	public int getArchiveThreads() {
+		return archiveThreads;
+	}
+	
+	/** Get the number of days a blob may go unread before it is moved to
+	 * cold storage.
+	 * @return the number of days.
+	 */
+	public int getColdStorageDays() {
+		return coldStorageDays;
+	}
+	
+	/** Get the number of times a blob in cold storage must be read before it
+	 * is moved back to the primary blob store.
+	 * @return the number of reads.
+	 */
+	public int getColdStoragePromoteReads() {
+		return coldStoragePromoteReads;
+	}
+	
+	/** Returns true if new object versions should reuse provenance saved
+	 * with earlier versions.
+	 * @return true to deduplicate provenance across saves.
+	 */
+	public boolean dedupProvenanceAcrossSaves() {
+		return dedupProvenanceAcrossSaves;
+	}
+	
+	/** Get the maximum size of the provenance documents cached in memory,
+	 * measured as stored in the database.
+	 * @return the size in MB. 0 disables the cache.
+	 */
+	public long getProvenanceCacheMB() {
+		return provenanceCacheMB;
+	}
+	
+	/** Get the maximum number of background jobs this server runs at once.
+	 * @return the number of jobs. If 0, jobs submitted to this server are
+	 * run by other servers sharing the database.
+	 */
+	public int getJobThreads() {
+		return jobThreads;
+	}
+	
+	/** Get the limits on concurrent and queued requests for each method
+	 * class.
+	 * @return the limits.
+	 */
+	public Map<MethodClass, Limits> getSchedulerLimits() {
+		return schedulerLimits;
+	}
+	
+	/** Get the maximum time a request may wait for other requests of its
+	 * method class to finish.
+	 * @return the time in seconds.
+	 */
+	public int getSchedulerQueueTimeoutSec() {
+		return schedulerQueueTimeoutSec;
+	}
 
 	public boolean ignoreHandleService() {
 		return ignoreHandleService;
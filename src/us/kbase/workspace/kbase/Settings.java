@@ -11,27 +11,43 @@ public class Settings {
 	private String shockUser;
 	private String backendType;
 	private String typeDatabase;
+	private String fileLocation;
+	private String coldLocation;
 	
 	private static final String SHOCK = "shock";
 	private static final String GFS = "gridFS";
+	private static final String FILE = "file";
 	// settings fields
 	public static final String SET_TYPE_DB = "type_db";
 	public static final String SET_BACKEND = "backend";
 	public static final String SET_SHOCK_USER = "shock_user";
 	public static final String SET_SHOCK_LOC = "shock_location";
+	public static final String SET_FILE_LOC = "file_location";
+	public static final String SET_COLD_LOC = "cold_location";
 
 	@JsonCreator
 	private Settings(@JsonProperty(SET_SHOCK_LOC) final String shockUrl,
 			@JsonProperty(SET_SHOCK_USER) final String shockUser,
 			@JsonProperty(SET_BACKEND) final String backendType,
-			@JsonProperty(SET_TYPE_DB) final String typeDatabase) throws 
+			@JsonProperty(SET_TYPE_DB) final String typeDatabase,
+			@JsonProperty(SET_FILE_LOC) final String fileLocation,
+			@JsonProperty(SET_COLD_LOC) final String coldLocation) throws 
 			CorruptWorkspaceDBException {
 		this.shockUrl = shockUrl;
 		this.shockUser = shockUser;
-		if(!(backendType.equals(SHOCK) || backendType.equals(GFS))) {
+		if(!(backendType.equals(SHOCK) || backendType.equals(GFS) ||
+				backendType.equals(FILE))) {
 			throw new CorruptWorkspaceDBException(
 					"Illegal backend type: " + backendType);
 		}
+		if (backendType.equals(FILE) &&
+				(fileLocation == null || fileLocation.isEmpty())) {
+			throw new CorruptWorkspaceDBException(
+					"No file location provided for the file backend");
+		}
+		this.fileLocation = fileLocation;
+		this.coldLocation = coldLocation == null || coldLocation.isEmpty() ?
+				null : coldLocation;
 		this.backendType = backendType;
 		this.typeDatabase = typeDatabase;
 		if (typeDatabase == null || typeDatabase.isEmpty()) {
@@ -54,6 +70,21 @@ public class Settings {
 		return backendType.equals(GFS);
 	}
 	
+	public boolean isFileBackend() {
+		return backendType.equals(FILE);
+	}
+	
+	public String getFileLocation() {
+		return fileLocation;
+	}
+	
+	/** Get the directory in which rarely read blobs are stored.
+	 * @return the directory, or null if cold storage is not enabled.
+	 */
+	public String getColdLocation() {
+		return coldLocation;
+	}
+	
 	public String getTypeDatabase() {
 		return typeDatabase;
 	}
@@ -62,7 +93,8 @@ public class Settings {
 	public String toString() {
 		return "Settings [shockUrl=" + shockUrl + ", shockUser=" + shockUser
 				+ ", backendType=" + backendType + ", typeDatabase="
-				+ typeDatabase + "]";
+				+ typeDatabase + ", fileLocation=" + fileLocation + ", coldLocation="
+				+ coldLocation + "]";
 	}
 
 }
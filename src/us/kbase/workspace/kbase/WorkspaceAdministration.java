@@ -1,13 +1,17 @@
 package us.kbase.workspace.kbase;
 
+import static us.kbase.workspace.kbase.ArgUtils.checkLong;
+import static us.kbase.workspace.kbase.ArgUtils.longToInt;
 import static us.kbase.workspace.kbase.ArgUtils.wsInfoToTuple;
 import static us.kbase.workspace.kbase.IdentifierUtils.processWorkspaceIdentifier;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +41,9 @@ import us.kbase.workspace.SaveObjectsParams;
 import us.kbase.workspace.SetGlobalPermissionsParams;
 import us.kbase.workspace.SetPermissionsParams;
 import us.kbase.workspace.WorkspaceIdentity;
+import us.kbase.workspace.database.AdmissionController;
+import us.kbase.workspace.database.AdmissionController.Limits;
+import us.kbase.workspace.database.AdmissionController.Operation;
 import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceIdentifier;
@@ -48,7 +55,9 @@ import us.kbase.workspace.database.exceptions.NoSuchObjectException;
 import us.kbase.workspace.database.exceptions.NoSuchWorkspaceException;
 import us.kbase.workspace.database.exceptions.PreExistingWorkspaceException;
 import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+import us.kbase.workspace.database.mongo.QueryProfiler;
 import us.kbase.workspace.exceptions.WorkspaceAuthorizationException;
+import us.kbase.workspace.metrics.MetricsRegistry;
 
 public class WorkspaceAdministration {
 	
@@ -74,6 +83,16 @@ public class WorkspaceAdministration {
 	private static final String LIST_MOD_REQUESTS = "listModRequests";
 	private static final String DELETE_WS = "deleteWorkspace";
 	private static final String UNDELETE_WS = "undeleteWorkspace";
+	private static final String GET_METRICS = "getMetrics";
+	private static final String GET_QUERY_PROFILE = "getQueryProfile";
+	private static final String RESET_QUERY_PROFILE = "resetQueryProfile";
+	private static final String GET_ADMISSION_STATUS = "getAdmissionStatus";
+	private static final String SET_ADMISSION_LIMITS = "setAdmissionLimits";
+	private static final String EXPORT_WORKSPACE = "exportWorkspace";
+	private static final String IMPORT_WORKSPACE = "importWorkspace";
+	private static final String GET_ARCHIVE_STATUS = "getArchiveStatus";
+	
+	private static final int QUERY_SHAPE_LIMIT = 100;
 
 	private final static ObjectMapper MAPPER = new ObjectMapper()
 			.registerModule(new JacksonTupleModule());
@@ -81,21 +100,36 @@ public class WorkspaceAdministration {
 	private final Workspace ws;
 	private final WorkspaceServerMethods wsmeth;
 	private final Types types;
+	private final QueryProfiler profiler;
+	private final ArchiveJobs archives;
 	private final Set<String> internaladmins = new HashSet<String>(); 
 	
 	public WorkspaceAdministration(
 			final Workspace ws, 
 			final WorkspaceServerMethods wsmeth,
 			final Types types,
+			final QueryProfiler profiler,
+			final ArchiveJobs archives,
 			final String admin) {
 		this.ws = ws;
 		this.types = types;
 		this.wsmeth = wsmeth;
+		this.profiler = profiler;
+		this.archives = archives;
 		if (admin != null && !admin.isEmpty()) {
 			internaladmins.add(admin);
 		}
 	}
 	
+	/** Stop any background threads started by the administration
+	 * interface.
+	 */
+	public void stop() {
+		if (archives != null) {
+			archives.stop();
+		}
+	}
+	
 	private static Logger getLogger() {
 		return LoggerFactory.getLogger(WorkspaceAdministration.class);
 	}
@@ -264,6 +298,64 @@ public class WorkspaceAdministration {
 			wsmeth.removeModuleOwnership(params, null, true);
 			return null;
 		}
+		if (GET_QUERY_PROFILE.equals(fn)) {
+			getLogger().info(GET_QUERY_PROFILE);
+			final Map<String, Object> ret = new LinkedHashMap<String, Object>();
+			ret.put("slow_query_ms", profiler.getSlowQueryThresholdMillis());
+			ret.put("slowest", profiler.getSlowestQueries());
+			ret.put("shapes", profiler.getShapeStatistics(QUERY_SHAPE_LIMIT));
+			return ret;
+		}
+		if (RESET_QUERY_PROFILE.equals(fn)) {
+			getLogger().info(RESET_QUERY_PROFILE);
+			profiler.reset();
+			return null;
+		}
+		if (GET_ADMISSION_STATUS.equals(fn)) {
+			getLogger().info(GET_ADMISSION_STATUS);
+			return ws.getAdmissionController().getStatus();
+		}
+		if (SET_ADMISSION_LIMITS.equals(fn)) {
+			final SetAdmissionLimitsParams params = getParams(cmd,
+					SetAdmissionLimitsParams.class);
+			final Operation op = getOperation(params.operation);
+			final AdmissionController ac = ws.getAdmissionController();
+			final Limits old = ac.getLimits(op);
+			final Limits l = new Limits(
+					longToInt(params.max_concurrent_per_user,
+							"max_concurrent_per_user",
+							old.getMaxConcurrentPerUser()),
+					checkLong(params.max_bytes_per_user,
+							old.getMaxBytesPerUser()),
+					checkLong(params.max_bytes, old.getMaxBytes()));
+			ac.setLimits(op, l);
+			getLogger().info(SET_ADMISSION_LIMITS + " " + params.operation +
+					" " + l);
+			return null;
+		}
+		if (EXPORT_WORKSPACE.equals(fn)) {
+			final ArchiveParams params = getParams(cmd, ArchiveParams.class);
+			final WorkspaceIdentifier wsi = processWorkspaceIdentifier(
+					params.wsi);
+			getLogger().info(EXPORT_WORKSPACE + " " +
+					wsi.getIdentifierString() + " " + params.archive);
+			return getArchiveJobs().startExport(wsi, params.archive);
+		}
+		if (IMPORT_WORKSPACE.equals(fn)) {
+			final ArchiveParams params = getParams(cmd, ArchiveParams.class);
+			getLogger().info(IMPORT_WORKSPACE + " " + params.archive);
+			return getArchiveJobs().startImport(params.archive);
+		}
+		if (GET_ARCHIVE_STATUS.equals(fn)) {
+			getLogger().info(GET_ARCHIVE_STATUS);
+			return getArchiveJobs().getStatus();
+		}
+		if (GET_METRICS.equals(fn)) {
+			getLogger().info(GET_METRICS);
+			final StringWriter w = new StringWriter();
+			MetricsRegistry.getDefault().writePrometheus(w);
+			return w.toString();
+		}
 		throw new IllegalArgumentException(
 				"I don't know how to process the command: " + fn);
 	}
@@ -298,6 +390,43 @@ public class WorkspaceAdministration {
 		public SetWorkspaceOwnerParams() {}; //for jackson
 	}
 	
+	private static class SetAdmissionLimitsParams {
+		public String operation;
+		public Long max_concurrent_per_user;
+		public Long max_bytes_per_user;
+		public Long max_bytes;
+		
+		@SuppressWarnings("unused")
+		public SetAdmissionLimitsParams() {}; //for jackson
+	}
+	
+	private static class ArchiveParams {
+		public WorkspaceIdentity wsi;
+		public String archive;
+		
+		@SuppressWarnings("unused")
+		public ArchiveParams() {}; //for jackson
+	}
+	
+	private ArchiveJobs getArchiveJobs() {
+		if (archives == null) {
+			throw new IllegalArgumentException(
+					"Exporting and importing workspaces is not enabled on this server");
+		}
+		return archives;
+	}
+	
+	private static Operation getOperation(final String operation) {
+		if (operation != null) {
+			for (final Operation op: Operation.values()) {
+				if (op.name().equalsIgnoreCase(operation)) {
+					return op;
+				}
+			}
+		}
+		throw new IllegalArgumentException("Unknown operation: " + operation);
+	}
+	
 	private <T> T getParams(final AdminCommand input, final Class<T> clazz)
 			throws IOException {
 		final UObject p = input.getParams();
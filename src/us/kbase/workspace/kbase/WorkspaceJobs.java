@@ -0,0 +1,583 @@
+package us.kbase.workspace.kbase;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.types.ObjectId;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.common.service.UObject;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Runs long running workspace operations in the background.
+ *
+ * Jobs are stored in a MongoDB collection so that any server sharing the
+ * database can report their status, and are run by a bounded pool of worker
+ * threads that claim queued jobs from the collection. Running jobs are
+ * marked with a heartbeat by the server running them. If a server stops, its
+ * jobs are requeued once their heartbeat is stale and are run again by
+ * whichever server claims them next, up to a maximum number of attempts.
+ *
+ * Job parameters and results are stored as JSON strings, as arbitrary user
+ * maps may contain keys that are illegal in MongoDB documents.
+ */
+public class WorkspaceJobs {
+
+	public static final String QUEUED = "queued";
+	public static final String RUNNING = "running";
+	public static final String COMPLETE = "complete";
+	public static final String FAILED = "failed";
+	public static final String CANCELED = "canceled";
+
+	private static final String MONGO_ID = "_id";
+	private static final String JOB_TYPE = "type";
+	private static final String JOB_USER = "user";
+	private static final String JOB_STATE = "state";
+	private static final String JOB_PARAMS = "params";
+	private static final String JOB_SUBMITTED = "submitted";
+	private static final String JOB_STARTED = "started";
+	private static final String JOB_FINISHED = "finished";
+	private static final String JOB_HEARTBEAT = "heartbeat";
+	private static final String JOB_SERVER = "server";
+	private static final String JOB_ATTEMPTS = "attempts";
+	private static final String JOB_RESULT = "result";
+	private static final String JOB_ERROR = "error";
+
+	private static final int MAX_ATTEMPTS = 3;
+	// time a worker waits for a new job before checking the database again
+	private static final long POLL_MS = 1000;
+	private static final long HEARTBEAT_MS = 60 * 1000;
+	// running jobs with heartbeats older than this are assumed to be orphaned
+	private static final long STALE_HEARTBEAT_MS = 5 * 60 * 1000;
+	// finished jobs are removed from the database after this time
+	private static final int FINISHED_TTL_SEC = 30 * 24 * 60 * 60;
+	// time to wait for running jobs to be interrupted when stopping
+	private static final long STOP_WAIT_MS = 10 * 1000;
+
+	/** Runs a particular type of job. */
+	public interface JobHandler {
+
+		/** Run a job.
+		 * @param user the user that submitted the job.
+		 * @param params the job parameters as a JSON string.
+		 * @return the result of the job, which must be serializable to JSON.
+		 * @throws Exception if the job fails.
+		 */
+		Object run(WorkspaceUser user, String params) throws Exception;
+	}
+
+	/** The status of a job. */
+	public static class Job {
+
+		private final String id;
+		private final String type;
+		private final WorkspaceUser user;
+		private final String state;
+		private final Date submitted;
+		private final Date started;
+		private final Date finished;
+		private final String result;
+		private final String error;
+
+		private Job(final DBObject job) {
+			id = ((ObjectId) job.get(MONGO_ID)).toString();
+			type = (String) job.get(JOB_TYPE);
+			user = new WorkspaceUser((String) job.get(JOB_USER));
+			state = (String) job.get(JOB_STATE);
+			submitted = (Date) job.get(JOB_SUBMITTED);
+			started = (Date) job.get(JOB_STARTED);
+			finished = (Date) job.get(JOB_FINISHED);
+			result = (String) job.get(JOB_RESULT);
+			error = (String) job.get(JOB_ERROR);
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public WorkspaceUser getUser() {
+			return user;
+		}
+
+		public String getState() {
+			return state;
+		}
+
+		public Date getSubmitted() {
+			return submitted;
+		}
+
+		/** Get the date the job last started running.
+		 * @return the start date, or null if the job hasn't started.
+		 */
+		public Date getStarted() {
+			return started;
+		}
+
+		/** Get the date the job completed, failed, or was canceled.
+		 * @return the finish date, or null if the job hasn't finished.
+		 */
+		public Date getFinished() {
+			return finished;
+		}
+
+		/** Get the result of a completed job.
+		 * @return the result as a JSON string, or null if the job hasn't
+		 * completed.
+		 */
+		public String getResult() {
+			return result;
+		}
+
+		/** Get the reason a job failed.
+		 * @return the error, or null if the job hasn't failed.
+		 */
+		public String getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return "Job [id=" + id + ", type=" + type + ", user=" + user
+					+ ", state=" + state + ", submitted=" + submitted
+					+ ", started=" + started + ", finished=" + finished
+					+ ", error=" + error + "]";
+		}
+	}
+
+	private final DBCollection jobCol;
+	private final TempFilesManager tfm;
+	// identifies the jobs run by this instance in the database
+	private final String serverID = UUID.randomUUID().toString();
+	private final Map<String, JobHandler> handlers =
+			new ConcurrentHashMap<String, JobHandler>();
+	private final Object poll = new Object();
+	private ExecutorService workers = null;
+	private ScheduledExecutorService maintenance = null;
+
+	/** Create a job runner. No jobs are run until {@link #start(int)} is
+	 * called.
+	 * @param jobCollection the collection in which to store jobs.
+	 * @param tempFiles the temporary file manager. Each job is run as a
+	 * temporary file request, so any temporary files a job leaves behind are
+	 * orphaned when it finishes.
+	 */
+	public WorkspaceJobs(
+			final DBCollection jobCollection,
+			final TempFilesManager tempFiles) {
+		if (jobCollection == null) {
+			throw new NullPointerException("jobCollection cannot be null");
+		}
+		if (tempFiles == null) {
+			throw new NullPointerException("tempFiles cannot be null");
+		}
+		jobCol = jobCollection;
+		tfm = tempFiles;
+		final DBObject claim = new BasicDBObject(JOB_STATE, 1);
+		claim.put(JOB_SUBMITTED, 1);
+		jobCol.createIndex(claim);
+		final DBObject stale = new BasicDBObject(JOB_STATE, 1);
+		stale.put(JOB_HEARTBEAT, 1);
+		jobCol.createIndex(stale);
+		jobCol.createIndex(new BasicDBObject(JOB_FINISHED, 1),
+				new BasicDBObject("expireAfterSeconds", FINISHED_TTL_SEC));
+	}
+
+	/** Register a handler for a type of job. Only jobs with registered
+	 * types may be submitted or run.
+	 * @param type the type of job.
+	 * @param handler the handler that runs the jobs.
+	 */
+	public void register(final String type, final JobHandler handler) {
+		if (type == null || type.isEmpty() || handler == null) {
+			throw new IllegalArgumentException(
+					"A job type and handler are required");
+		}
+		handlers.put(type, handler);
+	}
+
+	/** Start running jobs. Running jobs are marked with a heartbeat and
+	 * orphaned jobs from stopped servers are requeued.
+	 * @param threads the maximum number of jobs to run at once. If 0, jobs
+	 * may be submitted to this instance but are only run by other servers.
+	 */
+	public synchronized void start(final int threads) {
+		if (threads < 0) {
+			throw new IllegalArgumentException(
+					"The number of job threads cannot be negative");
+		}
+		if (maintenance != null) {
+			throw new IllegalStateException("Jobs are already running");
+		}
+		maintenance = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactory() {
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "ws-job-maintenance");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		maintenance.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					heartbeat();
+					requeueStaleJobs(STALE_HEARTBEAT_MS);
+				} catch (Throwable e) {
+					LoggerFactory.getLogger(getClass()).error(
+							"Failed to update job heartbeats", e);
+				}
+			}
+		}, 0, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+		if (threads == 0) {
+			return;
+		}
+		final AtomicInteger count = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r,
+						"ws-job-worker-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final ExecutorService pool = workers;
+		for (int i = 0; i < threads; i++) {
+			workers.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					work(pool);
+				}
+			});
+		}
+	}
+
+	/** Stop running jobs. The threads running jobs are interrupted and this
+	 * method waits a short time for them to exit. Jobs that are interrupted
+	 * are requeued once their heartbeat is stale.
+	 * @return true if all the threads exited, false if some threads were
+	 * still running when the wait ended.
+	 */
+	public synchronized boolean stop() {
+		final ExecutorService m = maintenance;
+		final ExecutorService w = workers;
+		maintenance = null;
+		workers = null;
+		if (m == null) {
+			return true;
+		}
+		m.shutdownNow();
+		if (w != null) {
+			w.shutdownNow();
+		}
+		try {
+			final long end = System.currentTimeMillis() + STOP_WAIT_MS;
+			boolean done = m.awaitTermination(
+					STOP_WAIT_MS, TimeUnit.MILLISECONDS);
+			if (w != null) {
+				done &= w.awaitTermination(
+						Math.max(0, end - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+			return done;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/** Submit a job.
+	 * @param user the user submitting the job.
+	 * @param type the type of job.
+	 * @param params the job parameters, which must be serializable to JSON.
+	 * @return the status of the job.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	public Job submit(
+			final WorkspaceUser user,
+			final String type,
+			final Object params)
+			throws WorkspaceCommunicationException {
+		if (user == null) {
+			throw new NullPointerException("user cannot be null");
+		}
+		if (!handlers.containsKey(type)) {
+			throw new IllegalArgumentException("Unknown job type: " + type);
+		}
+		final DBObject job = new BasicDBObject(MONGO_ID, new ObjectId());
+		job.put(JOB_TYPE, type);
+		job.put(JOB_USER, user.getUser());
+		job.put(JOB_STATE, QUEUED);
+		job.put(JOB_PARAMS, toJSON(params));
+		job.put(JOB_SUBMITTED, new Date());
+		job.put(JOB_ATTEMPTS, 0);
+		try {
+			jobCol.insert(job);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		synchronized (poll) {
+			poll.notify();
+		}
+		return new Job(job);
+	}
+
+	/** Get the status of a job.
+	 * @param user the user that submitted the job.
+	 * @param id the ID of the job.
+	 * @return the status of the job.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	public Job getJob(final WorkspaceUser user, final String id)
+			throws WorkspaceCommunicationException {
+		final DBObject job;
+		try {
+			job = jobCol.findOne(jobQuery(user, id),
+					new BasicDBObject(JOB_PARAMS, 0));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (job == null) {
+			throw new IllegalArgumentException("No job with id " + id);
+		}
+		return new Job(job);
+	}
+
+	/** Cancel a queued job. Jobs that are running cannot be canceled.
+	 * Canceling a job that has already finished has no effect.
+	 * @param user the user that submitted the job.
+	 * @param id the ID of the job.
+	 * @return the status of the job.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	public Job cancel(final WorkspaceUser user, final String id)
+			throws WorkspaceCommunicationException {
+		final DBObject q = jobQuery(user, id);
+		q.put(JOB_STATE, QUEUED);
+		final DBObject set = new BasicDBObject(JOB_STATE, CANCELED);
+		set.put(JOB_FINISHED, new Date());
+		final DBObject job;
+		try {
+			job = jobCol.findAndModify(q, new BasicDBObject(JOB_PARAMS, 0),
+					null, false, new BasicDBObject("$set", set), true, false);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (job != null) {
+			return new Job(job);
+		}
+		final Job existing = getJob(user, id);
+		if (RUNNING.equals(existing.getState())) {
+			throw new IllegalArgumentException(String.format(
+					"Job %s is running and cannot be canceled", id));
+		}
+		return existing;
+	}
+
+	/** Claim the oldest queued job and run it in the current thread.
+	 * @return true if a job was run, false if there were no queued jobs.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	public boolean runNextJob() throws WorkspaceCommunicationException {
+		final DBObject q = new BasicDBObject(JOB_STATE, QUEUED);
+		q.put(JOB_TYPE, new BasicDBObject("$in", handlers.keySet()));
+		final Date now = new Date();
+		final DBObject set = new BasicDBObject(JOB_STATE, RUNNING);
+		set.put(JOB_STARTED, now);
+		set.put(JOB_HEARTBEAT, now);
+		set.put(JOB_SERVER, serverID);
+		final DBObject update = new BasicDBObject("$set", set);
+		update.put("$inc", new BasicDBObject(JOB_ATTEMPTS, 1));
+		final DBObject job;
+		try {
+			job = jobCol.findAndModify(q, null,
+					new BasicDBObject(JOB_SUBMITTED, 1), false, update, true,
+					false);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (job == null) {
+			return false;
+		}
+		final String type = (String) job.get(JOB_TYPE);
+		final String result;
+		final TempFilesManager.Request tempFiles = tfm.startRequest();
+		try {
+			final Object res = handlers.get(type).run(
+					new WorkspaceUser((String) job.get(JOB_USER)),
+					(String) job.get(JOB_PARAMS));
+			result = toJSON(res);
+		} catch (Throwable e) {
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Job %s of type %s failed", job.get(MONGO_ID), type), e);
+			final String msg = e.getLocalizedMessage();
+			finish(job, FAILED, JOB_ERROR, msg == null ?
+					e.getClass().getSimpleName() : msg);
+			return true;
+		} finally {
+			tempFiles.end();
+		}
+		finish(job, COMPLETE, JOB_RESULT, result);
+		return true;
+	}
+
+	/** Update the heartbeat of the jobs this instance is running.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	public void heartbeat() throws WorkspaceCommunicationException {
+		final DBObject q = new BasicDBObject(JOB_STATE, RUNNING);
+		q.put(JOB_SERVER, serverID);
+		try {
+			jobCol.update(q, new BasicDBObject("$set",
+					new BasicDBObject(JOB_HEARTBEAT, new Date())),
+					false, true);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Requeue running jobs whose servers have stopped updating their
+	 * heartbeat. Jobs that have already been run the maximum number of times
+	 * are failed instead.
+	 * @param staleMillis the age at which a heartbeat is considered stale.
+	 * @return the number of jobs requeued or failed.
+	 * @throws WorkspaceCommunicationException if a communication error
+	 * occurs.
+	 */
+	public int requeueStaleJobs(final long staleMillis)
+			throws WorkspaceCommunicationException {
+		final Date now = new Date();
+		final DBObject q = new BasicDBObject(JOB_STATE, RUNNING);
+		q.put(JOB_HEARTBEAT, new BasicDBObject("$lt",
+				new Date(now.getTime() - staleMillis)));
+		final DBObject failq = new BasicDBObject(q.toMap());
+		failq.put(JOB_ATTEMPTS, new BasicDBObject("$gte", MAX_ATTEMPTS));
+		final DBObject fail = new BasicDBObject(JOB_STATE, FAILED);
+		fail.put(JOB_FINISHED, now);
+		fail.put(JOB_ERROR, String.format(
+				"The job was interrupted %s times by server shutdowns",
+				MAX_ATTEMPTS));
+		final DBObject requeue = new BasicDBObject("$set",
+				new BasicDBObject(JOB_STATE, QUEUED));
+		final DBObject unset = new BasicDBObject(JOB_SERVER, "");
+		unset.put(JOB_HEARTBEAT, "");
+		requeue.put("$unset", unset);
+		final int count;
+		try {
+			final int failed = jobCol.update(failq,
+					new BasicDBObject("$set", fail), false, true).getN();
+			count = failed + jobCol.update(q, requeue, false, true).getN();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (count > 0) {
+			LoggerFactory.getLogger(getClass()).info(String.format(
+					"Requeued or failed %s jobs from stopped servers", count));
+		}
+		return count;
+	}
+
+	private void work(final ExecutorService pool) {
+		// the interrupt flag may be cleared by an interrupted database call
+		while (!pool.isShutdown() && !Thread.currentThread().isInterrupted()) {
+			boolean ran;
+			try {
+				ran = runNextJob();
+			} catch (Throwable e) {
+				LoggerFactory.getLogger(getClass()).error(
+						"Failed to claim a job", e);
+				ran = false;
+			}
+			if (!ran) {
+				try {
+					synchronized (poll) {
+						poll.wait(POLL_MS);
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void finish(
+			final DBObject job,
+			final String state,
+			final String field,
+			final String value)
+			throws WorkspaceCommunicationException {
+		// if the job was requeued while it was running, leave it alone
+		final DBObject q = new BasicDBObject(MONGO_ID, job.get(MONGO_ID));
+		q.put(JOB_STATE, RUNNING);
+		q.put(JOB_SERVER, serverID);
+		q.put(JOB_ATTEMPTS, job.get(JOB_ATTEMPTS));
+		final DBObject set = new BasicDBObject(JOB_STATE, state);
+		set.put(JOB_FINISHED, new Date());
+		set.put(field, value);
+		try {
+			jobCol.update(q, new BasicDBObject("$set", set));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private DBObject jobQuery(final WorkspaceUser user, final String id) {
+		if (user == null) {
+			throw new NullPointerException("user cannot be null");
+		}
+		if (id == null || !ObjectId.isValid(id)) {
+			throw new IllegalArgumentException("No job with id " + id);
+		}
+		final DBObject q = new BasicDBObject(MONGO_ID, new ObjectId(id));
+		q.put(JOB_USER, user.getUser());
+		return q;
+	}
+
+	private static String toJSON(final Object o) {
+		try {
+			return UObject.getMapper().writeValueAsString(o);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(
+					"Unable to serialize to JSON: " + e.getLocalizedMessage(),
+					e);
+		}
+	}
+}
@@ -1,12 +1,15 @@
 package us.kbase.workspace.kbase;
 
 import static us.kbase.common.utils.ServiceUtils.checkAddlArgs;
+import static us.kbase.workspace.kbase.ArgUtils.checkLong;
 import static us.kbase.workspace.kbase.ArgUtils.chooseDate;
 import static us.kbase.workspace.kbase.ArgUtils.getGlobalWSPerm;
 import static us.kbase.workspace.kbase.ArgUtils.wsInfoToTuple;
 import static us.kbase.workspace.kbase.ArgUtils.processProvenance;
 import static us.kbase.workspace.kbase.ArgUtils.longToBoolean;
+import static us.kbase.workspace.kbase.ArgUtils.longToInt;
 import static us.kbase.workspace.kbase.ArgUtils.objInfoToTuple;
+import static us.kbase.workspace.kbase.IdentifierUtils.processObjectIdentifier;
 import static us.kbase.workspace.kbase.IdentifierUtils.processWorkspaceIdentifier;
 import static us.kbase.workspace.kbase.KBasePermissions.translatePermission;
 
@@ -18,9 +21,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import us.kbase.auth.AuthException;
 import us.kbase.auth.AuthToken;
@@ -35,9 +40,12 @@ import us.kbase.typedobj.exceptions.TypeStorageException;
 import us.kbase.typedobj.exceptions.TypedObjectSchemaException;
 import us.kbase.typedobj.exceptions.TypedObjectValidationException;
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
+import us.kbase.workspace.CloneWorkspaceParams;
+import us.kbase.workspace.CopyObjectParams;
 import us.kbase.workspace.CreateWorkspaceParams;
 import us.kbase.workspace.GrantModuleOwnershipParams;
 import us.kbase.workspace.ListWorkspaceInfoParams;
+import us.kbase.workspace.ObjectIdentity;
 import us.kbase.workspace.ObjectSaveData;
 import us.kbase.workspace.RemoveModuleOwnershipParams;
 import us.kbase.workspace.SaveObjectsParams;
@@ -47,6 +55,7 @@ import us.kbase.workspace.WorkspaceIdentity;
 import us.kbase.workspace.WorkspacePermissions;
 import us.kbase.workspace.database.DependencyStatus;
 import us.kbase.workspace.database.ObjectIDNoWSNoVer;
+import us.kbase.workspace.database.ObjectIdentifier;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.Provenance;
@@ -60,6 +69,7 @@ import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.WorkspaceUserMetadata;
 import us.kbase.workspace.database.WorkspaceUserMetadata.MetadataException;
 import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.InaccessibleObjectException;
 import us.kbase.workspace.database.exceptions.NoSuchObjectException;
 import us.kbase.workspace.database.exceptions.NoSuchWorkspaceException;
 import us.kbase.workspace.database.exceptions.PreExistingWorkspaceException;
@@ -153,6 +163,115 @@ public class WorkspaceServerMethods {
 		return wsInfoToTuple(meta);
 	}
 	
+	public Tuple9<Long, String, String, String, Long, String, String, String, Map<String, String>>
+			cloneWorkspace(
+			final CloneWorkspaceParams params, final WorkspaceUser user)
+			throws CorruptWorkspaceDBException, NoSuchWorkspaceException,
+			WorkspaceCommunicationException, WorkspaceAuthorizationException,
+			PreExistingWorkspaceException, NoSuchObjectException,
+			MetadataException {
+		checkAddlArgs(params.getAdditionalProperties(), params.getClass());
+		final Set<ObjectIDNoWSNoVer> exclude = getCloneExclusions(params);
+		final Permission p = getGlobalWSPerm(params.getGlobalread());
+		final WorkspaceIdentifier wsi =
+				processWorkspaceIdentifier(params.getWsi());
+		final WorkspaceInformation meta = ws.cloneWorkspace(
+				user,
+				wsi,
+				params.getWorkspace(),
+				p.equals(Permission.READ),
+				params.getDescription(),
+				new WorkspaceUserMetadata(params.getMeta()),
+				exclude);
+		return wsInfoToTuple(meta);
+	}
+	
+	/** Check the parameters for cloning a workspace without cloning it, so
+	 * that a clone run in the background is likely to succeed.
+	 * @param params the clone parameters.
+	 * @param user the user that will clone the workspace.
+	 */
+	public void checkCloneWorkspace(
+			final CloneWorkspaceParams params, final WorkspaceUser user)
+			throws CorruptWorkspaceDBException, NoSuchWorkspaceException,
+			WorkspaceCommunicationException, WorkspaceAuthorizationException,
+			MetadataException {
+		checkAddlArgs(params.getAdditionalProperties(), params.getClass());
+		getCloneExclusions(params);
+		getGlobalWSPerm(params.getGlobalread());
+		new WorkspaceUserMetadata(params.getMeta());
+		final WorkspaceIdentifier wsi =
+				processWorkspaceIdentifier(params.getWsi());
+		new WorkspaceIdentifier(params.getWorkspace(), user); //check for errors
+		ws.getWorkspaceInformation(user, wsi);
+	}
+	
+	private static Set<ObjectIDNoWSNoVer> getCloneExclusions(
+			final CloneWorkspaceParams params) {
+		if (params.getExclude() == null || params.getExclude().isEmpty()) {
+			return null;
+		}
+		final Set<ObjectIDNoWSNoVer> exclude = new HashSet<ObjectIDNoWSNoVer>();
+		int count = 1;
+		for (final ObjectIdentity o: params.getExclude()) {
+			try {
+				exclude.add(ObjectIDNoWSNoVer.create(
+						o.getName(), o.getObjid()));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(String.format(
+						"Error with excluded object #%s: %s",
+						count, e.getLocalizedMessage()), e);
+			}
+			count++;
+		}
+		return exclude;
+	}
+	
+	public List<Tuple11<Long, String, String, String, Long, String, Long,
+			String, String, Long, Map<String, String>>> copyObjects(
+			final List<CopyObjectParams> objects,
+			final WorkspaceUser user)
+			throws CorruptWorkspaceDBException, NoSuchObjectException,
+			WorkspaceCommunicationException, InaccessibleObjectException {
+		final List<ObjectIdentifier> from = new ArrayList<ObjectIdentifier>();
+		final List<ObjectIdentifier> to = new ArrayList<ObjectIdentifier>();
+		processCopyObjects(objects, from, to);
+		return objInfoToTuple(ws.copyObjects(user, from, to), true);
+	}
+	
+	public void checkCopyObjects(final List<CopyObjectParams> objects) {
+		processCopyObjects(objects, new ArrayList<ObjectIdentifier>(),
+				new ArrayList<ObjectIdentifier>());
+	}
+	
+	private static void processCopyObjects(
+			final List<CopyObjectParams> objects,
+			final List<ObjectIdentifier> from,
+			final List<ObjectIdentifier> to) {
+		if (objects == null) {
+			throw new NullPointerException("The copy list cannot be null");
+		}
+		if (objects.isEmpty()) {
+			throw new IllegalArgumentException("No objects to copy provided");
+		}
+		int count = 1;
+		for (final CopyObjectParams p: objects) {
+			try {
+				if (p == null) {
+					throw new NullPointerException(
+							"The copy parameters cannot be null");
+				}
+				checkAddlArgs(p.getAdditionalProperties(), p.getClass());
+				from.add(processObjectIdentifier(p.getFrom()));
+				to.add(processObjectIdentifier(p.getTo()));
+			} catch (IllegalArgumentException | NullPointerException e) {
+				throw new IllegalArgumentException("Error on copy #" + count +
+						": " + e.getLocalizedMessage(), e);
+			}
+			count++;
+		}
+	}
+	
 	public void setPermissions(final SetPermissionsParams params,
 			final WorkspaceUser user)
 			throws IOException, AuthException, CorruptWorkspaceDBException,
@@ -335,6 +454,8 @@ public class WorkspaceServerMethods {
 				after, before,
 				longToBoolean(params.getExcludeGlobal()),
 				longToBoolean(params.getShowDeleted()),
-				longToBoolean(params.getShowOnlyDeleted())));
+				longToBoolean(params.getShowOnlyDeleted()),
+				checkLong(params.getMinWorkspaceID(), -1),
+				longToInt(params.getLimit(), "Limit", -1)));
 	}
 }
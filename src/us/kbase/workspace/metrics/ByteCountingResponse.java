@@ -0,0 +1,96 @@
+package us.kbase.workspace.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/** Wraps a servlet response to count the bytes written to the response's
+ * output stream and record the response's status.
+ */
+public class ByteCountingResponse extends HttpServletResponseWrapper {
+
+	private ServletOutputStream out = null;
+	private long bytes = 0;
+	private int status = SC_OK;
+
+	/** Wrap a response.
+	 * @param response the response to wrap.
+	 */
+	public ByteCountingResponse(final HttpServletResponse response) {
+		super(response);
+	}
+
+	/** Get the number of bytes written to the output stream.
+	 * @return the number of bytes.
+	 */
+	public long getByteCount() {
+		return bytes;
+	}
+
+	/** Get the status of the response.
+	 * @return the status.
+	 */
+	public int getResponseStatus() {
+		return status;
+	}
+
+	@Override
+	public void setStatus(final int sc) {
+		status = sc;
+		super.setStatus(sc);
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void setStatus(final int sc, final String sm) {
+		status = sc;
+		super.setStatus(sc, sm);
+	}
+
+	@Override
+	public void sendError(final int sc) throws IOException {
+		status = sc;
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(final int sc, final String msg) throws IOException {
+		status = sc;
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (out == null) {
+			final ServletOutputStream wrapped = super.getOutputStream();
+			out = new ServletOutputStream() {
+
+				@Override
+				public void write(final int b) throws IOException {
+					wrapped.write(b);
+					bytes++;
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len)
+						throws IOException {
+					wrapped.write(b, off, len);
+					bytes += len;
+				}
+
+				@Override
+				public void flush() throws IOException {
+					wrapped.flush();
+				}
+
+				@Override
+				public void close() throws IOException {
+					wrapped.close();
+				}
+			};
+		}
+		return out;
+	}
+}
@@ -0,0 +1,34 @@
+package us.kbase.workspace.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A metric whose value only increases.
+ */
+public class Counter {
+
+	private final AtomicLong value = new AtomicLong();
+
+	Counter() {}
+
+	/** Increment the counter by one. */
+	public void increment() {
+		value.incrementAndGet();
+	}
+
+	/** Increment the counter.
+	 * @param amount the amount by which to increment the counter. Negative
+	 * amounts are ignored.
+	 */
+	public void add(final long amount) {
+		if (amount > 0) {
+			value.addAndGet(amount);
+		}
+	}
+
+	/** Get the value of the counter.
+	 * @return the value.
+	 */
+	public long getValue() {
+		return value.get();
+	}
+}
@@ -0,0 +1,11 @@
+package us.kbase.workspace.metrics;
+
+/** A metric whose value is read when the metrics are exported.
+ */
+public interface Gauge {
+
+	/** Get the current value of the gauge.
+	 * @return the value.
+	 */
+	long getValue();
+}
@@ -0,0 +1,74 @@
+package us.kbase.workspace.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** A histogram of durations with fixed buckets.
+ */
+public class Histogram {
+
+	/** The upper bounds of the buckets in seconds. */
+	public static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05,
+		0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+	private static final long[] BUCKETS_NANOS = new long[BUCKETS.length];
+	static {
+		for (int i = 0; i < BUCKETS.length; i++) {
+			BUCKETS_NANOS[i] = Math.round(BUCKETS[i] * 1000000000);
+		}
+	}
+
+	// the last entry counts observations larger than the largest bucket
+	private final AtomicLongArray counts =
+			new AtomicLongArray(BUCKETS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sumNanos = new AtomicLong();
+
+	Histogram() {}
+
+	/** Record a duration.
+	 * @param nanos the duration in nanoseconds. Negative durations are
+	 * recorded as 0.
+	 */
+	public void observe(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		int i = 0;
+		while (i < BUCKETS_NANOS.length && nanos > BUCKETS_NANOS[i]) {
+			i++;
+		}
+		counts.incrementAndGet(i);
+		sumNanos.addAndGet(nanos);
+		count.incrementAndGet();
+	}
+
+	/** Get the number of recorded durations.
+	 * @return the count.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/** Get the sum of the recorded durations.
+	 * @return the sum in seconds.
+	 */
+	public double getSum() {
+		return sumNanos.get() / 1000000000.0;
+	}
+
+	/** Get the cumulative bucket counts, e.g. the number of durations less
+	 * than or equal to each bucket's upper bound.
+	 * @return the counts, one per bucket in {@link #BUCKETS} followed by
+	 * the total count.
+	 */
+	public long[] getCumulativeCounts() {
+		final long[] ret = new long[counts.length()];
+		long total = 0;
+		for (int i = 0; i < ret.length; i++) {
+			total += counts.get(i);
+			ret[i] = total;
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,307 @@
+package us.kbase.workspace.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/** A registry of named metrics that can be exported in the Prometheus text
+ * exposition format.
+ *
+ * Metrics with the same name form a family. Each member of a family is
+ * distinguished by the value of a single label, e.g. the name of an RPC
+ * method, or the family has one member without labels.
+ */
+public class MetricsRegistry {
+
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+	private enum Type {
+		COUNTER("counter"),
+		GAUGE("gauge"),
+		HISTOGRAM("histogram");
+
+		private final String name;
+
+		private Type(final String name) {
+			this.name = name;
+		}
+	}
+
+	private static class Family {
+		private final String name;
+		private final String help;
+		private final Type type;
+		private final String labelName;
+		private final ConcurrentMap<String, Object> members =
+				new ConcurrentSkipListMap<String, Object>();
+
+		private Family(
+				final String name,
+				final String help,
+				final Type type,
+				final String labelName) {
+			this.name = name;
+			this.help = help;
+			this.type = type;
+			this.labelName = labelName;
+		}
+	}
+
+	private final ConcurrentMap<String, Family> families =
+			new ConcurrentSkipListMap<String, Family>();
+
+	/** Get the registry shared by the workspace service.
+	 * @return the default registry.
+	 */
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/** Get a histogram without labels, creating it if necessary.
+	 * @param name the name of the histogram.
+	 * @param help a description of the histogram.
+	 * @return the histogram.
+	 */
+	public Histogram getHistogram(final String name, final String help) {
+		return getHistogram(name, help, null, null);
+	}
+
+	/** Get a histogram, creating it if necessary.
+	 * @param name the name of the histogram family.
+	 * @param help a description of the histogram family.
+	 * @param labelName the name of the label that distinguishes members of
+	 * the family.
+	 * @param labelValue the value of the label for this histogram.
+	 * @return the histogram.
+	 */
+	public Histogram getHistogram(
+			final String name,
+			final String help,
+			final String labelName,
+			final String labelValue) {
+		final Family f = getFamily(name, help, Type.HISTOGRAM, labelName);
+		final String key = labelValue == null ? "" : labelValue;
+		Object h = f.members.get(key);
+		if (h == null) {
+			final Object prev = f.members.putIfAbsent(key, new Histogram());
+			h = prev == null ? f.members.get(key) : prev;
+		}
+		return (Histogram) h;
+	}
+
+	/** Get a counter without labels, creating it if necessary.
+	 * @param name the name of the counter.
+	 * @param help a description of the counter.
+	 * @return the counter.
+	 */
+	public Counter getCounter(final String name, final String help) {
+		return getCounter(name, help, null, null);
+	}
+
+	/** Get a counter, creating it if necessary.
+	 * @param name the name of the counter family.
+	 * @param help a description of the counter family.
+	 * @param labelName the name of the label that distinguishes members of
+	 * the family.
+	 * @param labelValue the value of the label for this counter.
+	 * @return the counter.
+	 */
+	public Counter getCounter(
+			final String name,
+			final String help,
+			final String labelName,
+			final String labelValue) {
+		final Family f = getFamily(name, help, Type.COUNTER, labelName);
+		final String key = labelValue == null ? "" : labelValue;
+		Object c = f.members.get(key);
+		if (c == null) {
+			final Object prev = f.members.putIfAbsent(key, new Counter());
+			c = prev == null ? f.members.get(key) : prev;
+		}
+		return (Counter) c;
+	}
+
+	/** Get a settable gauge without labels, creating it if necessary.
+	 * @param name the name of the gauge.
+	 * @param help a description of the gauge.
+	 * @return the gauge.
+	 */
+	public SettableGauge getGauge(final String name, final String help) {
+		return getGauge(name, help, null, null);
+	}
+
+	/** Get a settable gauge, creating it if necessary.
+	 * @param name the name of the gauge family.
+	 * @param help a description of the gauge family.
+	 * @param labelName the name of the label that distinguishes members of
+	 * the family.
+	 * @param labelValue the value of the label for this gauge.
+	 * @return the gauge.
+	 */
+	public SettableGauge getGauge(
+			final String name,
+			final String help,
+			final String labelName,
+			final String labelValue) {
+		final Family f = getFamily(name, help, Type.GAUGE, labelName);
+		final String key = labelValue == null ? "" : labelValue;
+		Object g = f.members.get(key);
+		if (g == null) {
+			final Object prev = f.members.putIfAbsent(
+					key, new SettableGauge());
+			g = prev == null ? f.members.get(key) : prev;
+		}
+		if (!(g instanceof SettableGauge)) {
+			throw new IllegalArgumentException(String.format(
+					"Gauge %s %s is not settable", name, key));
+		}
+		return (SettableGauge) g;
+	}
+
+	/** Register a gauge without labels, replacing any existing gauge with
+	 * the same name.
+	 * @param name the name of the gauge.
+	 * @param help a description of the gauge.
+	 * @param gauge the gauge.
+	 */
+	public void registerGauge(
+			final String name,
+			final String help,
+			final Gauge gauge) {
+		registerGauge(name, help, null, null, gauge);
+	}
+
+	/** Register a gauge, replacing any existing gauge with the same name and
+	 * label value.
+	 * @param name the name of the gauge family.
+	 * @param help a description of the gauge family.
+	 * @param labelName the name of the label that distinguishes members of
+	 * the family.
+	 * @param labelValue the value of the label for this gauge.
+	 * @param gauge the gauge.
+	 */
+	public void registerGauge(
+			final String name,
+			final String help,
+			final String labelName,
+			final String labelValue,
+			final Gauge gauge) {
+		if (gauge == null) {
+			throw new NullPointerException("gauge");
+		}
+		getFamily(name, help, Type.GAUGE, labelName).members.put(
+				labelValue == null ? "" : labelValue, gauge);
+	}
+
+	private Family getFamily(
+			final String name,
+			final String help,
+			final Type type,
+			final String labelName) {
+		Family f = families.get(name);
+		if (f == null) {
+			checkName(name);
+			if (labelName != null) {
+				checkName(labelName);
+			}
+			final Family prev = families.putIfAbsent(
+					name, new Family(name, help, type, labelName));
+			f = prev == null ? families.get(name) : prev;
+		}
+		if (f.type != type) {
+			throw new IllegalArgumentException(String.format(
+					"Metric %s is a %s, not a %s",
+					name, f.type.name, type.name));
+		}
+		if (labelName == null ? f.labelName != null :
+				!labelName.equals(f.labelName)) {
+			throw new IllegalArgumentException(String.format(
+					"Metric %s has label %s, not %s",
+					name, f.labelName, labelName));
+		}
+		return f;
+	}
+
+	private static void checkName(final String name) {
+		if (name == null || !name.matches("[a-zA-Z_][a-zA-Z0-9_]*")) {
+			throw new IllegalArgumentException("Illegal metric name: " + name);
+		}
+	}
+
+	/** Write all the metrics in the Prometheus text exposition format,
+	 * version 0.0.4.
+	 * @param w the writer to which the metrics will be written.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public void writePrometheus(final Writer w) throws IOException {
+		for (final Family f: families.values()) {
+			if (f.help != null) {
+				w.write("# HELP " + f.name + " " + escapeHelp(f.help) + "\n");
+			}
+			w.write("# TYPE " + f.name + " " + f.type.name + "\n");
+			for (final Map.Entry<String, Object> e: f.members.entrySet()) {
+				final String label = f.labelName == null ? "" :
+					f.labelName + "=\"" + escapeLabel(e.getKey()) + "\"";
+				final Object m = e.getValue();
+				if (m instanceof Histogram) {
+					writeHistogram(w, f.name, label, (Histogram) m);
+				} else if (m instanceof Counter) {
+					writeSample(w, f.name, label,
+							"" + ((Counter) m).getValue());
+				} else {
+					writeSample(w, f.name, label, "" + getGaugeValue((Gauge) m));
+				}
+			}
+		}
+		w.flush();
+	}
+
+	private static long getGaugeValue(final Gauge g) {
+		try {
+			return g.getValue();
+		} catch (RuntimeException e) {
+			// one broken gauge shouldn't prevent exporting the other metrics
+			return -1;
+		}
+	}
+
+	private static void writeHistogram(
+			final Writer w,
+			final String name,
+			final String label,
+			final Histogram h) throws IOException {
+		final String sep = label.isEmpty() ? "" : ",";
+		final long[] counts = h.getCumulativeCounts();
+		for (int i = 0; i < Histogram.BUCKETS.length; i++) {
+			writeSample(w, name + "_bucket", label + sep + "le=\"" +
+					Histogram.BUCKETS[i] + "\"", "" + counts[i]);
+		}
+		final long count = counts[counts.length - 1];
+		writeSample(w, name + "_bucket", label + sep + "le=\"+Inf\"",
+				"" + count);
+		writeSample(w, name + "_sum", label, "" + h.getSum());
+		writeSample(w, name + "_count", label, "" + count);
+	}
+
+	private static void writeSample(
+			final Writer w,
+			final String name,
+			final String labels,
+			final String value) throws IOException {
+		w.write(name);
+		if (!labels.isEmpty()) {
+			w.write("{" + labels + "}");
+		}
+		w.write(" " + value + "\n");
+	}
+
+	private static String escapeHelp(final String help) {
+		return help.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+
+	private static String escapeLabel(final String value) {
+		return escapeHelp(value).replace("\"", "\\\"");
+	}
+}
@@ -0,0 +1,31 @@
+package us.kbase.workspace.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A gauge whose value is set or adjusted by the code being measured.
+ */
+public class SettableGauge implements Gauge {
+
+	private final AtomicLong value = new AtomicLong();
+
+	SettableGauge() {}
+
+	/** Set the value of the gauge.
+	 * @param value the new value.
+	 */
+	public void set(final long value) {
+		this.value.set(value);
+	}
+
+	/** Add to the value of the gauge.
+	 * @param amount the amount to add, which may be negative.
+	 */
+	public void add(final long amount) {
+		value.addAndGet(amount);
+	}
+
+	@Override
+	public long getValue() {
+		return value.get();
+	}
+}
@@ -0,0 +1,196 @@
+package us.kbase.workspace.metrics;
+
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.scheduler.MethodClass;
+import us.kbase.workspace.scheduler.MethodScheduler;
+
+/** The metrics recorded by the workspace service. All the metrics are
+ * stored in the default {@link MetricsRegistry}.
+ *
+ * Phases are the expensive internal steps of the RPC methods, timed so that
+ * slow requests can be attributed to e.g. validation vs. blob store IO.
+ */
+public class WorkspaceMetrics {
+
+	public static final String RPC_DURATION = "ws_rpc_duration_seconds";
+	public static final String RPC_ERRORS = "ws_rpc_errors_total";
+	public static final String RPC_REQUEST_BYTES = "ws_rpc_request_bytes_total";
+	public static final String RPC_RESPONSE_BYTES =
+			"ws_rpc_response_bytes_total";
+	public static final String PHASE_DURATION = "ws_phase_duration_seconds";
+	public static final String FILE_CACHE_BYTES = "ws_file_cache_bytes";
+	public static final String TEMP_FILE_BYTES = "ws_temp_file_bytes";
+	public static final String TEMP_FILES = "ws_temp_files";
+	public static final String TEMP_FILES_CREATED = "ws_temp_files_created_total";
+	public static final String TEMP_FILES_REAPED = "ws_temp_files_reaped_total";
+	public static final String SCHEDULER_ACTIVE = "ws_scheduler_active_requests";
+	public static final String SCHEDULER_QUEUED = "ws_scheduler_queued_requests";
+	public static final String SCHEDULER_REJECTED =
+			"ws_scheduler_rejected_total";
+	public static final String BLOB_TIER_MOVES = "ws_blob_tier_moves_total";
+	
+	public static final String LABEL_METHOD = "method";
+	public static final String LABEL_PHASE = "phase";
+	public static final String LABEL_STORE = "store";
+	public static final String LABEL_METHOD_CLASS = "method_class";
+	public static final String LABEL_TIER = "tier";
+	
+	public static final String SAVE_PERMISSIONS = "save_objects.permissions";
+	public static final String SAVE_VALIDATION = "save_objects.validation";
+	public static final String SAVE_ID_PROCESSING =
+			"save_objects.id_processing";
+	public static final String SAVE_SORT = "save_objects.sort";
+	public static final String SAVE_DB = "save_objects.db_save";
+	public static final String GET_QUERY = "get_objects.query";
+	public static final String GET_BLOB_FETCH = "get_objects.blob_fetch";
+	public static final String GET_SUBSET = "get_objects.subset";
+	
+	private static final String STORE_MEMORY = "memory";
+	private static final String STORE_DISK = "disk";
+	
+	private WorkspaceMetrics() {}
+	
+	private static MetricsRegistry reg() {
+		return MetricsRegistry.getDefault();
+	}
+	
+	/** Record the end of a phase.
+	 * @param phase the name of the phase.
+	 * @param startNanos the value of {@link System#nanoTime()} when the phase
+	 * started.
+	 * @return the current value of {@link System#nanoTime()}, which may be
+	 * used as the start time of the next phase.
+	 */
+	public static long phaseDone(final String phase, final long startNanos) {
+		final long now = System.nanoTime();
+		reg().getHistogram(PHASE_DURATION,
+				"Time spent in internal phases of the workspace methods",
+				LABEL_PHASE, phase).observe(now - startNanos);
+		return now;
+	}
+	
+	/** Record a completed RPC call.
+	 * @param method the name of the RPC method.
+	 * @param nanos the duration of the call in nanoseconds.
+	 * @param requestBytes the size of the request body, or a negative number
+	 * if unknown.
+	 * @param responseBytes the size of the response body.
+	 * @param error true if the call failed.
+	 */
+	public static void rpcDone(
+			final String method,
+			final long nanos,
+			final long requestBytes,
+			final long responseBytes,
+			final boolean error) {
+		reg().getHistogram(RPC_DURATION, "Duration of RPC calls",
+				LABEL_METHOD, method).observe(nanos);
+		reg().getCounter(RPC_REQUEST_BYTES, "Bytes received in RPC requests",
+				LABEL_METHOD, method).add(requestBytes);
+		reg().getCounter(RPC_RESPONSE_BYTES, "Bytes sent in RPC responses",
+				LABEL_METHOD, method).add(responseBytes);
+		final Counter errors = reg().getCounter(RPC_ERRORS,
+				"Number of failed RPC calls", LABEL_METHOD, method);
+		if (error) {
+			errors.increment();
+		}
+	}
+	
+	/** Record a request rejected by the method scheduler.
+	 * @param methodClass the method class of the request.
+	 */
+	public static void requestRejected(final String methodClass) {
+		reg().getCounter(SCHEDULER_REJECTED,
+				"Number of requests rejected because the server was overloaded",
+				LABEL_METHOD_CLASS, methodClass).increment();
+	}
+	
+	/** Record a blob moved between blob store tiers.
+	 * @param tier the tier to which the blob was moved.
+	 */
+	public static void blobTierMoved(final String tier) {
+		reg().getCounter(BLOB_TIER_MOVES,
+				"Number of blobs moved between blob store tiers",
+				LABEL_TIER, tier).increment();
+	}
+	
+	/** Record a change in the amount of data held in file caches.
+	 * @param onDisk true if the data is stored in a temporary file, false if
+	 * it's stored in memory.
+	 * @param bytes the change in bytes.
+	 */
+	public static void fileCacheChanged(final boolean onDisk, final long bytes) {
+		reg().getGauge(FILE_CACHE_BYTES,
+				"Bytes of object data currently held in file caches",
+				LABEL_STORE, onDisk ? STORE_DISK : STORE_MEMORY).add(bytes);
+	}
+	
+	/** Export metrics about the temporary files created by a temporary file
+	 * manager, replacing the metrics for any previously registered manager.
+	 * @param tfm the temporary file manager.
+	 */
+	public static void registerTempFilesManager(final TempFilesManager tfm) {
+		reg().registerGauge(TEMP_FILE_BYTES,
+				"Bytes in temporary files that currently exist", new Gauge() {
+			
+			@Override
+			public long getValue() {
+				return tfm.getLiveBytes();
+			}
+		});
+		reg().registerGauge(TEMP_FILES,
+				"Number of temporary files that currently exist", new Gauge() {
+			
+			@Override
+			public long getValue() {
+				return tfm.getLiveFileCount();
+			}
+		});
+		// these only ever increase, but are read from the manager
+		reg().registerGauge(TEMP_FILES_CREATED,
+				"Number of temporary files created", new Gauge() {
+			
+			@Override
+			public long getValue() {
+				return tfm.getCreatedFileCount();
+			}
+		});
+		reg().registerGauge(TEMP_FILES_REAPED,
+				"Number of orphaned temporary files deleted by the reaper",
+				new Gauge() {
+			
+			@Override
+			public long getValue() {
+				return tfm.getReapedFileCount();
+			}
+		});
+	}
+	
+	/** Register gauges that report the number of running and queued
+	 * requests for each method class.
+	 * @param scheduler the method scheduler.
+	 */
+	public static void registerMethodScheduler(
+			final MethodScheduler scheduler) {
+		for (final MethodClass mc: MethodClass.values()) {
+			reg().registerGauge(SCHEDULER_ACTIVE,
+					"Number of running requests", LABEL_METHOD_CLASS,
+					mc.getLabel(), new Gauge() {
+				
+				@Override
+				public long getValue() {
+					return scheduler.getActive(mc);
+				}
+			});
+			reg().registerGauge(SCHEDULER_QUEUED,
+					"Number of requests waiting to run", LABEL_METHOD_CLASS,
+					mc.getLabel(), new Gauge() {
+				
+				@Override
+				public long getValue() {
+					return scheduler.getQueued(mc);
+				}
+			});
+		}
+	}
+}
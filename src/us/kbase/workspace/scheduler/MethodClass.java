@@ -0,0 +1,78 @@
+package us.kbase.workspace.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Classes of workspace RPC methods with similar costs. Each class is
+ * admitted separately so that expensive calls can't starve cheap calls of
+ * server threads.
+ */
+public enum MethodClass {
+
+	/** Metadata calls and any methods not otherwise classified. */
+	FAST,
+	/** Calls that may return large amounts of object data. */
+	BULK_READ,
+	/** Calls that may write large amounts of data. */
+	BULK_WRITE,
+	/** Administration and type registration calls. */
+	ADMIN;
+	
+	private static final Map<String, MethodClass> METHODS =
+			new HashMap<String, MethodClass>();
+	
+	private static void add(final MethodClass mc, final List<String> methods) {
+		for (final String m: methods) {
+			METHODS.put(m, mc);
+		}
+	}
+	
+	static {
+		add(BULK_READ, Arrays.asList("get_object", "get_objects",
+				"get_objects2", "get_object_subset", "get_object_provenance",
+				"get_referenced_objects", "list_referencing_objects",
+				"list_objects", "list_workspace_objects"));
+		add(BULK_WRITE, Arrays.asList("save_object", "save_objects",
+				"clone_workspace", "copy_object", "copy_objects",
+				"revert_object", "rename_objects", "hide_objects",
+				"unhide_objects", "delete_objects", "undelete_objects"));
+		add(ADMIN, Arrays.asList("administer", "register_typespec",
+				"register_typespec_copy", "release_module",
+				"request_module_ownership", "grant_module_ownership",
+				"remove_module_ownership"));
+	}
+	
+	/** Get the name of the class as used in configuration keys, e.g.
+	 * bulk-read.
+	 * @return the configuration name.
+	 */
+	public String getConfigName() {
+		return name().toLowerCase().replace('_', '-');
+	}
+	
+	/** Get the name of the class as used in metrics labels, e.g. bulk_read.
+	 * @return the label name.
+	 */
+	public String getLabel() {
+		return name().toLowerCase();
+	}
+	
+	/** Get the class of a method.
+	 * @param method the name of the method, with or without the module
+	 * name. May be null if the method is unknown.
+	 * @return the class of the method. Unknown methods are fast.
+	 */
+	public static MethodClass forMethod(String method) {
+		if (method == null) {
+			return FAST;
+		}
+		final int dot = method.lastIndexOf('.');
+		if (dot >= 0) {
+			method = method.substring(dot + 1);
+		}
+		final MethodClass mc = METHODS.get(method);
+		return mc == null ? FAST : mc;
+	}
+}
@@ -0,0 +1,163 @@
+package us.kbase.workspace.scheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/** Wraps a JSON-RPC request so that the name of the called method can be
+ * determined before the request is processed, without buffering the whole
+ * request body.
+ *
+ * The start of the body is read into a buffer and searched for the top level
+ * method field. The body is then replayed, starting with the buffered bytes,
+ * to the code that processes the request. If the method field doesn't occur
+ * in the buffered bytes, for example because the client sent a large params
+ * field first, the method is unknown.
+ */
+public class MethodPeekingRequest extends HttpServletRequestWrapper {
+
+	/** The default number of bytes to search for the method name. */
+	public static final int DEFAULT_PEEK_SIZE = 16 * 1024;
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private final BufferedInputStream in;
+	private final String method;
+	private final boolean bodyExceedsPeek;
+	private ServletInputStream servletIn = null;
+	private BufferedReader reader = null;
+
+	/** Wrap a request, searching the default number of bytes for the method
+	 * name.
+	 * @param request the request to wrap.
+	 * @throws IOException if the request body couldn't be read.
+	 */
+	public MethodPeekingRequest(final HttpServletRequest request)
+			throws IOException {
+		this(request, DEFAULT_PEEK_SIZE);
+	}
+
+	/** Wrap a request.
+	 * @param request the request to wrap.
+	 * @param peekSize the number of bytes to search for the method name.
+	 * @throws IOException if the request body couldn't be read.
+	 */
+	public MethodPeekingRequest(
+			final HttpServletRequest request,
+			final int peekSize)
+			throws IOException {
+		super(request);
+		if (peekSize < 1) {
+			throw new IllegalArgumentException("peekSize must be at least 1");
+		}
+		in = new BufferedInputStream(request.getInputStream(), peekSize);
+		in.mark(peekSize);
+		final byte[] peek = new byte[peekSize];
+		int len = 0;
+		while (len < peekSize) {
+			final int read = in.read(peek, len, peekSize - len);
+			if (read < 0) {
+				break;
+			}
+			len += read;
+		}
+		in.reset();
+		bodyExceedsPeek = len == peekSize;
+		method = findMethod(peek, len);
+	}
+
+	private static String findMethod(final byte[] peek, final int len) {
+		try (final JsonParser p = JSON.createParser(peek, 0, len)) {
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = p.getCurrentName();
+				final JsonToken val = p.nextToken();
+				if ("method".equals(field)) {
+					return val == JsonToken.VALUE_STRING ? p.getText() : null;
+				}
+				p.skipChildren();
+			}
+			return null;
+		} catch (IOException e) {
+			// the method field isn't in the buffered bytes, or the body
+			// isn't valid JSON. Either way processing the request will
+			// deal with it
+			return null;
+		}
+	}
+
+	/** Get the name of the called method.
+	 * @return the method name as sent by the client, or null if it couldn't
+	 * be determined.
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/** Check whether the request body is at least as large as the number
+	 * of bytes searched for the method name.
+	 * @return true if the body filled the search buffer.
+	 */
+	public boolean bodyExceedsPeek() {
+		return bodyExceedsPeek;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (reader != null) {
+			throw new IllegalStateException(
+					"getReader() has already been called");
+		}
+		if (servletIn == null) {
+			servletIn = new ServletInputStream() {
+
+				@Override
+				public int read() throws IOException {
+					return in.read();
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len)
+						throws IOException {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public int available() throws IOException {
+					return in.available();
+				}
+
+				@Override
+				public void close() throws IOException {
+					in.close();
+				}
+			};
+		}
+		return servletIn;
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		if (servletIn != null) {
+			throw new IllegalStateException(
+					"getInputStream() has already been called");
+		}
+		if (reader == null) {
+			final String enc = getCharacterEncoding();
+			reader = new BufferedReader(new InputStreamReader(in,
+					enc == null ? "ISO-8859-1" : enc));
+		}
+		return reader;
+	}
+}
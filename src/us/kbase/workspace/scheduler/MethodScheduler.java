@@ -0,0 +1,180 @@
+package us.kbase.workspace.scheduler;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import us.kbase.workspace.metrics.WorkspaceMetrics;
+
+/** Limits the number of concurrently running requests per method class.
+ *
+ * Each class has a maximum number of running requests and a maximum number
+ * of requests that may wait for a running request to finish. Requests that
+ * arrive when the queue is full, or that wait longer than the queue timeout,
+ * are rejected. Since waiting requests hold a server thread, the sum of the
+ * running and queued limits of the bulk and admin classes should be less
+ * than the number of server threads so that fast requests always have a
+ * thread available.
+ */
+public class MethodScheduler {
+
+	/** The limits for a method class. */
+	public static class Limits {
+
+		private final int concurrency;
+		private final int queue;
+
+		/** Create limits for a method class.
+		 * @param concurrency the maximum number of requests that may run at
+		 * once, or 0 for no limit.
+		 * @param queue the maximum number of requests that may wait to run.
+		 */
+		public Limits(final int concurrency, final int queue) {
+			if (concurrency < 0 || queue < 0) {
+				throw new IllegalArgumentException(
+						"concurrency and queue must be at least 0");
+			}
+			this.concurrency = concurrency;
+			this.queue = queue;
+		}
+
+		/** Get the maximum number of requests that may run at once.
+		 * @return the maximum requests, or 0 if there is no limit.
+		 */
+		public int getConcurrency() {
+			return concurrency;
+		}
+
+		/** Get the maximum number of requests that may wait to run.
+		 * @return the maximum queue length.
+		 */
+		public int getQueue() {
+			return queue;
+		}
+	}
+
+	private static class ClassState {
+
+		private final Limits limits;
+		private final Semaphore permits;
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger queued = new AtomicInteger();
+
+		private ClassState(final Limits limits) {
+			this.limits = limits;
+			permits = limits.concurrency < 1 ? null :
+				new Semaphore(limits.concurrency, true);
+		}
+	}
+
+	private final Map<MethodClass, ClassState> states =
+			new EnumMap<MethodClass, ClassState>(MethodClass.class);
+	private final long queueTimeoutMillis;
+
+	/** Create a scheduler.
+	 * @param limits the limits for each method class. Classes without limits
+	 * are not limited.
+	 * @param queueTimeoutMillis the maximum time a request may wait to run.
+	 */
+	public MethodScheduler(
+			final Map<MethodClass, Limits> limits,
+			final long queueTimeoutMillis) {
+		if (limits == null) {
+			throw new NullPointerException("limits");
+		}
+		if (queueTimeoutMillis < 0) {
+			throw new IllegalArgumentException(
+					"queueTimeoutMillis must be at least 0");
+		}
+		for (final MethodClass mc: MethodClass.values()) {
+			final Limits l = limits.get(mc);
+			states.put(mc, new ClassState(l == null ? new Limits(0, 0) : l));
+		}
+		this.queueTimeoutMillis = queueTimeoutMillis;
+	}
+
+	/** Get the limits for a method class.
+	 * @param methodClass the method class.
+	 * @return the limits.
+	 */
+	public Limits getLimits(final MethodClass methodClass) {
+		return states.get(methodClass).limits;
+	}
+
+	/** Get the maximum time a request may wait to run.
+	 * @return the time in milliseconds.
+	 */
+	public long getQueueTimeoutMillis() {
+		return queueTimeoutMillis;
+	}
+
+	/** Get the number of requests of a method class that are running.
+	 * @param methodClass the method class.
+	 * @return the number of running requests.
+	 */
+	public int getActive(final MethodClass methodClass) {
+		return states.get(methodClass).active.get();
+	}
+
+	/** Get the number of requests of a method class that are waiting to run.
+	 * @param methodClass the method class.
+	 * @return the number of waiting requests.
+	 */
+	public int getQueued(final MethodClass methodClass) {
+		return states.get(methodClass).queued.get();
+	}
+
+	/** Wait until a request of a method class may run. If this method
+	 * returns normally, {@link #release(MethodClass)} must be called when
+	 * the request is complete.
+	 * @param methodClass the method class of the request.
+	 * @throws OverloadedException if the queue for the method class is full
+	 * or the request waited longer than the queue timeout.
+	 */
+	public void acquire(final MethodClass methodClass)
+			throws OverloadedException {
+		final ClassState s = states.get(methodClass);
+		if (s.permits != null && !s.permits.tryAcquire()) {
+			if (s.queued.incrementAndGet() > s.limits.queue) {
+				s.queued.decrementAndGet();
+				throw reject(methodClass, "too many queued requests");
+			}
+			final boolean acquired;
+			try {
+				acquired = s.permits.tryAcquire(
+						queueTimeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw reject(methodClass, "interrupted while queued");
+			} finally {
+				s.queued.decrementAndGet();
+			}
+			if (!acquired) {
+				throw reject(methodClass, "timed out while queued");
+			}
+		}
+		s.active.incrementAndGet();
+	}
+
+	private OverloadedException reject(
+			final MethodClass methodClass,
+			final String reason) {
+		WorkspaceMetrics.requestRejected(methodClass.getLabel());
+		return new OverloadedException(methodClass, String.format(
+				"The server is overloaded with %s requests (%s), please try again later",
+				methodClass.getLabel(), reason));
+	}
+
+	/** Mark a request of a method class as complete.
+	 * @param methodClass the method class of the request.
+	 */
+	public void release(final MethodClass methodClass) {
+		final ClassState s = states.get(methodClass);
+		s.active.decrementAndGet();
+		if (s.permits != null) {
+			s.permits.release();
+		}
+	}
+}
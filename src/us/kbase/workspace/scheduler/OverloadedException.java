@@ -0,0 +1,24 @@
+package us.kbase.workspace.scheduler;
+
+/** Thrown when a request can't be admitted because the server is handling
+ * as many requests of the request's method class as it is allowed.
+ */
+@SuppressWarnings("serial")
+public class OverloadedException extends Exception {
+
+	private final MethodClass methodClass;
+
+	public OverloadedException(
+			final MethodClass methodClass,
+			final String message) {
+		super(message);
+		this.methodClass = methodClass;
+	}
+
+	/** Get the method class of the rejected request.
+	 * @return the method class.
+	 */
+	public MethodClass getMethodClass() {
+		return methodClass;
+	}
+}
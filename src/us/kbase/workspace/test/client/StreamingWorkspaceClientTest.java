@@ -0,0 +1,351 @@
+package us.kbase.workspace.test.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import us.kbase.auth.AuthToken;
+import us.kbase.common.service.ServerException;
+import us.kbase.workspace.ListObjectsParams;
+import us.kbase.workspace.ObjectSpecification;
+import us.kbase.workspace.client.StreamedObject;
+import us.kbase.workspace.client.StreamingWorkspaceClient;
+import us.kbase.workspace.client.StreamingWorkspaceClient.ObjectInfoStream;
+import us.kbase.workspace.client.StreamingWorkspaceClient.ObjectStream;
+
+/* Tests the streaming client against a fake workspace server that returns
+ * objects whose data is {"name": <object name>, "pad": <some characters>}.
+ */
+public class StreamingWorkspaceClientTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private HttpServer server;
+	private URL url;
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private final List<String> methods = new LinkedList<String>();
+	private final List<String> tokens = new LinkedList<String>();
+	private File tempDir;
+
+	private static List<Object> info(final long id, final String name) {
+		return Arrays.asList((Object) id, name, "Mod.Type-1.0", "date", 1,
+				"user", 3, "ws", "md5", 20, new HashMap<String, String>());
+	}
+
+	private class FakeWorkspace implements HttpHandler {
+
+		@Override
+		public void handle(final HttpExchange ex) throws IOException {
+			final int r = running.incrementAndGet();
+			synchronized (maxRunning) {
+				maxRunning.set(Math.max(maxRunning.get(), r));
+			}
+			try {
+				// give other requests a chance to arrive
+				Thread.sleep(50);
+				final Map<String, Object> req = MAPPER.readValue(
+						ex.getRequestBody(),
+						new TypeReference<Map<String, Object>>() {});
+				final String method = (String) req.get("method");
+				synchronized (methods) {
+					methods.add(method);
+					tokens.add(ex.getRequestHeaders().getFirst(
+							"Authorization"));
+				}
+				@SuppressWarnings("unchecked")
+				final Map<String, Object> params = (Map<String, Object>)
+						((List<Object>) req.get("params")).get(0);
+				final Map<String, Object> resp =
+						new LinkedHashMap<String, Object>();
+				resp.put("version", "1.1");
+				resp.put("id", req.get("id"));
+				if (method.equals("Workspace.list_objects")) {
+					final List<Object> infos = new LinkedList<Object>();
+					for (int i = 1; i <= 3; i++) {
+						infos.add(info(i, "obj" + i));
+					}
+					resp.put("result", Arrays.asList(infos));
+				} else {
+					final List<Object> data = new LinkedList<Object>();
+					for (final Object o: (List<?>) params.get("objects")) {
+						final String name = (String)
+								((Map<?, ?>) o).get("name");
+						if (name.equals("bad")) {
+							if (((Number) params.get("ignoreErrors"))
+									.intValue() == 0) {
+								final Map<String, Object> err =
+										new HashMap<String, Object>();
+								err.put("name", "JSONRPCError");
+								err.put("code", -32500);
+								err.put("message", "No object named bad");
+								err.put("error", "trace");
+								resp.put("error", err);
+								send(ex, 500, resp);
+								return;
+							}
+							data.add(null);
+							continue;
+						}
+						final Map<String, Object> od =
+								new LinkedHashMap<String, Object>();
+						final Map<String, Object> d =
+								new LinkedHashMap<String, Object>();
+						d.put("name", name);
+						d.put("pad", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+						od.put("data", d);
+						od.put("info", info(1, name));
+						od.put("creator", "user");
+						od.put("refs", Arrays.asList("1/2/3"));
+						data.add(od);
+					}
+					final Map<String, Object> res =
+							new HashMap<String, Object>();
+					res.put("data", data);
+					resp.put("result", Arrays.asList(res));
+				}
+				send(ex, 200, resp);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+
+		private void send(
+				final HttpExchange ex,
+				final int code,
+				final Map<String, Object> resp)
+				throws IOException {
+			final byte[] body = MAPPER.writeValueAsBytes(resp);
+			ex.sendResponseHeaders(code, body.length);
+			final OutputStream os = ex.getResponseBody();
+			os.write(body);
+			os.close();
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", new FakeWorkspace());
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		url = new URL("http://localhost:" + server.getAddress().getPort());
+		tempDir = new File(System.getProperty("java.io.tmpdir"),
+				"StreamingWorkspaceClientTest");
+		FileUtils.deleteDirectory(tempDir);
+		tempDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop(0);
+		FileUtils.deleteDirectory(tempDir);
+	}
+
+	private StreamingWorkspaceClient getClient() {
+		final StreamingWorkspaceClient cli = new StreamingWorkspaceClient(
+				url, new AuthToken("tok"));
+		cli.setAuthAllowedForHttp(true);
+		cli.setTempDir(tempDir);
+		return cli;
+	}
+
+	private static List<ObjectSpecification> specs(final String... names) {
+		final List<ObjectSpecification> ret =
+				new ArrayList<ObjectSpecification>();
+		for (final String n: names) {
+			ret.add(new ObjectSpecification().withWsid(1L).withName(n));
+		}
+		return ret;
+	}
+
+	private static String data(final String name) {
+		return "{\"name\":\"" + name +
+				"\",\"pad\":\"aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa\"}";
+	}
+
+	@Test
+	public void getObjects() throws Exception {
+		final StreamingWorkspaceClient cli = getClient();
+		cli.setBatchSize(2);
+		cli.setWindow(3);
+		// enough memory for a little over one object per batch
+		cli.setMemoryPerBatch(60);
+		final List<String> names = Arrays.asList(
+				"o1", "o2", "o3", "o4", "o5", "o6", "o7", "o8", "o9");
+		final ObjectStream s = cli.getObjects(
+				specs(names.toArray(new String[0])), false);
+		int count = 0;
+		while (s.hasNext()) {
+			final StreamedObject o = s.next();
+			final String name = names.get(count);
+			assertThat("incorrect name", o.getInfo().getE2(), is(name));
+			assertThat("incorrect creator", o.getFields().get("creator"),
+					is((Object) "user"));
+			assertThat("incorrect refs", o.getFields().get("refs"),
+					is((Object) Arrays.asList("1/2/3")));
+			assertThat("incorrect size", o.getDataSize(),
+					is((long) data(name).length()));
+			// the first object in each batch is in memory, the second spills
+			final boolean inFile = count % 2 == 1;
+			assertThat("incorrect in file", o.isDataInFile(), is(inFile));
+			final InputStream is = o.getDataInputStream();
+			assertThat("incorrect data", IOUtils.toString(is, "UTF-8"),
+					is(data(name)));
+			is.close();
+			final File target = new File(tempDir, name + ".json");
+			o.writeDataTo(target);
+			assertThat("incorrect data", FileUtils.readFileToString(target),
+					is(data(name)));
+			o.destroy();
+			count++;
+		}
+		s.close();
+		assertThat("incorrect count", count, is(9));
+		assertThat("incorrect request count", methods.size(), is(5));
+		assertThat("incorrect method", methods.get(0),
+				is("Workspace.get_objects2"));
+		assertThat("incorrect token", tokens.get(0), is("tok"));
+		assertThat("requests weren't concurrent", maxRunning.get() > 1,
+				is(true));
+		assertThat("window exceeded", maxRunning.get() <= 3, is(true));
+		// only the written files are left
+		assertThat("temp files left", tempDir.list().length, is(9));
+	}
+
+	@Test
+	public void ignoreErrors() throws Exception {
+		final ObjectStream s = getClient().getObjects(
+				specs("o1", "bad", "o3"), true);
+		assertThat("incorrect name", s.next().getInfo().getE2(), is("o1"));
+		assertThat("incorrect object", s.next(), nullValue());
+		assertThat("incorrect name", s.next().getInfo().getE2(), is("o3"));
+		assertThat("incorrect hasNext", s.hasNext(), is(false));
+		s.close();
+	}
+
+	@Test
+	public void error() throws Exception {
+		final StreamingWorkspaceClient cli = getClient();
+		cli.setBatchSize(1);
+		cli.setMemoryPerBatch(0);
+		final ObjectStream s = cli.getObjects(specs("o1", "bad", "o3"), false);
+		s.next().destroy();
+		try {
+			s.next();
+			fail("got bad object");
+		} catch (ServerException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No object named bad"));
+			assertThat("incorrect code", e.getCode(), is(-32500));
+		}
+		// closing waits for the last batch to finish
+		s.close();
+		assertThat("temp files left", tempDir.list().length, is(0));
+	}
+
+	/* waits up to a second for the client threads to exit */
+	private static int countClientThreads() throws Exception {
+		int count = 0;
+		for (int i = 0; i < 100; i++) {
+			count = 0;
+			for (final Thread t: Thread.getAllStackTraces().keySet()) {
+				if (t.getName().equals("ws-streaming-client") &&
+						t.isAlive()) {
+					count++;
+				}
+			}
+			if (count == 0) {
+				return count;
+			}
+			Thread.sleep(10);
+		}
+		return count;
+	}
+
+	@Test
+	public void threadsExit() throws Exception {
+		final StreamingWorkspaceClient cli = getClient();
+		cli.setBatchSize(1);
+		cli.setWindow(2);
+		final ObjectStream s = cli.getObjects(specs("o1", "o2", "o3"), false);
+		while (s.hasNext()) {
+			s.next().destroy();
+		}
+		// the stream isn't closed, but all the batches have been fetched
+		assertThat("client threads left", countClientThreads(), is(0));
+	}
+
+	@Test
+	public void closeWhileFetching() throws Exception {
+		final StreamingWorkspaceClient cli = getClient();
+		cli.setBatchSize(1);
+		cli.setWindow(3);
+		cli.setMemoryPerBatch(0);
+		final ObjectStream s = cli.getObjects(
+				specs("o1", "o2", "o3", "o4"), false);
+		s.next().destroy();
+		// the next batches are still being fetched
+		s.close();
+		assertThat("temp files left", tempDir.list().length, is(0));
+		assertThat("client threads left", countClientThreads(), is(0));
+	}
+
+	@Test
+	public void listObjects() throws Exception {
+		final ObjectInfoStream s = getClient().listObjects(
+				new ListObjectsParams().withIds(Arrays.asList(1L)));
+		final List<String> names = new LinkedList<String>();
+		while (s.hasNext()) {
+			names.add(s.next().getE2());
+		}
+		assertThat("incorrect names", names,
+				is(Arrays.asList("obj1", "obj2", "obj3")));
+		assertThat("incorrect method", methods.get(0),
+				is("Workspace.list_objects"));
+	}
+
+	@Test
+	public void insecureAuth() throws Exception {
+		final StreamingWorkspaceClient cli = new StreamingWorkspaceClient(
+				url, new AuthToken("tok"));
+		try {
+			cli.listObjects(new ListObjectsParams());
+			fail("sent token over http");
+		} catch (IllegalStateException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Sending the token over insecure http is not allowed"));
+		}
+	}
+}
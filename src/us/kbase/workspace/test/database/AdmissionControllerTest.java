@@ -0,0 +1,148 @@
+package us.kbase.workspace.test.database;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import us.kbase.workspace.database.AdmissionController;
+import us.kbase.workspace.database.AdmissionController.Limits;
+import us.kbase.workspace.database.AdmissionController.Operation;
+import us.kbase.workspace.database.AdmissionController.Ticket;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.AdmissionLimitExceededException;
+
+public class AdmissionControllerTest {
+
+	private static final WorkspaceUser U1 = new WorkspaceUser("u1");
+	private static final WorkspaceUser U2 = new WorkspaceUser("u2");
+
+	private static void failAdmit(
+			final AdmissionController ac,
+			final WorkspaceUser user,
+			final Operation op,
+			final String exp) {
+		try {
+			ac.admit(user, op);
+			fail("admitted operation over limit");
+		} catch (AdmissionLimitExceededException e) {
+			assertThat("incorrect exception message", e.getMessage(), is(exp));
+		}
+	}
+
+	private static void failAddBytes(
+			final Ticket t,
+			final long bytes,
+			final String exp) {
+		try {
+			t.addBytes(bytes);
+			fail("reserved bytes over limit");
+		} catch (AdmissionLimitExceededException e) {
+			assertThat("incorrect exception message", e.getMessage(), is(exp));
+		}
+	}
+
+	@Test
+	public void noLimits() throws Exception {
+		final AdmissionController ac = new AdmissionController();
+		for (int i = 0; i < 100; i++) {
+			ac.admit(U1, Operation.WRITE).addBytes(1000000000);
+		}
+	}
+
+	@Test
+	public void concurrency() throws Exception {
+		final AdmissionController ac = new AdmissionController();
+		ac.setLimits(Operation.READ, new Limits(2, 0, 0));
+		final Ticket t1 = ac.admit(U1, Operation.READ);
+		final Ticket t2 = ac.admit(U1, Operation.READ);
+		failAdmit(ac, U1, Operation.READ,
+				"User u1 already has 2 read operations running, the maximum allowed. Please try again later");
+		// other users and operations are unaffected
+		ac.admit(U2, Operation.READ).close();
+		ac.admit(U1, Operation.WRITE).close();
+		ac.admit(null, Operation.READ);
+		ac.admit(null, Operation.READ);
+		failAdmit(ac, null, Operation.READ,
+				"User anonymous already has 2 read operations running, the maximum allowed. Please try again later");
+		t1.close();
+		t1.close(); // no effect
+		ac.admit(U1, Operation.READ);
+		failAdmit(ac, U1, Operation.READ,
+				"User u1 already has 2 read operations running, the maximum allowed. Please try again later");
+		t2.close();
+	}
+
+	@Test
+	public void bytes() throws Exception {
+		final AdmissionController ac = new AdmissionController();
+		ac.setLimits(Operation.WRITE, new Limits(0, 100, 150));
+		final Ticket t1 = ac.admit(U1, Operation.WRITE);
+		// a single operation may exceed the limit
+		t1.addBytes(120);
+		final Ticket t2 = ac.admit(U1, Operation.WRITE);
+		failAddBytes(t2, 1,
+				"User u1 already has 120 bytes of write operations in progress; adding 1 bytes would exceed the limit of 100. Please try again later");
+		final Ticket t3 = ac.admit(U2, Operation.WRITE);
+		failAddBytes(t3, 31,
+				"The server already has 120 bytes of write operations in progress; adding 31 bytes would exceed the limit of 150. Please try again later");
+		t3.addBytes(30);
+		t1.close();
+		t2.addBytes(70);
+		assertThat("incorrect bytes", t2.getBytes(), is(70L));
+		t2.close();
+		t3.close();
+		try {
+			t3.addBytes(1);
+			fail("added bytes to closed ticket");
+		} catch (IllegalStateException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Ticket is closed"));
+		}
+	}
+
+	@Test
+	public void status() throws Exception {
+		final AdmissionController ac = new AdmissionController();
+		ac.setLimits(Operation.WRITE, new Limits(3, 100, 0));
+		// rejected operations leave no trace
+		ac.setLimits(Operation.READ, new Limits(1, 0, 0));
+		ac.admit(U2, Operation.READ);
+		failAdmit(ac, U2, Operation.READ,
+				"User u2 already has 1 read operations running, the maximum allowed. Please try again later");
+		ac.admit(U1, Operation.WRITE).addBytes(40);
+		ac.admit(U1, Operation.WRITE).close();
+
+		final Map<String, Object> u1 = new HashMap<String, Object>();
+		u1.put("running", 1);
+		u1.put("bytes", 40L);
+		final Map<String, Object> u2 = new HashMap<String, Object>();
+		u2.put("running", 1);
+		u2.put("bytes", 0L);
+		final Map<String, Object> write = new HashMap<String, Object>();
+		write.put("max_concurrent_per_user", 3);
+		write.put("max_bytes_per_user", 100L);
+		write.put("max_bytes", 0L);
+		write.put("bytes", 40L);
+		final Map<String, Object> wusers = new HashMap<String, Object>();
+		wusers.put("u1", u1);
+		write.put("users", wusers);
+		final Map<String, Object> read = new HashMap<String, Object>();
+		read.put("max_concurrent_per_user", 1);
+		read.put("max_bytes_per_user", 0L);
+		read.put("max_bytes", 0L);
+		read.put("bytes", 0L);
+		final Map<String, Object> rusers = new HashMap<String, Object>();
+		rusers.put("u2", u2);
+		read.put("users", rusers);
+		final Map<String, Object> expected = new HashMap<String, Object>();
+		expected.put("read", read);
+		expected.put("write", write);
+		assertThat("incorrect status", ac.getStatus(),
+				is((Object) expected));
+	}
+}
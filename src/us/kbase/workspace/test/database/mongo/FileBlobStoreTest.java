@@ -0,0 +1,221 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.typedobj.core.MD5;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.DependencyStatus;
+import us.kbase.workspace.database.exceptions.FileCacheLimitExceededException;
+import us.kbase.workspace.database.mongo.FileBlobStore;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreException;
+
+public class FileBlobStoreTest {
+
+	private static FileBlobStore fsb;
+	private static DBCollection col;
+	private static File root;
+	private static MongoController mongo;
+	private static TempFilesManager tfm;
+
+	private static final String a32 = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		tfm = new TempFilesManager(new File(TestCommon.getTempDir()));
+		mongo = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using Mongo temp dir " +
+				mongo.getTempDir());
+		TestCommon.stfuLoggers();
+		MongoClient mongoClient = new MongoClient("localhost:" + mongo.getServerPort());
+		DB db = mongoClient.getDB("FileBackendTest");
+		col = db.getCollection("file_blobMap");
+		root = new File(TestCommon.getTempDir(), "FileBlobStoreTest");
+		FileUtils.deleteDirectory(root);
+		fsb = new FileBlobStore(col, root);
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mongo != null) {
+			mongo.destroy(TestCommon.getDeleteTempFiles());
+		}
+		if (TestCommon.getDeleteTempFiles()) {
+			FileUtils.deleteDirectory(root);
+		}
+	}
+
+	@Test
+	public void storetype() throws Exception {
+		assertThat("correct store type", fsb.getStoreType(), is("File"));
+	}
+
+	@Test
+	public void badInput() throws Exception {
+		try {
+			fsb.saveBlob(new MD5(a32), null, true);
+			fail("saved bad blob");
+		} catch (NullPointerException npe) {
+			assertThat("correct excepction message", npe.getLocalizedMessage(),
+					is("Arguments cannot be null"));
+		}
+
+		try {
+			fsb.saveBlob(null, IOUtils.toInputStream("foo"), true);
+			fail("saved bad blob");
+		} catch (NullPointerException npe) {
+			assertThat("correct excepction message", npe.getLocalizedMessage(),
+					is("Arguments cannot be null"));
+		}
+	}
+
+	@Test
+	public void dataWithoutSortMarker() throws Exception {
+		String s = "pootypoot";
+		MD5 md5 = new MD5(a32);
+		FileUtils.writeStringToFile(fsb.getFile(md5), s);
+		DBObject dbo = new BasicDBObject("chksum", a32);
+		col.insert(dbo);
+
+		ByteArrayFileCache d = fsb.getBlob(md5,
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+		assertThat("data returned marked as unsorted", d.isSorted(), is(false));
+		String returned = IOUtils.toString(d.getJSON());
+		assertThat("Didn't get same data back from store", returned, is(s));
+		fsb.removeBlob(md5);
+	}
+
+	@Test
+	public void saveAndGetBlob() throws Exception {
+		MD5 md1 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1");
+		String data = "this is a blob yo";
+		fsb.saveBlob(md1, IOUtils.toInputStream(data), true);
+		assertThat("incorrect file location", fsb.getFile(md1),
+				is(new File(root, "aa/aa/aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1")));
+		assertThat("incorrect file contents",
+				FileUtils.readFileToString(fsb.getFile(md1)), is(data));
+		assertThat("temp files left",
+				new File(root, FileBlobStore.TEMP_DIR).list().length, is(0));
+		MD5 md1copy = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1");
+		ByteArrayFileCache d = fsb.getBlob(md1copy,
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+		assertThat("data returned marked as sorted", d.isSorted(), is(true));
+		String returned = IOUtils.toString(d.getJSON());
+		assertThat("Didn't get same data back from store", returned, is(data));
+		assertTrue("File store has no external ID", fsb.getExternalIdentifier(md1copy) == null);
+		fsb.saveBlob(md1, IOUtils.toInputStream(data), true); //should be able to save the same thing twice with no error
+
+		fsb.saveBlob(md1, IOUtils.toInputStream(data), false); //this should do nothing
+		assertThat("sorted still true", fsb.getBlob(md1copy,
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm))
+					.isSorted(), is(true));
+
+		MD5 md2 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa2");
+		String data2 = "this is also a blob yo";
+		fsb.saveBlob(md2, IOUtils.toInputStream(data2), false);
+		d = fsb.getBlob(md2,
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+		assertThat("data returned marked as unsorted", d.isSorted(), is(false));
+
+		fsb.removeBlob(md1);
+		fsb.removeBlob(md2);
+		assertThat("blob file not removed", fsb.getFile(md1).exists(),
+				is(false));
+	}
+
+	@Test
+	public void getBlobToFile() throws Exception {
+		MD5 md1 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa3");
+		String data = "this blob is too big for memory";
+		fsb.saveBlob(md1, IOUtils.toInputStream(data), true);
+		ByteArrayFileCacheManager man =
+				new ByteArrayFileCacheManager(10, 2000000000L, tfm);
+		ByteArrayFileCache d = fsb.getBlob(md1, man);
+		assertThat("incorrect mem size", man.getSizeInMem(), is(0));
+		assertThat("incorrect disk size", man.getSizeOnDisk(),
+				is((long) data.length()));
+		assertThat("Didn't get same data back from store",
+				IOUtils.toString(d.getJSON()), is(data));
+		d.destroy();
+		assertThat("blob file removed with cache", fsb.getFile(md1).exists(),
+				is(true));
+
+		try {
+			fsb.getBlob(md1, new ByteArrayFileCacheManager(10, 20L, tfm));
+			fail("got blob exceeding disk limit");
+		} catch (FileCacheLimitExceededException e) {
+			assertThat("wrong exception message", e.getLocalizedMessage(),
+					is("Disk limit exceeded for file cache: 20"));
+		}
+		fsb.removeBlob(md1);
+	}
+
+	@Test
+	public void getNonExistantBlob() throws Exception {
+		try {
+			fsb.getBlob(new MD5(a32),
+					new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+			fail("getblob should throw exception");
+		} catch (BlobStoreException wbe) {
+			assertThat("wrong exception message from failed getblob",
+					wbe.getLocalizedMessage(), is("No blob saved with chksum " + a32));
+		}
+	}
+
+	@Test
+	public void getMissingBlobFile() throws Exception {
+		MD5 md5 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa4");
+		fsb.saveBlob(md5, IOUtils.toInputStream("foo"), true);
+		fsb.getFile(md5).delete();
+		try {
+			fsb.getBlob(md5,
+					new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+			fail("getblob should throw exception");
+		} catch (BlobStoreException wbe) {
+			assertThat("wrong exception message from failed getblob",
+					wbe.getLocalizedMessage(), is("The blob with chksum " +
+					md5.getMD5() + " is missing from the blob store directory"));
+		}
+		fsb.removeBlob(md5);
+	}
+
+	@Test
+	public void removeNonExistantBlob() throws Exception {
+		fsb.removeBlob(new MD5(a32)); //should silently not remove anything
+	}
+
+	@Test
+	public void status() throws Exception {
+		List<DependencyStatus> deps = fsb.status();
+		assertThat("incorrect number of deps", deps.size(), is(1));
+		DependencyStatus dep = deps.get(0);
+		assertThat("incorrect fail", dep.isOk(), is(true));
+		assertThat("incorrect name", dep.getName(), is("File"));
+		assertThat("incorrect status", dep.getStatus(), is("OK"));
+		assertThat("incorrect version", dep.getVersion(), is("N/A"));
+	}
+}
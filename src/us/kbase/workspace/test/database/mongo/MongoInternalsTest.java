@@ -20,6 +20,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 
@@ -65,6 +66,7 @@ import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceInformation;
+import us.kbase.workspace.database.WorkspaceObjectData;
 import us.kbase.workspace.database.WorkspaceSaveObject;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.WorkspaceUserMetadata;
@@ -85,6 +87,7 @@ import us.kbase.workspace.test.workspace.WorkspaceTester;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
@@ -214,6 +217,58 @@ public class MongoInternalsTest {
 				"Workspace name whee2 already in use"));
 	}
 	
+	@Test
+	public void cloneManyObjects() throws Exception {
+		/* test that cloning a workspace with more objects than fit in a
+		 * single insert batch copies all the objects and versions
+		 */
+		WorkspaceUser user = new WorkspaceUser("foo");
+		WorkspaceIdentifier wsi = new WorkspaceIdentifier("clonemany");
+		long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		Provenance p = new Provenance(user);
+		List<WorkspaceSaveObject> objs = new LinkedList<WorkspaceSaveObject>();
+		for (int i = 1; i <= 1100; i++) {
+			Map<String, Object> data = new HashMap<String, Object>();
+			data.put("i", i);
+			objs.add(new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o" + i),
+					new UObject(data), SAFE_TYPE, null, p, i % 100 == 0));
+		}
+		ws.saveObjects(user, wsi, objs, fac);
+		ws.saveObjects(user, wsi, objs.subList(1049, 1051), fac);
+		ws.setObjectsDeleted(user, Arrays.asList(new ObjectIdentifier(wsi, 5)),
+				true);
+		
+		long cloneid = ws.cloneWorkspace(user, wsi, "clonemany2", false, null,
+				null, null).getId();
+		DB db = jdb.getDatabase();
+		DBCollection objcol = db.getCollection("workspaceObjects");
+		DBCollection vercol = db.getCollection("workspaceObjVersions");
+		assertThat("incorrect object count",
+				objcol.count(new BasicDBObject("ws", cloneid)), is(1099L));
+		assertThat("incorrect version count",
+				vercol.count(new BasicDBObject("ws", cloneid)), is(1101L));
+		assertThat("deleted object cloned", objcol.count(
+				new BasicDBObject("ws", cloneid).append("id", 5L)), is(0L));
+		DBObject o = objcol.findOne(
+				new BasicDBObject("ws", cloneid).append("id", 1050L));
+		assertThat("incorrect name", o.get("name"), is((Object) "o1050"));
+		assertThat("incorrect version count", o.get("numver"), is((Object) 2));
+		assertThat("incorrect hidden", o.get("hide"), is((Object) false));
+		assertThat("incorrect hidden", objcol.findOne(
+				new BasicDBObject("ws", cloneid).append("id", 1100L)).get("hide"),
+				is((Object) true));
+		DBObject v = vercol.findOne(new BasicDBObject("ws", cloneid)
+				.append("id", 1050L).append("ver", 2));
+		assertThat("incorrect copied", v.get("copied"),
+				is((Object) (wsid + "/1050/2")));
+		WorkspaceObjectData d = ws.getObjects(user, Arrays.asList(
+				new ObjectIdentifier(new WorkspaceIdentifier(cloneid), "o1051")))
+				.get(0);
+		assertThat("incorrect object data", d.getSerializedData().getUObject()
+				.asClassInstance(Map.class).get("i"), is((Object) 1051));
+		d.destroy();
+	}
+	
 	@Test
 	public void cloningWorkspaceInaccessible() throws Exception {
 		final WorkspaceUser user1 = new WorkspaceUser("shoopty");
@@ -1021,6 +1076,178 @@ public class MongoInternalsTest {
 		}
 	}
 	
+	private static final String REF_COUNTER =
+			"us.kbase.workspace.database.mongo.ReferenceCounter";
+	
+	private DBCollection getObjectCollection() {
+		return jdb.getDatabase().getCollection("workspaceObjects");
+	}
+	
+	private Object getRefCounter() throws Exception {
+		final Constructor<?> c = Class.forName(REF_COUNTER)
+				.getDeclaredConstructor(DBCollection.class);
+		c.setAccessible(true);
+		return c.newInstance(getObjectCollection());
+	}
+	
+	private static int getRefCounterConstant(final String name)
+			throws Exception {
+		final Field f = Class.forName(REF_COUNTER).getDeclaredField(name);
+		f.setAccessible(true);
+		return f.getInt(null);
+	}
+	
+	private static void countRefs(
+			final Object refcnt,
+			final List<String> refs,
+			final List<String> provrefs)
+			throws Exception {
+		final Method m = refcnt.getClass().getDeclaredMethod(
+				"count", List.class, List.class);
+		m.setAccessible(true);
+		m.invoke(refcnt, refs, provrefs);
+	}
+	
+	private static void flushRefs(final Object refcnt) throws Exception {
+		final Method m = refcnt.getClass().getDeclaredMethod("flush");
+		m.setAccessible(true);
+		m.invoke(refcnt);
+	}
+	
+	/* inserts bare object documents with zeroed reference counts */
+	private void insertRefCountObjects(
+			final long wsid,
+			final int objects,
+			final int versions) {
+		final List<Integer> zeros = new LinkedList<Integer>();
+		for (int i = 0; i < versions; i++) {
+			zeros.add(0);
+		}
+		final List<DBObject> batch = new LinkedList<DBObject>();
+		for (long i = 1; i <= objects; i++) {
+			batch.add(new BasicDBObject("ws", wsid).append("id", i)
+					.append("refcnt", zeros));
+			if (batch.size() == 1000 || i == objects) {
+				getObjectCollection().insert(batch);
+				batch.clear();
+			}
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<Integer> getRefCounts(final long wsid, final long objid) {
+		return (List<Integer>) getObjectCollection().findOne(
+				new BasicDBObject("ws", wsid).append("id", objid))
+				.get("refcnt");
+	}
+	
+	@Test
+	public void refCounterBatches() throws Exception {
+		// cross the bulk write boundary more than once
+		final int objects = getRefCounterConstant("BATCH_SIZE") * 2 + 1;
+		insertRefCountObjects(1, objects, 2);
+		final Object refcnt = getRefCounter();
+		for (int i = 1; i <= objects; i++) {
+			countRefs(refcnt, Arrays.asList("1/" + i + "/1", "1/" + i + "/2"),
+					new LinkedList<String>());
+		}
+		assertThat("counts written before flush", getRefCounts(1, 1),
+				is(Arrays.asList(0, 0)));
+		flushRefs(refcnt);
+		for (int i = 1; i <= objects; i++) {
+			assertThat("incorrect ref counts for object " + i,
+					getRefCounts(1, i), is(Arrays.asList(1, 1)));
+		}
+		// flushing again writes nothing
+		flushRefs(refcnt);
+		assertThat("incorrect ref counts", getRefCounts(1, objects),
+				is(Arrays.asList(1, 1)));
+	}
+	
+	@Test
+	public void refCounterAutoFlush() throws Exception {
+		final int max = getRefCounterConstant("MAX_PENDING");
+		insertRefCountObjects(1, max, 1);
+		final Object refcnt = getRefCounter();
+		for (int i = 1; i < max; i++) {
+			countRefs(refcnt, Arrays.asList("1/" + i + "/1"),
+					new LinkedList<String>());
+		}
+		// counting the same object again doesn't add a pending object
+		countRefs(refcnt, Arrays.asList("1/1/1"), new LinkedList<String>());
+		assertThat("counts written before max pending", getRefCounts(1, 1),
+				is(Arrays.asList(0)));
+		countRefs(refcnt, Arrays.asList("1/" + max + "/1"),
+				new LinkedList<String>());
+		assertThat("incorrect ref counts", getRefCounts(1, 1),
+				is(Arrays.asList(2)));
+		assertThat("incorrect ref counts", getRefCounts(1, max),
+				is(Arrays.asList(1)));
+		// the pending counts were cleared by the automatic flush
+		countRefs(refcnt, Arrays.asList("1/1/1"), new LinkedList<String>());
+		assertThat("counts written before flush", getRefCounts(1, 1),
+				is(Arrays.asList(2)));
+		flushRefs(refcnt);
+		assertThat("incorrect ref counts", getRefCounts(1, 1),
+				is(Arrays.asList(3)));
+		assertThat("incorrect ref counts", getRefCounts(1, max),
+				is(Arrays.asList(1)));
+	}
+	
+	@Test
+	public void refCounterMatchesPerVersionCounts() throws Exception {
+		final int objects = 5;
+		final int versions = 3;
+		insertRefCountObjects(1, objects, versions);
+		insertRefCountObjects(2, objects, versions);
+		final Random rand = new Random(42);
+		// ws -> obj -> ver -> count, counted as the per version path did
+		final int[][][] expected = new int[3][objects + 1][versions + 1];
+		final Object refcnt = getRefCounter();
+		for (int v = 0; v < 200; v++) {
+			final List<String> refs = new LinkedList<String>();
+			final List<String> provrefs = new LinkedList<String>();
+			for (int i = rand.nextInt(4); i > 0; i--) {
+				refs.add(randomRef(rand, objects, versions));
+			}
+			for (int i = rand.nextInt(4); i > 0; i--) {
+				provrefs.add(randomRef(rand, objects, versions));
+			}
+			if (!refs.isEmpty() && rand.nextBoolean()) {
+				// the same reference in the data and the provenance
+				provrefs.add(refs.get(0));
+			}
+			// each version counts a referenced version once
+			final Set<String> union = new HashSet<String>(refs);
+			union.addAll(provrefs);
+			for (final String r: union) {
+				final Reference ref = new Reference(r);
+				expected[(int) ref.getWorkspaceID()][(int) ref.getObjectID()]
+						[ref.getVersion()]++;
+			}
+			countRefs(refcnt, refs, provrefs);
+		}
+		flushRefs(refcnt);
+		for (int ws = 1; ws <= 2; ws++) {
+			for (int obj = 1; obj <= objects; obj++) {
+				final List<Integer> exp = new LinkedList<Integer>();
+				for (int ver = 1; ver <= versions; ver++) {
+					exp.add(expected[ws][obj][ver]);
+				}
+				assertThat("incorrect ref counts for " + ws + "/" + obj,
+						getRefCounts(ws, obj), is(exp));
+			}
+		}
+	}
+	
+	private static String randomRef(
+			final Random rand,
+			final int objects,
+			final int versions) {
+		return (rand.nextInt(2) + 1) + "/" + (rand.nextInt(objects) + 1) +
+				"/" + (rand.nextInt(versions) + 1);
+	}
+	
 	private Map<String, Object> withRef(Map<String, Object> map, long wsid,
 			int name, int ver) {
 		return withRef(map, wsid, "" + name, ver);
@@ -1196,6 +1423,168 @@ public class MongoInternalsTest {
 		assertDateisRecent(undelete);
 	}
 
+	@Test
+	public void lazyProvenance() throws Exception {
+		WorkspaceUser user = new WorkspaceUser("foo");
+		WorkspaceIdentifier wsi = new WorkspaceIdentifier("lazyprov");
+		long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		Map<String, Object> data = new HashMap<String, Object>();
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o1"), new UObject(data),
+						SAFE_TYPE, null, new Provenance(user).addAction(
+								new Provenance.ProvenanceAction().withMethod("m1")),
+						false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o2"), new UObject(data),
+						SAFE_TYPE, null, new Provenance(user).addAction(
+								new Provenance.ProvenanceAction().withMethod("m2")),
+						false)),
+				fac);
+		List<ObjectIdentifier> objs = Arrays.asList(
+				new ObjectIdentifier(wsi, "o1"), new ObjectIdentifier(wsi, "o2"));
+		
+		// provenance isn't loaded until requested
+		List<WorkspaceObjectData> got = ws.getObjects(user, objs, true);
+		DB db = jdb.getDatabase();
+		Object prov2 = db.getCollection("workspaceObjVersions").findOne(
+				new BasicDBObject("ws", wsid).append("id", 2L)).get("provenance");
+		DBObject provquery = new BasicDBObject("_id", prov2);
+		DBObject provdoc = db.getCollection("provenance").findOne(provquery);
+		db.getCollection("provenance").remove(provquery);
+		try {
+			got.get(1).getProvenance();
+			fail("got missing provenance");
+		} catch (CorruptWorkspaceDBException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No provenance document with id " + prov2));
+		}
+		// the provenance for the other object was loaded by the same query
+		db.getCollection("provenance").insert(provdoc);
+		assertThat("incorrect method", got.get(0).getProvenance().getActions()
+				.get(0).getMethod(), is("m1"));
+		
+		// loaded provenance is cached
+		got = ws.getObjects(user, objs, true);
+		assertThat("incorrect method", got.get(1).getProvenance().getActions()
+				.get(0).getMethod(), is("m2"));
+		db.getCollection("provenance").remove(provquery);
+		got = ws.getObjects(user, objs, true);
+		assertThat("incorrect method", got.get(1).getProvenance().getActions()
+				.get(0).getMethod(), is("m2"));
+		assertThat("incorrect user", got.get(1).getProvenance().getUser(),
+				is(user));
+		db.getCollection("provenance").insert(provdoc);
+	}
+	
+	@Test
+	public void provenanceCacheSize() throws Exception {
+		WorkspaceUser user = new WorkspaceUser("foo");
+		WorkspaceIdentifier wsi = new WorkspaceIdentifier("provcachesize");
+		long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		Map<String, Object> data = new HashMap<String, Object>();
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o1"), new UObject(data),
+						SAFE_TYPE, null, new Provenance(user).addAction(
+								new Provenance.ProvenanceAction().withMethod("m1")),
+						false)),
+				fac);
+		List<ObjectIdentifier> objs = Arrays.asList(new ObjectIdentifier(wsi, "o1"));
+		DB db = jdb.getDatabase();
+		Object prov = db.getCollection("workspaceObjVersions").findOne(
+				new BasicDBObject("ws", wsid).append("id", 1L)).get("provenance");
+		DBObject provquery = new BasicDBObject("_id", prov);
+		DBObject provdoc = db.getCollection("provenance").findOne(provquery);
+		
+		// a cache smaller than the document holds nothing
+		mwdb.setProvenanceCacheSize(10);
+		try {
+			assertThat("incorrect method", ws.getObjects(user, objs, true).get(0)
+					.getProvenance().getActions().get(0).getMethod(), is("m1"));
+			db.getCollection("provenance").remove(provquery);
+			try {
+				ws.getObjects(user, objs, true).get(0).getProvenance();
+				fail("got provenance from cache");
+			} catch (CorruptWorkspaceDBException e) {
+				assertThat("incorrect exception message", e.getMessage(),
+						is("No provenance document with id " + prov));
+			}
+			db.getCollection("provenance").insert(provdoc);
+			
+			// a cache large enough for the document keeps it
+			mwdb.setProvenanceCacheSize(provdoc.toString().length() * 100);
+			ws.getObjects(user, objs, true).get(0).getProvenance();
+			db.getCollection("provenance").remove(provquery);
+			assertThat("incorrect method", ws.getObjects(user, objs, true).get(0)
+					.getProvenance().getActions().get(0).getMethod(), is("m1"));
+		} finally {
+			db.getCollection("provenance").save(provdoc);
+			mwdb.setProvenanceCacheSize(50 * 1024 * 1024);
+		}
+	}
+	
+	@Test
+	public void dedupProvenance() throws Exception {
+		WorkspaceUser user = new WorkspaceUser("foo");
+		WorkspaceIdentifier wsi = new WorkspaceIdentifier("dedupprov");
+		long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		Map<String, Object> data = new HashMap<String, Object>();
+		Provenance p = new Provenance(user).addAction(
+				new Provenance.ProvenanceAction().withMethod("m1"));
+		Provenance p2 = new Provenance(user).addAction(
+				new Provenance.ProvenanceAction().withMethod("m2"));
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o1"), new UObject(data),
+						SAFE_TYPE, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o2"), new UObject(data),
+						SAFE_TYPE, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o3"), new UObject(data),
+						SAFE_TYPE, null, p2, false)),
+				fac);
+		DB db = jdb.getDatabase();
+		DBCollection vers = db.getCollection("workspaceObjVersions");
+		DBCollection provs = db.getCollection("provenance");
+		Object prov1 = vers.findOne(new BasicDBObject("ws", wsid).append("id", 1L))
+				.get("provenance");
+		assertThat("provenance not shared", vers.findOne(
+				new BasicDBObject("ws", wsid).append("id", 2L)).get("provenance"),
+				is(prov1));
+		assertThat("incorrect provenance count", provs.count(), is(2L));
+		
+		// not shared across saves by default
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o4"), new UObject(data),
+						SAFE_TYPE, null, p, false)),
+				fac);
+		assertThat("incorrect provenance count", provs.count(), is(3L));
+		
+		mwdb.setProvenanceDedupAcrossSaves(true);
+		try {
+			Thread.sleep(10); // ensure the save date differs
+			ws.saveObjects(user, wsi, Arrays.asList(
+					new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o5"), new UObject(data),
+							SAFE_TYPE, null, p2, false)),
+					fac);
+		} finally {
+			mwdb.setProvenanceDedupAcrossSaves(false);
+		}
+		assertThat("incorrect provenance count", provs.count(), is(3L));
+		DBObject v3 = vers.findOne(new BasicDBObject("ws", wsid).append("id", 3L));
+		DBObject v5 = vers.findOne(new BasicDBObject("ws", wsid).append("id", 5L));
+		assertThat("provenance not shared", v5.get("provenance"),
+				is(v3.get("provenance")));
+		assertThat("date stored with first save", v3.containsField("provdate"),
+				is(false));
+		
+		// each version reports the date it was saved
+		List<WorkspaceObjectData> got = ws.getObjects(user, Arrays.asList(
+				new ObjectIdentifier(wsi, "o3"), new ObjectIdentifier(wsi, "o5")), true);
+		Date d3 = got.get(0).getProvenance().getDate();
+		Date d5 = got.get(1).getProvenance().getDate();
+		assertThat("incorrect date", d5, is((Date) v5.get("provdate")));
+		assertTrue("dates not ordered", d3.before(d5));
+		assertThat("incorrect method", got.get(1).getProvenance().getActions()
+				.get(0).getMethod(), is("m2"));
+	}
+	
 	private Date getDate(long wsid, int id) {
 		@SuppressWarnings("rawtypes")
 		Map obj = jdb.getCollection("workspaceObjects")
@@ -0,0 +1,165 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.workspace.database.mongo.QueryProfiler;
+import us.kbase.workspace.database.mongo.QueryProfiler.OperationProvider;
+
+public class QueryProfilerTest {
+
+	private static DBObject typeQuery(final String type) {
+		final DBObject q = new BasicDBObject("ws",
+				new BasicDBObject("$in", Arrays.asList(1L, 2L, 3L)));
+		q.put("type", new BasicDBObject("$regex", "^" + type));
+		return q;
+	}
+
+	@Test
+	public void shape() throws Exception {
+		assertThat("incorrect shape", QueryProfiler.getShape(typeQuery("Foo")),
+				is("{ws: {$in: ?}, type: {$regex: ?}}"));
+		final DBObject q = new BasicDBObject("ws", 1L);
+		q.put("$and", Arrays.asList(
+				new BasicDBObject("meta", new BasicDBObject("k", "a")),
+				new BasicDBObject("meta", new BasicDBObject("k", "b"))));
+		assertThat("incorrect shape", QueryProfiler.getShape(q),
+				is("{ws: ?, $and: [{meta: {k: ?}}, {meta: {k: ?}}]}"));
+	}
+
+	@Test
+	public void shapeStatistics() throws Exception {
+		final QueryProfiler qp = new QueryProfiler();
+		qp.setOperationProvider(new OperationProvider() {
+
+			@Override
+			public String getCurrentOperation() {
+				return "Workspace.list_objects";
+			}
+		});
+		qp.recordDuration("workspaceObjVersions", typeQuery("Foo"), null,
+				1000000, 10);
+		qp.recordDuration("workspaceObjVersions", typeQuery("Bar"), null,
+				3000000, 5);
+		qp.recordDuration("workspaces", new BasicDBObject("name", "foo"),
+				null, 1000000, 1);
+		final List<Map<String, Object>> stats = qp.getShapeStatistics(10);
+		assertThat("incorrect shape count", stats.size(), is(2));
+		final Map<String, Object> s = stats.get(0);
+		assertThat("incorrect collection", s.get("collection"),
+				is((Object) "workspaceObjVersions"));
+		assertThat("incorrect operation", s.get("operation"),
+				is((Object) "Workspace.list_objects"));
+		assertThat("incorrect count", s.get("count"), is((Object) 2L));
+		assertThat("incorrect docs", s.get("docs"), is((Object) 15L));
+		assertThat("incorrect total", s.get("total_ms"), is((Object) 4.0));
+		assertThat("incorrect max", s.get("max_ms"), is((Object) 3.0));
+		assertThat("incorrect limit", qp.getShapeStatistics(1).size(), is(1));
+		qp.reset();
+		assertThat("not reset", qp.getShapeStatistics(10).size(), is(0));
+	}
+
+	@Test
+	public void slowestQueries() throws Exception {
+		final QueryProfiler qp = new QueryProfiler(2, 100000);
+		qp.recordDuration("c", typeQuery("A"), null, 2000000, 1);
+		qp.recordDuration("c", typeQuery("B"), null, 1000000, 1);
+		qp.recordDuration("c", typeQuery("C"), null, 3000000, 1);
+		qp.recordDuration("c", typeQuery("D"), null, 500000, 1);
+		final List<Map<String, Object>> slow = qp.getSlowestQueries();
+		assertThat("incorrect count", slow.size(), is(2));
+		assertThat("incorrect time", slow.get(0).get("ms"), is((Object) 3.0));
+		assertThat("incorrect query", slow.get(0).get("query"), is((Object)
+				"{ \"ws\" : { \"$in\" : [ 1 , 2 , 3]} , \"type\" : { \"$regex\" : \"^C\"}}"));
+		assertThat("incorrect operation", slow.get(0).get("operation"),
+				is((Object) "unknown"));
+		assertThat("incorrect time", slow.get(1).get("ms"), is((Object) 2.0));
+	}
+
+	/* a cursor whose plan is only available once the test allows it */
+	private static class BlockingCursor extends DBCursor {
+
+		private final CountDownLatch explain;
+		private final CountDownLatch explained;
+
+		private BlockingCursor(
+				final DBCollection col,
+				final CountDownLatch explain,
+				final CountDownLatch explained) {
+			super(col, new BasicDBObject(), null, null);
+			this.explain = explain;
+			this.explained = explained;
+		}
+
+		@Override
+		public DBCursor copy() {
+			return new BlockingCursor(getCollection(), explain, explained);
+		}
+
+		@Override
+		public DBObject explain() {
+			try {
+				explain.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			explained.countDown();
+			return new BasicDBObject("plan", "p");
+		}
+
+		@Override
+		public void close() {}
+	}
+
+	@Test
+	public void explainInBackground() throws Exception {
+		// no queries are sent to the server
+		final MongoClient mc = new MongoClient("localhost");
+		try {
+			final DBCollection col = mc.getDB("test").getCollection("c");
+			final QueryProfiler qp = new QueryProfiler(2, 100000);
+			qp.setSlowQueryThresholdMillis(1);
+			final CountDownLatch explain = new CountDownLatch(1);
+			final CountDownLatch explained = new CountDownLatch(3);
+			// recording a slow query doesn't wait for the explanation
+			qp.recordDuration("c", typeQuery("A"), new BlockingCursor(
+					col, explain, explained), 2000000, 1);
+			assertThat("query explained", explained.getCount(), is(3L));
+			// each shape is explained once per window
+			qp.recordDuration("c", typeQuery("B"), new BlockingCursor(
+					col, explain, explained), 2000000, 1);
+			qp.recordDuration("c", new BasicDBObject("name", "foo"),
+					new BlockingCursor(col, explain, explained), 2000000, 1);
+			explain.countDown();
+			for (int i = 0; i < 100 && explained.getCount() > 1; i++) {
+				Thread.sleep(10);
+			}
+			Thread.sleep(50);
+			assertThat("incorrect explanation count", explained.getCount(),
+					is(1L));
+		} finally {
+			mc.close();
+		}
+	}
+
+	@Test
+	public void slowestQueriesExpire() throws Exception {
+		final QueryProfiler qp = new QueryProfiler(2, 1);
+		qp.recordDuration("c", typeQuery("A"), null, 2000000, 1);
+		Thread.sleep(10);
+		assertThat("query not expired", qp.getSlowestQueries().size(), is(0));
+	}
+}
@@ -0,0 +1,253 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.typedobj.core.MD5;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.mongo.FileBlobStore;
+import us.kbase.workspace.database.mongo.TieredBlobStore;
+import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
+
+public class TieredBlobStoreTest {
+
+	private static MongoController mongo;
+	private static DB db;
+	private static TempFilesManager tfm;
+	private static File root;
+
+	private FileBlobStore hot;
+	private FileBlobStore cold;
+	private TieredBlobStore tiers;
+
+	private static final MD5 MD1 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1");
+	private static final MD5 MD2 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa2");
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		tfm = new TempFilesManager(new File(TestCommon.getTempDir()));
+		mongo = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using Mongo temp dir " +
+				mongo.getTempDir());
+		TestCommon.stfuLoggers();
+		MongoClient mongoClient = new MongoClient("localhost:" + mongo.getServerPort());
+		db = mongoClient.getDB("TieredBackendTest");
+		root = new File(TestCommon.getTempDir(), "TieredBlobStoreTest");
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mongo != null) {
+			mongo.destroy(TestCommon.getDeleteTempFiles());
+		}
+		if (TestCommon.getDeleteTempFiles()) {
+			FileUtils.deleteDirectory(root);
+		}
+	}
+
+	@Before
+	public void clear() throws Exception {
+		TestCommon.destroyDB(db);
+		FileUtils.deleteDirectory(root);
+		hot = new FileBlobStore(db.getCollection("hot"), new File(root, "hot"));
+		cold = new FileBlobStore(db.getCollection("cold"),
+				new File(root, "cold"), true);
+		tiers = new TieredBlobStore(db.getCollection("access"), hot, cold,
+				tfm);
+	}
+
+	private static ByteArrayFileCacheManager bafcMan() {
+		return new ByteArrayFileCacheManager(16000000, 2000000000L, tfm);
+	}
+
+	private static String get(final TieredBlobStore store, final MD5 md5)
+			throws Exception {
+		final ByteArrayFileCache d = store.getBlob(md5, bafcMan());
+		try {
+			return IOUtils.toString(d.getJSON());
+		} finally {
+			d.destroy();
+		}
+	}
+
+	private static Map<String, Integer> moved(
+			final int demoted,
+			final int promoted,
+			final int failed) {
+		final Map<String, Integer> ret = new HashMap<String, Integer>();
+		ret.put("demoted", demoted);
+		ret.put("promoted", promoted);
+		ret.put("failed", failed);
+		return ret;
+	}
+
+	private DBObject access(final MD5 md5) {
+		return db.getCollection("access").findOne(
+				new BasicDBObject("chksum", md5.getMD5()));
+	}
+
+	@Test
+	public void saveToHotTier() throws Exception {
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		assertThat("not in hot tier", hot.getFile(MD1).isFile(), is(true));
+		assertThat("in cold tier", cold.getFile(MD1).exists(), is(false));
+		assertThat("incorrect tier", access(MD1).get("tier"),
+				is((Object) "hot"));
+		assertThat("incorrect data", get(tiers, MD1), is("foo"));
+		assertThat("incorrect store type", tiers.getStoreType(),
+				is("File with File cold storage"));
+		assertThat("incorrect status count", tiers.status().size(), is(2));
+	}
+
+	@Test
+	public void demoteAndPromote() throws Exception {
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		tiers.saveBlob(MD2, IOUtils.toInputStream("bar"), false);
+		tiers.setDemoteAfterMillis(1000);
+		tiers.setPromoteReads(2);
+		Thread.sleep(1100);
+		get(tiers, MD2);
+		tiers.flushReads();
+		assertThat("incorrect reads", access(MD2).get("reads"),
+				is((Object) 1));
+
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(1, 0, 0)));
+		assertThat("in hot tier", hot.getFile(MD1).exists(), is(false));
+		assertThat("not in cold tier", cold.getFile(MD1).isFile(), is(true));
+		assertThat("incorrect tier", access(MD1).get("tier"),
+				is((Object) "cold"));
+		assertThat("blob not compressed", cold.getFile(MD1).getName(),
+				is(MD1.getMD5() + FileBlobStore.GZIP_EXT));
+		assertThat("recently read blob moved", hot.getFile(MD2).isFile(),
+				is(true));
+
+		// reads from the cold tier are transparent
+		final ByteArrayFileCache d = tiers.getBlob(MD1, bafcMan());
+		assertThat("incorrect sorted", d.isSorted(), is(true));
+		assertThat("incorrect data", IOUtils.toString(d.getJSON()), is("foo"));
+		d.destroy();
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(0, 0, 0)));
+
+		// saving a blob in the cold tier does nothing
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		assertThat("saved to hot tier", hot.getFile(MD1).exists(), is(false));
+
+		get(tiers, MD1);
+		tiers.setDemoteAfterMillis(1000000);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(0, 1, 0)));
+		assertThat("not in hot tier", hot.getFile(MD1).isFile(), is(true));
+		assertThat("in cold tier", cold.getFile(MD1).exists(), is(false));
+		assertThat("incorrect tier", access(MD1).get("tier"),
+				is((Object) "hot"));
+		assertThat("incorrect reads", access(MD1).get("reads"),
+				is((Object) 0));
+		final ByteArrayFileCache d2 = tiers.getBlob(MD1, bafcMan());
+		assertThat("incorrect sorted", d2.isSorted(), is(true));
+		assertThat("incorrect data", IOUtils.toString(d2.getJSON()),
+				is("foo"));
+		d2.destroy();
+	}
+
+	@Test
+	public void untrackedBlob() throws Exception {
+		// saved before tiering was enabled
+		hot.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		tiers.setDemoteAfterMillis(1);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(0, 0, 0)));
+		assertThat("incorrect data", get(tiers, MD1), is("foo"));
+		tiers.flushReads();
+		assertThat("incorrect tier", access(MD1).get("tier"),
+				is((Object) "hot"));
+		Thread.sleep(10);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(1, 0, 0)));
+		assertThat("not in cold tier", cold.getFile(MD1).isFile(), is(true));
+	}
+
+	@Test
+	public void unflushedRead() throws Exception {
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		tiers.setDemoteAfterMillis(1);
+		Thread.sleep(10);
+		get(tiers, MD1);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(0, 0, 0)));
+		assertThat("not in hot tier", hot.getFile(MD1).isFile(), is(true));
+		assertThat("copy not removed", cold.getFile(MD1).exists(),
+				is(false));
+		assertThat("incorrect tier", access(MD1).get("tier"),
+				is((Object) "hot"));
+		assertThat("claim not released", access(MD1).containsField("moving"),
+				is(false));
+		tiers.flushReads();
+		Thread.sleep(10);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(1, 0, 0)));
+		assertThat("not in cold tier", cold.getFile(MD1).isFile(), is(true));
+	}
+
+	@Test
+	public void claimedBlob() throws Exception {
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		db.getCollection("access").update(
+				new BasicDBObject("chksum", MD1.getMD5()),
+				new BasicDBObject("$set", new BasicDBObject("moving",
+						new Date())));
+		tiers.setDemoteAfterMillis(1);
+		Thread.sleep(10);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(0, 0, 0)));
+		assertThat("moved claimed blob", hot.getFile(MD1).isFile(), is(true));
+	}
+
+	@Test
+	public void missingBlob() throws Exception {
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		hot.removeBlob(MD1);
+		tiers.setDemoteAfterMillis(1);
+		Thread.sleep(10);
+		assertThat("incorrect moves", tiers.moveBlobs(), is(moved(0, 0, 1)));
+		assertThat("incorrect tier", access(MD1).get("tier"),
+				is((Object) "hot"));
+		assertThat("claim not released", access(MD1).containsField("moving"),
+				is(false));
+		try {
+			tiers.getBlob(MD1, bafcMan());
+			fail("got missing blob");
+		} catch (NoSuchBlobException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No blob saved with chksum " + MD1.getMD5()));
+		}
+	}
+
+	@Test
+	public void removeBlob() throws Exception {
+		tiers.saveBlob(MD1, IOUtils.toInputStream("foo"), true);
+		get(tiers, MD1);
+		tiers.removeBlob(MD1);
+		tiers.flushReads();
+		assertThat("access not removed", access(MD1), is((DBObject) null));
+		assertThat("blob not removed", hot.getFile(MD1).exists(), is(false));
+	}
+}
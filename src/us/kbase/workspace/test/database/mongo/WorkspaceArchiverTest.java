@@ -0,0 +1,345 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.mongo.GetMongoDB;
+import us.kbase.common.service.UObject;
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.typedobj.core.LocalTypeProvider;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.typedobj.core.TypeDefId;
+import us.kbase.typedobj.core.TypeDefName;
+import us.kbase.typedobj.core.TypedObjectValidator;
+import us.kbase.typedobj.db.MongoTypeStorage;
+import us.kbase.typedobj.db.TypeDefinitionDB;
+import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
+import us.kbase.workspace.database.ObjectIDNoWSNoVer;
+import us.kbase.workspace.database.ObjectIdentifier;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.Provenance;
+import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
+import us.kbase.workspace.database.Types;
+import us.kbase.workspace.database.Workspace;
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.WorkspaceObjectData;
+import us.kbase.workspace.database.WorkspaceSaveObject;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.WorkspaceUserMetadata;
+import us.kbase.workspace.database.exceptions.NoSuchWorkspaceException;
+import us.kbase.workspace.database.exceptions.PreExistingWorkspaceException;
+import us.kbase.workspace.database.mongo.GridFSBlobStore;
+import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+import us.kbase.workspace.database.mongo.WorkspaceArchiver;
+import us.kbase.workspace.test.WorkspaceTestCommon;
+
+public class WorkspaceArchiverTest {
+
+	private static MongoController mongo;
+	private static MongoClient mongoClient;
+	private static TempFilesManager tfm;
+	private static TypedObjectValidator val;
+	private static File archiveDir;
+
+	private static DB srcdb;
+	private static DB dstdb;
+	private static Workspace src;
+	private static Workspace dst;
+
+	private static final IdReferenceHandlerSetFactory fac =
+			new IdReferenceHandlerSetFactory(100);
+	private static final TypeDefId SAFE_TYPE =
+			new TypeDefId(new TypeDefName("SomeModule", "AType"), 0, 1);
+	private static final WorkspaceUser USER = new WorkspaceUser("foo");
+	private static final WorkspaceUser USER2 = new WorkspaceUser("bar");
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		mongo = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using mongo temp dir " + mongo.getTempDir());
+		TestCommon.stfuLoggers();
+		final String mongohost = "localhost:" + mongo.getServerPort();
+		mongoClient = new MongoClient(mongohost);
+		srcdb = mongoClient.getDB("WorkspaceArchiverTest_src");
+		dstdb = mongoClient.getDB("WorkspaceArchiverTest_dst");
+		final String typedb = "WorkspaceArchiverTest_types";
+		WorkspaceTestCommon.destroyWSandTypeDBs(srcdb, typedb);
+		tfm = new TempFilesManager(new File(TestCommon.getTempDir()));
+		archiveDir = new File(TestCommon.getTempDir(),
+				"WorkspaceArchiverTest");
+
+		final TypeDefinitionDB typeDefDB = new TypeDefinitionDB(
+				new MongoTypeStorage(GetMongoDB.getDB(mongohost, typedb)));
+		val = new TypedObjectValidator(new LocalTypeProvider(typeDefDB));
+		final Types types = new Types(typeDefDB);
+		types.requestModuleRegistration(USER, "SomeModule");
+		types.resolveModuleRegistration("SomeModule", true);
+		types.compileNewTypeSpec(USER,
+				"module SomeModule {/* @optional thing */ typedef structure {string thing;} AType;};",
+				Arrays.asList("AType"), null, null, false, null);
+		types.releaseTypes(USER, "SomeModule");
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mongo != null) {
+			mongo.destroy(TestCommon.getDeleteTempFiles());
+		}
+	}
+
+	@Before
+	public void clearDB() throws Exception {
+		TestCommon.destroyDB(srcdb);
+		TestCommon.destroyDB(dstdb);
+		FileUtils.deleteDirectory(archiveDir);
+		src = new Workspace(new MongoWorkspaceDB(
+				srcdb, new GridFSBlobStore(srcdb), tfm),
+				new ResourceUsageConfigurationBuilder().build(), val);
+		dst = new Workspace(new MongoWorkspaceDB(
+				dstdb, new GridFSBlobStore(dstdb), tfm),
+				new ResourceUsageConfigurationBuilder().build(), val);
+	}
+
+	private static WorkspaceArchiver getArchiver(final DB db) {
+		return new WorkspaceArchiver(db, new GridFSBlobStore(db), tfm, 3);
+	}
+
+	private static WorkspaceSaveObject saveObj(
+			final String name,
+			final String thing) {
+		return saveObj(name, thing, null);
+	}
+
+	private static WorkspaceSaveObject saveObj(
+			final String name,
+			final String thing,
+			final String provref) {
+		final Map<String, Object> data = new HashMap<String, Object>();
+		data.put("thing", thing);
+		final Provenance p = new Provenance(USER);
+		if (provref != null) {
+			p.addAction(new Provenance.ProvenanceAction()
+					.withWorkspaceObjects(Arrays.asList(provref)));
+		}
+		return new WorkspaceSaveObject(new ObjectIDNoWSNoVer(name),
+				new UObject(data), SAFE_TYPE, null, p, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Integer> getRefCounts(
+			final DB db,
+			final long wsid,
+			final long objid) {
+		return (List<Integer>) db.getCollection("workspaceObjects").findOne(
+				new BasicDBObject("ws", wsid).append("id", objid))
+				.get("refcnt");
+	}
+
+	private static final WorkspaceIdentifier WSI =
+			new WorkspaceIdentifier("archived");
+
+	private void createWorkspace() throws Exception {
+		// make the archived workspace's ID differ from the first ID assigned
+		// on the importing server
+		src.createWorkspace(USER, "other", false, null, null);
+		final Map<String, String> meta = new HashMap<String, String>();
+		meta.put("foo", "bar");
+		src.createWorkspace(USER, "archived", false, "desc",
+				new WorkspaceUserMetadata(meta));
+		src.setPermissions(USER, WSI, Arrays.asList(USER2), Permission.WRITE);
+		src.saveObjects(USER, WSI, Arrays.asList(
+				saveObj("o1", "a"), saveObj("o2", "b"), saveObj("o3", "a")),
+				fac);
+		src.saveObjects(USER, WSI, Arrays.asList(saveObj("o1", "c")), fac);
+	}
+
+	private static List<ObjectIdentifier> objects() {
+		final List<ObjectIdentifier> ret = new LinkedList<ObjectIdentifier>();
+		ret.add(new ObjectIdentifier(WSI, "o1", 1));
+		ret.add(new ObjectIdentifier(WSI, "o1", 2));
+		ret.add(new ObjectIdentifier(WSI, "o2"));
+		ret.add(new ObjectIdentifier(WSI, "o3"));
+		return ret;
+	}
+
+	@Test
+	public void exportAndImport() throws Exception {
+		createWorkspace();
+		final File dir = new File(archiveDir, "a1");
+		final Map<String, Object> man = getArchiver(srcdb).exportWorkspace(
+				WSI, dir);
+		assertThat("incorrect format", man.get("format"),
+				is((Object) WorkspaceArchiver.FORMAT));
+		assertThat("incorrect id", man.get("ws"), is((Object) 2L));
+		assertThat("incorrect name", man.get("name"), is((Object) "archived"));
+		assertThat("incorrect acls", man.get("acls"), is((Object) 2L));
+		assertThat("incorrect objects", man.get("objects"), is((Object) 3L));
+		assertThat("incorrect versions", man.get("versions"), is((Object) 4L));
+		// "a" is saved twice
+		assertThat("incorrect blobs", man.get("blobs"), is((Object) 3));
+
+		getArchiver(dstdb).importWorkspace(dir);
+
+		assertThat("incorrect workspace info",
+				dst.getWorkspaceInformation(USER, WSI),
+				is(src.getWorkspaceInformation(USER, WSI)));
+		assertThat("incorrect permissions",
+				dst.getPermissions(USER, Arrays.asList(WSI)),
+				is(src.getPermissions(USER, Arrays.asList(WSI))));
+		final List<WorkspaceObjectData> exp = src.getObjects(USER, objects());
+		final List<WorkspaceObjectData> got = dst.getObjects(USER2, objects());
+		for (int i = 0; i < exp.size(); i++) {
+			assertThat("incorrect info", got.get(i).getObjectInfo(),
+					is(exp.get(i).getObjectInfo()));
+			assertThat("incorrect provenance user",
+					got.get(i).getProvenance().getUser(),
+					is(exp.get(i).getProvenance().getUser()));
+			assertThat("incorrect data",
+					got.get(i).getSerializedData().getUObject()
+							.asClassInstance(Map.class),
+					is(exp.get(i).getSerializedData().getUObject()
+							.asClassInstance(Map.class)));
+			got.get(i).destroy();
+			exp.get(i).destroy();
+		}
+
+		// new workspaces don't reuse the imported ID
+		assertThat("incorrect new workspace id", dst.createWorkspace(
+				USER, "new", false, null, null).getId(), is(3L));
+
+		try {
+			getArchiver(dstdb).importWorkspace(dir);
+			fail("imported existing workspace");
+		} catch (PreExistingWorkspaceException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Workspace name archived or ID 2 is already in use"));
+		}
+	}
+
+	@Test
+	public void references() throws Exception {
+		final WorkspaceIdentifier other = new WorkspaceIdentifier("other");
+		src.createWorkspace(USER, "other", false, null, null);
+		src.saveObjects(USER, other, Arrays.asList(saveObj("ext", "a")), fac);
+		src.createWorkspace(USER, "archived", false, null, null);
+		src.saveObjects(USER, WSI, Arrays.asList(
+				saveObj("o1", "b", "other/ext/1"), saveObj("o2", "c")), fac);
+		src.saveObjects(USER, WSI, Arrays.asList(
+				saveObj("o3", "d", "archived/o1/1")), fac);
+		src.saveObjects(USER, other, Arrays.asList(
+				saveObj("back", "e", "archived/o2/1")), fac);
+		assertThat("incorrect source refcount", getRefCounts(srcdb, 2, 2),
+				is(Arrays.asList(1)));
+		final File dir = new File(archiveDir, "a5");
+		getArchiver(srcdb).exportWorkspace(WSI, dir);
+
+		try {
+			getArchiver(dstdb).importWorkspace(dir);
+			fail("imported archive with missing references");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("The archive contains 1 reference to object versions " +
+					"that do not exist in this database: 1/1/1"));
+		}
+		try {
+			dst.getWorkspaceInformation(USER, WSI);
+			fail("got workspace from rejected import");
+		} catch (NoSuchWorkspaceException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No workspace with name archived exists"));
+		}
+
+		dst.createWorkspace(USER, "other", false, null, null);
+		dst.saveObjects(USER, other, Arrays.asList(saveObj("ext", "f")), fac);
+		getArchiver(dstdb).importWorkspace(dir);
+
+		assertThat("incorrect external refcount", getRefCounts(dstdb, 1, 1),
+				is(Arrays.asList(1)));
+		assertThat("incorrect internal refcount", getRefCounts(dstdb, 2, 1),
+				is(Arrays.asList(1)));
+		// the reference from the source database's other workspace is gone
+		assertThat("incorrect refcount", getRefCounts(dstdb, 2, 2),
+				is(Arrays.asList(0)));
+		assertThat("incorrect refcount", getRefCounts(dstdb, 2, 3),
+				is(Arrays.asList(0)));
+	}
+
+	@Test
+	public void corruptBlob() throws Exception {
+		createWorkspace();
+		final File dir = new File(archiveDir, "a2");
+		getArchiver(srcdb).exportWorkspace(WSI, dir);
+		final File blob = FileUtils.listFiles(
+				new File(dir, WorkspaceArchiver.BLOB_DIR), null, true)
+				.iterator().next();
+		FileUtils.writeStringToFile(blob, "{\"thing\":\"z\"}");
+		try {
+			getArchiver(dstdb).importWorkspace(dir);
+			fail("imported corrupt archive");
+		} catch (IOException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Archive blob " + blob + " does not match its MD5"));
+		}
+		// the workspace isn't visible after a failed import
+		try {
+			dst.getWorkspaceInformation(USER, WSI);
+			fail("got workspace from failed import");
+		} catch (NoSuchWorkspaceException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No workspace with name archived exists"));
+		}
+	}
+
+	@Test
+	public void incompleteArchive() throws Exception {
+		createWorkspace();
+		final File dir = new File(archiveDir, "a3");
+		getArchiver(srcdb).exportWorkspace(WSI, dir);
+		new File(dir, WorkspaceArchiver.MANIFEST).delete();
+		try {
+			getArchiver(dstdb).importWorkspace(dir);
+			fail("imported incomplete archive");
+		} catch (IOException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No manifest.json in archive " + dir +
+							". The archive may be incomplete"));
+		}
+	}
+
+	@Test
+	public void existingDirectory() throws Exception {
+		createWorkspace();
+		final File dir = new File(archiveDir, "a4");
+		dir.mkdirs();
+		try {
+			getArchiver(srcdb).exportWorkspace(WSI, dir);
+			fail("exported to existing directory");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Archive directory already exists: " + dir));
+		}
+	}
+}
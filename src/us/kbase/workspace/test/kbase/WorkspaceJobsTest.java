@@ -0,0 +1,286 @@
+package us.kbase.workspace.test.kbase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.service.UObject;
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.kbase.WorkspaceJobs;
+import us.kbase.workspace.kbase.WorkspaceJobs.Job;
+import us.kbase.workspace.kbase.WorkspaceJobs.JobHandler;
+
+public class WorkspaceJobsTest {
+
+	private static MongoController mongo;
+	private static DB db;
+
+	private static final WorkspaceUser USER1 = new WorkspaceUser("u1");
+	private static final WorkspaceUser USER2 = new WorkspaceUser("u2");
+
+	private static TempFilesManager tfm;
+
+	private DBCollection col;
+	private WorkspaceJobs jobs;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		mongo = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using Mongo temp dir " + mongo.getTempDir());
+		TestCommon.stfuLoggers();
+		MongoClient mongoClient = new MongoClient(
+				"localhost:" + mongo.getServerPort());
+		db = mongoClient.getDB("WorkspaceJobsTest");
+		tfm = new TempFilesManager(Paths.get(TestCommon.getTempDir())
+				.resolve("WorkspaceJobsTest").toFile());
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mongo != null) {
+			mongo.destroy(TestCommon.getDeleteTempFiles());
+		}
+		if (tfm != null) {
+			tfm.cleanup();
+		}
+	}
+
+	@Before
+	public void clear() throws Exception {
+		TestCommon.destroyDB(db);
+		col = db.getCollection("jobs");
+		jobs = new WorkspaceJobs(col, tfm);
+		jobs.register("echo", new JobHandler() {
+
+			@Override
+			public Object run(final WorkspaceUser user, final String params)
+					throws Exception {
+				return user.getUser() + " " + params;
+			}
+		});
+		jobs.register("fail", new JobHandler() {
+
+			@Override
+			public Object run(final WorkspaceUser user, final String params)
+					throws Exception {
+				throw new IllegalStateException("oops");
+			}
+		});
+		jobs.register("tempfile", new JobHandler() {
+
+			@Override
+			public Object run(final WorkspaceUser user, final String params)
+					throws Exception {
+				return tfm.generateTempFile("job", "tmp").getName();
+			}
+		});
+	}
+
+	private static int countJobThreads() {
+		int count = 0;
+		for (final Thread t: Thread.getAllStackTraces().keySet()) {
+			if (t.isAlive() && t.getName().startsWith("ws-job-")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void failGet(
+			final WorkspaceUser user,
+			final String id,
+			final String exp) throws Exception {
+		try {
+			jobs.getJob(user, id);
+			fail("got job");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception message", e.getMessage(), is(exp));
+		}
+	}
+
+	@Test
+	public void runJob() throws Exception {
+		final Map<String, String> p = new HashMap<String, String>();
+		p.put("a.b", "c");
+		final Job j = jobs.submit(USER1, "echo", p);
+		assertThat("incorrect state", j.getState(), is(WorkspaceJobs.QUEUED));
+		assertThat("incorrect type", j.getType(), is("echo"));
+		assertThat("incorrect user", j.getUser(), is(USER1));
+		assertThat("no submit date", j.getSubmitted(), notNullValue());
+		assertThat("incorrect start", j.getStarted(), nullValue());
+
+		assertThat("no job run", jobs.runNextJob(), is(true));
+		assertThat("job run", jobs.runNextJob(), is(false));
+		final Job done = jobs.getJob(USER1, j.getId());
+		assertThat("incorrect state", done.getState(),
+				is(WorkspaceJobs.COMPLETE));
+		assertThat("no start date", done.getStarted(), notNullValue());
+		assertThat("no finish date", done.getFinished(), notNullValue());
+		assertThat("incorrect result", done.getResult(),
+				is("\"u1 {\\\"a.b\\\":\\\"c\\\"}\""));
+		assertThat("incorrect error", done.getError(), nullValue());
+
+		failGet(USER2, j.getId(), "No job with id " + j.getId());
+		failGet(USER1, "foo", "No job with id foo");
+		final String missing = new ObjectId().toString();
+		failGet(USER1, missing, "No job with id " + missing);
+	}
+
+	@Test
+	public void failJob() throws Exception {
+		final Job j = jobs.submit(USER1, "fail", null);
+		assertThat("no job run", jobs.runNextJob(), is(true));
+		final Job failed = jobs.getJob(USER1, j.getId());
+		assertThat("incorrect state", failed.getState(),
+				is(WorkspaceJobs.FAILED));
+		assertThat("incorrect error", failed.getError(), is("oops"));
+		assertThat("incorrect result", failed.getResult(), nullValue());
+	}
+
+	@Test
+	public void unknownType() throws Exception {
+		try {
+			jobs.submit(USER1, "foo", null);
+			fail("submitted unknown job type");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Unknown job type: foo"));
+		}
+	}
+
+	@Test
+	public void cancel() throws Exception {
+		final Job j = jobs.submit(USER1, "echo", "foo");
+		final Job canceled = jobs.cancel(USER1, j.getId());
+		assertThat("incorrect state", canceled.getState(),
+				is(WorkspaceJobs.CANCELED));
+		assertThat("no finish date", canceled.getFinished(), notNullValue());
+		assertThat("canceled job run", jobs.runNextJob(), is(false));
+		assertThat("incorrect state", jobs.cancel(USER1, j.getId()).getState(),
+				is(WorkspaceJobs.CANCELED));
+
+		final Job j2 = jobs.submit(USER1, "echo", "foo");
+		col.update(new BasicDBObject("_id", new ObjectId(j2.getId())),
+				new BasicDBObject("$set",
+						new BasicDBObject("state", WorkspaceJobs.RUNNING)));
+		try {
+			jobs.cancel(USER1, j2.getId());
+			fail("canceled running job");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Job " + j2.getId() +
+							" is running and cannot be canceled"));
+		}
+		try {
+			jobs.cancel(USER2, j.getId());
+			fail("canceled other user's job");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("No job with id " + j.getId()));
+		}
+	}
+
+	@Test
+	public void requeueStaleJobs() throws Exception {
+		final Job j = jobs.submit(USER1, "echo", "foo");
+		final Job j2 = jobs.submit(USER1, "echo", "bar");
+		// simulate servers that died while running the jobs
+		final Date old = new Date(new Date().getTime() - 60000);
+		final BasicDBObject set = new BasicDBObject("state",
+				WorkspaceJobs.RUNNING);
+		set.put("heartbeat", old);
+		set.put("server", "dead");
+		set.put("attempts", 1);
+		col.update(new BasicDBObject("_id", new ObjectId(j.getId())),
+				new BasicDBObject("$set", set));
+		set.put("attempts", 3);
+		col.update(new BasicDBObject("_id", new ObjectId(j2.getId())),
+				new BasicDBObject("$set", set));
+
+		assertThat("incorrect requeue count",
+				jobs.requeueStaleJobs(120000), is(0));
+		assertThat("incorrect requeue count",
+				jobs.requeueStaleJobs(30000), is(2));
+		assertThat("incorrect state", jobs.getJob(USER1, j.getId()).getState(),
+				is(WorkspaceJobs.QUEUED));
+		final Job failed = jobs.getJob(USER1, j2.getId());
+		assertThat("incorrect state", failed.getState(),
+				is(WorkspaceJobs.FAILED));
+		assertThat("incorrect error", failed.getError(),
+				is("The job was interrupted 3 times by server shutdowns"));
+
+		assertThat("no job run", jobs.runNextJob(), is(true));
+		assertThat("incorrect state", jobs.getJob(USER1, j.getId()).getState(),
+				is(WorkspaceJobs.COMPLETE));
+		assertThat("incorrect attempts", col.findOne(new BasicDBObject("_id",
+				new ObjectId(j.getId()))).get("attempts"), is((Object) 2));
+	}
+
+	@Test
+	public void backgroundWorkers() throws Exception {
+		jobs.start(2);
+		try {
+			final Job j = jobs.submit(USER1, "echo", "foo");
+			final long end = new Date().getTime() + 10000;
+			while (!WorkspaceJobs.COMPLETE.equals(
+					jobs.getJob(USER1, j.getId()).getState())) {
+				if (new Date().getTime() > end) {
+					fail("job did not complete");
+				}
+				Thread.sleep(50);
+			}
+		} finally {
+			jobs.stop();
+		}
+	}
+
+	@Test
+	public void stopWorkers() throws Exception {
+		final int before = countJobThreads();
+		jobs.start(3);
+		assertThat("incorrect thread count", countJobThreads(), is(before + 4));
+		assertThat("threads still running", jobs.stop(), is(true));
+		assertThat("incorrect thread count", countJobThreads(), is(before));
+		assertThat("stopped twice", jobs.stop(), is(true));
+		// can restart after stopping
+		jobs.start(1);
+		assertThat("threads still running", jobs.stop(), is(true));
+		assertThat("incorrect thread count", countJobThreads(), is(before));
+	}
+
+	@Test
+	public void orphanJobTempFiles() throws Exception {
+		final Job j = jobs.submit(USER1, "tempfile", null);
+		assertThat("no job run", jobs.runNextJob(), is(true));
+		final String name = UObject.getMapper().readValue(
+				jobs.getJob(USER1, j.getId()).getResult(), String.class);
+		final File f = new File(tfm.getTempDir(), name);
+		assertThat("no temp file", f.exists(), is(true));
+		assertThat("incorrect reaped count", tfm.reap(0), is(1));
+		assertThat("temp file exists", f.exists(), is(false));
+	}
+}
@@ -0,0 +1,101 @@
+package us.kbase.workspace.test.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import us.kbase.workspace.metrics.Gauge;
+import us.kbase.workspace.metrics.Histogram;
+import us.kbase.workspace.metrics.MetricsRegistry;
+
+public class MetricsRegistryTest {
+
+	private static String write(final MetricsRegistry reg) throws Exception {
+		final StringWriter w = new StringWriter();
+		reg.writePrometheus(w);
+		return w.toString();
+	}
+
+	@Test
+	public void histogram() throws Exception {
+		final MetricsRegistry reg = new MetricsRegistry();
+		final Histogram h = reg.getHistogram("dur_seconds", "Durations",
+				"method", "Workspace.ver");
+		h.observe(500000); // 0.5 ms
+		h.observe(20000000); // 20 ms
+		h.observe(200000000000L); // 200 s
+		assertThat("same histogram", reg.getHistogram("dur_seconds",
+				"Durations", "method", "Workspace.ver") == h, is(true));
+		final String out = write(reg);
+		final String m = "{method=\"Workspace.ver\",";
+		assertThat("incorrect output", out.startsWith(
+				"# HELP dur_seconds Durations\n" +
+				"# TYPE dur_seconds histogram\n" +
+				"dur_seconds_bucket" + m + "le=\"0.001\"} 1\n" +
+				"dur_seconds_bucket" + m + "le=\"0.005\"} 1\n" +
+				"dur_seconds_bucket" + m + "le=\"0.01\"} 1\n" +
+				"dur_seconds_bucket" + m + "le=\"0.025\"} 2\n"), is(true));
+		assertThat("incorrect output", out.endsWith(
+				"dur_seconds_bucket" + m + "le=\"120.0\"} 2\n" +
+				"dur_seconds_bucket" + m + "le=\"+Inf\"} 3\n" +
+				"dur_seconds_sum{method=\"Workspace.ver\"} 200.0205\n" +
+				"dur_seconds_count{method=\"Workspace.ver\"} 3\n"), is(true));
+	}
+
+	@Test
+	public void countersAndGauges() throws Exception {
+		final MetricsRegistry reg = new MetricsRegistry();
+		reg.getCounter("b_total", "B", "method", "x").add(10);
+		reg.getCounter("b_total", "B", "method", "a\"b\\").increment();
+		reg.getGauge("a_bytes", null).add(5);
+		reg.getGauge("a_bytes", null).add(-2);
+		reg.registerGauge("c", "C\nline", new Gauge() {
+			
+			@Override
+			public long getValue() {
+				return 42;
+			}
+		});
+		assertThat("incorrect output", write(reg), is(
+				"# TYPE a_bytes gauge\n" +
+				"a_bytes 3\n" +
+				"# HELP b_total B\n" +
+				"# TYPE b_total counter\n" +
+				"b_total{method=\"a\\\"b\\\\\"} 1\n" +
+				"b_total{method=\"x\"} 10\n" +
+				"# HELP c C\\nline\n" +
+				"# TYPE c gauge\n" +
+				"c 42\n"));
+	}
+
+	@Test
+	public void conflicts() throws Exception {
+		final MetricsRegistry reg = new MetricsRegistry();
+		reg.getCounter("foo", "foo", "method", "x");
+		try {
+			reg.getGauge("foo", "foo", "method", "x");
+			fail("got gauge for counter");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect message", e.getMessage(),
+					is("Metric foo is a counter, not a gauge"));
+		}
+		try {
+			reg.getCounter("foo", "foo", "phase", "x");
+			fail("got counter with wrong label");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect message", e.getMessage(),
+					is("Metric foo has label method, not phase"));
+		}
+		try {
+			reg.getCounter("foo-bar", "foo");
+			fail("got counter with illegal name");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect message", e.getMessage(),
+					is("Illegal metric name: foo-bar"));
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package us.kbase.workspace.test.performance;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Records operation latencies and calculates summary statistics.
+ *
+ * All latencies are kept so the percentiles are exact. A recorder is not
+ * thread safe - use one recorder per thread and merge them with
+ * {@link #add(LatencyRecorder)} when the threads are finished.
+ */
+public class LatencyRecorder {
+
+	private static final double NANO_TO_MS = 1000000.0;
+
+	private long[] latencies = new long[1024];
+	private int count = 0;
+	private long errors = 0;
+
+	/** Record the latency of a successful operation.
+	 * @param nanos the latency in nanoseconds.
+	 */
+	public void record(final long nanos) {
+		if (nanos < 0) {
+			throw new IllegalArgumentException("latency must be >= 0");
+		}
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, latencies.length * 2);
+		}
+		latencies[count++] = nanos;
+	}
+
+	/** Record a failed operation. */
+	public void recordError() {
+		errors++;
+	}
+
+	/** Add all the latencies and errors from another recorder to this
+	 * recorder.
+	 * @param other the recorder to add.
+	 */
+	public void add(final LatencyRecorder other) {
+		for (int i = 0; i < other.count; i++) {
+			record(other.latencies[i]);
+		}
+		errors += other.errors;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/** Get the latency at a percentile, using the nearest rank method.
+	 * @param percentile the percentile, greater than 0 and at most 100.
+	 * @return the latency in nanoseconds, or 0 if no latencies were
+	 * recorded.
+	 */
+	public long getPercentile(final double percentile) {
+		if (percentile <= 0 || percentile > 100) {
+			throw new IllegalArgumentException(
+					"percentile must be > 0 and <= 100");
+		}
+		final long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return getPercentile(sorted, percentile);
+	}
+	
+	private static long getPercentile(
+			final long[] sorted,
+			final double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		// the epsilon prevents floating point error from bumping the rank
+		final int rank = (int) Math.ceil(
+				percentile / 100 * sorted.length - 1e-9);
+		return sorted[Math.max(rank, 1) - 1];
+	}
+
+	/** Get the summary statistics for the recorded latencies.
+	 * @param elapsedNanos the wall clock time over which the operations
+	 * were run, used to calculate throughput.
+	 * @return a map of statistic name to value suitable for serializing
+	 * to JSON. Latencies are in milliseconds.
+	 */
+	public Map<String, Object> getSummary(final long elapsedNanos) {
+		final Map<String, Object> ret = new LinkedHashMap<String, Object>();
+		ret.put("count", count);
+		ret.put("errors", errors);
+		ret.put("throughput_per_sec", elapsedNanos <= 0 ? 0.0 :
+				count / (elapsedNanos / 1000000000.0));
+		final Map<String, Object> lat = new LinkedHashMap<String, Object>();
+		final long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		long sum = 0;
+		for (final long l: sorted) {
+			sum += l;
+		}
+		lat.put("min", count == 0 ? 0.0 : sorted[0] / NANO_TO_MS);
+		lat.put("mean", count == 0 ? 0.0 : sum / (double) count / NANO_TO_MS);
+		lat.put("p50", getPercentile(sorted, 50) / NANO_TO_MS);
+		lat.put("p90", getPercentile(sorted, 90) / NANO_TO_MS);
+		lat.put("p99", getPercentile(sorted, 99) / NANO_TO_MS);
+		lat.put("p999", getPercentile(sorted, 99.9) / NANO_TO_MS);
+		lat.put("max", count == 0 ? 0.0 : sorted[count - 1] / NANO_TO_MS);
+		ret.put("latency_ms", lat);
+		return ret;
+	}
+}
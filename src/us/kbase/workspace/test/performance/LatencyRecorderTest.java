@@ -0,0 +1,56 @@
+package us.kbase.workspace.test.performance;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+	@Test
+	public void percentiles() throws Exception {
+		final LatencyRecorder lr = new LatencyRecorder();
+		for (int i = 2000; i > 0; i--) {
+			lr.record(i * 1000000L);
+		}
+		assertThat("incorrect count", lr.getCount(), is(2000));
+		assertThat("incorrect p50", lr.getPercentile(50), is(1000000000L));
+		assertThat("incorrect p99", lr.getPercentile(99), is(1980000000L));
+		assertThat("incorrect p99.9", lr.getPercentile(99.9), is(1998000000L));
+		assertThat("incorrect p100", lr.getPercentile(100), is(2000000000L));
+		assertThat("incorrect low percentile", lr.getPercentile(0.001),
+				is(1000000L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void summary() throws Exception {
+		final LatencyRecorder lr1 = new LatencyRecorder();
+		final LatencyRecorder lr2 = new LatencyRecorder();
+		lr1.record(1000000);
+		lr1.record(3000000);
+		lr2.record(2000000);
+		lr2.recordError();
+		lr1.add(lr2);
+		final Map<String, Object> s = lr1.getSummary(1500000000L);
+		assertThat("incorrect count", s.get("count"), is((Object) 3));
+		assertThat("incorrect errors", s.get("errors"), is((Object) 1L));
+		assertThat("incorrect throughput", s.get("throughput_per_sec"),
+				is((Object) 2.0));
+		final Map<String, Object> lat = (Map<String, Object>) s.get("latency_ms");
+		assertThat("incorrect min", lat.get("min"), is((Object) 1.0));
+		assertThat("incorrect mean", lat.get("mean"), is((Object) 2.0));
+		assertThat("incorrect p50", lat.get("p50"), is((Object) 2.0));
+		assertThat("incorrect max", lat.get("max"), is((Object) 3.0));
+	}
+
+	@Test
+	public void empty() throws Exception {
+		final LatencyRecorder lr = new LatencyRecorder();
+		assertThat("incorrect p50", lr.getPercentile(50), is(0L));
+		assertThat("incorrect count", lr.getSummary(0).get("count"),
+				is((Object) 0));
+	}
+}
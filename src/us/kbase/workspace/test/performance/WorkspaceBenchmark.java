@@ -0,0 +1,379 @@
+package us.kbase.workspace.test.performance;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.DB;
+
+import us.kbase.common.mongo.GetMongoDB;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.typedobj.core.LocalTypeProvider;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.typedobj.core.TypeDefId;
+import us.kbase.typedobj.core.TypeDefName;
+import us.kbase.typedobj.core.TypedObjectValidator;
+import us.kbase.typedobj.db.MongoTypeStorage;
+import us.kbase.typedobj.db.TypeDefinitionDB;
+import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
+import us.kbase.workspace.database.ListObjectsParameters;
+import us.kbase.workspace.database.ObjectIDNoWSNoVer;
+import us.kbase.workspace.database.ObjectIdentifier;
+import us.kbase.workspace.database.Provenance;
+import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
+import us.kbase.workspace.database.Types;
+import us.kbase.workspace.database.Workspace;
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.WorkspaceObjectData;
+import us.kbase.workspace.database.WorkspaceSaveObject;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.mongo.GridFSBlobStore;
+import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+import us.kbase.workspace.test.WorkspaceTestCommon;
+
+/** A load test harness for the workspace library layer.
+ *
+ * The harness starts a Workspace backed by MongoWorkspaceDB and a
+ * GridFSBlobStore, either against an existing mongod or a mongod started in
+ * a temporary directory, registers a type, saves a set of objects, and then
+ * runs a mix of operations from several threads. Authentication is not
+ * involved since the library layer takes user names directly.
+ *
+ * The results, including throughput and latency percentiles for each
+ * operation, are written as JSON to standard out or to a file for
+ * regression tracking.
+ *
+ * Usage: WorkspaceBenchmark config.json [output.json]
+ *
+ * See test/performance/benchmark.json for an example configuration. The
+ * workspace and type databases are destroyed at the start of each run.
+ */
+public class WorkspaceBenchmark {
+
+	// operations that can be included in the mix
+	public static final String SAVE_OBJECTS = "save_objects";
+	public static final String GET_OBJECTS2 = "get_objects2";
+	public static final String LIST_OBJECTS = "list_objects";
+	public static final String GET_OBJECT_INFO3 = "get_object_info3";
+	private static final List<String> OPERATIONS = Arrays.asList(
+			SAVE_OBJECTS, GET_OBJECTS2, LIST_OBJECTS, GET_OBJECT_INFO3);
+
+	private static final String WS_DB = "benchmark_ws";
+	private static final String TYPE_DB = "benchmark_types";
+	private static final String WORKSPACE = "benchmark";
+	private static final WorkspaceUser USER = new WorkspaceUser("benchmark");
+
+	private static final ObjectMapper MAP = new ObjectMapper();
+
+	private final Map<String, Object> config;
+	private final Workspace ws;
+	private final TempFilesManager tfm;
+	private final TypeDefId type;
+	private final Map<String, Object> data;
+	private final WorkspaceIdentifier wsi = new WorkspaceIdentifier(WORKSPACE);
+	private final List<String> operationMix = new ArrayList<String>();
+	private int preloaded = 0;
+
+	/** Create a benchmark.
+	 * @param config the benchmark configuration.
+	 * @param mongoHost the host of the mongod to use for the benchmark.
+	 * @throws Exception if the workspace can't be set up.
+	 */
+	@SuppressWarnings("unchecked")
+	public WorkspaceBenchmark(
+			final Map<String, Object> config,
+			final String mongoHost)
+			throws Exception {
+		this.config = config;
+		final DB db = GetMongoDB.getDB(mongoHost, WS_DB);
+		WorkspaceTestCommon.destroyWSandTypeDBs(db, TYPE_DB);
+		tfm = new TempFilesManager(new File(getString("temp-dir"),
+				"benchmark_temp_files"));
+		tfm.cleanup();
+		final TypeDefinitionDB typeDefDB = new TypeDefinitionDB(
+				new MongoTypeStorage(GetMongoDB.getDB(mongoHost, TYPE_DB)));
+		final TypedObjectValidator val = new TypedObjectValidator(
+				new LocalTypeProvider(typeDefDB));
+		final MongoWorkspaceDB mwdb = new MongoWorkspaceDB(
+				db, new GridFSBlobStore(db), tfm);
+		ws = new Workspace(mwdb,
+				new ResourceUsageConfigurationBuilder().build(), val);
+
+		final String module = getString("module");
+		final String typename = getString("type");
+		final Types types = new Types(typeDefDB);
+		types.requestModuleRegistration(USER, module);
+		types.resolveModuleRegistration(module, true);
+		types.compileNewTypeSpec(USER, FileUtils.readFileToString(
+				new File(getString("spec-file"))), Arrays.asList(typename),
+				null, null, false, null);
+		types.releaseTypes(USER, module);
+		type = new TypeDefId(new TypeDefName(module, typename));
+		data = MAP.readValue(new File(getString("object-file")), Map.class);
+
+		final Map<String, Object> mix = (Map<String, Object>) config.get("mix");
+		for (final String op: mix.keySet()) {
+			if (!OPERATIONS.contains(op)) {
+				throw new IllegalArgumentException("Unknown operation: " + op);
+			}
+			final int weight = ((Number) mix.get(op)).intValue();
+			for (int i = 0; i < weight; i++) {
+				operationMix.add(op);
+			}
+		}
+		if (operationMix.isEmpty()) {
+			throw new IllegalArgumentException(
+					"The operation mix must contain at least one operation");
+		}
+		ws.createWorkspace(USER, WORKSPACE, false, null, null);
+	}
+
+	private String getString(final String key) {
+		final Object o = config.get(key);
+		if (o == null) {
+			throw new IllegalArgumentException(
+					"Missing configuration key: " + key);
+		}
+		return o.toString();
+	}
+
+	private int getInt(final String key) {
+		final Object o = config.get(key);
+		if (!(o instanceof Number)) {
+			throw new IllegalArgumentException(
+					"Configuration key must be a number: " + key);
+		}
+		return ((Number) o).intValue();
+	}
+
+	private void save(final String name) throws Exception {
+		ws.saveObjects(USER, wsi, Arrays.asList(new WorkspaceSaveObject(
+				new ObjectIDNoWSNoVer(name), data, type, null,
+				new Provenance(USER), false)),
+				new IdReferenceHandlerSetFactory(100000));
+	}
+
+	/** Save the objects used by the read operations. */
+	public void preload() throws Exception {
+		preloaded = getInt("preload-objects");
+		if (preloaded < 1) {
+			throw new IllegalArgumentException(
+					"preload-objects must be at least 1");
+		}
+		for (int i = 1; i <= preloaded; i++) {
+			save("preload" + i);
+		}
+	}
+
+	private void runOperation(
+			final String op,
+			final Random rand,
+			final String saveName)
+			throws Exception {
+		final ObjectIdentifier oi = new ObjectIdentifier(wsi,
+				"preload" + (rand.nextInt(preloaded) + 1));
+		if (SAVE_OBJECTS.equals(op)) {
+			save(saveName);
+		} else if (GET_OBJECTS2.equals(op)) {
+			final WorkspaceObjectData wod = ws.getObjects(
+					USER, Arrays.asList(oi)).get(0);
+			try {
+				// read the data as the server would to return it
+				final Reader r = wod.getSerializedData().getJSON();
+				final char[] buf = new char[100000];
+				while (r.read(buf) > -1) {}
+				r.close();
+			} finally {
+				wod.destroy();
+			}
+		} else if (LIST_OBJECTS.equals(op)) {
+			ws.listObjects(new ListObjectsParameters(USER, Arrays.asList(wsi))
+					.withIncludeMetaData(true));
+		} else if (GET_OBJECT_INFO3.equals(op)) {
+			ws.getObjectInformation(USER, Arrays.asList(oi), true, false);
+		}
+	}
+
+	/** Run the operation mix.
+	 * @return the results of the run.
+	 */
+	public Map<String, Object> run() throws Exception {
+		final int threads = getInt("threads");
+		final int warmup = getInt("warmup-operations");
+		final int operations = getInt("operations");
+		final long seed = config.containsKey("seed") ?
+				((Number) config.get("seed")).longValue() : 1;
+		final ExecutorService exe = Executors.newFixedThreadPool(threads);
+		final List<Future<Map<String, LatencyRecorder>>> futures =
+				new LinkedList<Future<Map<String, LatencyRecorder>>>();
+		final AtomicLong start = new AtomicLong();
+		// the clock starts when every thread has finished warming up
+		final CyclicBarrier warmedUp = new CyclicBarrier(threads,
+				new Runnable() {
+
+					@Override
+					public void run() {
+						start.set(System.nanoTime());
+					}
+				});
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			// spread the remainder over the first threads
+			final int threadOps = operations / threads +
+					(thread < operations % threads ? 1 : 0);
+			futures.add(exe.submit(new Callable<Map<String, LatencyRecorder>>() {
+
+				@Override
+				public Map<String, LatencyRecorder> call() throws Exception {
+					return runThread(thread, seed + thread, warmup,
+							threadOps, warmedUp);
+				}
+			}));
+		}
+		final Map<String, LatencyRecorder> results =
+				new LinkedHashMap<String, LatencyRecorder>();
+		for (final String op: OPERATIONS) {
+			results.put(op, new LatencyRecorder());
+		}
+		for (final Future<Map<String, LatencyRecorder>> f: futures) {
+			for (final Map.Entry<String, LatencyRecorder> e:
+					f.get().entrySet()) {
+				results.get(e.getKey()).add(e.getValue());
+			}
+		}
+		final long elapsed = System.nanoTime() - start.get();
+		exe.shutdown();
+
+		final Map<String, Object> ret = new LinkedHashMap<String, Object>();
+		ret.put("date", new Date().getTime());
+		ret.put("config", config);
+		ret.put("elapsed_sec", elapsed / 1000000000.0);
+		final Map<String, Object> ops = new LinkedHashMap<String, Object>();
+		final LatencyRecorder total = new LatencyRecorder();
+		for (final Map.Entry<String, LatencyRecorder> e: results.entrySet()) {
+			if (e.getValue().getCount() > 0 || e.getValue().getErrors() > 0) {
+				ops.put(e.getKey(), e.getValue().getSummary(elapsed));
+				total.add(e.getValue());
+			}
+		}
+		ret.put("operations", ops);
+		ret.put("total", total.getSummary(elapsed));
+		return ret;
+	}
+
+	private Map<String, LatencyRecorder> runThread(
+			final int thread,
+			final long seed,
+			final int warmup,
+			final int operations,
+			final CyclicBarrier warmedUp)
+			throws Exception {
+		final Random rand = new Random(seed);
+		final Map<String, LatencyRecorder> rec =
+				new LinkedHashMap<String, LatencyRecorder>();
+		for (final String op: OPERATIONS) {
+			rec.put(op, new LatencyRecorder());
+		}
+		for (int i = 0; i < warmup; i++) {
+			timeOperation(thread, i, rand, null);
+		}
+		warmedUp.await();
+		for (int i = warmup; i < warmup + operations; i++) {
+			timeOperation(thread, i, rand, rec);
+		}
+		return rec;
+	}
+
+	/* rec is null for warm up operations */
+	private void timeOperation(
+			final int thread,
+			final int i,
+			final Random rand,
+			final Map<String, LatencyRecorder> rec) {
+		final String op = operationMix.get(rand.nextInt(operationMix.size()));
+		final String saveName = "thread" + thread + "-" + i;
+		final long start = System.nanoTime();
+		final TempFilesManager.Request tempFiles = tfm.startRequest();
+		try {
+			runOperation(op, rand, saveName);
+			if (rec != null) {
+				rec.get(op).record(System.nanoTime() - start);
+			}
+		} catch (Exception e) {
+			if (rec != null) {
+				rec.get(op).recordError();
+			}
+			System.err.println(op + " failed: " + e);
+		} finally {
+			tempFiles.end();
+		}
+	}
+
+	/** Clean up any files created by the benchmark. */
+	public void destroy() {
+		tfm.cleanup();
+	}
+
+	@SuppressWarnings("unchecked")
+	public static void main(final String[] args) throws Exception {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println(
+					"Usage: WorkspaceBenchmark config.json [output.json]");
+			System.exit(1);
+		}
+		final Map<String, Object> config = MAP.readValue(
+				new File(args[0]), Map.class);
+		MongoController mongo = null;
+		String host = (String) config.get("mongo-host");
+		if (host == null || host.isEmpty()) {
+			final Object exe = config.get("mongo-exe");
+			if (exe == null) {
+				throw new IllegalArgumentException(
+						"Either mongo-host or mongo-exe must be provided");
+			}
+			mongo = new MongoController(exe.toString(),
+					Paths.get(config.get("temp-dir").toString()),
+					Boolean.TRUE.equals(config.get("mongo-wired-tiger")));
+			host = "localhost:" + mongo.getServerPort();
+		}
+		WorkspaceBenchmark bench = null;
+		try {
+			bench = new WorkspaceBenchmark(config, host);
+			bench.preload();
+			final Map<String, Object> res = bench.run();
+			final String out = MAP.copy()
+					.enable(SerializationFeature.INDENT_OUTPUT)
+					.writeValueAsString(res);
+			if (args.length == 2) {
+				FileUtils.writeStringToFile(new File(args[1]), out);
+			} else {
+				System.out.println(out);
+			}
+		} finally {
+			if (bench != null) {
+				bench.destroy();
+			}
+			if (mongo != null) {
+				mongo.destroy(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package us.kbase.workspace.test.scheduler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import us.kbase.workspace.scheduler.MethodClass;
+import us.kbase.workspace.scheduler.MethodPeekingRequest;
+import us.kbase.workspace.scheduler.MethodScheduler;
+import us.kbase.workspace.scheduler.MethodScheduler.Limits;
+import us.kbase.workspace.scheduler.OverloadedException;
+
+public class MethodSchedulerTest {
+
+	@Test
+	public void classify() throws Exception {
+		assertThat("incorrect class", MethodClass.forMethod(
+				"Workspace.get_objects2"), is(MethodClass.BULK_READ));
+		assertThat("incorrect class", MethodClass.forMethod("save_objects"),
+				is(MethodClass.BULK_WRITE));
+		assertThat("incorrect class", MethodClass.forMethod(
+				"Workspace.administer"), is(MethodClass.ADMIN));
+		assertThat("incorrect class", MethodClass.forMethod(
+				"Workspace.get_object_info3"), is(MethodClass.FAST));
+		assertThat("incorrect class", MethodClass.forMethod("foo"),
+				is(MethodClass.FAST));
+		assertThat("incorrect class", MethodClass.forMethod(null),
+				is(MethodClass.FAST));
+		assertThat("incorrect config name",
+				MethodClass.BULK_READ.getConfigName(), is("bulk-read"));
+		assertThat("incorrect label", MethodClass.BULK_READ.getLabel(),
+				is("bulk_read"));
+	}
+
+	@Test
+	public void admitAndReject() throws Exception {
+		final Map<MethodClass, Limits> limits =
+				new EnumMap<MethodClass, Limits>(MethodClass.class);
+		limits.put(MethodClass.BULK_READ, new Limits(1, 0));
+		final MethodScheduler s = new MethodScheduler(limits, 10);
+		s.acquire(MethodClass.BULK_READ);
+		assertThat("incorrect active", s.getActive(MethodClass.BULK_READ),
+				is(1));
+		try {
+			s.acquire(MethodClass.BULK_READ);
+			fail("admitted request over limit");
+		} catch (OverloadedException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("The server is overloaded with bulk_read requests (too many queued requests), please try again later"));
+			assertThat("incorrect class", e.getMethodClass(),
+					is(MethodClass.BULK_READ));
+		}
+		// other classes are unaffected
+		for (int i = 0; i < 10; i++) {
+			s.acquire(MethodClass.FAST);
+		}
+		assertThat("incorrect active", s.getActive(MethodClass.FAST), is(10));
+		s.release(MethodClass.BULK_READ);
+		s.acquire(MethodClass.BULK_READ);
+		s.release(MethodClass.BULK_READ);
+		assertThat("incorrect active", s.getActive(MethodClass.BULK_READ),
+				is(0));
+	}
+
+	@Test
+	public void queueTimeout() throws Exception {
+		final Map<MethodClass, Limits> limits =
+				new EnumMap<MethodClass, Limits>(MethodClass.class);
+		limits.put(MethodClass.ADMIN, new Limits(1, 1));
+		final MethodScheduler s = new MethodScheduler(limits, 10);
+		s.acquire(MethodClass.ADMIN);
+		try {
+			s.acquire(MethodClass.ADMIN);
+			fail("admitted request over limit");
+		} catch (OverloadedException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("The server is overloaded with admin requests (timed out while queued), please try again later"));
+		}
+		assertThat("incorrect queued", s.getQueued(MethodClass.ADMIN), is(0));
+	}
+
+	@Test
+	public void queuedRequestRuns() throws Exception {
+		final Map<MethodClass, Limits> limits =
+				new EnumMap<MethodClass, Limits>(MethodClass.class);
+		limits.put(MethodClass.BULK_WRITE, new Limits(1, 1));
+		final MethodScheduler s = new MethodScheduler(limits, 10000);
+		s.acquire(MethodClass.BULK_WRITE);
+		final Exception[] err = new Exception[1];
+		final Thread t = new Thread() {
+			@Override
+			public void run() {
+				try {
+					s.acquire(MethodClass.BULK_WRITE);
+				} catch (Exception e) {
+					err[0] = e;
+				}
+			}
+		};
+		t.start();
+		for (int i = 0; i < 100 && s.getQueued(MethodClass.BULK_WRITE) < 1;
+				i++) {
+			Thread.sleep(10);
+		}
+		assertThat("incorrect queued", s.getQueued(MethodClass.BULK_WRITE),
+				is(1));
+		s.release(MethodClass.BULK_WRITE);
+		t.join(10000);
+		assertThat("queued request failed", err[0], nullValue());
+		assertThat("incorrect active", s.getActive(MethodClass.BULK_WRITE),
+				is(1));
+	}
+
+	private static HttpServletRequest request(final String body) {
+		final ByteArrayInputStream bais =
+				new ByteArrayInputStream(body.getBytes());
+		final ServletInputStream sis = new ServletInputStream() {
+
+			@Override
+			public int read() throws IOException {
+				return bais.read();
+			}
+		};
+		return (HttpServletRequest) Proxy.newProxyInstance(
+				MethodSchedulerTest.class.getClassLoader(),
+				new Class<?>[] {HttpServletRequest.class},
+				new InvocationHandler() {
+
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args) {
+						if (method.getName().equals("getInputStream")) {
+							return sis;
+						}
+						return null;
+					}
+				});
+	}
+
+	private static void checkPeek(
+			final String body,
+			final int peekSize,
+			final String expectedMethod,
+			final boolean expectedExceeds)
+			throws Exception {
+		final MethodPeekingRequest r =
+				new MethodPeekingRequest(request(body), peekSize);
+		assertThat("incorrect method", r.getMethod(), is(expectedMethod));
+		assertThat("incorrect exceeds", r.bodyExceedsPeek(),
+				is(expectedExceeds));
+		assertThat("incorrect body", IOUtils.toString(r.getInputStream()),
+				is(body));
+	}
+
+	@Test
+	public void peek() throws Exception {
+		final String methodFirst = "{\"method\": \"Workspace.save_objects\"," +
+				" \"params\": [{\"id\": 1, \"objects\": [{\"data\": {}}]}]}";
+		checkPeek(methodFirst, 40, "Workspace.save_objects", true);
+		checkPeek(methodFirst, 1000, "Workspace.save_objects", false);
+		final String paramsFirst = "{\"params\": [{\"id\": 1, \"objects\": " +
+				"[{\"data\": {\"method\": \"foo\"}}]}], \"method\": " +
+				"\"Workspace.save_objects\", \"id\": \"3\"}";
+		checkPeek(paramsFirst, 40, null, true);
+		checkPeek(paramsFirst, 1000, "Workspace.save_objects", false);
+		checkPeek("{\"method\": 1}", 1000, null, false);
+		checkPeek("[\"method\"]", 1000, null, false);
+		checkPeek("", 1000, null, false);
+	}
+}
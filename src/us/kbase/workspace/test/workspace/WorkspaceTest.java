@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static us.kbase.common.test.TestCommon.assertExceptionCorrect;
 
 import java.io.File;
 import java.io.StringReader;
@@ -4134,6 +4135,89 @@ public class WorkspaceTest extends WorkspaceTester {
 				", name copyrevert2, is locked and may not be modified", null));
 	}
 
+	@Test
+	public void copyObjects() throws Exception {
+		WorkspaceUser user1 = new WorkspaceUser("foo");
+		WorkspaceUser user2 = new WorkspaceUser("bar");
+		setUpCopyWorkspaces(user1, user2, "copyobjsrefs", "copyobjs1",
+				"copyobjs2");
+		WorkspaceIdentifier cp1 = new WorkspaceIdentifier("copyobjs1");
+		WorkspaceIdentifier cp3 = new WorkspaceIdentifier("copyobjs3");
+		long wsid1 = ws.getWorkspaceInformation(user1, cp1).getId();
+		long wsid3 = ws.createWorkspace(user1, cp3.getName(), false, null,
+				null).getId();
+		Date cp1LastDate = ws.getWorkspaceInformation(user1, cp1).getModDate();
+		Date cp3LastDate = ws.getWorkspaceInformation(user1, cp3).getModDate();
+		
+		List<ObjectInformation> orig = ws.getObjectHistory(user1,
+				new ObjectIdentifier(cp1, "orig"));
+		List<ObjectInformation> hide = ws.getObjectHistory(user1,
+				new ObjectIdentifier(cp1, "hide"));
+		
+		List<ObjectInformation> copied = ws.copyObjects(user1,
+				Arrays.asList(new ObjectIdentifier(cp1, "orig"),
+						new ObjectIdentifier(cp1, "orig", 2),
+						new ObjectIdentifier(cp1, "hide", 3),
+						new ObjectIdentifier(cp1, "orig")),
+				Arrays.asList(new ObjectIdentifier(cp3, "a"),
+						new ObjectIdentifier(cp3, "b"),
+						new ObjectIdentifier(cp1, "orig"),
+						new ObjectIdentifier(cp1, "c")));
+		cp1LastDate = assertWorkspaceDateUpdated(user1, cp1, cp1LastDate,
+				"ws date updated on copy");
+		cp3LastDate = assertWorkspaceDateUpdated(user1, cp3, cp3LastDate,
+				"ws date updated on copy");
+		assertThat("incorrect copy count", copied.size(), is(4));
+		compareObjectAndInfo(orig.get(2), copied.get(0), user1, wsid3,
+				cp3.getName(), 1, "a", 3);
+		compareObjectAndInfo(orig.get(1), copied.get(1), user1, wsid3,
+				cp3.getName(), 2, "b", 1);
+		compareObjectAndInfo(hide.get(2), copied.get(2), user1, wsid1,
+				cp1.getName(), 2, "orig", 4);
+		compareObjectAndInfo(orig.get(2), copied.get(3), user1, wsid1,
+				cp1.getName(), 4, "c", 3);
+		List<ObjectInformation> copystack = ws.getObjectHistory(user1,
+				new ObjectIdentifier(cp3, "a"));
+		for (int i = 0; i < 3; i++) {
+			compareObjectAndInfo(orig.get(i), copystack.get(i), user1, wsid3,
+					cp3.getName(), 1, "a", i + 1);
+		}
+		copystack = ws.getObjectHistory(user1, new ObjectIdentifier(cp1, "c"));
+		for (int i = 0; i < 3; i++) {
+			compareObjectAndInfo(orig.get(i), copystack.get(i), user1, wsid1,
+					cp1.getName(), 4, "c", i + 1);
+		}
+		assertThat("incorrect copy reference", ws.getObjects(user1, Arrays.asList(
+				new ObjectIdentifier(cp3, "b")), true).get(0).getCopyReference(),
+				is(new Reference(wsid1, 2, 2)));
+		checkUnhiddenObjectCount(user1, cp3, 4, 4);
+		
+		try {
+			ws.copyObjects(user1,
+					Arrays.asList(new ObjectIdentifier(cp1, "orig"),
+							new ObjectIdentifier(cp1, "hide")),
+					Arrays.asList(new ObjectIdentifier(cp3, "d"),
+							new ObjectIdentifier(cp3, "d")));
+			fail("copied objects to the same destination");
+		} catch (Exception e) {
+			assertExceptionCorrect(e, new IllegalArgumentException(
+					"Copy #2 has the same destination as an earlier copy"));
+		}
+		try {
+			ws.copyObjects(user1,
+					Arrays.asList(new ObjectIdentifier(cp1, "orig"),
+							new ObjectIdentifier(cp1, "hide")),
+					Arrays.asList(new ObjectIdentifier(cp3, "d"),
+							new ObjectIdentifier(cp3, 42)));
+			fail("copied objects to a missing object id");
+		} catch (Exception e) {
+			assertExceptionCorrect(e, new NoSuchObjectException(
+					"Copy destination is specified as object id 42 in workspace " +
+					wsid3 + " which does not exist.", null));
+		}
+		checkUnhiddenObjectCount(user1, cp3, 4, 4);
+	}
+	
 	private void checkUnhiddenObjectCount(WorkspaceUser user,
 			WorkspaceIdentifier wsi, int unhidden, int all)
 			throws Exception {
@@ -4877,6 +4961,75 @@ public class WorkspaceTest extends WorkspaceTester {
 						"workspace with id " + wsid1 + ", name renameObj, is locked and may " +
 						"not be modified", null));
 	}
+	
+	@Test
+	public void renameObjects() throws Exception {
+		WorkspaceUser user = new WorkspaceUser("renameObjsUser");
+		WorkspaceIdentifier wsi = new WorkspaceIdentifier("renameObjs");
+		WorkspaceIdentifier wsi2 = new WorkspaceIdentifier("renameObjs2");
+		long wsid1 = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		ws.createWorkspace(user, wsi2.getName(), false, null, null);
+		for (String name: Arrays.asList("a", "b", "c")) {
+			ws.saveObjects(user, wsi, Arrays.asList(new WorkspaceSaveObject(
+					new ObjectIDNoWSNoVer(name), new HashMap<String, String>(),
+					SAFE_TYPE1, null, new Provenance(user), false)), getIdFactory());
+		}
+		ws.saveObjects(user, wsi2, Arrays.asList(new WorkspaceSaveObject(
+				new ObjectIDNoWSNoVer("a"), new HashMap<String, String>(),
+				SAFE_TYPE1, null, new Provenance(user), false)), getIdFactory());
+		Date lastWSDate = ws.getWorkspaceInformation(user, wsi).getModDate();
+		Date lastWSDate2 = ws.getWorkspaceInformation(user, wsi2).getModDate();
+		
+		List<ObjectInformation> info = ws.renameObjects(user, Arrays.asList(
+				new ObjectIdentifier(wsi, "a"), new ObjectIdentifier(wsi, 2),
+				new ObjectIdentifier(wsi2, "a")),
+				Arrays.asList("x", "y", "z"));
+		assertWorkspaceDateUpdated(user, wsi, lastWSDate, "ws date updated on rename");
+		assertWorkspaceDateUpdated(user, wsi2, lastWSDate2, "ws date updated on rename");
+		assertThat("incorrect info count", info.size(), is(3));
+		checkObjInfo(info.get(0), 1L, "x", SAFE_TYPE1.getTypeString(), 1, user, wsid1,
+				"renameObjs", "99914b932bd37a50b983c5e7c90ae93b", 2, null,
+				Arrays.asList(new Reference(wsid1, 1, 1)));
+		assertThat("incorrect name", info.get(1).getObjectName(), is("y"));
+		assertThat("incorrect id", info.get(1).getObjectId(), is(2L));
+		assertThat("incorrect name", info.get(2).getObjectName(), is("z"));
+		assertThat("incorrect name", ws.getObjectInformation(user, Arrays.asList(
+				new ObjectIdentifier(wsi, 3)), false, false).get(0).getObjectName(),
+				is("c"));
+		
+		failObjRenames(user, Arrays.asList(new ObjectIdentifier(wsi, "x"),
+				new ObjectIdentifier(wsi, "y")), Arrays.asList("foo", "foo"),
+				new IllegalArgumentException(String.format(
+						"Multiple objects in workspace %s cannot be renamed to foo",
+						wsid1)));
+		failObjRenames(user, Arrays.asList(new ObjectIdentifier(wsi, "x"),
+				new ObjectIdentifier(wsi, 1)), Arrays.asList("foo", "bar"),
+				new IllegalArgumentException(String.format(
+						"Object 1 in workspace %s cannot be renamed more than once",
+						wsid1)));
+		failObjRenames(user, Arrays.asList(new ObjectIdentifier(wsi, "x")),
+				Arrays.asList("c"), new IllegalArgumentException(
+						"There is already an object in the workspace named c"));
+		failObjRenames(user, Arrays.asList(new ObjectIdentifier(wsi, "x")),
+				Arrays.asList("bad%name"), new IllegalArgumentException(
+						"Illegal character in object name bad%name: %"));
+		failObjRenames(user, Arrays.asList(new ObjectIdentifier(wsi, "x")),
+				Arrays.asList("foo", "bar"), new IllegalArgumentException(
+						"The number of objects to rename and new names must match"));
+		assertThat("incorrect name", ws.getObjectInformation(user, Arrays.asList(
+				new ObjectIdentifier(wsi, 1)), false, false).get(0).getObjectName(),
+				is("x"));
+	}
+	
+	private void failObjRenames(WorkspaceUser user, List<ObjectIdentifier> objs,
+			List<String> names, Exception e) {
+		try {
+			ws.renameObjects(user, objs, names);
+			fail("renamed objects with bad args");
+		} catch (Exception exp) {
+			assertExceptionCorrect(exp, e);
+		}
+	}
 
 	@Test
 	public void renameWorkspace() throws Exception {
@@ -5239,6 +5392,46 @@ public class WorkspaceTest extends WorkspaceTester {
 		
 	}
 	
+	@Test
+	public void listWorkspacesPaged() throws Exception {
+		WorkspaceUser u = new WorkspaceUser("listwspaged");
+		WorkspaceUser u2 = new WorkspaceUser("listwspaged2");
+		WorkspaceInformation i1 = ws.createWorkspace(u, "listwspaged1", false, null, null);
+		ws.createWorkspace(u2, "listwspaged2", false, null, null);
+		ws.setPermissions(u2, new WorkspaceIdentifier("listwspaged2"), Arrays.asList(u), Permission.READ);
+		WorkspaceInformation i2 = ws.getWorkspaceInformation(u, new WorkspaceIdentifier("listwspaged2"));
+		ws.createWorkspace(u2, "listwspaged3", false, null, null);
+		ws.createWorkspace(u2, "listwspaged4", true, null, null);
+		WorkspaceInformation i4 = ws.getWorkspaceInformation(u, new WorkspaceIdentifier("listwspaged4"));
+		WorkspaceInformation i5 = ws.createWorkspace(u, "listwspaged5", false, null, null);
+		ws.createWorkspace(u, "listwspaged6", false, null, null);
+		ws.setWorkspaceDeleted(u, new WorkspaceIdentifier("listwspaged6"), true);
+		WorkspaceInformation i7 = ws.createWorkspace(u, "listwspaged7", false, null, null);
+		long min = i1.getId();
+		
+		assertThat("incorrect page", ws.listWorkspaces(u, null, null, null, null, null,
+				false, false, false, min, 2), is(Arrays.asList(i1, i2)));
+		assertThat("incorrect page", ws.listWorkspaces(u, null, null, null, null, null,
+				false, false, false, i2.getId() + 1, 2), is(Arrays.asList(i4, i5)));
+		assertThat("incorrect page", ws.listWorkspaces(u, null, null, null, null, null,
+				false, false, false, i5.getId() + 1, 2), is(Arrays.asList(i7)));
+		assertThat("incorrect page", ws.listWorkspaces(u, null, null, null, null, null,
+				false, false, false, i7.getId() + 1, 2),
+				is((List<WorkspaceInformation>) new ArrayList<WorkspaceInformation>()));
+		assertThat("incorrect page", ws.listWorkspaces(u, null, null, null, null, null,
+				false, false, false, min, -1), is(Arrays.asList(i1, i2, i4, i5, i7)));
+		assertThat("incorrect page", ws.listWorkspaces(u, null, null, null, null, null,
+				true, false, false, min, 3), is(Arrays.asList(i1, i2, i5)));
+		assertThat("incorrect page", ws.listWorkspaces(u, Permission.WRITE, null, null, null, null,
+				false, false, false, min, 10), is(Arrays.asList(i1, i5, i7)));
+		List<WorkspaceInformation> anon = ws.listWorkspaces(null, null, null, null, null, null,
+				false, false, false, min, 10);
+		assertThat("incorrect page size", anon.size(), is(1));
+		assertThat("incorrect workspace", anon.get(0).getId(), is(i4.getId()));
+		assertThat("incorrect page", ws.listWorkspaces(u, null, Arrays.asList(u2), null, null,
+				null, false, false, false, min, 1), is(Arrays.asList(i2)));
+	}
+	
 	@Test
 	public void listObjectsWithDeletedObjects() throws Exception {
 		/* Test that deleted objects only show up in the objects list when 
@@ -5699,6 +5892,35 @@ public class WorkspaceTest extends WorkspaceTester {
 				ws.getObjectHistory(user2, new ObjectIdentifier(writeable, "stdws2")),
 				is(Arrays.asList(stdws2)));
 		
+		final ObjectIdentifier t2 = new ObjectIdentifier(wsi, "type2");
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, null, null, false, 0),
+				is(Arrays.asList(type2_1, type2_2, type2_3, type2_4)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, null, null, true, 20000),
+				is(Arrays.asList(type2_4, type2_3, type2_2, type2_1)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, null, null, false, 2),
+				is(Arrays.asList(type2_1, type2_2)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, 3, null, false, 2),
+				is(Arrays.asList(type2_3, type2_4)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, 5, null, false, 2),
+				is((List<ObjectInformation>) new LinkedList<ObjectInformation>()));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, null, null, true, 3),
+				is(Arrays.asList(type2_4, type2_3, type2_2)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, null, 1, true, 3),
+				is(Arrays.asList(type2_1)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, 2, 3, true, 0),
+				is(Arrays.asList(type2_3, type2_2)));
+		assertThat("correct object history page for type2",
+				ws.getObjectHistory(user, t2, 2, 2, false, 0),
+				is(Arrays.asList(type2_2)));
+		
 		failGetObjectHistory(user, new ObjectIdentifier(wsi, "booger"), new NoSuchObjectException(
 				"No object with name booger exists in workspace 1 (name listObj1)", null));
 		failGetObjectHistory(user, new ObjectIdentifier(new WorkspaceIdentifier("listObjectsfake"), "booger"),
@@ -5710,6 +5932,15 @@ public class WorkspaceTest extends WorkspaceTester {
 		failGetObjectHistory(user2, new ObjectIdentifier(wsi, 3),
 				new InaccessibleObjectException("Object 3 cannot be accessed: User listObjUser2 " +
 						"may not read workspace listObj1", null));
+		failGetObjectHistory(user, t2, 0, null, new IllegalArgumentException(
+				"Minimum version must be greater than 0"));
+		failGetObjectHistory(user, t2, null, 0, new IllegalArgumentException(
+				"Maximum version must be greater than 0"));
+		failGetObjectHistory(user, t2, 3, 2, new IllegalArgumentException(
+				"Minimum version cannot be greater than maximum version"));
+		failGetObjectHistory(user2, t2, 1, 2, new InaccessibleObjectException(
+				"Object type2 cannot be accessed: User listObjUser2 " +
+				"may not read workspace listObj1", null));
 		failGetObjectHistory(null, new ObjectIdentifier(wsi, 3),
 				new InaccessibleObjectException("Object 3 cannot be accessed: Anonymous users " +
 						"may not read workspace listObj1", null));
@@ -5890,6 +6121,73 @@ public class WorkspaceTest extends WorkspaceTester {
 				Arrays.asList("aaa", "aba", "abc"), wsi2n));
 		checkGetByPrefixLimit(u, Arrays.asList(wsi1, wsi2), 2, 2, Arrays.asList(
 				Arrays.asList("aaa", "aba", "abc"), wsi2n));
+		
+		//the first names in name order are returned, sorted
+		assertThat("incorrect names", ws.getNamesByPrefix(u,
+				Arrays.asList(wsi2, wsi1), "a", false, 2),
+				is(Arrays.asList(new LinkedList<String>(),
+						Arrays.asList("aaa", "aba"))));
+		assertThat("incorrect names", ws.getNamesByPrefix(u,
+				Arrays.asList(wsi2, wsi1), "", false, 4),
+				is(Arrays.asList(Arrays.asList("aca"),
+						Arrays.asList("aaa", "aba", "abc"))));
+	}
+	
+	@Test
+	public void getNamesByPrefixHidden() throws Exception {
+		WorkspaceUser u = new WorkspaceUser("getNamesByPrefix");
+		WorkspaceIdentifier wsi1 = new WorkspaceIdentifier("getNamesByPrefix1");
+		WorkspaceIdentifier wsi2 = new WorkspaceIdentifier("getNamesByPrefix2");
+		for (WorkspaceIdentifier wi: Arrays.asList(wsi1, wsi2)) {
+			ws.createWorkspace(u, wi.getName(), false, null, null);
+		}
+		Map<String, String> mt = new HashMap<String, String>();
+		Provenance p = new Provenance(u);
+		
+		// enough names to read the wsi1 cursors past their first batch
+		List<WorkspaceSaveObject> objs = new LinkedList<WorkspaceSaveObject>();
+		List<String> visible = new LinkedList<String>();
+		List<String> all = new LinkedList<String>();
+		for (int i = 10; i < 40; i++) {
+			boolean hide = i % 3 == 0;
+			objs.add(new WorkspaceSaveObject(new ObjectIDNoWSNoVer("b" + i),
+					mt, SAFE_TYPE1, null, p, hide));
+			all.add("b" + i);
+			if (!hide) {
+				visible.add("b" + i);
+			}
+		}
+		ws.saveObjects(u, wsi1, objs, getIdFactory());
+		ws.saveObjects(u, wsi2, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a1"), mt,
+						SAFE_TYPE1, null, p, true),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("b105"), mt,
+						SAFE_TYPE1, null, p, true),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("b125"), mt,
+						SAFE_TYPE1, null, p, false)
+				), getIdFactory());
+		
+		List<WorkspaceIdentifier> wsis = Arrays.asList(wsi1, wsi2);
+		assertThat("incorrect names", ws.getNamesByPrefix(u, wsis, "b",
+				false, 0), is(Arrays.asList(visible, Arrays.asList("b125"))));
+		assertThat("incorrect names", ws.getNamesByPrefix(u, wsis, "b",
+				true, 0), is(Arrays.asList(all,
+						Arrays.asList("b105", "b125"))));
+		
+		// hidden and visible names are merged in name order
+		assertThat("incorrect names", ws.getNamesByPrefix(u, wsis, "",
+				true, 4), is(Arrays.asList(Arrays.asList("b10", "b11"),
+						Arrays.asList("a1", "b105"))));
+		assertThat("incorrect names", ws.getNamesByPrefix(u, wsis, "b1",
+				true, 6), is(Arrays.asList(
+						Arrays.asList("b10", "b11", "b12", "b13"),
+						Arrays.asList("b105", "b125"))));
+		assertThat("incorrect names", ws.getNamesByPrefix(u, wsis, "b1",
+				false, 4), is(Arrays.asList(Arrays.asList("b10", "b11", "b13"),
+						Arrays.asList("b125"))));
+		assertThat("incorrect names", ws.getNamesByPrefix(u, wsis, "b",
+				true, 25), is(Arrays.asList(all.subList(0, 23),
+						Arrays.asList("b105", "b125"))));
 	}
 	
 	private void checkGetByPrefixLimit(
@@ -1863,6 +1863,20 @@ public class WorkspaceTester {
 			assertExceptionCorrect(exp, e);
 		}
 	}
+	
+	protected void failGetObjectHistory(
+			final WorkspaceUser user,
+			final ObjectIdentifier oi,
+			final Integer minVersion,
+			final Integer maxVersion,
+			final Exception e) {
+		try {
+			ws.getObjectHistory(user, oi, minVersion, maxVersion, false, 0);
+			fail("listed obj hist when should fail");
+		} catch (Exception exp) {
+			assertExceptionCorrect(exp, e);
+		}
+	}
 
 	protected void failListObjects(
 			final WorkspaceUser user,
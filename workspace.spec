@@ -1118,6 +1118,36 @@ module Workspace {
 	funcdef get_object_history(ObjectIdentity object)
 		 returns (list<object_info> history) authentication optional;
 	
+	/* Input parameters for the get_object_history2 function.
+	
+		Required parameters:
+		ObjectIdentity obj - the object for which to return the version
+			history. The version, if any, is ignored.
+			
+		Optional parameters:
+		obj_ver min_ver - the earliest version to return, inclusive.
+		obj_ver max_ver - the latest version to return, inclusive.
+		boolean newest_first - return versions from the newest to the
+			oldest rather than from the oldest to the newest. Default false.
+		int limit - the maximum number of versions to return. If the limit
+			is less than 1 or greater than 10000, it is set to 10000.
+	*/
+	typedef structure {
+		ObjectIdentity obj;
+		obj_ver min_ver;
+		obj_ver max_ver;
+		boolean newest_first;
+		int limit;
+	} GetObjectHistory2Params;
+	
+	/* 
+		Get a page of an object's history. To get the next page, set min_ver
+		to one more than the last version returned, or, if newest_first is
+		true, set max_ver to one less than the last version returned.
+	*/
+	funcdef get_object_history2(GetObjectHistory2Params params)
+		returns (list<object_info> history) authentication optional;
+	
 	/* 
 		List objects that reference one or more specified objects. References
 		in the deleted state are not returned.
@@ -1217,6 +1247,15 @@ module Workspace {
 			user.
 		boolean showOnlyDeleted - only show deleted workspaces that are owned
 			by the user.
+		ws_id minWorkspaceID - only return workspaces with an id greater or
+			equal to this value.
+		int limit - limit the output to X workspaces. Limit values < 1 are
+			treated as no limit.
+		
+		If either minWorkspaceID or limit is supplied, the workspaces are
+		returned in ascending order of their ids. To retrieve the next page of
+		results, set minWorkspaceID to one more than the id of the last
+		workspace returned.
 		
 	*/
 	typedef structure { 
@@ -1230,6 +1269,8 @@ module Workspace {
 		boolean excludeGlobal;
 		boolean showDeleted;
 		boolean showOnlyDeleted;
+		ws_id minWorkspaceID;
+		int limit;
 	} ListWorkspaceInfoParams;
 	
 	/*
@@ -1498,6 +1539,17 @@ module Workspace {
 	*/
 	funcdef rename_object(RenameObjectParams params)
 		returns(object_info renamed) authentication required;
+	
+	/* 
+		Rename multiple objects. Each RenameObjectParams is interpreted in
+		the same way as for rename_object. The objects are renamed in bulk and
+		the renames are not atomic; if an error occurs some of the objects may
+		have been renamed. Returns the object_info for each renamed object, in
+		the same order as the input. At most 10000 objects may be renamed per
+		call. User meta data is always returned as null.
+	*/
+	funcdef rename_objects(list<RenameObjectParams> objects)
+		returns(list<object_info> renamed) authentication required;
 		
 	/* Input parameters for the 'copy_object' function. 
 	
@@ -1523,6 +1575,16 @@ module Workspace {
 	funcdef copy_object(CopyObjectParams params)
 		returns(object_info copied) authentication required;
 	
+	/* 
+		Copy multiple objects. Each CopyObjectParams is interpreted in the
+		same way as for copy_object, and each copy must have a distinct
+		destination. Returns the object_info for the newest version of each
+		copy, in the same order as the input. At most 10000 objects may be
+		copied per call.
+	*/
+	funcdef copy_objects(list<CopyObjectParams> objects)
+		returns(list<object_info> copied) authentication required;
+	
 	/* Revert an object.
 	
 		The object specified in the ObjectIdentity is reverted to the version
@@ -1610,6 +1672,71 @@ module Workspace {
 	funcdef undelete_workspace(WorkspaceIdentity wsi) returns()
 		authentication required;
 	
+	/* **************** Background job functions ******************** */
+	
+	/* The unique ID of a background job. */
+	typedef string job_id;
+	
+	/* Information about a background job.
+		
+		job_id id - the ID of the job.
+		string type - the type of the job, e.g. clone_workspace.
+		username user - the user that submitted the job.
+		string state - the state of the job. One of 'queued', 'running',
+			'complete', 'failed', or 'canceled'.
+		timestamp submitted - the time the job was submitted.
+		timestamp started - the time the job last started running, if any.
+		timestamp finished - the time the job completed, failed or was
+			canceled, if any.
+		UnspecifiedObject result - the result of a completed job. The result
+			is the same as the return value of the equivalent synchronous
+			method, e.g. the workspace_info for a clone_workspace job.
+		string error - the reason the job failed, if it failed.
+		
+		Information about finished jobs is retained for 30 days.
+	*/
+	typedef structure {
+		job_id id;
+		string type;
+		username user;
+		string state;
+		timestamp submitted;
+		timestamp started;
+		timestamp finished;
+		UnspecifiedObject result;
+		string error;
+	} JobInfo;
+	
+	/* 
+		Clone a workspace in the background. The parameters are checked and
+		the job is queued immediately; poll get_job_info until the job
+		finishes to get the workspace_info of the new workspace.
+	*/
+	funcdef clone_workspace_async(CloneWorkspaceParams params)
+		returns (JobInfo job) authentication required;
+	
+	/* 
+		Copy multiple objects in the background. The objects are interpreted
+		in the same way as for copy_objects. The parameters are checked and
+		the job is queued immediately; poll get_job_info until the job
+		finishes to get the object_info for the copies.
+	*/
+	funcdef copy_objects_async(list<CopyObjectParams> objects)
+		returns (JobInfo job) authentication required;
+	
+	/*
+		Get information about a background job submitted by the user.
+	*/
+	funcdef get_job_info(job_id id) returns (JobInfo job)
+		authentication required;
+	
+	/*
+		Cancel a queued background job submitted by the user. Jobs that are
+		running cannot be canceled. Canceling a finished job has no effect.
+	*/
+	funcdef cancel_job(job_id id) returns (JobInfo job)
+		authentication required;
+	
 	/* **************** Type registering functions ******************** */
 	
 	/* A type specification (typespec) file in the KBase Interface Description